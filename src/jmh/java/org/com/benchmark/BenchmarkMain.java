@@ -0,0 +1,22 @@
+package org.com.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so allocation rate (gc.alloc.rate.norm) is reported next to
+ * throughput and average time. An optional argument narrows the run to benchmarks matching the regex.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : BenchmarkMain.class.getPackageName() + ".*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
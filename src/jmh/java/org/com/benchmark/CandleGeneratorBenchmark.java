@@ -0,0 +1,46 @@
+package org.com.benchmark;
+
+import org.com.model.Candle;
+import org.com.service.CandleGenerator;
+import org.openjdk.jmh.annotations.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tick folding and minute close: one operation records a whole minute of ticks and closes its candle
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CandleGeneratorBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int ticksPerMinute;
+
+    private CandleGenerator generator;
+    private double[] prices;
+    private long minute;
+
+    @Setup
+    public void setUp() {
+        generator = new CandleGenerator();
+        prices = new double[ticksPerMinute];
+        Random random = new Random(42);
+        double price = 50_000;
+        for (int i = 0; i < ticksPerMinute; i++) {
+            price += random.nextGaussian();
+            prices[i] = price;
+        }
+    }
+
+    @Benchmark
+    public Candle recordMinuteAndGenerateCandle() {
+        for (double price : prices) {
+            generator.recordTick(price);
+        }
+        return generator.generateCandle("BTC/USD", minute += 60);
+    }
+}
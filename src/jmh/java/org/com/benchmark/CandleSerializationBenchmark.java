@@ -0,0 +1,72 @@
+package org.com.benchmark;
+
+import org.com.kafka.CandleDeserializer;
+import org.com.kafka.CandleJsonSerializer;
+import org.com.kafka.CandleSerializer;
+import org.com.model.Candle;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record cost of the candle value formats used by CandleKafkaProducer and CandleKafkaConsumer
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CandleSerializationBenchmark {
+    private static final String TOPIC = "candle-data";
+
+    private Candle candle;
+    private CandleJsonSerializer jsonSerializer;
+    private CandleSerializer binarySerializer;
+    private CandleDeserializer deserializer;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() {
+        SymbolRegistry symbols = new SymbolRegistry(List.of("BTC/USD", "ETH/USD"));
+        candle = Candle.builder()
+                .symbol("BTC/USD")
+                .timeframe(Timeframe.M1)
+                .open(50_000.1)
+                .high(50_010.5)
+                .low(49_990.2)
+                .close(50_003.7)
+                .ticks(1234)
+                .build();
+        candle.setTimestampAndInstant(1_700_000_040L);
+
+        jsonSerializer = new CandleJsonSerializer();
+        binarySerializer = new CandleSerializer(symbols);
+        deserializer = new CandleDeserializer(symbols);
+        json = jsonSerializer.serialize(TOPIC, candle);
+        binary = binarySerializer.serialize(TOPIC, candle);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return jsonSerializer.serialize(TOPIC, candle);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return binarySerializer.serialize(TOPIC, candle);
+    }
+
+    @Benchmark
+    public Candle deserializeJson() {
+        return deserializer.deserialize(TOPIC, json);
+    }
+
+    @Benchmark
+    public Candle deserializeBinary() {
+        return deserializer.deserialize(TOPIC, binary);
+    }
+}
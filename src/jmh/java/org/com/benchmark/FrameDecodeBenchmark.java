@@ -0,0 +1,61 @@
+package org.com.benchmark;
+
+import org.com.client.KrakenBookDecoder;
+import org.com.model.SymbolRegistry;
+import org.com.service.BookShard;
+import org.com.service.CandleGenerator;
+import org.com.service.InstrumentState;
+import org.com.model.Timeframe;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame hot path behind WebSocketClientImpl.processMessage: streaming decode of a Kraken book frame applied
+ * straight to the owning shard's book, without the pipeline hand-off
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameDecodeBenchmark {
+    private String snapshot;
+    private String update;
+    private KrakenBookDecoder decoder;
+    private InstrumentState instrument;
+
+    @Setup
+    public void setUp() throws IOException {
+        snapshot = fixture("test_snapshot.json");
+        update = fixture("test_update_bids.json");
+
+        SymbolRegistry symbols = new SymbolRegistry(List.of("BTC/USD"));
+        instrument = new InstrumentState(0, "BTC/USD", 10, List.of(Timeframe.M1), new CandleGenerator(), null);
+        decoder = new KrakenBookDecoder(symbols, new BookShard(0, new InstrumentState[]{instrument}));
+        decoder.decode(snapshot);
+    }
+
+    @Benchmark
+    public boolean snapshot() throws IOException {
+        return decoder.decode(snapshot);
+    }
+
+    @Benchmark
+    public boolean update() throws IOException {
+        return decoder.decode(update);
+    }
+
+    static String fixture(String name) throws IOException {
+        try (InputStream in = FrameDecodeBenchmark.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Fixture not found on the classpath: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
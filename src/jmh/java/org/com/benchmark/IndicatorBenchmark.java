@@ -0,0 +1,69 @@
+package org.com.benchmark;
+
+import org.com.indicator.IndicatorEngine;
+import org.com.indicator.IndicatorPeriods;
+import org.com.model.Candle;
+import org.com.model.IndicatorValues;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Indicator warm-up over a history, in a JVM with and without the Vector API module, and the O(1) update
+ * of a single closed candle
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndicatorBenchmark {
+    private static final String SYMBOL = "BTC/USD";
+
+    @Param({"1000", "100000"})
+    public int historyCandles;
+
+    private IndicatorEngine engine;
+    private List<Candle> history;
+    private Candle next;
+
+    @Setup
+    public void setUp() {
+        engine = new IndicatorEngine(new SymbolRegistry(List.of(SYMBOL)), new IndicatorPeriods(20, 14, 14, 20, 2, 20));
+        history = new ArrayList<>(historyCandles);
+        Random random = new Random(42);
+        double price = 50_000;
+        for (int i = 0; i < historyCandles; i++) {
+            double open = price;
+            price += random.nextGaussian() * 20;
+            history.add(Candle.builder().symbol(SYMBOL).timeframe(Timeframe.M1).timestamp(i * 60L)
+                    .open(open).high(Math.max(open, price) + 5).low(Math.min(open, price) - 5).close(price)
+                    .ticks(100 + random.nextInt(900)).build());
+        }
+        next = history.get(historyCandles - 1);
+        engine.warmUp(SYMBOL, Timeframe.M1, history);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    public IndicatorValues warmUpVector() {
+        engine.warmUp(SYMBOL, Timeframe.M1, history);
+        return engine.getLatest(SYMBOL, Timeframe.M1);
+    }
+
+    @Benchmark
+    public IndicatorValues warmUpScalar() {
+        engine.warmUp(SYMBOL, Timeframe.M1, history);
+        return engine.getLatest(SYMBOL, Timeframe.M1);
+    }
+
+    @Benchmark
+    public IndicatorValues updateOneCandle() {
+        return engine.onCandle(next);
+    }
+}
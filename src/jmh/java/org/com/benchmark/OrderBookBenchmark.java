@@ -0,0 +1,70 @@
+package org.com.benchmark;
+
+import org.com.service.OrderBook;
+import org.com.util.FixedPoint;
+import org.openjdk.jmh.annotations.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Book delta application (update, delete and re-insert of levels) and mid-price reads at increasing depths
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderBookBenchmark {
+    private static final int UPDATES = 4096;
+
+    @Param({"10", "100", "1000"})
+    public int depth;
+
+    private OrderBook book;
+    private final long[] prices = new long[UPDATES];
+    private final long[] quantities = new long[UPDATES];
+    private final boolean[] bids = new boolean[UPDATES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        book = new OrderBook(depth);
+        long tick = FixedPoint.toFixed(0.1);
+        long mid = FixedPoint.toFixed(50_000);
+        for (int level = 1; level <= depth; level++) {
+            book.updateBid(mid - level * tick, FixedPoint.toFixed(1));
+            book.updateAsk(mid + level * tick, FixedPoint.toFixed(1));
+        }
+
+        // Deltas land inside the book; every fourth removes its level, which a later delta re-inserts
+        Random random = new Random(42);
+        for (int i = 0; i < UPDATES; i++) {
+            bids[i] = random.nextBoolean();
+            long offset = (1 + random.nextInt(depth)) * tick;
+            prices[i] = bids[i] ? mid - offset : mid + offset;
+            quantities[i] = i % 4 == 0 ? 0 : FixedPoint.toFixed(random.nextInt(1000) / 100.0 + 0.01);
+        }
+    }
+
+    @Benchmark
+    public void applyDelta() {
+        int i = next++ & (UPDATES - 1);
+        if (bids[i]) {
+            book.updateBid(prices[i], quantities[i]);
+        } else {
+            book.updateAsk(prices[i], quantities[i]);
+        }
+    }
+
+    @Benchmark
+    public double applyDeltaAndMidPrice() {
+        applyDelta();
+        return book.getMidPrice();
+    }
+
+    @Benchmark
+    public double midPrice() {
+        return book.getMidPrice();
+    }
+}
@@ -0,0 +1,201 @@
+package org.com.simulator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.client.WebSocketClientImpl;
+import org.com.config.AppConfig;
+import org.com.metrics.IngestMetrics;
+import org.com.model.Candle;
+import org.com.model.CandlePool;
+import org.com.model.SymbolRegistry;
+import org.com.service.InstrumentState;
+import org.com.service.ShardedBookProcessor;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Sustained-load test of the ingest path: starts a {@link KrakenSimulator} on localhost, points the real
+ * {@link WebSocketClientImpl} and {@link ShardedBookProcessor} at it and closes candles every minute as the
+ * application does. Kafka is left out, so the numbers are those of the feed, pipeline, books and candles alone.
+ * Every second it logs the send and receive rates, ticks, drops and heap; at the end the sustained throughput,
+ * per-stage latency percentiles over the whole run (exchange_to_receive is simulator send to client receive),
+ * allocation rate and GC activity.
+ * <p>
+ * Settings are the usual application properties, so e.g. {@code -Dkraken.workers=4} applies; the simulated
+ * symbols, URL and depth are set by the test.
+ * <p>
+ * Usage: {@code KrakenLoadTest [symbols] [messages/s|max] [seconds] [depth]}; it lives with the benchmarks, so it is
+ * not part of the application jar.
+ */
+@Slf4j
+public class KrakenLoadTest {
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private final int symbolCount;
+    private final double messagesPerSecond;
+    private final int seconds;
+    private final int depth;
+
+    public KrakenLoadTest(int symbolCount, double messagesPerSecond, int seconds, int depth) {
+        this.symbolCount = symbolCount;
+        this.messagesPerSecond = messagesPerSecond;
+        this.seconds = seconds;
+        this.depth = depth;
+    }
+
+    public void run() throws Exception {
+        KrakenSimulator simulator = new KrakenSimulator(new InetSocketAddress("localhost", 0), messagesPerSecond, 42);
+        simulator.startAndAwait();
+
+        List<String> symbols = IntStream.range(0, symbolCount).mapToObj(i -> "SIM" + i + "/USD").toList();
+        System.setProperty("kraken.url", "ws://localhost:" + simulator.getPort());
+        System.setProperty("kraken.instrument", String.join(",", symbols));
+        System.setProperty("kraken.depth", Integer.toString(depth));
+        for (String symbol : symbols) {
+            System.setProperty("kraken.precision." + symbol,
+                    SimulatedBook.PRICE_PRECISION + "," + SimulatedBook.QUANTITY_PRECISION);
+        }
+        AppConfig config = AppConfig.load();
+
+        ShardedBookProcessor processor = new ShardedBookProcessor(new SymbolRegistry(config.getInstruments()), config);
+        AtomicBoolean connected = new AtomicBoolean();
+        WebSocketClientImpl client = new WebSocketClientImpl(URI.create(config.getKrakenUrl()), processor, depth, connected);
+        processor.setResyncHandler(client::resubscribe);
+        processor.start();
+
+        IngestMetrics metrics = IngestMetrics.get();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        long startGcCount = gcCount(collectors);
+        long startGcMillis = gcMillis(collectors);
+        long startAllocated = allocatedBytes();
+        long startMessages = metrics.getMessages();
+        long startTicks = metrics.getTicks();
+        long startDrops = metrics.getDrops();
+        long startSent = simulator.getSentMessages();
+        long peakHeap = 0;
+        long candles = 0;
+        List<Candle> closed = new ArrayList<>();
+        CandlePool candlePool = CandlePool.get();
+
+        try {
+            if (!client.connectBlocking(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Could not connect to the simulator at " + config.getKrakenUrl());
+            }
+            log.info("Load test: {} symbols at depth {}, {} messages/s offered for {} s on {} book workers",
+                    symbolCount, depth, messagesPerSecond > 0 ? String.format("%.0f", messagesPerSecond) : "max",
+                    seconds, processor.getShardCount());
+            metrics.refreshIfOlderThan(0);
+
+            long startNanos = System.nanoTime();
+            long nextMinute = (System.currentTimeMillis() / MINUTE_MILLIS + 1) * MINUTE_MILLIS;
+            long lastMessages = startMessages;
+            long lastTicks = startTicks;
+            long lastSent = startSent;
+            for (int second = 1; second <= seconds; second++) {
+                long due = startNanos + TimeUnit.SECONDS.toNanos(second);
+                while (System.nanoTime() < due) {
+                    TimeUnit.NANOSECONDS.sleep(Math.max(1, due - System.nanoTime()));
+                }
+                if (System.currentTimeMillis() >= nextMinute) {
+                    candles += closeMinute(processor, nextMinute / 1000 - 60, closed, candlePool);
+                    nextMinute += MINUTE_MILLIS;
+                }
+
+                long messages = metrics.getMessages();
+                long ticks = metrics.getTicks();
+                long sent = simulator.getSentMessages();
+                long heap = memory.getHeapMemoryUsage().getUsed();
+                peakHeap = Math.max(peakHeap, heap);
+                log.info("{}s sent {}/s, received {}/s, ticks {}/s, drops {}, skipped {}, heap {} MB", second,
+                        sent - lastSent, messages - lastMessages, ticks - lastTicks, metrics.getDrops() - startDrops,
+                        simulator.getSkippedMessages(), heap >> 20);
+                lastMessages = messages;
+                lastTicks = ticks;
+                lastSent = sent;
+            }
+            double elapsed = (System.nanoTime() - startNanos) / 1e9;
+
+            metrics.refreshIfOlderThan(0);
+            long mismatches = 0;
+            long resyncs = 0;
+            for (InstrumentState instrument : processor.getInstruments()) {
+                mismatches += instrument.getChecksumMismatches();
+                resyncs += instrument.getResyncs();
+            }
+            log.info("Sustained {} messages/s received ({} sent/s, {} skipped), {} ticks/s over {} s; {} drops, "
+                            + "{} checksum mismatches, {} resyncs, {} candles closed",
+                    String.format("%.0f", (metrics.getMessages() - startMessages) / elapsed),
+                    String.format("%.0f", (simulator.getSentMessages() - startSent) / elapsed),
+                    simulator.getSkippedMessages(),
+                    String.format("%.0f", (metrics.getTicks() - startTicks) / elapsed), seconds,
+                    metrics.getDrops() - startDrops, mismatches, resyncs, candles);
+            log.info("Latency over the run:\n{}", metrics.summary().entrySet().stream()
+                    .map(entry -> String.format("  %-20s %s", entry.getKey().getTag(), entry.getValue()))
+                    .collect(Collectors.joining("\n")));
+            long allocated = allocatedBytes();
+            log.info("Heap peak {} MB of {} MB; allocated {} MB/s; GC {} collections, {} ms ({})",
+                    peakHeap >> 20, memory.getHeapMemoryUsage().getMax() >> 20,
+                    allocated < 0 ? "n/a" : String.format("%.1f", (allocated - startAllocated) / elapsed / (1 << 20)),
+                    gcCount(collectors) - startGcCount, gcMillis(collectors) - startGcMillis,
+                    collectors.stream().map(GarbageCollectorMXBean::getName).collect(Collectors.joining(", ")));
+
+        } finally {
+            client.close();
+            simulator.shutdown();
+            processor.shutdown();
+        }
+    }
+
+    private static int closeMinute(ShardedBookProcessor processor, long minuteStart, List<Candle> closed,
+                                   CandlePool candlePool) {
+        for (InstrumentState instrument : processor.getInstruments()) {
+            instrument.closeMinute(minuteStart, closed);
+        }
+        int count = closed.size();
+        candlePool.releaseAll(closed);
+        closed.clear();
+        return count;
+    }
+
+    private static long gcCount(List<GarbageCollectorMXBean> collectors) {
+        return collectors.stream().mapToLong(collector -> Math.max(0, collector.getCollectionCount())).sum();
+    }
+
+    private static long gcMillis(List<GarbageCollectorMXBean> collectors) {
+        return collectors.stream().mapToLong(collector -> Math.max(0, collector.getCollectionTime())).sum();
+    }
+
+    /**
+     * @return bytes allocated so far by the live threads, or -1 if the JVM does not track it; the harness threads live
+     * for the whole run, so the threads that ended in between hardly matter
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean allocation && allocation.isThreadAllocatedMemoryEnabled()) {
+            long total = 0;
+            for (long bytes : allocation.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+                total += Math.max(0, bytes);
+            }
+            return total;
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int symbols = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        double rate = args.length < 2 ? 100_000 : "max".equalsIgnoreCase(args[1]) ? 0 : Double.parseDouble(args[1]);
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        new KrakenLoadTest(symbols, rate, seconds, depth).run();
+    }
+}
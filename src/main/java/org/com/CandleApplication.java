@@ -0,0 +1,67 @@
+package org.com;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.com.config.AppConfig;
+import org.com.metrics.IngestMetrics;
+import org.com.metrics.IngestMetricsBinder;
+import org.com.service.CandleQueryService;
+import org.com.service.OrderBookCandleGenerator;
+import org.com.stream.CandleStreamHandler;
+import org.com.stream.LiveUpdateHub;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Runs the candle generator inside Spring Boot, so its metrics are served by the actuator
+ * (/actuator/metrics, /actuator/prometheus) next to the query API under /api and the live stream at /ws/candles.
+ * {@link OrderBookCandleGenerator#main} still runs the generator on its own, without a web server.
+ */
+@SpringBootApplication
+public class CandleApplication {
+    private final AppConfig config = AppConfig.load();
+
+    public static void main(String[] args) {
+        SpringApplication.run(CandleApplication.class, args);
+    }
+
+    @Bean
+    public IngestMetrics ingestMetrics() {
+        return IngestMetrics.get();
+    }
+
+    @Bean
+    public IngestMetricsBinder ingestMetricsBinder(IngestMetrics ingestMetrics) {
+        return new IngestMetricsBinder(ingestMetrics);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public OrderBookCandleGenerator orderBookCandleGenerator() {
+        return new OrderBookCandleGenerator();
+    }
+
+    @Bean
+    public CandleQueryService candleQueryService(OrderBookCandleGenerator generator) {
+        return generator.getQueryService();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public LiveUpdateHub liveUpdateHub(CandleQueryService queryService, ObjectMapper objectMapper) {
+        return new LiveUpdateHub(queryService, objectMapper, config.getStreamSampleMillis());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public CandleStreamHandler candleStreamHandler(LiveUpdateHub hub, ObjectMapper objectMapper) {
+        return new CandleStreamHandler(hub, objectMapper, config.getStreamDefaultRate(), config.getStreamMaxRate(),
+                config.getStreamSendTimeoutMillis(), config.getStreamSendThreads());
+    }
+
+    @Bean
+    public ApplicationRunner candleGeneratorRunner(OrderBookCandleGenerator generator) {
+        return args -> {
+            generator.initializeKafka();
+            generator.run();
+        };
+    }
+}
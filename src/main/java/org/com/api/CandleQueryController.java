@@ -0,0 +1,97 @@
+package org.com.api;
+
+import org.com.model.Candle;
+import org.com.model.IndicatorValues;
+import org.com.model.Quote;
+import org.com.model.Timeframe;
+import org.com.service.CandleQueryService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * REST queries for live partial candles, recent closed candles, indicators and the top of book.
+ * Symbols are passed as a query parameter since Kraken symbols contain a slash (e.g. ?symbol=BTC/USD).
+ */
+@RestController
+@RequestMapping("/api")
+public class CandleQueryController {
+    private final CandleQueryService queryService;
+
+    public CandleQueryController(CandleQueryService queryService) {
+        this.queryService = queryService;
+    }
+
+    @GetMapping("/symbols")
+    public List<String> symbols() {
+        return queryService.getSymbols();
+    }
+
+    /**
+     * The 1m candle still being built; 204 if its minute has no ticks yet
+     */
+    @GetMapping("/candles/live")
+    public ResponseEntity<Candle> liveCandle(@RequestParam String symbol) {
+        Candle candle = queryService.getLiveCandle(symbol);
+        return candle == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(candle);
+    }
+
+    /**
+     * The newest closed candles of a timeframe, oldest first
+     */
+    @GetMapping("/candles")
+    public List<Candle> recentCandles(@RequestParam String symbol,
+                                      @RequestParam(defaultValue = "1m") String timeframe,
+                                      @RequestParam(defaultValue = "60") int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        int capped = Math.min(limit, queryService.getHistoryCapacity());
+        return queryService.getRecentCandles(symbol, Timeframe.fromLabel(timeframe), capped);
+    }
+
+    /**
+     * Best bid and ask; 204 while the book is being built or resynced
+     */
+    @GetMapping("/book/top")
+    public ResponseEntity<Quote> topOfBook(@RequestParam String symbol) {
+        Quote quote = queryService.getTopOfBook(symbol);
+        return quote == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(quote);
+    }
+
+    /**
+     * Indicators as of the last closed candle of a timeframe; 204 before its first close
+     */
+    @GetMapping("/indicators")
+    public ResponseEntity<IndicatorValues> indicators(@RequestParam String symbol,
+                                                      @RequestParam(defaultValue = "1m") String timeframe) {
+        IndicatorValues values = queryService.getIndicators(symbol, Timeframe.fromLabel(timeframe));
+        return values == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(values);
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public Map<String, String> notFound(NoSuchElementException e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    @ExceptionHandler(UnsupportedOperationException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public Map<String, String> disabled(UnsupportedOperationException e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> badRequest(IllegalArgumentException e) {
+        return Map.of("error", e.getMessage());
+    }
+}
@@ -0,0 +1,39 @@
+package org.com.backfill;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Volumes and phase timings of one backfill run
+ */
+@Getter
+@AllArgsConstructor
+public class BackfillReport {
+    private final int inputs;
+    private final long ticks;
+    private final int partitions;
+    private final long candles;
+    private final int parallelism;
+    private final long loadMillis;
+    private final long aggregateMillis;
+    private final long writeMillis;
+
+    public long getTotalMillis() {
+        return loadMillis + aggregateMillis + writeMillis;
+    }
+
+    /**
+     * @return ticks per second over the whole run
+     */
+    public double getTicksPerSecond() {
+        return ticks * 1000.0 / Math.max(1, getTotalMillis());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ticks from %d inputs into %d candles over %d symbol-days on %d threads in %d ms "
+                        + "(load %d ms, aggregate %d ms, write %d ms) - %.0f ticks/s",
+                ticks, inputs, candles, partitions, parallelism, getTotalMillis(), loadMillis, aggregateMillis,
+                writeMillis, getTicksPerSecond());
+    }
+}
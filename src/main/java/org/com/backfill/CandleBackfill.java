@@ -0,0 +1,275 @@
+package org.com.backfill;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.config.AppConfig;
+import org.com.kafka.CandleKafkaProducer;
+import org.com.model.Candle;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.com.service.CandleRollup;
+import org.com.service.OhlcAccumulator;
+import org.com.storage.CandleStore;
+import org.com.util.FixedPoint;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Builds candles offline from historical ticks, using every core.
+ * Input files are loaded in parallel and split by symbol and UTC day; since a day holds whole intervals of every
+ * timeframe, the symbol-days are then aggregated independently by a fork/join pool. Within a day, ticks fold into
+ * the minute of their event time in input order and closed minutes roll up through {@link CandleRollup}, exactly as
+ * the event-time generator does live, except that no tick is too late. Candles are written in symbol and time order.
+ * <p>
+ * All ticks are held in memory as primitive columns, about 16 bytes per tick, so very large histories are best
+ * backfilled a range of files at a time.
+ * <p>
+ * Usage: {@code CandleBackfill <csv|journal> <store[:<directory>]|csv:<file>|kafka> <input>...}
+ */
+@Slf4j
+public class CandleBackfill {
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final int MINUTES_PER_DAY = (int) (TickPartition.DAY_MILLIS / MINUTE_MILLIS);
+
+    /**
+     * Layout of the input files
+     */
+    public enum Format {
+        /** {@code timestamp,symbol,price} or {@code timestamp,symbol,bid,ask} lines */
+        CSV,
+        /** Frame journals recorded from the Kraken feed */
+        JOURNAL
+    }
+
+    private final AppConfig config;
+    private final List<Timeframe> timeframes;
+    private final int parallelism;
+
+    public CandleBackfill(AppConfig config, int parallelism) {
+        this.config = config;
+        this.timeframes = config.getCandleTimeframes();
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param inputs files in time order; ticks of a symbol-day spread over several files are folded in this order
+     * @param output receives each symbol-day's candles, 1m candles each followed by the higher-timeframe candles they
+     *               completed, one symbol-day at a time in symbol and time order
+     */
+    public BackfillReport run(List<Path> inputs, Format format, Consumer<List<Candle>> output) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long started = System.nanoTime();
+            TickPartitions loaded = load(pool, inputs, format);
+            List<TickPartition> partitions = loaded.list();
+            long aggregateStarted = System.nanoTime();
+            pool.invoke(new AggregateTask(partitions, 0, partitions.size(), timeframes));
+            long writeStarted = System.nanoTime();
+
+            long candles = 0;
+            for (TickPartition partition : partitions) {
+                output.accept(partition.getCandles());
+                candles += partition.getCandles().size();
+            }
+            long finished = System.nanoTime();
+
+            BackfillReport report = new BackfillReport(inputs.size(), loaded.getTicks(), partitions.size(), candles,
+                    parallelism, TimeUnit.NANOSECONDS.toMillis(aggregateStarted - started),
+                    TimeUnit.NANOSECONDS.toMillis(writeStarted - aggregateStarted),
+                    TimeUnit.NANOSECONDS.toMillis(finished - writeStarted));
+            log.info("Backfilled {}", report);
+            return report;
+
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private TickPartitions load(ForkJoinPool pool, List<Path> inputs, Format format) {
+        List<Callable<TickPartitions>> loads = new ArrayList<>(inputs.size());
+        for (Path input : inputs) {
+            loads.add(() -> {
+                TickPartitions partitions = new TickPartitions();
+                readerOf(format).read(input, partitions);
+                log.info("Loaded {} ticks from {}", partitions.getTicks(), input);
+                return partitions;
+            });
+        }
+
+        TickPartitions merged = new TickPartitions();
+        for (Future<TickPartitions> loaded : pool.invokeAll(loads)) {
+            merged.addAll(join(loaded));
+        }
+        return merged;
+    }
+
+    private TickReader readerOf(Format format) {
+        return switch (format) {
+            case CSV -> new CsvTickReader();
+            case JOURNAL -> new JournalTickReader(new SymbolRegistry(config.getInstruments()), config.getKrakenDepth());
+        };
+    }
+
+    private static TickPartitions join(Future<TickPartitions> loaded) {
+        try {
+            return loaded.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading ticks", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Failed to load ticks", e.getCause());
+        }
+    }
+
+    /**
+     * Aggregates one symbol-day
+     * @return its 1m candles, each followed by the higher-timeframe candles it completed
+     */
+    static List<Candle> aggregate(TickPartition partition, List<Timeframe> timeframes) {
+        TickColumns ticks = partition.getTicks();
+        long dayStartMillis = partition.getEpochDay() * TickPartition.DAY_MILLIS;
+        OhlcAccumulator[] minutes = new OhlcAccumulator[MINUTES_PER_DAY];
+        for (int i = 0; i < ticks.size(); i++) {
+            int minute = (int) ((ticks.millisAt(i) - dayStartMillis) / MINUTE_MILLIS);
+            if (minutes[minute] == null) {
+                minutes[minute] = new OhlcAccumulator();
+            }
+            minutes[minute].add(ticks.priceAt(i));
+        }
+
+        String symbol = partition.getSymbol();
+        CandleRollup rollup = new CandleRollup(symbol, timeframes);
+        List<Candle> candles = new ArrayList<>();
+        long dayStart = dayStartMillis / 1000;
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            if (minutes[minute] != null) {
+                long minuteStart = dayStart + minute * 60L;
+                Candle candle = minutes[minute].toCandle(symbol, minuteStart, Timeframe.M1);
+                candles.add(candle);
+                rollup.onMinuteClosed(minuteStart, candle, candles);
+            }
+        }
+        if (minutes[MINUTES_PER_DAY - 1] == null) {
+            // Close the intervals ending with the day, whose last minutes were empty
+            rollup.onMinuteClosed(dayStart + (MINUTES_PER_DAY - 1) * 60L, null, candles);
+        }
+        return candles;
+    }
+
+    /**
+     * Splits a range of symbol-days in halves until one is left to aggregate
+     */
+    private static final class AggregateTask extends RecursiveAction {
+        private final List<TickPartition> partitions;
+        private final int from;
+        private final int to;
+        private final List<Timeframe> timeframes;
+
+        private AggregateTask(List<TickPartition> partitions, int from, int to, List<Timeframe> timeframes) {
+            this.partitions = partitions;
+            this.from = from;
+            this.to = to;
+            this.timeframes = timeframes;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                TickPartition partition = partitions.get(from);
+                partition.setCandles(aggregate(partition, timeframes));
+                return;
+            }
+            if (to > from) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new AggregateTask(partitions, from, middle, timeframes),
+                        new AggregateTask(partitions, middle, to, timeframes));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: CandleBackfill <csv|journal> <store[:<directory>]|csv:<file>|kafka> <input>...");
+            System.exit(1);
+        }
+        Format format = Format.valueOf(args[0].toUpperCase());
+        String destination = args[1];
+        List<Path> inputs = Arrays.stream(args, 2, args.length).map(Path::of).toList();
+
+        AppConfig config = AppConfig.load();
+        CandleBackfill backfill = new CandleBackfill(config, Runtime.getRuntime().availableProcessors());
+        if (destination.equals("store") || destination.startsWith("store:")) {
+            Path directory = destination.equals("store") ? config.getStoragePath() : Path.of(destination.substring(6));
+            long[] skipped = {0};
+            try (CandleStore store = new CandleStore(directory)) {
+                backfill.run(inputs, format, candles -> {
+                    for (Candle candle : candles) {
+                        if (!store.append(candle)) {
+                            skipped[0]++;
+                        }
+                    }
+                });
+                store.flush();
+            }
+            if (skipped[0] > 0) {
+                log.info("Skipped {} candles at or before ones already stored", skipped[0]);
+            }
+        } else if (destination.startsWith("csv:")) {
+            try (BufferedWriter out = Files.newBufferedWriter(Path.of(destination.substring(4)))) {
+                out.write("symbol,timeframe,timestamp,open,high,low,close,ticks");
+                out.newLine();
+                StringBuilder line = new StringBuilder();
+                backfill.run(inputs, format, candles -> {
+                    for (Candle candle : candles) {
+                        writeLine(out, line, candle);
+                    }
+                });
+            }
+        } else if (destination.equals("kafka")) {
+            CandleKafkaProducer producer = new CandleKafkaProducer(config, new SymbolRegistry(config.getInstruments()));
+            try {
+                backfill.run(inputs, format, producer::publishCandles);
+            } finally {
+                producer.close();
+            }
+        } else {
+            System.err.println("Unknown destination " + destination);
+            System.exit(1);
+        }
+    }
+
+    private static void writeLine(BufferedWriter out, StringBuilder line, Candle candle) {
+        line.setLength(0);
+        line.append(candle.getSymbol()).append(',').append(candle.getTimeframe().getLabel())
+                .append(',').append(candle.getTimestamp());
+        FixedPoint.appendDecimal(line.append(','), candle.getOpen());
+        FixedPoint.appendDecimal(line.append(','), candle.getHigh());
+        FixedPoint.appendDecimal(line.append(','), candle.getLow());
+        FixedPoint.appendDecimal(line.append(','), candle.getClose());
+        line.append(',').append(candle.getTicks());
+        try {
+            out.append(line);
+            out.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
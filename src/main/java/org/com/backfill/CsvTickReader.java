@@ -0,0 +1,160 @@
+package org.com.backfill;
+
+import org.com.util.FixedPoint;
+import org.com.util.IsoTimestamps;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads ticks from CSV lines of {@code timestamp,symbol,price} or {@code timestamp,symbol,bid,ask}; the latter
+ * records the mid, as the live feed does. Timestamps are ISO-8601 UTC or epoch seconds, millis, micros or nanos,
+ * told apart by magnitude. A header line and blank lines are skipped.
+ * Lines are parsed straight from a reused character buffer, so only a change of symbol allocates.
+ */
+final class CsvTickReader implements TickReader {
+    private static final int BUFFER_CHARS = 1 << 16;
+    private static final long MILLIS_PER_FIXED_SECOND = FixedPoint.SCALE / 1000;
+
+    private final Map<String, String> symbols = new HashMap<>();
+    private final int[] fieldStarts = new int[5];
+    private final int[] fieldEnds = new int[5];
+    private char[] lastSymbol = new char[16];
+    private int lastSymbolLength = -1;
+    private String lastSymbolString;
+
+    @Override
+    public void read(Path file, TickPartitions partitions) throws IOException {
+        char[] buffer = new char[BUFFER_CHARS];
+        int filled = 0;
+        long lineNumber = 0;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            while (true) {
+                int read = reader.read(buffer, filled, buffer.length - filled);
+                if (read < 0) {
+                    if (filled > 0) {
+                        parseLine(buffer, 0, filled, ++lineNumber, file, partitions);
+                    }
+                    return;
+                }
+                filled += read;
+
+                int lineStart = 0;
+                for (int i = 0; i < filled; i++) {
+                    if (buffer[i] == '\n') {
+                        parseLine(buffer, lineStart, i, ++lineNumber, file, partitions);
+                        lineStart = i + 1;
+                    }
+                }
+                filled -= lineStart;
+                System.arraycopy(buffer, lineStart, buffer, 0, filled);
+                if (filled == buffer.length) {
+                    // A line longer than the buffer
+                    buffer = Arrays.copyOf(buffer, buffer.length << 1);
+                }
+            }
+        }
+    }
+
+    private void parseLine(char[] line, int start, int end, long lineNumber, Path file, TickPartitions partitions) {
+        if (end > start && line[end - 1] == '\r') {
+            end--;
+        }
+        if (end == start) {
+            return;
+        }
+        int fields = 0;
+        fieldStarts[0] = start;
+        for (int i = start; i < end; i++) {
+            if (line[i] == ',') {
+                if (fields == fieldEnds.length - 1) {
+                    throw invalid(file, lineNumber, "too many columns");
+                }
+                fieldEnds[fields++] = i;
+                fieldStarts[fields] = i + 1;
+            }
+        }
+        fieldEnds[fields++] = end;
+        if (fields != 3 && fields != 4) {
+            throw invalid(file, lineNumber, "expected timestamp,symbol,price or timestamp,symbol,bid,ask");
+        }
+        char first = line[fieldStarts[0]];
+        if (first < '0' || first > '9') {
+            if (lineNumber == 1) {
+                return;
+            }
+            throw invalid(file, lineNumber, "timestamp is not a number or ISO-8601");
+        }
+
+        try {
+            long eventMillis = parseMillis(line, fieldStarts[0], fieldEnds[0] - fieldStarts[0]);
+            String symbol = symbolOf(line, fieldStarts[1], fieldEnds[1] - fieldStarts[1]);
+            double price;
+            if (fields == 3) {
+                price = FixedPoint.toDouble(parseFixed(line, 2));
+            } else {
+                price = FixedPoint.toDouble(parseFixed(line, 2) + parseFixed(line, 3)) / 2.0;
+            }
+            if (price > 0) {
+                partitions.add(symbol, eventMillis, price);
+            }
+        } catch (IllegalArgumentException e) {
+            throw invalid(file, lineNumber, e.getMessage());
+        }
+    }
+
+    private long parseFixed(char[] line, int field) {
+        return FixedPoint.parse(line, fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+    }
+
+    private static long parseMillis(char[] line, int offset, int length) {
+        if (length >= 20 && line[offset + 4] == '-') {
+            return IsoTimestamps.parseEpochMicros(line, offset, length) / 1000;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            if (line[i] == '.') {
+                // Fractional epoch seconds
+                return FixedPoint.parse(line, offset, length) / MILLIS_PER_FIXED_SECOND;
+            }
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            char c = line[i];
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Unsupported timestamp: " + new String(line, offset, length));
+            }
+            value = value * 10 + (c - '0');
+        }
+        if (value < 100_000_000_000L) {
+            return value * 1000;
+        } else if (value < 100_000_000_000_000L) {
+            return value;
+        } else if (value < 100_000_000_000_000_000L) {
+            return value / 1000;
+        }
+        return value / 1_000_000;
+    }
+
+    private String symbolOf(char[] line, int offset, int length) {
+        if (length == lastSymbolLength && Arrays.equals(line, offset, offset + length, lastSymbol, 0, length)) {
+            return lastSymbolString;
+        }
+        String symbol = new String(line, offset, length);
+        lastSymbolString = symbols.computeIfAbsent(symbol, ignored -> symbol);
+        if (lastSymbol.length < length) {
+            lastSymbol = new char[length];
+        }
+        System.arraycopy(line, offset, lastSymbol, 0, length);
+        lastSymbolLength = length;
+        return lastSymbolString;
+    }
+
+    private static IllegalArgumentException invalid(Path file, long lineNumber, String reason) {
+        return new IllegalArgumentException(file + " line " + lineNumber + ": " + reason);
+    }
+}
@@ -0,0 +1,100 @@
+package org.com.backfill;
+
+import org.com.client.KrakenBookDecoder;
+import org.com.journal.FrameJournalReader;
+import org.com.model.SymbolRegistry;
+import org.com.service.BookUpdateListener;
+import org.com.service.OrderBook;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Reads ticks from a {@link org.com.journal.FrameJournal} by rebuilding its books the way the book shards do: a
+ * snapshot replaces the book, and every valid book after a message records its mid at the message's exchange time,
+ * or the receive time for snapshots. A crossed snapshot or an emptied book drops the symbol's updates until its next
+ * snapshot, as a live resync would. Checksums are not verified; the journal holds frames that were already accepted.
+ */
+final class JournalTickReader implements TickReader, BookUpdateListener {
+    private final SymbolRegistry symbols;
+    private final OrderBook[] books;
+    private final boolean[] awaitingSnapshot;
+
+    private TickPartitions partitions;
+    private long receiveMillis;
+    private int symbolId = SymbolRegistry.UNKNOWN;
+    private boolean snapshot;
+    private long eventTimeMicros;
+
+    JournalTickReader(SymbolRegistry symbols, int depth) {
+        this.symbols = symbols;
+        this.books = new OrderBook[symbols.size()];
+        this.awaitingSnapshot = new boolean[symbols.size()];
+        for (int id = 0; id < books.length; id++) {
+            books[id] = new OrderBook(depth);
+        }
+    }
+
+    @Override
+    public void read(Path file, TickPartitions partitions) {
+        this.partitions = partitions;
+        KrakenBookDecoder decoder = new KrakenBookDecoder(symbols, this);
+        new FrameJournalReader(file).replay((frame, receiveNanos, receiveMillis) -> {
+            this.receiveMillis = receiveMillis;
+            try {
+                decoder.decode(frame);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to decode journaled frame in " + file, e);
+            }
+        });
+    }
+
+    @Override
+    public void onBookStart(int symbolId, boolean snapshot) {
+        this.symbolId = symbolId;
+        this.snapshot = snapshot;
+        this.eventTimeMicros = -1;
+        if (snapshot) {
+            books[symbolId].clear();
+            awaitingSnapshot[symbolId] = false;
+        } else if (awaitingSnapshot[symbolId]) {
+            this.symbolId = SymbolRegistry.UNKNOWN;
+        }
+    }
+
+    @Override
+    public void onBid(long price, long quantity) {
+        if (symbolId != SymbolRegistry.UNKNOWN) {
+            books[symbolId].updateBid(price, quantity);
+        }
+    }
+
+    @Override
+    public void onAsk(long price, long quantity) {
+        if (symbolId != SymbolRegistry.UNKNOWN) {
+            books[symbolId].updateAsk(price, quantity);
+        }
+    }
+
+    @Override
+    public void onTimestamp(long epochMicros) {
+        eventTimeMicros = epochMicros;
+    }
+
+    @Override
+    public void onBookEnd() {
+        if (symbolId == SymbolRegistry.UNKNOWN) {
+            return;
+        }
+        OrderBook orderBook = books[symbolId];
+        if (snapshot ? !orderBook.isValid() : orderBook.isEmpty()) {
+            awaitingSnapshot[symbolId] = true;
+            return;
+        }
+        double midPrice = orderBook.getMidPrice();
+        if (midPrice > 0) {
+            long eventTimeMillis = eventTimeMicros >= 0 ? eventTimeMicros / 1000 : receiveMillis;
+            partitions.add(symbols.symbolOf(symbolId), eventTimeMillis, midPrice);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.com.backfill;
+
+import java.util.Arrays;
+
+/**
+ * Growable columns of ticks (event time in epoch millis and price), 16 bytes per tick with no object per tick
+ */
+final class TickColumns {
+    private long[] millis;
+    private double[] prices;
+    private int size;
+
+    TickColumns(int capacity) {
+        this.millis = new long[capacity];
+        this.prices = new double[capacity];
+    }
+
+    void add(long eventMillis, double price) {
+        if (size == millis.length) {
+            int capacity = size << 1;
+            millis = Arrays.copyOf(millis, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+        }
+        millis[size] = eventMillis;
+        prices[size] = price;
+        size++;
+    }
+
+    /**
+     * Appends every tick of a later input
+     */
+    void addAll(TickColumns later) {
+        for (int i = 0; i < later.size; i++) {
+            add(later.millis[i], later.prices[i]);
+        }
+    }
+
+    long millisAt(int index) {
+        return millis[index];
+    }
+
+    double priceAt(int index) {
+        return prices[index];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,28 @@
+package org.com.backfill;
+
+import lombok.Getter;
+import org.com.model.Candle;
+import java.util.List;
+
+/**
+ * Ticks of one symbol on one UTC day, and the candles aggregated from them.
+ * A day holds whole intervals of every timeframe, so each partition aggregates independently of the others.
+ */
+@Getter
+final class TickPartition {
+    static final long DAY_MILLIS = 86_400_000L;
+
+    private final String symbol;
+    private final long epochDay;
+    private final TickColumns ticks = new TickColumns(1024);
+    private List<Candle> candles = List.of();
+
+    TickPartition(String symbol, long epochDay) {
+        this.symbol = symbol;
+        this.epochDay = epochDay;
+    }
+
+    void setCandles(List<Candle> candles) {
+        this.candles = candles;
+    }
+}
@@ -0,0 +1,61 @@
+package org.com.backfill;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Splits ticks by symbol and UTC day, keeping each partition's ticks in input order.
+ * Filled by one thread; inputs loaded in parallel are merged afterwards in their original order.
+ */
+final class TickPartitions {
+    private final Map<String, TreeMap<Long, TickPartition>> bySymbol = new TreeMap<>();
+    private TickPartition last;
+    private long ticks;
+
+    void add(String symbol, long eventMillis, double price) {
+        long epochDay = Math.floorDiv(eventMillis, TickPartition.DAY_MILLIS);
+        // Consecutive ticks nearly always share a partition
+        TickPartition partition = last;
+        if (partition == null || partition.getEpochDay() != epochDay || !partition.getSymbol().equals(symbol)) {
+            partition = bySymbol.computeIfAbsent(symbol, ignored -> new TreeMap<>())
+                    .computeIfAbsent(epochDay, day -> new TickPartition(symbol, day));
+            last = partition;
+        }
+        partition.getTicks().add(eventMillis, price);
+        ticks++;
+    }
+
+    /**
+     * Appends the ticks of an input that came after this one
+     */
+    void addAll(TickPartitions later) {
+        for (TreeMap<Long, TickPartition> days : later.bySymbol.values()) {
+            for (TickPartition partition : days.values()) {
+                TickPartition existing = bySymbol.computeIfAbsent(partition.getSymbol(), ignored -> new TreeMap<>())
+                        .putIfAbsent(partition.getEpochDay(), partition);
+                if (existing != null) {
+                    existing.getTicks().addAll(partition.getTicks());
+                }
+            }
+        }
+        last = null;
+        ticks += later.ticks;
+    }
+
+    /**
+     * @return every partition, ordered by symbol and then day
+     */
+    List<TickPartition> list() {
+        List<TickPartition> partitions = new ArrayList<>();
+        for (TreeMap<Long, TickPartition> days : bySymbol.values()) {
+            partitions.addAll(days.values());
+        }
+        return partitions;
+    }
+
+    long getTicks() {
+        return ticks;
+    }
+}
@@ -0,0 +1,16 @@
+package org.com.backfill;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Loads the ticks of one historical input file
+ */
+@FunctionalInterface
+interface TickReader {
+
+    /**
+     * Adds every tick of the file to the partitions, in file order
+     */
+    void read(Path file, TickPartitions partitions) throws IOException;
+}
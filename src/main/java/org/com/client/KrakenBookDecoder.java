@@ -0,0 +1,238 @@
+package org.com.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.com.model.SymbolRegistry;
+import org.com.service.BookUpdateListener;
+import org.com.util.FixedPoint;
+import org.com.util.IsoTimestamps;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming decoder for Kraken v2 book messages.
+ * Walks the JSON tokens once and pushes price/qty levels straight into a {@link BookUpdateListener},
+ * without building a tree, and reads numbers and symbols from the parser's character buffer rather than Strings.
+ * Expects "channel" and "type" to precede "data", as Kraken sends them. Not thread-safe.
+ */
+public class KrakenBookDecoder {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final char[] BOOK = "book".toCharArray();
+    private static final char[] SNAPSHOT = "snapshot".toCharArray();
+    private static final char[] UPDATE = "update".toCharArray();
+
+    private static final String CHANNEL = "channel";
+    private static final String TYPE = "type";
+    private static final String DATA = "data";
+    private static final String SYMBOL = "symbol";
+    private static final String BIDS = "bids";
+    private static final String ASKS = "asks";
+    private static final String CHECKSUM = "checksum";
+    private static final String TIMESTAMP = "timestamp";
+    private static final String PRICE = "price";
+    private static final String QTY = "qty";
+
+    private final SymbolRegistry symbols;
+    private final BookUpdateListener listener;
+    private byte[] frameBuffer = new byte[8192];
+
+    public KrakenBookDecoder(SymbolRegistry symbols, BookUpdateListener listener) {
+        this.symbols = symbols;
+        this.listener = listener;
+    }
+
+    /**
+     * @return true if the message was a book snapshot or update and was delivered to the listener
+     */
+    public boolean decode(String message) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(message)) {
+            return decode(parser);
+        }
+    }
+
+    /**
+     * Decodes a UTF-8 frame from its remaining bytes without consuming the buffer's position
+     */
+    public boolean decode(ByteBuffer frame) throws IOException {
+        int length = frame.remaining();
+        if (frame.hasArray()) {
+            return decode(frame.array(), frame.arrayOffset() + frame.position(), length);
+        }
+        if (frameBuffer.length < length) {
+            frameBuffer = new byte[Integer.highestOneBit(length) << 1];
+        }
+        frame.get(frame.position(), frameBuffer, 0, length);
+        return decode(frameBuffer, 0, length);
+    }
+
+    /**
+     * Decodes a UTF-8 frame held in part of an array
+     */
+    public boolean decode(byte[] frame, int offset, int length) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(frame, offset, length)) {
+            return decode(parser);
+        }
+    }
+
+    private boolean decode(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+
+        boolean book = false;
+        boolean snapshot = false;
+        boolean typeKnown = false;
+        boolean handled = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case CHANNEL -> {
+                    book = value == JsonToken.VALUE_STRING && textEquals(parser, BOOK);
+                    if (!book) {
+                        return false;
+                    }
+                }
+                case TYPE -> {
+                    snapshot = value == JsonToken.VALUE_STRING && textEquals(parser, SNAPSHOT);
+                    typeKnown = snapshot || (value == JsonToken.VALUE_STRING && textEquals(parser, UPDATE));
+                }
+                case DATA -> {
+                    if (book && typeKnown && value == JsonToken.START_ARRAY) {
+                        handled = decodeData(parser, snapshot);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return handled;
+    }
+
+    private boolean decodeData(JsonParser parser, boolean snapshot) throws IOException {
+        boolean handled = false;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                handled |= decodeEntry(parser, snapshot);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return handled;
+    }
+
+    private boolean decodeEntry(JsonParser parser, boolean snapshot) throws IOException {
+        int symbolId = SymbolRegistry.UNKNOWN;
+        boolean started = false;
+        boolean hasChecksum = false;
+        long checksum = 0;
+        long timestamp = -1;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case SYMBOL -> {
+                    if (value == JsonToken.VALUE_STRING) {
+                        symbolId = symbols.idOf(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    }
+                }
+                case BIDS, ASKS -> {
+                    if (symbolId == SymbolRegistry.UNKNOWN || value != JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                        break;
+                    }
+                    if (!started) {
+                        listener.onBookStart(symbolId, snapshot);
+                        started = true;
+                    }
+                    decodeLevels(parser, BIDS.equals(field));
+                }
+                case CHECKSUM -> {
+                    if (value == JsonToken.VALUE_NUMBER_INT) {
+                        checksum = parser.getLongValue();
+                        hasChecksum = true;
+                    }
+                }
+                case TIMESTAMP -> {
+                    if (value == JsonToken.VALUE_STRING) {
+                        timestamp = IsoTimestamps.parseEpochMicros(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (symbolId == SymbolRegistry.UNKNOWN) {
+            return false;
+        }
+        if (!started) {
+            listener.onBookStart(symbolId, snapshot);
+        }
+        if (timestamp >= 0) {
+            listener.onTimestamp(timestamp);
+        }
+        if (hasChecksum) {
+            listener.onChecksum(checksum);
+        }
+        listener.onBookEnd();
+        return true;
+    }
+
+    private void decodeLevels(JsonParser parser, boolean bids) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+
+            long price = -1;
+            long quantity = -1;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_NUMBER_FLOAT || value == JsonToken.VALUE_NUMBER_INT) {
+                    if (PRICE.equals(field)) {
+                        price = parseNumber(parser);
+                    } else if (QTY.equals(field)) {
+                        quantity = parseNumber(parser);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (price < 0 || quantity < 0) {
+                continue;
+            }
+            if (bids) {
+                listener.onBid(price, quantity);
+            } else {
+                listener.onAsk(price, quantity);
+            }
+        }
+    }
+
+    private static long parseNumber(JsonParser parser) throws IOException {
+        return FixedPoint.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    private static boolean textEquals(JsonParser parser, char[] expected) throws IOException {
+        if (parser.getTextLength() != expected.length) {
+            return false;
+        }
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        for (int i = 0; i < expected.length; i++) {
+            if (text[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
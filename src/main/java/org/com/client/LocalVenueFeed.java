@@ -0,0 +1,74 @@
+package org.com.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.model.SymbolRegistry;
+import org.com.service.BookUpdateListener;
+
+/**
+ * In-process stand-in venue: books are published by calling {@link #publish} instead of arriving over a socket.
+ * Used to exercise consolidation across venues without a second exchange connection.
+ * Publishes are serialized, so the listener sees one message at a time as it would from a socket thread.
+ */
+@Slf4j
+public class LocalVenueFeed implements VenueFeed {
+    public static final String VENUE = "local";
+
+    private final SymbolRegistry symbols;
+    private final BookUpdateListener listener;
+    private volatile boolean open;
+
+    public LocalVenueFeed(SymbolRegistry symbols, BookUpdateListener listener) {
+        this.symbols = symbols;
+        this.listener = listener;
+    }
+
+    @Override
+    public String getVenue() {
+        return VENUE;
+    }
+
+    @Override
+    public void connect() {
+        open = true;
+        log.info("Local venue open for {}", symbols.symbols());
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    /**
+     * Delivers one book message for the symbol; levels are fixed-point and a zero quantity removes the level.
+     * Ignored while the venue is closed or for symbols outside the registry.
+     */
+    public synchronized void publish(String symbol, boolean snapshot, long[] bidPrices, long[] bidQuantities,
+                                     long[] askPrices, long[] askQuantities, long timestampMillis) {
+        int symbolId = symbols.idOf(symbol);
+        if (!open || symbolId == SymbolRegistry.UNKNOWN) {
+            return;
+        }
+        listener.onBookStart(symbolId, snapshot);
+        for (int i = 0; i < bidPrices.length; i++) {
+            listener.onBid(bidPrices[i], bidQuantities[i]);
+        }
+        for (int i = 0; i < askPrices.length; i++) {
+            listener.onAsk(askPrices[i], askQuantities[i]);
+        }
+        listener.onTimestamp(timestampMillis * 1000);
+        listener.onBookEnd();
+    }
+
+    /**
+     * Replaces the symbol's book with a single level on each side
+     */
+    public void quote(String symbol, long bidPrice, long bidQuantity, long askPrice, long askQuantity) {
+        publish(symbol, true, new long[]{bidPrice}, new long[]{bidQuantity}, new long[]{askPrice},
+                new long[]{askQuantity}, System.currentTimeMillis());
+    }
+}
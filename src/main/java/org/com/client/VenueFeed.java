@@ -0,0 +1,19 @@
+package org.com.client;
+
+/**
+ * Market-data connection to one venue. Feeds decode the venue's wire format and deliver book messages through
+ * {@link org.com.service.BookUpdateListener}, so every venue maintains its books the same way.
+ */
+public interface VenueFeed {
+
+    /**
+     * @return the venue name, as listed in the venues setting
+     */
+    String getVenue();
+
+    void connect();
+
+    boolean isOpen();
+
+    void close();
+}
@@ -1,33 +1,51 @@
 package org.com.client;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.extern.slf4j.Slf4j;
-import org.com.service.CandleGenerator;
-import org.com.service.OrderBook;
+import org.com.journal.FrameJournal;
+import org.com.service.ShardedBookProcessor;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
-public class WebSocketClientImpl extends WebSocketClient {
-    private static final String SYMBOL = "BTC/USD";
-    private static final String BIDS = "bids";
-    private static final String ASKS = "asks";
+public class WebSocketClientImpl extends WebSocketClient implements VenueFeed {
+    public static final String VENUE = "kraken";
+    private static final String METHOD_RESPONSE = "{\"method\"";
+    private static final byte[] METHOD_RESPONSE_BYTES = METHOD_RESPONSE.getBytes(StandardCharsets.US_ASCII);
+    private static final String SUBSCRIPTION_FAILED = "\"success\":false";
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
-    private final CandleGenerator candleGenerator;
-    private final OrderBook orderBook;
+    private final ShardedBookProcessor bookProcessor;
+    private final int depth;
     private final AtomicBoolean isConnected;
+    private FrameJournal journal;
 
-    public WebSocketClientImpl(URI serverUri, CandleGenerator candleGenerator, OrderBook orderBook, AtomicBoolean isConnected) {
+    public WebSocketClientImpl(URI serverUri, ShardedBookProcessor bookProcessor, int depth, AtomicBoolean isConnected) {
         super(serverUri);
-        this.candleGenerator = candleGenerator;
-        this.orderBook = orderBook;
+        this.bookProcessor = bookProcessor;
+        this.depth = depth;
         this.isConnected = isConnected;
     }
 
+    @Override
+    public String getVenue() {
+        return VENUE;
+    }
+
+    /**
+     * Records every dispatched frame, with its receive time, to the journal; must be set before connecting
+     */
+    public void setJournal(FrameJournal journal) {
+        this.journal = journal;
+    }
+
     @Override
     public void onOpen(ServerHandshake handshake) {
         log.info("Connected to Kraken WebSocket");
@@ -44,6 +62,38 @@ public class WebSocketClientImpl extends WebSocketClient {
         }
     }
 
+    @Override
+    public void onMessage(ByteBuffer bytes) {
+        try {
+            if (startsWith(bytes, METHOD_RESPONSE_BYTES)) {
+                // Request acknowledgements are rare, so they take the String path and its failure check
+                processMessage(StandardCharsets.UTF_8.decode(bytes).toString());
+                return;
+            }
+            // Book frames go to the pipeline as bytes; the shard decodes them without building a String
+            long receiveNanos = System.nanoTime();
+            long receiveMillis = System.currentTimeMillis();
+            if (journal != null) {
+                journal.append(bytes, receiveNanos, receiveMillis);
+            }
+            bookProcessor.dispatch(bytes, receiveNanos, receiveMillis);
+        } catch (Exception e) {
+            log.error("Error processing binary message of {} bytes", bytes.remaining(), e);
+        }
+    }
+
+    private static boolean startsWith(ByteBuffer bytes, byte[] prefix) {
+        if (bytes.remaining() < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes.get(bytes.position() + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void onClose(int code, String reason, boolean remote) {
         log.warn("WebSocket connection closed: {} - {}", code, reason);
@@ -57,69 +107,56 @@ public class WebSocketClientImpl extends WebSocketClient {
     }
 
     private void subscribeToOrderBook() {
+        List<String> symbols = bookProcessor.getSymbols().symbols();
         try {
-            // Subscribe to order book updates for BTC/USD
-            String subscriptionMessage = """
-                    {
-                      "method": "subscribe",
-                      "params": {
-                          "channel": "book",
-                          "depth": 10,
-                          "symbol": [
-                            "BTC/USD"
-                          ]
-                        }
-                    }""";
-
-            send(subscriptionMessage);
-            log.info("Subscribed to order book for {}", SYMBOL);
+            // One subscription covers every configured instrument
+            sendBookRequest("subscribe", symbols);
+            log.info("Subscribed to order book for {}", symbols);
 
         } catch (Exception e) {
             log.error("Failed to subscribe to order book", e);
         }
     }
 
-    private void processMessage(String message) throws Exception {
-        String channel;
-        JsonNode root = objectMapper.readTree(message);
-
-        if (root.has("channel") && (channel = root.get("channel").asText()).equals("book")) {
-            log.debug("Received event: {}", channel);
-
-            JsonNode dataNode = root.get("data");
-            String type = root.get("type").asText();
-            String symbol = dataNode.get(0).get("symbol").asText();
+    /**
+     * Re-subscribes a single symbol so Kraken sends it a fresh snapshot, leaving the other books untouched
+     */
+    public void resubscribe(String symbol) {
+        if (!isOpen()) {
+            return;
+        }
+        try {
+            sendBookRequest("unsubscribe", List.of(symbol));
+            sendBookRequest("subscribe", List.of(symbol));
+            log.info("Requested a fresh order book snapshot for {}", symbol);
 
-            if (dataNode.isArray() && SYMBOL.equals(symbol) && type.equals("snapshot")) {
-                buildOrderBook(dataNode.get(0));
-            } else if (dataNode.isArray() && SYMBOL.equals(symbol) && type.equals("update")) {
-                processOrderBookUpdate(dataNode.get(0));
-            }
+        } catch (Exception e) {
+            log.error("Failed to resubscribe to order book for {}", symbol, e);
         }
     }
 
-    private void buildOrderBook(JsonNode data) {
-        if (!(data.has(BIDS) && data.has(ASKS)))
-            throw new IllegalArgumentException("Invalid order book snapshot data: " + data);
+    private void sendBookRequest(String method, List<String> symbols) throws Exception {
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("method", method);
+        ObjectNode params = request.putObject("params");
+        params.put("channel", "book");
+        params.put("depth", depth);
+        ArrayNode symbolArray = params.putArray("symbol");
+        symbols.forEach(symbolArray::add);
 
-        orderBook.processSnapshot(data);
-        if (!orderBook.isValid()) {
-            throw new RuntimeException("Order book validation failed - highest bid >= lowest ask");
-        }
-        calculateMidPrice();
+        send(objectMapper.writeValueAsString(request));
     }
 
-    private void processOrderBookUpdate(JsonNode data) {
-        if ((data.has(BIDS) || data.has(ASKS))) {
-            orderBook.processDelta(data);
+    private void processMessage(String message) {
+        if (message.startsWith(METHOD_RESPONSE) && message.contains(SUBSCRIPTION_FAILED)) {
+            log.warn("Kraken request failed: {}", message);
+            return;
         }
-        calculateMidPrice();
-    }
-
-    private void calculateMidPrice() {
-        double midPrice = orderBook.getMidPrice();
-        if (midPrice > 0) {
-            candleGenerator.recordTick(midPrice);
+        long receiveNanos = System.nanoTime();
+        long receiveMillis = System.currentTimeMillis();
+        if (journal != null) {
+            journal.append(message, receiveNanos, receiveMillis);
         }
+        bookProcessor.dispatch(message, receiveNanos, receiveMillis);
     }
 }
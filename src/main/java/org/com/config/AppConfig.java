@@ -0,0 +1,346 @@
+package org.com.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.kafka.CandleFormat;
+import org.com.model.Timeframe;
+import org.com.pipeline.WaitStrategy;
+import org.com.service.CandleHistory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Application settings loaded from application.properties on the classpath.
+ * Any key can be overridden with a system property of the same name (e.g. -Dkraken.depth=100).
+ */
+@Slf4j
+public class AppConfig {
+    private static final String RESOURCE = "application.properties";
+
+    private final Properties properties;
+
+    public AppConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    public static AppConfig load() {
+        Properties props = new Properties();
+        try (InputStream in = AppConfig.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in != null) {
+                props.load(in);
+            } else {
+                log.warn("{} not found on classpath, using defaults", RESOURCE);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read {}, using defaults", RESOURCE, e);
+        }
+        props.putAll(System.getProperties());
+        return new AppConfig(props);
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    /**
+     * @return the comma-separated values of the key, trimmed, or the defaults if the key is unset
+     */
+    public List<String> getList(String key, List<String> defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    public String getKrakenUrl() {
+        return getString("kraken.url", "wss://ws.kraken.com/v2");
+    }
+
+    public int getKrakenDepth() {
+        return getInt("kraken.depth", 10);
+    }
+
+    public List<String> getInstruments() {
+        return getList("kraken.instrument", List.of("BTC/USD"));
+    }
+
+    /**
+     * @return venues whose books are consolidated into one quote per symbol, Kraken first; any other venue
+     *         (currently only the in-process "local" venue) adds to the Kraken feed
+     */
+    public List<String> getVenues() {
+        List<String> venues = new ArrayList<>();
+        venues.add("kraken");
+        for (String venue : getList("venues", List.of())) {
+            if (!venues.contains(venue.toLowerCase())) {
+                venues.add(venue.toLowerCase());
+            }
+        }
+        return venues;
+    }
+
+    /**
+     * @return number of single-writer book worker threads; defaults to one per core, capped by the symbol count
+     */
+    public int getBookWorkers() {
+        int defaultWorkers = Math.min(Runtime.getRuntime().availableProcessors(), getInstruments().size());
+        return Math.max(1, getInt("kraken.workers", defaultWorkers));
+    }
+
+    /**
+     * @return candle intervals to publish; 1m is always generated and higher intervals are rolled up from it
+     */
+    public List<Timeframe> getCandleTimeframes() {
+        return getList("candle.timeframes", List.of("1m")).stream()
+                .map(Timeframe::fromLabel)
+                .toList();
+    }
+
+    /**
+     * @return true to bucket ticks by exchange timestamp and close minutes on a watermark instead of the wall clock
+     */
+    public boolean isEventTime() {
+        return "event".equalsIgnoreCase(getString("candle.time.mode", "processing"));
+    }
+
+    public long getAllowedLatenessMillis() {
+        return getLong("candle.allowed.lateness.ms", 2000);
+    }
+
+    /**
+     * @return threads the minute close is spread over; defaults to half the cores, capped at 4 and by the symbol count
+     */
+    public int getCloseWorkers() {
+        int defaultWorkers = Math.min(Math.min(4, Runtime.getRuntime().availableProcessors() / 2), getInstruments().size());
+        return Math.max(1, getInt("candle.close.workers", defaultWorkers));
+    }
+
+    /**
+     * @return resolution of the candle-close timer wheel, i.e. how late after the boundary a close may start
+     */
+    public long getCloseTickMillis() {
+        return Math.max(1, getLong("candle.close.tick.ms", 10));
+    }
+
+    /**
+     * @return the {price, quantity} decimals configured for the symbol's book checksum
+     *         (kraken.precision.BTC/USD=1,8), or null to infer them from the first snapshot
+     */
+    public int[] getPrecision(String symbol) {
+        List<String> values = getList("kraken.precision." + symbol, null);
+        if (values == null) {
+            return null;
+        }
+        if (values.size() != 2) {
+            throw new IllegalArgumentException("Expected price,quantity precision for " + symbol + ": " + values);
+        }
+        return new int[]{Integer.parseInt(values.get(0)), Integer.parseInt(values.get(1))};
+    }
+
+    public int getPipelineRingSize() {
+        return getInt("pipeline.ring.size", 16384);
+    }
+
+    public int getPipelineDecoders() {
+        return Math.max(1, getInt("pipeline.decoders", 2));
+    }
+
+    public WaitStrategy getPipelineWaitStrategy() {
+        return WaitStrategy.fromName(getString("pipeline.wait.strategy", "park"));
+    }
+
+    /**
+     * @return value format for published candles; consumers accept either
+     */
+    public CandleFormat getCandleFormat() {
+        return CandleFormat.fromName(getString("kafka.candle.format", "binary"));
+    }
+
+    /**
+     * @return true for the batching producer preset (larger batches, longer linger, compression);
+     *         false keeps the original low-latency settings
+     */
+    public boolean isKafkaThroughputMode() {
+        return !"latency".equalsIgnoreCase(getString("kafka.producer.mode", "throughput"));
+    }
+
+    public String getKafkaCompression() {
+        return getString("kafka.producer.compression", isKafkaThroughputMode() ? "lz4" : "none");
+    }
+
+    public int getKafkaLingerMillis() {
+        return getInt("kafka.producer.linger.ms", isKafkaThroughputMode() ? 20 : 1);
+    }
+
+    public int getKafkaBatchSize() {
+        return getInt("kafka.producer.batch.size", isKafkaThroughputMode() ? 131072 : 16384);
+    }
+
+    /**
+     * @return true to key records by symbol and timeframe, false to key by symbol so every series of a symbol shares a partition
+     */
+    public boolean isKafkaKeyByTimeframe() {
+        return "symbol-timeframe".equalsIgnoreCase(getString("kafka.producer.key", "symbol"));
+    }
+
+    /**
+     * @return true to persist consumed candles in the embedded store instead of only logging them
+     */
+    public boolean isStorageEnabled() {
+        return Boolean.parseBoolean(getString("storage.enabled", "false"));
+    }
+
+    public Path getStoragePath() {
+        return Path.of(getString("storage.dir", "data/candles"));
+    }
+
+    /**
+     * @return true to record every received frame to a memory-mapped journal for later replay
+     */
+    public boolean isJournalEnabled() {
+        return Boolean.parseBoolean(getString("journal.enabled", "false"));
+    }
+
+    public Path getJournalDirectory() {
+        return Path.of(getString("journal.dir", "data/journal"));
+    }
+
+    /**
+     * @return closed candles kept in memory per symbol and timeframe for the query API
+     */
+    public int getQueryHistorySize() {
+        return Math.max(1, getInt("query.history.size", CandleHistory.DEFAULT_CAPACITY));
+    }
+
+    /**
+     * @return how often live candles and quotes are sampled and serialized for stream subscribers
+     */
+    public long getStreamSampleMillis() {
+        return Math.max(1, getLong("stream.sample.interval.ms", 50));
+    }
+
+    /**
+     * @return updates per second per symbol for stream clients that do not ask for a rate
+     */
+    public double getStreamDefaultRate() {
+        return getDouble("stream.client.rate", 1);
+    }
+
+    /**
+     * @return the highest update rate a stream client may ask for
+     */
+    public double getStreamMaxRate() {
+        return getDouble("stream.client.max.rate", 20);
+    }
+
+    public long getStreamSendTimeoutMillis() {
+        return getLong("stream.send.timeout.ms", 5000);
+    }
+
+    /**
+     * @return threads sending to stream clients; a client stuck in a send holds one until it times out
+     */
+    public int getStreamSendThreads() {
+        return Math.max(1, getInt("stream.send.threads", 16));
+    }
+
+    /**
+     * @return true to compute indicators from every candle close, publish them to Kafka and serve them over REST
+     */
+    public boolean isIndicatorsEnabled() {
+        return Boolean.parseBoolean(getString("indicator.enabled", "false"));
+    }
+
+    /**
+     * @return true to also compute indicators from the candles read back by the Kafka consumer
+     */
+    public boolean isConsumerIndicatorsEnabled() {
+        return Boolean.parseBoolean(getString("indicator.consumer.enabled", "false"));
+    }
+
+    /**
+     * @return stored candles per series loaded into the indicators at start when the candle store is enabled
+     */
+    public int getIndicatorWarmUpCandles() {
+        return Math.max(0, getInt("indicator.warmup.candles", 500));
+    }
+
+    /**
+     * @return true to checkpoint books and candles in progress periodically and on shutdown, and restore them on start
+     */
+    public boolean isCheckpointEnabled() {
+        return Boolean.parseBoolean(getString("checkpoint.enabled", "false"));
+    }
+
+    public Path getCheckpointFile() {
+        return Path.of(getString("checkpoint.file", "data/checkpoint/state.bin"));
+    }
+
+    public long getCheckpointIntervalMillis() {
+        return Math.max(1000, getLong("checkpoint.interval.ms", 10000));
+    }
+
+    /**
+     * @return true to publish every mid-price tick to the ticks topic in compressed micro-batches
+     */
+    public boolean isTickStreamEnabled() {
+        return Boolean.parseBoolean(getString("ticks.enabled", "false"));
+    }
+
+    /**
+     * @return ticks buffered per symbol (power of two) before new ones are dropped while Kafka falls behind
+     */
+    public int getTickBufferSize() {
+        return getInt("ticks.buffer.size", 4096);
+    }
+
+    /**
+     * @return maximum ticks per record
+     */
+    public int getTickBatchSize() {
+        return Math.max(1, getInt("ticks.batch.size", 1024));
+    }
+
+    /**
+     * @return longest a tick waits for its record to fill before the record is sent anyway
+     */
+    public long getTickLingerMillis() {
+        return Math.max(1, getLong("ticks.linger.ms", 20));
+    }
+
+    public String getTickCompression() {
+        return getString("ticks.compression", "lz4");
+    }
+
+    /**
+     * @return bytes of records the ticks producer may hold unsent; beyond it records are dropped
+     */
+    public long getTickProducerBufferBytes() {
+        return getLong("ticks.producer.buffer.bytes", 8L << 20);
+    }
+}
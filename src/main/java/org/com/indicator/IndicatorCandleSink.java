@@ -0,0 +1,38 @@
+package org.com.indicator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.kafka.CandleSink;
+import org.com.model.Candle;
+import org.com.model.IndicatorValues;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumer-side indicators: hands each consumed batch to the wrapped sink, then folds it into the engine.
+ * Every series is keyed to one partition, and a partition's batches arrive one at a time, so each series has a
+ * single writer.
+ */
+@Slf4j
+public class IndicatorCandleSink implements CandleSink {
+    private final IndicatorEngine engine;
+    private final CandleSink delegate;
+
+    public IndicatorCandleSink(IndicatorEngine engine, CandleSink delegate) {
+        this.engine = engine;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void accept(int partition, List<Candle> candles) throws Exception {
+        delegate.accept(partition, candles);
+        List<IndicatorValues> values = new ArrayList<>(candles.size());
+        engine.onCandles(candles, values);
+        if (log.isDebugEnabled()) {
+            values.forEach(value -> log.debug("Consumed candle indicators: {}", value));
+        }
+    }
+
+    public IndicatorEngine getEngine() {
+        return engine;
+    }
+}
@@ -0,0 +1,111 @@
+package org.com.indicator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.model.Candle;
+import org.com.model.IndicatorValues;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import java.util.List;
+
+/**
+ * Incremental EMA, RSI, ATR, Bollinger bands and tick-weighted VWAP of the mid for every symbol and timeframe,
+ * so consumers read indicators instead of recomputing them over long windows.
+ * Closed candles update their series in O(1); a history is loaded in one batch through {@link #warmUp}, which
+ * vectorizes with the JDK Vector API when the JVM runs with {@code --add-modules jdk.incubator.vector}.
+ * Each series must be fed by one thread at a time, oldest candle first; latest values can be read from any thread.
+ */
+@Slf4j
+public class IndicatorEngine {
+    private final SymbolRegistry symbols;
+    private final IndicatorPeriods periods;
+    private final IndicatorState[][] states;
+    private final IndicatorKernels kernels;
+
+    public IndicatorEngine(SymbolRegistry symbols, IndicatorPeriods periods) {
+        this(symbols, periods, loadKernels());
+    }
+
+    IndicatorEngine(SymbolRegistry symbols, IndicatorPeriods periods, IndicatorKernels kernels) {
+        this.symbols = symbols;
+        this.periods = periods;
+        this.kernels = kernels;
+        this.states = new IndicatorState[symbols.size()][Timeframe.values().length];
+        for (int id = 0; id < states.length; id++) {
+            for (Timeframe timeframe : Timeframe.values()) {
+                states[id][timeframe.ordinal()] = new IndicatorState(symbols.symbolOf(id), timeframe, periods);
+            }
+        }
+        log.info("Indicator engine for {} symbols - warm-up kernels: {}", states.length, kernels.name());
+    }
+
+    public IndicatorPeriods getPeriods() {
+        return periods;
+    }
+
+    /**
+     * Folds closed candles into their series
+     * @param out receives the updated values, one per candle of a configured symbol, in candle order
+     */
+    public void onCandles(List<Candle> candles, List<IndicatorValues> out) {
+        for (int i = 0; i < candles.size(); i++) {
+            IndicatorValues values = onCandle(candles.get(i));
+            if (values != null) {
+                out.add(values);
+            }
+        }
+    }
+
+    /**
+     * @return the series' values after the candle, or null if the symbol is not configured
+     */
+    public IndicatorValues onCandle(Candle candle) {
+        IndicatorState state = stateOf(candle.getSymbol(), candle.getTimeframe());
+        return state == null ? null : state.update(candle);
+    }
+
+    /**
+     * Rebuilds a series from its history in one batch, replacing whatever it held
+     * @param history closed candles of the series, oldest first
+     */
+    public void warmUp(String symbol, Timeframe timeframe, List<Candle> history) {
+        IndicatorState state = stateOf(symbol, timeframe);
+        if (state == null) {
+            return;
+        }
+        IndicatorState.WarmUpArrays arrays = new IndicatorState.WarmUpArrays(history.size());
+        for (int i = 0; i < history.size(); i++) {
+            arrays.set(i, history.get(i));
+        }
+        state.warmUp(arrays, history.size(), kernels);
+    }
+
+    /**
+     * @return the values as of the series' last closed candle, or null before its first
+     */
+    public IndicatorValues getLatest(String symbol, Timeframe timeframe) {
+        IndicatorState state = stateOf(symbol, timeframe);
+        return state == null ? null : state.getLatest();
+    }
+
+    private IndicatorState stateOf(String symbol, Timeframe timeframe) {
+        int id = symbols.idOf(symbol);
+        if (id == SymbolRegistry.UNKNOWN || id >= states.length || timeframe == null) {
+            return null;
+        }
+        return states[id][timeframe.ordinal()];
+    }
+
+    private static IndicatorKernels loadKernels() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            log.info("Start the JVM with --add-modules jdk.incubator.vector to vectorize indicator warm-up");
+            return new ScalarKernels();
+        }
+        try {
+            // Loaded reflectively so nothing links against the incubator module when it is absent
+            return (IndicatorKernels) Class.forName("org.com.indicator.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("Vector API unavailable, indicator warm-up runs scalar", e);
+            return new ScalarKernels();
+        }
+    }
+}
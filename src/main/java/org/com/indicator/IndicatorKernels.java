@@ -0,0 +1,29 @@
+package org.com.indicator;
+
+/**
+ * Element-wise and reduction steps of an indicator warm-up over whole price arrays.
+ * The recurrences (EMA, Wilder smoothing) stay scalar; these are the parts that vectorize.
+ */
+interface IndicatorKernels {
+
+    /**
+     * out[0] = high[0] - low[0]; out[i] = max(high[i] - low[i], |high[i] - close[i-1]|, |low[i] - close[i-1]|)
+     */
+    void trueRanges(double[] high, double[] low, double[] close, double[] out, int count);
+
+    /**
+     * gains[i] = max(close[i] - close[i-1], 0) and losses[i] = max(close[i-1] - close[i], 0), with index 0 zero
+     */
+    void changes(double[] close, double[] gains, double[] losses, int count);
+
+    /**
+     * out[i] = (high[i] + low[i] + close[i]) / 3 * weight[i]
+     */
+    void weightedTypical(double[] high, double[] low, double[] close, double[] weight, double[] out, int count);
+
+    double sum(double[] values, int from, int to);
+
+    double sumOfSquares(double[] values, int from, int to);
+
+    String name();
+}
@@ -0,0 +1,39 @@
+package org.com.indicator;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.com.config.AppConfig;
+
+/**
+ * Lookback of each indicator, in candles of the series' own timeframe
+ */
+@Getter
+@AllArgsConstructor
+public class IndicatorPeriods {
+    private int ema;
+    private int rsi;
+    private int atr;
+    private int bollinger;
+    /**
+     * Standard deviations between the middle band and each outer band
+     */
+    private double bollingerWidth;
+    private int vwap;
+
+    public static IndicatorPeriods from(AppConfig config) {
+        return new IndicatorPeriods(
+                Math.max(1, config.getInt("indicator.ema.period", 20)),
+                Math.max(1, config.getInt("indicator.rsi.period", 14)),
+                Math.max(1, config.getInt("indicator.atr.period", 14)),
+                Math.max(1, config.getInt("indicator.bollinger.period", 20)),
+                config.getDouble("indicator.bollinger.width", 2),
+                Math.max(1, config.getInt("indicator.vwap.period", 20)));
+    }
+
+    /**
+     * @return candles a series needs before every indicator has a value
+     */
+    public int getLongest() {
+        return Math.max(Math.max(ema, rsi + 1), Math.max(atr, Math.max(bollinger, vwap)));
+    }
+}
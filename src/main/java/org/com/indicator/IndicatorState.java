@@ -0,0 +1,301 @@
+package org.com.indicator;
+
+import org.com.model.Candle;
+import org.com.model.IndicatorValues;
+import org.com.model.Timeframe;
+import java.util.Arrays;
+
+/**
+ * Running indicators of one symbol and timeframe, updated in O(1) per closed candle.
+ * EMA, RSI and ATR are recurrences seeded with the simple average of their first period; Bollinger bands and
+ * VWAP keep their window in primitive rings with running sums, re-summed once per lap so rounding cannot drift.
+ * Written by one thread at a time; {@link #getLatest()} may be read from any thread.
+ */
+final class IndicatorState {
+    private final String symbol;
+    private final Timeframe timeframe;
+    private final int emaPeriod;
+    private final int rsiPeriod;
+    private final int atrPeriod;
+    private final double emaAlpha;
+    private final double bollingerWidth;
+
+    private final double[] closes;
+    private double closeSum;
+    private double closeSumOfSquares;
+    private final double[] weightedMids;
+    private final double[] weights;
+    private double weightedMidSum;
+    private double weightSum;
+
+    private long count;
+    private double previousClose;
+    // Sums of the first period until it fills, then the smoothed values
+    private double ema;
+    private double averageGain;
+    private double averageLoss;
+    private double atr;
+    private volatile IndicatorValues latest;
+
+    IndicatorState(String symbol, Timeframe timeframe, IndicatorPeriods periods) {
+        this.symbol = symbol;
+        this.timeframe = timeframe;
+        this.emaPeriod = periods.getEma();
+        this.rsiPeriod = periods.getRsi();
+        this.atrPeriod = periods.getAtr();
+        this.emaAlpha = 2.0 / (emaPeriod + 1);
+        this.bollingerWidth = periods.getBollingerWidth();
+        this.closes = new double[periods.getBollinger()];
+        this.weightedMids = new double[periods.getVwap()];
+        this.weights = new double[periods.getVwap()];
+    }
+
+    IndicatorValues update(Candle candle) {
+        double high = candle.getHigh();
+        double low = candle.getLow();
+        double close = candle.getClose();
+
+        if (count < emaPeriod) {
+            ema += close;
+            if (count + 1 == emaPeriod) {
+                ema /= emaPeriod;
+            }
+        } else {
+            ema += emaAlpha * (close - ema);
+        }
+
+        if (count > 0) {
+            double change = close - previousClose;
+            smoothRsi(Math.max(change, 0), Math.max(-change, 0));
+        }
+
+        double trueRange = count == 0 ? high - low
+                : Math.max(high - low, Math.max(Math.abs(high - previousClose), Math.abs(low - previousClose)));
+        smoothAtr(trueRange);
+
+        int closeSlot = (int) (count % closes.length);
+        if (count >= closes.length) {
+            double evicted = closes[closeSlot];
+            closeSum -= evicted;
+            closeSumOfSquares -= evicted * evicted;
+        }
+        closes[closeSlot] = close;
+        closeSum += close;
+        closeSumOfSquares += close * close;
+
+        int vwapSlot = (int) (count % weights.length);
+        if (count >= weights.length) {
+            weightedMidSum -= weightedMids[vwapSlot];
+            weightSum -= weights[vwapSlot];
+        }
+        double weight = candle.getTicks();
+        weightedMids[vwapSlot] = (high + low + close) / 3 * weight;
+        weights[vwapSlot] = weight;
+        weightedMidSum += weightedMids[vwapSlot];
+        weightSum += weight;
+
+        previousClose = close;
+        count++;
+        if (closeSlot == closes.length - 1) {
+            resumCloses();
+        }
+        if (vwapSlot == weights.length - 1) {
+            resumWeights();
+        }
+        return publish(candle.getTimestamp(), close);
+    }
+
+    private void smoothRsi(double gain, double loss) {
+        // Called for the count-th change; the first rsiPeriod changes are summed, then averaged
+        if (count <= rsiPeriod) {
+            averageGain += gain;
+            averageLoss += loss;
+            if (count == rsiPeriod) {
+                averageGain /= rsiPeriod;
+                averageLoss /= rsiPeriod;
+            }
+        } else {
+            averageGain = (averageGain * (rsiPeriod - 1) + gain) / rsiPeriod;
+            averageLoss = (averageLoss * (rsiPeriod - 1) + loss) / rsiPeriod;
+        }
+    }
+
+    private void smoothAtr(double trueRange) {
+        if (count < atrPeriod) {
+            atr += trueRange;
+            if (count + 1 == atrPeriod) {
+                atr /= atrPeriod;
+            }
+        } else {
+            atr = (atr * (atrPeriod - 1) + trueRange) / atrPeriod;
+        }
+    }
+
+    private void resumCloses() {
+        closeSum = 0;
+        closeSumOfSquares = 0;
+        for (double value : closes) {
+            closeSum += value;
+            closeSumOfSquares += value * value;
+        }
+    }
+
+    private void resumWeights() {
+        weightedMidSum = 0;
+        weightSum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            weightedMidSum += weightedMids[i];
+            weightSum += weights[i];
+        }
+    }
+
+    /**
+     * Replaces the state with one computed from a whole history in batch: the kernels compute true ranges, price
+     * changes and weighted mids for every candle and the seed and window sums, leaving only the smoothing
+     * recurrences to scalar loops. Ends in the same state as updating candle by candle, up to rounding.
+     * @param history arrays of at least count elements, oldest candle first
+     */
+    void warmUp(WarmUpArrays history, int count, IndicatorKernels kernels) {
+        reset();
+        if (count == 0) {
+            return;
+        }
+        double[] high = history.high;
+        double[] low = history.low;
+        double[] close = history.close;
+        kernels.trueRanges(high, low, close, history.trueRange, count);
+        kernels.changes(close, history.gain, history.loss, count);
+        kernels.weightedTypical(high, low, close, history.weight, history.weightedMid, count);
+
+        if (count < emaPeriod) {
+            ema = kernels.sum(close, 0, count);
+        } else {
+            ema = kernels.sum(close, 0, emaPeriod) / emaPeriod;
+            for (int i = emaPeriod; i < count; i++) {
+                ema += emaAlpha * (close[i] - ema);
+            }
+        }
+
+        // Changes start at index 1
+        int seeded = Math.min(count - 1, rsiPeriod);
+        averageGain = kernels.sum(history.gain, 1, 1 + seeded);
+        averageLoss = kernels.sum(history.loss, 1, 1 + seeded);
+        if (seeded == rsiPeriod) {
+            averageGain /= rsiPeriod;
+            averageLoss /= rsiPeriod;
+            for (int i = rsiPeriod + 1; i < count; i++) {
+                averageGain = (averageGain * (rsiPeriod - 1) + history.gain[i]) / rsiPeriod;
+                averageLoss = (averageLoss * (rsiPeriod - 1) + history.loss[i]) / rsiPeriod;
+            }
+        }
+
+        if (count < atrPeriod) {
+            atr = kernels.sum(history.trueRange, 0, count);
+        } else {
+            atr = kernels.sum(history.trueRange, 0, atrPeriod) / atrPeriod;
+            for (int i = atrPeriod; i < count; i++) {
+                atr = (atr * (atrPeriod - 1) + history.trueRange[i]) / atrPeriod;
+            }
+        }
+
+        // Refill the windows at the slots the incremental path would have used
+        int from = Math.max(0, count - closes.length);
+        for (int i = from; i < count; i++) {
+            closes[i % closes.length] = close[i];
+        }
+        closeSum = kernels.sum(close, from, count);
+        closeSumOfSquares = kernels.sumOfSquares(close, from, count);
+
+        from = Math.max(0, count - weights.length);
+        for (int i = from; i < count; i++) {
+            weightedMids[i % weights.length] = history.weightedMid[i];
+            weights[i % weights.length] = history.weight[i];
+        }
+        weightedMidSum = kernels.sum(history.weightedMid, from, count);
+        weightSum = kernels.sum(history.weight, from, count);
+
+        this.count = count;
+        previousClose = close[count - 1];
+        publish(history.timestamp[count - 1], previousClose);
+    }
+
+    private void reset() {
+        count = 0;
+        previousClose = 0;
+        ema = 0;
+        averageGain = 0;
+        averageLoss = 0;
+        atr = 0;
+        closeSum = 0;
+        closeSumOfSquares = 0;
+        weightedMidSum = 0;
+        weightSum = 0;
+        Arrays.fill(closes, 0);
+        Arrays.fill(weightedMids, 0);
+        Arrays.fill(weights, 0);
+        latest = null;
+    }
+
+    private IndicatorValues publish(long timestamp, double close) {
+        double middle = Double.NaN;
+        double band = Double.NaN;
+        if (count >= closes.length) {
+            middle = closeSum / closes.length;
+            band = bollingerWidth * Math.sqrt(Math.max(0, closeSumOfSquares / closes.length - middle * middle));
+        }
+        double rsi = Double.NaN;
+        if (count > rsiPeriod) {
+            rsi = averageLoss == 0 ? 100 : 100 - 100 / (1 + averageGain / averageLoss);
+        }
+        IndicatorValues values = new IndicatorValues(symbol, timeframe, timestamp, close,
+                count >= emaPeriod ? ema : Double.NaN,
+                rsi,
+                count >= atrPeriod ? atr : Double.NaN,
+                middle, middle + band, middle - band,
+                count >= weights.length && weightSum > 0 ? weightedMidSum / weightSum : Double.NaN);
+        latest = values;
+        return values;
+    }
+
+    /**
+     * @return the values as of the last candle, or null before the first
+     */
+    IndicatorValues getLatest() {
+        return latest;
+    }
+
+    /**
+     * Column arrays of a history handed to {@link #warmUp}, plus scratch for the kernels' outputs
+     */
+    static final class WarmUpArrays {
+        final long[] timestamp;
+        final double[] high;
+        final double[] low;
+        final double[] close;
+        final double[] weight;
+        final double[] trueRange;
+        final double[] gain;
+        final double[] loss;
+        final double[] weightedMid;
+
+        WarmUpArrays(int capacity) {
+            timestamp = new long[capacity];
+            high = new double[capacity];
+            low = new double[capacity];
+            close = new double[capacity];
+            weight = new double[capacity];
+            trueRange = new double[capacity];
+            gain = new double[capacity];
+            loss = new double[capacity];
+            weightedMid = new double[capacity];
+        }
+
+        void set(int index, Candle candle) {
+            timestamp[index] = candle.getTimestamp();
+            high[index] = candle.getHigh();
+            low[index] = candle.getLow();
+            close[index] = candle.getClose();
+            weight[index] = candle.getTicks();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.com.indicator;
+
+/**
+ * Plain loops, used when the Vector API module is not available
+ */
+final class ScalarKernels implements IndicatorKernels {
+
+    @Override
+    public void trueRanges(double[] high, double[] low, double[] close, double[] out, int count) {
+        if (count == 0) {
+            return;
+        }
+        out[0] = high[0] - low[0];
+        for (int i = 1; i < count; i++) {
+            double previous = close[i - 1];
+            out[i] = Math.max(high[i] - low[i], Math.max(Math.abs(high[i] - previous), Math.abs(low[i] - previous)));
+        }
+    }
+
+    @Override
+    public void changes(double[] close, double[] gains, double[] losses, int count) {
+        if (count == 0) {
+            return;
+        }
+        gains[0] = 0;
+        losses[0] = 0;
+        for (int i = 1; i < count; i++) {
+            double change = close[i] - close[i - 1];
+            gains[i] = Math.max(change, 0);
+            losses[i] = Math.max(-change, 0);
+        }
+    }
+
+    @Override
+    public void weightedTypical(double[] high, double[] low, double[] close, double[] weight, double[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = (high[i] + low[i] + close[i]) / 3 * weight[i];
+        }
+    }
+
+    @Override
+    public double sum(double[] values, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double sumOfSquares(double[] values, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i] * values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,100 @@
+package org.com.indicator;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels on the JDK Vector API at the platform's preferred width (e.g. 4 doubles on AVX2, 8 on AVX-512),
+ * each finishing its tail with scalar code. Only loaded when the JVM resolved the {@code jdk.incubator.vector} module.
+ */
+final class VectorKernels implements IndicatorKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private final ScalarKernels tail = new ScalarKernels();
+
+    @Override
+    public void trueRanges(double[] high, double[] low, double[] close, double[] out, int count) {
+        if (count == 0) {
+            return;
+        }
+        out[0] = high[0] - low[0];
+        int i = 1;
+        for (int bound = 1 + SPECIES.loopBound(count - 1); i < bound; i += SPECIES.length()) {
+            DoubleVector h = DoubleVector.fromArray(SPECIES, high, i);
+            DoubleVector l = DoubleVector.fromArray(SPECIES, low, i);
+            DoubleVector previous = DoubleVector.fromArray(SPECIES, close, i - 1);
+            h.sub(l)
+                    .max(h.sub(previous).abs())
+                    .max(l.sub(previous).abs())
+                    .intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            double previous = close[i - 1];
+            out[i] = Math.max(high[i] - low[i], Math.max(Math.abs(high[i] - previous), Math.abs(low[i] - previous)));
+        }
+    }
+
+    @Override
+    public void changes(double[] close, double[] gains, double[] losses, int count) {
+        if (count == 0) {
+            return;
+        }
+        gains[0] = 0;
+        losses[0] = 0;
+        int i = 1;
+        for (int bound = 1 + SPECIES.loopBound(count - 1); i < bound; i += SPECIES.length()) {
+            DoubleVector change = DoubleVector.fromArray(SPECIES, close, i)
+                    .sub(DoubleVector.fromArray(SPECIES, close, i - 1));
+            change.max(0).intoArray(gains, i);
+            change.neg().max(0).intoArray(losses, i);
+        }
+        for (; i < count; i++) {
+            double change = close[i] - close[i - 1];
+            gains[i] = Math.max(change, 0);
+            losses[i] = Math.max(-change, 0);
+        }
+    }
+
+    @Override
+    public void weightedTypical(double[] high, double[] low, double[] close, double[] weight, double[] out, int count) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(count); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, high, i)
+                    .add(DoubleVector.fromArray(SPECIES, low, i))
+                    .add(DoubleVector.fromArray(SPECIES, close, i))
+                    .div(3)
+                    .mul(DoubleVector.fromArray(SPECIES, weight, i))
+                    .intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            out[i] = (high[i] + low[i] + close[i]) / 3 * weight[i];
+        }
+    }
+
+    @Override
+    public double sum(double[] values, int from, int to) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            acc = acc.add(DoubleVector.fromArray(SPECIES, values, i));
+        }
+        return acc.reduceLanes(VectorOperators.ADD) + tail.sum(values, i, to);
+    }
+
+    @Override
+    public double sumOfSquares(double[] values, int from, int to) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+            acc = v.fma(v, acc);
+        }
+        return acc.reduceLanes(VectorOperators.ADD) + tail.sumOfSquares(values, i, to);
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.length() + "x64";
+    }
+}
@@ -0,0 +1,162 @@
+package org.com.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only, memory-mapped journal of raw market-data frames.
+ * The file starts with a header (magic, version, chunk size) and is mapped one chunk at a time; records never
+ * cross a chunk boundary. Each record is a little-endian
+ * {@code int length, long receiveNanos, long receiveMillis} followed by the frame's UTF-8 bytes.
+ * A length of {@value #CHUNK_END} marks the unused tail of a chunk, and 0 (or the end of the file) ends the journal.
+ * Frames are appended from the socket thread only; the monitor just keeps a concurrent close from truncating the
+ * mapped file under a write.
+ */
+@Slf4j
+public class FrameJournal implements AutoCloseable {
+    static final int MAGIC = 0x4B524A31;
+    static final int VERSION = 1;
+    static final int FILE_HEADER_BYTES = 16;
+    static final int RECORD_HEADER_BYTES = Integer.BYTES + 2 * Long.BYTES;
+    static final int CHUNK_END = -1;
+    public static final int DEFAULT_CHUNK_BYTES = 64 * 1024 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int chunkBytes;
+    private MappedByteBuffer chunk;
+    private long chunkIndex;
+    private long frames;
+    private boolean closed;
+
+    public FrameJournal(Path path, int chunkBytes) {
+        this.path = path;
+        this.chunkBytes = chunkBytes;
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            mapChunk(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create frame journal " + path, e);
+        }
+        chunk.putInt(MAGIC);
+        chunk.putInt(VERSION);
+        chunk.putInt(chunkBytes);
+        chunk.putInt(0);
+
+        log.info("Recording market data frames to {}", path.toAbsolutePath());
+    }
+
+    public synchronized void append(String frame, long receiveNanos, long receiveMillis) {
+        if (closed) {
+            return;
+        }
+        int length = frame.length();
+        ensureRoom(RECORD_HEADER_BYTES + length);
+
+        // Kraken frames are ASCII, so chars are written as bytes without an intermediate array
+        int start = chunk.position();
+        chunk.position(start + Integer.BYTES);
+        chunk.putLong(receiveNanos);
+        chunk.putLong(receiveMillis);
+        for (int i = 0; i < length; i++) {
+            char c = frame.charAt(i);
+            if (c >= 0x80) {
+                // Rare non-ASCII frame: rewrite the record from its UTF-8 bytes
+                chunk.position(start);
+                appendBytes(frame.getBytes(StandardCharsets.UTF_8), receiveNanos, receiveMillis);
+                return;
+            }
+            chunk.put((byte) c);
+        }
+        chunk.putInt(start, length);
+        frames++;
+    }
+
+    /**
+     * Appends the remaining bytes of a UTF-8 frame without consuming the buffer
+     */
+    public synchronized void append(ByteBuffer frame, long receiveNanos, long receiveMillis) {
+        if (closed) {
+            return;
+        }
+        int length = frame.remaining();
+        ensureRoom(RECORD_HEADER_BYTES + length);
+        chunk.putInt(length);
+        chunk.putLong(receiveNanos);
+        chunk.putLong(receiveMillis);
+        chunk.put(chunk.position(), frame, frame.position(), length);
+        chunk.position(chunk.position() + length);
+        frames++;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public synchronized void flush() {
+        chunk.force();
+    }
+
+    /**
+     * Forces the journal to disk and trims the unused tail of the last chunk
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            chunk.force();
+            channel.truncate(chunkIndex * chunkBytes + chunk.position());
+            channel.close();
+            log.info("Frame journal {} closed after {} frames", path, frames);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close frame journal " + path, e);
+        }
+    }
+
+    private void appendBytes(byte[] bytes, long receiveNanos, long receiveMillis) {
+        ensureRoom(RECORD_HEADER_BYTES + bytes.length);
+        chunk.putInt(bytes.length);
+        chunk.putLong(receiveNanos);
+        chunk.putLong(receiveMillis);
+        chunk.put(bytes);
+        frames++;
+    }
+
+    private void ensureRoom(int recordBytes) {
+        if (recordBytes <= chunk.remaining()) {
+            return;
+        }
+        if (recordBytes > chunkBytes - FILE_HEADER_BYTES) {
+            throw new IllegalArgumentException("Frame of " + recordBytes + " bytes exceeds the journal chunk size");
+        }
+        if (chunk.remaining() >= Integer.BYTES) {
+            chunk.putInt(CHUNK_END);
+        }
+        try {
+            mapChunk(chunkIndex + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to extend frame journal " + path, e);
+        }
+    }
+
+    private void mapChunk(long index) throws IOException {
+        chunkIndex = index;
+        chunk = channel.map(FileChannel.MapMode.READ_WRITE, index * chunkBytes, chunkBytes);
+        chunk.order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
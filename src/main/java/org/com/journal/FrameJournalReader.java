@@ -0,0 +1,79 @@
+package org.com.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a {@link FrameJournal} sequentially, mapping one chunk at a time
+ */
+public class FrameJournalReader {
+    private final Path path;
+
+    public FrameJournalReader(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * @return number of frames visited
+     */
+    public long replay(FrameVisitor visitor) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer chunk = map(channel, 0, Math.min(size, FrameJournal.FILE_HEADER_BYTES));
+            if (size < FrameJournal.FILE_HEADER_BYTES || chunk.getInt() != FrameJournal.MAGIC) {
+                throw new IllegalArgumentException(path + " is not a frame journal");
+            }
+            int version = chunk.getInt();
+            if (version != FrameJournal.VERSION) {
+                throw new IllegalArgumentException("Unsupported frame journal version " + version + " in " + path);
+            }
+            int chunkBytes = chunk.getInt();
+
+            byte[] bytes = new byte[4096];
+            long frames = 0;
+            for (long offset = 0; offset < size; offset += chunkBytes) {
+                chunk = map(channel, offset, Math.min(chunkBytes, size - offset));
+                if (offset == 0) {
+                    chunk.position(FrameJournal.FILE_HEADER_BYTES);
+                }
+                while (chunk.remaining() >= FrameJournal.RECORD_HEADER_BYTES) {
+                    int length = chunk.getInt();
+                    if (length == 0) {
+                        return frames;
+                    }
+                    if (length == FrameJournal.CHUNK_END) {
+                        break;
+                    }
+                    long receiveNanos = chunk.getLong();
+                    long receiveMillis = chunk.getLong();
+                    if (length > chunk.remaining()) {
+                        // Torn last record
+                        return frames;
+                    }
+                    if (length > bytes.length) {
+                        bytes = new byte[Integer.highestOneBit(length) << 1];
+                    }
+                    chunk.get(bytes, 0, length);
+                    visitor.onFrame(new String(bytes, 0, length, StandardCharsets.UTF_8), receiveNanos, receiveMillis);
+                    frames++;
+                }
+            }
+            return frames;
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read frame journal " + path, e);
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+}
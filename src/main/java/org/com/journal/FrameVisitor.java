@@ -0,0 +1,10 @@
+package org.com.journal;
+
+/**
+ * Receives journaled frames in recording order
+ */
+@FunctionalInterface
+public interface FrameVisitor {
+
+    void onFrame(String frame, long receiveNanos, long receiveMillis);
+}
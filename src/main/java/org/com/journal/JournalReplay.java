@@ -0,0 +1,154 @@
+package org.com.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.config.AppConfig;
+import org.com.model.Candle;
+import org.com.model.SymbolRegistry;
+import org.com.service.InstrumentState;
+import org.com.service.ShardedBookProcessor;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Replays a {@link FrameJournal} through the live ingest path (pipeline, books, candle generators) with a fresh
+ * {@link ShardedBookProcessor}. Minutes are closed on the recorded clock: before the first frame at or past a
+ * minute boundary every earlier frame is applied and the minute is closed, exactly as the scheduler would, so a
+ * journal always yields the same candles. Frames carry their recorded receive time, which stands in for the wall clock.
+ * <p>
+ * Usage: {@code JournalReplay <journal> [max|<speed multiplier>] [candle output file]}
+ */
+@Slf4j
+public class JournalReplay {
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private final AppConfig config;
+    private final SymbolRegistry symbols;
+
+    public JournalReplay(AppConfig config) {
+        this.config = config;
+        this.symbols = new SymbolRegistry(config.getInstruments());
+    }
+
+    /**
+     * @param speed 0 to replay as fast as possible, 1 for the recorded pace, or any other pace multiplier
+     * @return number of frames replayed
+     */
+    public long replay(Path journal, double speed, Consumer<Candle> sink) {
+        ShardedBookProcessor processor = new ShardedBookProcessor(symbols, config);
+        boolean eventTime = config.isEventTime();
+        long closeDelay = eventTime ? config.getAllowedLatenessMillis() : 0;
+        processor.start();
+
+        ReplayClock clock = new ReplayClock(speed);
+        long[] nextClose = {Long.MIN_VALUE};
+        try {
+            long frames = new FrameJournalReader(journal).replay((frame, receiveNanos, receiveMillis) -> {
+                if (nextClose[0] == Long.MIN_VALUE) {
+                    nextClose[0] = nextMinuteBoundary(receiveMillis) + closeDelay;
+                }
+                while (receiveMillis >= nextClose[0]) {
+                    closeCandles(processor, nextClose[0], eventTime, closeDelay, sink);
+                    nextClose[0] += MINUTE_MILLIS;
+                }
+                clock.awaitFrame(receiveNanos);
+                processor.dispatch(frame, receiveNanos, receiveMillis);
+            });
+
+            // Close the last recorded minute as the scheduler would at its boundary
+            if (nextClose[0] != Long.MIN_VALUE) {
+                closeCandles(processor, nextClose[0], eventTime, closeDelay, sink);
+            }
+            return frames;
+
+        } finally {
+            processor.shutdown();
+        }
+    }
+
+    private static void closeCandles(ShardedBookProcessor processor, long closeMillis, boolean eventTime, long closeDelay,
+                                     Consumer<Candle> sink) {
+        processor.awaitApplied();
+        long minuteStart = (closeMillis - closeDelay) / 1000 - 60;
+        List<Candle> closed = new ArrayList<>();
+        for (InstrumentState instrument : processor.getInstruments()) {
+            if (eventTime) {
+                instrument.closeEventTime(closeMillis, closed);
+            } else {
+                instrument.closeMinute(minuteStart, closed);
+            }
+        }
+        closed.forEach(sink);
+    }
+
+    private static long nextMinuteBoundary(long millis) {
+        return (millis / MINUTE_MILLIS + 1) * MINUTE_MILLIS;
+    }
+
+    /**
+     * Paces frames to their recorded spacing, scaled by the speed multiplier; speed 0 disables pacing
+     */
+    private static final class ReplayClock {
+        private final double speed;
+        private long firstRecordedNanos = Long.MIN_VALUE;
+        private long startNanos;
+
+        private ReplayClock(double speed) {
+            this.speed = speed;
+        }
+
+        private void awaitFrame(long recordedNanos) {
+            if (speed <= 0) {
+                return;
+            }
+            if (firstRecordedNanos == Long.MIN_VALUE) {
+                firstRecordedNanos = recordedNanos;
+                startNanos = System.nanoTime();
+                return;
+            }
+            long due = startNanos + (long) ((recordedNanos - firstRecordedNanos) / speed);
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: JournalReplay <journal> [max|<speed multiplier>] [candle output file]");
+            System.exit(1);
+        }
+        Path journal = Path.of(args[0]);
+        double speed = args.length < 2 || "max".equalsIgnoreCase(args[1]) ? 0 : Double.parseDouble(args[1]);
+
+        JournalReplay replay = new JournalReplay(AppConfig.load());
+        long started = System.nanoTime();
+        long frames;
+        if (args.length < 3) {
+            frames = replay.replay(journal, speed, candle -> log.info("Replayed candle: {}", candle));
+        } else {
+            try (BufferedWriter out = Files.newBufferedWriter(Path.of(args[2]))) {
+                frames = replay.replay(journal, speed, candle -> writeLine(out, candle));
+            }
+        }
+        log.info("Replayed {} frames from {} in {} ms", frames, journal,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private static void writeLine(BufferedWriter out, Candle candle) {
+        try {
+            out.write(candle.toString());
+            out.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.com.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.com.model.Candle;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads candles written by {@link CandleSerializer}, or JSON when the value does not start with the binary magic byte,
+ * so a topic can hold both formats while producers are switched over.
+ * Unreadable values are logged and returned as null rather than failing the poll, so one bad record cannot stall the consumer.
+ */
+@Slf4j
+public class CandleDeserializer implements Deserializer<Candle> {
+    private static final Timeframe[] TIMEFRAMES = Timeframe.values();
+
+    private final SymbolRegistry symbols;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public CandleDeserializer(SymbolRegistry symbols) {
+        this.symbols = symbols;
+    }
+
+    @Override
+    public Candle deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return data.length > 0 && data[0] == CandleSerializer.MAGIC ? fromBinary(data) : fromJson(data);
+        } catch (SerializationException e) {
+            log.error("Skipping unreadable candle on {}", topic, e);
+            return null;
+        }
+    }
+
+    private Candle fromBinary(byte[] data) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+            in.get();
+            byte version = in.get();
+            if (version != CandleSerializer.VERSION) {
+                throw new SerializationException("Unsupported candle format version " + version);
+            }
+
+            Candle candle = new Candle();
+            candle.setTimeframe(TIMEFRAMES[in.get()]);
+            byte flags = in.get();
+            int fingerprint = in.getInt();
+            short symbol = in.getShort();
+            if ((flags & CandleSerializer.FLAG_INLINE_SYMBOL) != 0) {
+                candle.setSymbol(new String(data, in.position(), symbol, StandardCharsets.UTF_8));
+                in.position(in.position() + symbol);
+            } else if (fingerprint != symbols.fingerprint()) {
+                throw new SerializationException("Candle symbol id " + symbol + " comes from a different symbol registry; "
+                        + "producer and consumer must list kraken.instrument in the same order");
+            } else if (symbol < symbols.size()) {
+                candle.setSymbol(symbols.symbolOf(symbol));
+            } else {
+                throw new SerializationException("Unknown symbol id " + symbol + "; producer and consumer instruments differ");
+            }
+            candle.setTimestampSecondsAndInstant(in.getLong());
+            candle.setOpen(in.getDouble());
+            candle.setHigh(in.getDouble());
+            candle.setLow(in.getDouble());
+            candle.setClose(in.getDouble());
+            candle.setTicks(in.getInt());
+            return candle;
+
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new SerializationException("Malformed binary candle of " + data.length + " bytes", e);
+        }
+    }
+
+    private Candle fromJson(byte[] data) {
+        try {
+            Candle candle = objectMapper.readValue(data, Candle.class);
+            candle.setTimestampSecondsAndInstant(candle.getTimestamp());
+            return candle;
+        } catch (IOException e) {
+            throw new SerializationException("Failed to deserialize candle from JSON", e);
+        }
+    }
+}
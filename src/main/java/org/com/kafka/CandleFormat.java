@@ -0,0 +1,23 @@
+package org.com.kafka;
+
+import org.apache.kafka.common.serialization.Serializer;
+import org.com.model.Candle;
+import org.com.model.SymbolRegistry;
+
+/**
+ * Wire format of candle values on the Kafka topic.
+ * JSON is human readable; BINARY is the fixed little-endian layout of {@link CandleSerializer}.
+ * Consumers read both, so the producer format can be switched without draining the topic.
+ */
+public enum CandleFormat {
+    JSON,
+    BINARY;
+
+    public Serializer<Candle> serializer(SymbolRegistry symbols) {
+        return this == BINARY ? new CandleSerializer(symbols) : new CandleJsonSerializer();
+    }
+
+    public static CandleFormat fromName(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+}
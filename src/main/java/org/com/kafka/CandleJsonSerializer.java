@@ -0,0 +1,71 @@
+package org.com.kafka;
+
+import org.apache.kafka.common.serialization.Serializer;
+import org.com.model.Candle;
+import org.com.util.FixedPoint;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes candles as JSON with the same fields Jackson produces for {@link Candle}, so {@link CandleDeserializer}
+ * and any JSON consumer read it unchanged.
+ * The text is built in a reused buffer without going through Jackson or Double.toString; only the array handed
+ * to Kafka is allocated.
+ */
+public class CandleJsonSerializer implements Serializer<Candle> {
+    private final StringBuilder text = new StringBuilder(256);
+
+    @Override
+    public synchronized byte[] serialize(String topic, Candle candle) {
+        if (candle == null) {
+            return null;
+        }
+
+        StringBuilder out = text;
+        out.setLength(0);
+        out.append("{\"symbol\":");
+        appendString(out, candle.getSymbol());
+        out.append(",\"timeframe\":");
+        appendString(out, candle.getTimeframe() == null ? null : candle.getTimeframe().getLabel());
+        out.append(",\"timestamp\":").append(candle.getTimestamp());
+        FixedPoint.appendDecimal(out.append(",\"open\":"), candle.getOpen());
+        FixedPoint.appendDecimal(out.append(",\"high\":"), candle.getHigh());
+        FixedPoint.appendDecimal(out.append(",\"low\":"), candle.getLow());
+        FixedPoint.appendDecimal(out.append(",\"close\":"), candle.getClose());
+        out.append(",\"ticks\":").append(candle.getTicks()).append('}');
+        return encode(out);
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append("\\u00");
+                out.append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static byte[] encode(StringBuilder out) {
+        int length = out.length();
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            char c = out.charAt(i);
+            if (c >= 0x80) {
+                // Non-ASCII symbols are rare enough to take the allocating path
+                return out.toString().getBytes(StandardCharsets.UTF_8);
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+}
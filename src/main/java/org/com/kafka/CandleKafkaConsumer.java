@@ -1,49 +1,92 @@
 package org.com.kafka;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.com.model.Candle;
+import org.com.model.SymbolRegistry;
 import org.apache.kafka.clients.consumer.*;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RebalanceInProgressException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.errors.WakeupException;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import java.time.Duration;
-import java.util.Collections;
-import java.util.Properties;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Kafka consumer for consuming candle data
+ * Kafka consumer for consuming candle data.
+ * Each poll is split by partition and the partitions are handed to a {@link CandleSink} in parallel on a fixed pool
+ * of worker threads, one per core; partitions beyond that wait for a free worker.
+ * The poll thread waits for every partition batch before polling again, which keeps each partition in order,
+ * then commits the offsets of the batches that succeeded. A commit that fails, e.g. during a rebalance, is kept and
+ * retried after the next poll, and partitions being revoked get their processed offsets committed first.
+ * A failed partition is rewound to its batch start and paused for an exponential backoff before it is retried;
+ * after {@value #MAX_ATTEMPTS} attempts the batch is logged with its offsets as dead-lettered and skipped.
  */
 @Slf4j
 public class CandleKafkaConsumer {
     private static final String TOPIC_NAME = "candle-data";
     private static final String CONSUMER_GROUP = "candle-consumer-group";
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 30000;
+    private static final int MAX_ATTEMPTS = 8;
 
-    private final Consumer<String, String> consumer;
-    private final ObjectMapper objectMapper;
+    private final Consumer<String, Candle> consumer;
+    private final CandleSink sink;
+    private final long retryBackoffMillis;
     private final ExecutorService executorService;
+    private final ExecutorService partitionWorkers;
     private volatile boolean running = false;
+    // Poll thread only: offsets of processed batches not committed yet, and partitions backing off after a failure
+    private final Map<TopicPartition, OffsetAndMetadata> pendingOffsets = new HashMap<>();
+    private final Map<TopicPartition, Retry> retries = new HashMap<>();
 
-    public CandleKafkaConsumer() {
-        Properties properties = getDefaultConsumerProperties();
-        this.consumer = new KafkaConsumer<>(properties);
-        this.objectMapper = new ObjectMapper();
+    private final AtomicLong consumedRecords = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong deadLetteredBatches = new AtomicLong();
+    private final AtomicLong failedCommits = new AtomicLong();
+
+    public CandleKafkaConsumer(SymbolRegistry symbols) {
+        this(symbols, new LoggingCandleSink());
+    }
+
+    public CandleKafkaConsumer(SymbolRegistry symbols, CandleSink sink) {
+        this(new KafkaConsumer<>(getDefaultConsumerProperties(), new StringDeserializer(), new CandleDeserializer(symbols)),
+                sink, RETRY_BACKOFF_MILLIS);
+    }
+
+    /**
+     * @param retryBackoffMillis backoff after a partition's first failed attempt, doubled on every further attempt
+     */
+    CandleKafkaConsumer(Consumer<String, Candle> consumer, CandleSink sink, long retryBackoffMillis) {
+        this.consumer = consumer;
+        this.sink = sink;
+        this.retryBackoffMillis = retryBackoffMillis;
         this.executorService = Executors.newSingleThreadExecutor();
+        AtomicInteger workerIds = new AtomicInteger();
+        this.partitionWorkers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "candle-consumer-" + workerIds.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
 
         log.info("Kafka consumer initialized for topic: {} with group: {}", TOPIC_NAME, CONSUMER_GROUP);
     }
 
-    private Properties getDefaultConsumerProperties() {
+    private static Properties getDefaultConsumerProperties() {
         Properties props = new Properties();
         String server = System.getenv("KAFKA_BOOTSTRAP_SERVERS");
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, server == null ? "localhost:9092" : server);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, CONSUMER_GROUP);
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "true");
-        props.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, "1000");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 2000);
         props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, "30000");
         props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 1);
         return props;
@@ -59,62 +102,183 @@ public class CandleKafkaConsumer {
         }
 
         running = true;
-        consumer.subscribe(Collections.singletonList(TOPIC_NAME));
+        consumer.subscribe(Collections.singletonList(TOPIC_NAME), new RebalanceListener());
 
         executorService.submit(() -> {
             log.info("Started consuming candles from Kafka topic: {}", TOPIC_NAME);
 
             try {
                 while (running) {
-                    ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(1000));
-
-                    for (ConsumerRecord<String, String> record : records) {
-                        try {
-                            processRecord(record);
-                        } catch (Exception e) {
-                            log.error("Error processing record: {}", record.value(), e);
-                        }
+                    resumeBackedOff();
+                    ConsumerRecords<String, Candle> records = consumer.poll(Duration.ofMillis(1000));
+                    if (!records.isEmpty()) {
+                        processBatch(records);
                     }
+                    commitPending();
                 }
+            } catch (WakeupException e) {
+                // close() interrupts the poll
             } catch (Exception e) {
                 if (running) {
                     log.error("Error in consumer loop", e);
                 }
             } finally {
                 consumer.close();
+                partitionWorkers.shutdown();
                 log.info("Kafka consumer closed");
             }
         });
     }
 
-    private void processRecord(ConsumerRecord<String, String> record) {
-        try {
-            // Deserialize the candle from JSON
-            Candle candle = objectMapper.readValue(record.value(), Candle.class);
+    private void processBatch(ConsumerRecords<String, Candle> records) throws InterruptedException {
+        Map<TopicPartition, Future<?>> batches = new HashMap<>();
+        for (TopicPartition partition : records.partitions()) {
+            List<ConsumerRecord<String, Candle>> partitionRecords = records.records(partition);
+            batches.put(partition, partitionWorkers.submit(() -> {
+                sink.accept(partition.partition(), candlesOf(partitionRecords));
+                return null;
+            }));
+        }
 
-            // Log the consumed candle
-            log.info("Consumed candle from Kafka: {}", candle);
+        for (Map.Entry<TopicPartition, Future<?>> batch : batches.entrySet()) {
+            TopicPartition partition = batch.getKey();
+            List<ConsumerRecord<String, Candle>> partitionRecords = records.records(partition);
+            long firstOffset = partitionRecords.get(0).offset();
+            long nextOffset = partitionRecords.get(partitionRecords.size() - 1).offset() + 1;
+            try {
+                batch.getValue().get();
+                pendingOffsets.put(partition, new OffsetAndMetadata(nextOffset));
+                consumedRecords.addAndGet(partitionRecords.size());
+                retries.remove(partition);
+            } catch (ExecutionException e) {
+                failedBatches.incrementAndGet();
+                Retry retry = retries.computeIfAbsent(partition, p -> new Retry());
+                retry.attempts++;
+                if (retry.attempts >= MAX_ATTEMPTS) {
+                    deadLetteredBatches.incrementAndGet();
+                    log.error("Dead-lettering {} records of partition {} (offsets {}-{}) after {} failed attempts",
+                            partitionRecords.size(), partition.partition(), firstOffset, nextOffset - 1, retry.attempts,
+                            e.getCause());
+                    pendingOffsets.put(partition, new OffsetAndMetadata(nextOffset));
+                    retries.remove(partition);
+                    continue;
+                }
+                long backoff = Math.min(MAX_RETRY_BACKOFF_MILLIS, retryBackoffMillis << (retry.attempts - 1));
+                log.error("Error processing {} records from partition {}, retrying from offset {} in {} ms (attempt {} of {})",
+                        partitionRecords.size(), partition.partition(), firstOffset, backoff, retry.attempts, MAX_ATTEMPTS,
+                        e.getCause());
+                consumer.seek(partition, firstOffset);
+                consumer.pause(List.of(partition));
+                retry.paused = true;
+                retry.resumeAtMillis = System.currentTimeMillis() + backoff;
+            }
+        }
+    }
 
-            // Here you could add additional processing logic, such as:
-            // - Storing to database
-            // - Forwarding to other systems
-            // - Aggregating data
-            // - Real-time analytics
+    /**
+     * Commits the offsets of processed batches; a failed commit is kept for the next attempt instead of ending the loop
+     */
+    private void commitPending() {
+        if (pendingOffsets.isEmpty()) {
+            return;
+        }
+        try {
+            consumer.commitSync(pendingOffsets);
+            pendingOffsets.clear();
+        } catch (CommitFailedException | RebalanceInProgressException | TimeoutException e) {
+            failedCommits.incrementAndGet();
+            log.warn("Failed to commit offsets of {} partitions, retrying after the next poll", pendingOffsets.size(), e);
+        }
+    }
+
+    private void resumeBackedOff() {
+        if (retries.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<TopicPartition, Retry> entry : retries.entrySet()) {
+            Retry retry = entry.getValue();
+            if (retry.paused && retry.resumeAtMillis <= now) {
+                consumer.resume(List.of(entry.getKey()));
+                retry.paused = false;
+            }
+        }
+    }
 
-        } catch (JsonProcessingException e) {
-            log.error("Failed to deserialize candle from record: {}", record.value(), e);
+    private static List<Candle> candlesOf(List<ConsumerRecord<String, Candle>> records) {
+        List<Candle> candles = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, Candle> record : records) {
+            // Unreadable values were already logged by the deserializer
+            if (record.value() != null) {
+                candles.add(record.value());
+            }
         }
+        return candles;
+    }
+
+    public long getConsumedRecords() {
+        return consumedRecords.get();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    public long getDeadLetteredBatches() {
+        return deadLetteredBatches.get();
+    }
+
+    public long getFailedCommits() {
+        return failedCommits.get();
     }
 
     /**
-     * Closes the producer and releases resources
+     * Stops the poll loop, which closes the consumer on its own thread
      */
     public void close() {
-        try {
+        boolean wasRunning = running;
+        running = false;
+        executorService.shutdown();
+        if (!wasRunning) {
             consumer.close(Duration.ofSeconds(5));
-            log.info("Kafka producer closed");
-        } catch (Exception e) {
-            log.error("Error closing Kafka producer", e);
+            partitionWorkers.shutdown();
+            return;
         }
+
+        consumer.wakeup();
+        try {
+            if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Kafka consumer did not stop within 5 seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs inside poll on the poll thread, when no partition batch is in flight
+     */
+    private final class RebalanceListener implements ConsumerRebalanceListener {
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            // Hand over processed batches before another consumer takes the partitions
+            commitPending();
+            pendingOffsets.keySet().removeAll(partitions);
+            retries.keySet().removeAll(partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            log.info("Assigned candle partitions {}", partitions);
+        }
+    }
+
+    /**
+     * Failed attempts of a partition's current batch and when its backoff ends
+     */
+    private static final class Retry {
+        private int attempts;
+        private boolean paused;
+        private long resumeAtMillis;
     }
 }
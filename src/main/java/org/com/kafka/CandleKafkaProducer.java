@@ -1,43 +1,92 @@
 package org.com.kafka;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.com.config.AppConfig;
+import org.com.metrics.IngestMetrics;
+import org.com.metrics.LatencyRecorder;
+import org.com.metrics.LatencyStage;
 import org.com.model.Candle;
+import org.com.model.IndicatorValues;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
 import org.apache.kafka.clients.producer.*;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
 import org.apache.kafka.common.serialization.StringSerializer;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
 
 /**
- * Kafka producer for publishing candle data
+ * Kafka producer for publishing candle data.
+ * Records are keyed by symbol (optionally symbol and timeframe), so symbols spread across partitions while each
+ * series stays ordered within its partition. The producer is idempotent, so retries cannot duplicate or reorder candles.
+ * Indicators, when enabled, go to their own topic with the same keys, so they land on the same partition numbers as
+ * their candles.
+ * Publishing never waits for the broker: records leave when their batch fills or the linger ends, results arrive in
+ * the send callbacks, and a send gives up after {@value #MAX_BLOCK_MILLIS} ms when the buffer is full or the
+ * cluster is unreachable, so a broker outage cannot hold up the minute close.
  */
 @Slf4j
 public class CandleKafkaProducer {
     private static final String TOPIC_NAME = "candle-data";
+    private static final String INDICATOR_TOPIC_NAME = "candle-indicators";
+    private static final long MAX_BLOCK_MILLIS = 1000;
 
-    private final Producer<String, String> producer;
-    private final ObjectMapper objectMapper;
+    private final Producer<String, Candle> producer;
+    // Null unless indicators are published
+    private final Producer<String, IndicatorValues> indicatorProducer;
+    private final SymbolRegistry symbols;
+    private final boolean keyByTimeframe;
+    private final String[][] keys;
 
-    public CandleKafkaProducer() {
-        Properties properties = getDefaultProducerProperties();
-        this.producer = new KafkaProducer<>(properties);
-        this.objectMapper = new ObjectMapper();
+    private final AtomicLong sentRecords = new AtomicLong();
+    private final AtomicLong failedRecords = new AtomicLong();
+    private final AtomicLong sendLatencyTotalNanos = new AtomicLong();
+    private final LongAccumulator sendLatencyMaxNanos = new LongAccumulator(Math::max, 0);
+    private final LatencyRecorder candleToAckLatency = IngestMetrics.get().latency(LatencyStage.CANDLE_TO_ACK);
 
-        log.info("Kafka producer initialized for topic: {}", TOPIC_NAME);
+    public CandleKafkaProducer(AppConfig config, SymbolRegistry symbols) {
+        this(config, symbols,
+                new KafkaProducer<>(getDefaultProducerProperties(config), new StringSerializer(),
+                        config.getCandleFormat().serializer(symbols)),
+                config.isIndicatorsEnabled() ? new KafkaProducer<>(getDefaultProducerProperties(config),
+                        new StringSerializer(), new IndicatorJsonSerializer()) : null);
     }
 
-    private Properties getDefaultProducerProperties() {
+    /**
+     * @param indicatorProducer null unless indicators are published
+     */
+    CandleKafkaProducer(AppConfig config, SymbolRegistry symbols, Producer<String, Candle> producer,
+                        Producer<String, IndicatorValues> indicatorProducer) {
+        this.producer = producer;
+        this.indicatorProducer = indicatorProducer;
+        this.symbols = symbols;
+        this.keyByTimeframe = config.isKafkaKeyByTimeframe();
+        this.keys = new String[symbols.size()][Timeframe.values().length];
+
+        log.info("Kafka producer initialized for topic: {} with {} values - {} mode, compression: {}, linger: {} ms, batch: {} bytes",
+                TOPIC_NAME, config.getCandleFormat(), config.isKafkaThroughputMode() ? "throughput" : "latency",
+                config.getKafkaCompression(), config.getKafkaLingerMillis(), config.getKafkaBatchSize());
+    }
+
+    static Properties getDefaultProducerProperties(AppConfig config) {
         Properties props = new Properties();
         String server = System.getenv("KAFKA_BOOTSTRAP_SERVERS");
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, server == null ? "localhost:9092" : server);
-        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
         props.put(ProducerConfig.ACKS_CONFIG, "all");
-        props.put(ProducerConfig.RETRIES_CONFIG, 3);
-        props.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384);
-        props.put(ProducerConfig.LINGER_MS_CONFIG, 1);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        props.put(ProducerConfig.RETRIES_CONFIG, Integer.MAX_VALUE);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, config.getKafkaCompression());
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, config.getKafkaBatchSize());
+        props.put(ProducerConfig.LINGER_MS_CONFIG, config.getKafkaLingerMillis());
         props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 33554432);
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, MAX_BLOCK_MILLIS);
         return props;
     }
 
@@ -46,25 +95,134 @@ public class CandleKafkaProducer {
      * @param candle The candle to publish
      */
     public void publishCandle(Candle candle) {
-        try {
-            String key = String.valueOf(candle.getTimestamp());
-            String value = objectMapper.writeValueAsString(candle);
-
-            ProducerRecord<String, String> record = new ProducerRecord<>(TOPIC_NAME, key, value);
-
-            producer.send(record, (metadata, exception) -> {
-                if (exception != null) {
-                    log.error("Failed to send candle to Kafka", exception);
-                } else {
-                    log.debug("Candle sent to Kafka - Topic: {}, Partition: {}, Offset: {}",
-                            metadata.topic(), metadata.partition(), metadata.offset());
-                }
-            });
-
-        } catch (JsonProcessingException e) {
-            log.error("Failed to serialize candle to JSON", e);
-            throw new RuntimeException("Failed to serialize candle", e);
+        publishCandle(candle, System.nanoTime());
+    }
+
+    /**
+     * @param closedNanos System.nanoTime() when the candle was closed, for the close-to-acknowledgement latency
+     */
+    private void publishCandle(Candle candle, long closedNanos) {
+        long sendNanos = System.nanoTime();
+        ProducerRecord<String, Candle> record = new ProducerRecord<>(TOPIC_NAME, keyOf(candle), candle);
+
+        producer.send(record, (metadata, exception) -> {
+            if (exception != null) {
+                failedRecords.incrementAndGet();
+                log.error("Failed to send candle to Kafka", exception);
+            } else {
+                long ackNanos = System.nanoTime();
+                long latency = ackNanos - sendNanos;
+                candleToAckLatency.record(ackNanos - closedNanos);
+                sentRecords.incrementAndGet();
+                sendLatencyTotalNanos.addAndGet(latency);
+                sendLatencyMaxNanos.accumulate(latency);
+                log.debug("Candle sent to Kafka - Topic: {}, Partition: {}, Offset: {}",
+                        metadata.topic(), metadata.partition(), metadata.offset());
+            }
+        });
+    }
+
+    /**
+     * Publishes every candle of a minute close; they go out together within the linger
+     */
+    public void publishCandles(Collection<Candle> candles) {
+        publishCandles(candles, System.nanoTime());
+    }
+
+    /**
+     * @param closedNanos System.nanoTime() when the candles were closed
+     */
+    public void publishCandles(Collection<Candle> candles, long closedNanos) {
+        if (candles.isEmpty()) {
+            return;
+        }
+        for (Candle candle : candles) {
+            publishCandle(candle, closedNanos);
+        }
+    }
+
+    /**
+     * Publishes the indicators computed from a minute close; ignored unless indicators are enabled
+     */
+    public void publishIndicators(List<IndicatorValues> indicators) {
+        if (indicatorProducer == null || indicators.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < indicators.size(); i++) {
+            IndicatorValues values = indicators.get(i);
+            indicatorProducer.send(new ProducerRecord<>(INDICATOR_TOPIC_NAME, keyOf(values.getSymbol(), values.getTimeframe()), values),
+                    (metadata, exception) -> {
+                        if (exception != null) {
+                            failedRecords.incrementAndGet();
+                            log.error("Failed to send indicators to Kafka", exception);
+                        }
+                    });
+        }
+    }
+
+    public long getSentRecords() {
+        return sentRecords.get();
+    }
+
+    public long getFailedRecords() {
+        return failedRecords.get();
+    }
+
+    /**
+     * @return mean time from send to broker acknowledgement, in microseconds
+     */
+    public double getAverageSendLatencyMicros() {
+        long sent = sentRecords.get();
+        return sent == 0 ? 0 : sendLatencyTotalNanos.get() / 1000.0 / sent;
+    }
+
+    public double getMaxSendLatencyMicros() {
+        return sendLatencyMaxNanos.get() / 1000.0;
+    }
+
+    /**
+     * @return the client's average bytes per partition batch, or NaN before the first batch
+     */
+    public double getAverageBatchSize() {
+        return producerMetric("batch-size-avg");
+    }
+
+    public double getAverageRecordsPerRequest() {
+        return producerMetric("records-per-request-avg");
+    }
+
+    public double getCompressionRate() {
+        return producerMetric("compression-rate-avg");
+    }
+
+    private double producerMetric(String name) {
+        for (Map.Entry<MetricName, ? extends Metric> metric : producer.metrics().entrySet()) {
+            if (metric.getKey().name().equals(name) && metric.getKey().group().equals("producer-metrics")
+                    && metric.getValue().metricValue() instanceof Number value) {
+                return value.doubleValue();
+            }
+        }
+        return Double.NaN;
+    }
+
+    private String keyOf(Candle candle) {
+        return keyOf(candle.getSymbol(), candle.getTimeframe());
+    }
+
+    private String keyOf(String symbol, Timeframe timeframe) {
+        int symbolId = symbols.idOf(symbol);
+        if (symbolId == SymbolRegistry.UNKNOWN) {
+            return keyByTimeframe ? symbol + '@' + timeframe.getLabel() : symbol;
+        }
+        if (!keyByTimeframe) {
+            return symbols.symbolOf(symbolId);
+        }
+        String key = keys[symbolId][timeframe.ordinal()];
+        if (key == null) {
+            key = symbol + '@' + timeframe.getLabel();
+            keys[symbolId][timeframe.ordinal()] = key;
         }
+        return key;
     }
 
     /**
@@ -74,6 +232,9 @@ public class CandleKafkaProducer {
         try {
             producer.flush();
             producer.close(Duration.ofSeconds(5));
+            if (indicatorProducer != null) {
+                indicatorProducer.close(Duration.ofSeconds(5));
+            }
             log.info("Kafka producer closed");
         } catch (Exception e) {
             log.error("Error closing Kafka producer", e);
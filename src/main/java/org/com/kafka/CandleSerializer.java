@@ -0,0 +1,78 @@
+package org.com.kafka;
+
+import org.apache.kafka.common.serialization.Serializer;
+import org.com.model.Candle;
+import org.com.model.SymbolRegistry;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes candles in a fixed little-endian binary layout:
+ * <pre>
+ * byte   magic (0xCA)
+ * byte   version
+ * byte   timeframe ordinal
+ * byte   flags (FLAG_INLINE_SYMBOL when the symbol is not registered)
+ * int    fingerprint of the producer's symbol registry
+ * short  symbol id, or the UTF-8 length followed by the symbol bytes when inlined
+ * long   timestamp (epoch seconds)
+ * double open, high, low, close
+ * int    ticks
+ * </pre>
+ * A registered symbol costs two bytes, so a candle is {@value #FIXED_SIZE} bytes on the wire.
+ * Symbol ids only mean the same on both ends when they register the same symbols in the same order, so the
+ * registry fingerprint travels with every candle and a consumer with a different registry rejects the record
+ * instead of labelling it with the wrong instrument.
+ */
+public class CandleSerializer implements Serializer<Candle> {
+    public static final byte MAGIC = (byte) 0xCA;
+    public static final byte VERSION = 2;
+    public static final byte FLAG_INLINE_SYMBOL = 1;
+    public static final int FIXED_SIZE = 4 + Integer.BYTES + Short.BYTES + Long.BYTES + 4 * Double.BYTES + Integer.BYTES;
+
+    private final SymbolRegistry symbols;
+    private final ByteBuffer buffer = ByteBuffer.allocate(FIXED_SIZE + 256).order(ByteOrder.LITTLE_ENDIAN);
+
+    public CandleSerializer(SymbolRegistry symbols) {
+        this.symbols = symbols;
+    }
+
+    /**
+     * Encodes into the reused buffer; Kafka needs its own array, so only the final copy is allocated
+     */
+    @Override
+    public synchronized byte[] serialize(String topic, Candle candle) {
+        if (candle == null) {
+            return null;
+        }
+
+        int symbolId = candle.getSymbol() == null ? SymbolRegistry.UNKNOWN : symbols.idOf(candle.getSymbol());
+        ByteBuffer out = buffer.clear();
+        out.put(MAGIC);
+        out.put(VERSION);
+        out.put((byte) candle.getTimeframe().ordinal());
+        if (symbolId != SymbolRegistry.UNKNOWN) {
+            out.put((byte) 0);
+            out.putInt(symbols.fingerprint());
+            out.putShort((short) symbolId);
+        } else {
+            byte[] symbol = candle.getSymbol() == null ? new byte[0] : candle.getSymbol().getBytes(StandardCharsets.UTF_8);
+            if (symbol.length > buffer.capacity() - FIXED_SIZE) {
+                throw new IllegalArgumentException("Symbol too long to serialize: " + candle.getSymbol());
+            }
+            out.put(FLAG_INLINE_SYMBOL);
+            out.putInt(symbols.fingerprint());
+            out.putShort((short) symbol.length);
+            out.put(symbol);
+        }
+        out.putLong(candle.getTimestamp());
+        out.putDouble(candle.getOpen());
+        out.putDouble(candle.getHigh());
+        out.putDouble(candle.getLow());
+        out.putDouble(candle.getClose());
+        out.putInt(candle.getTicks());
+        return Arrays.copyOf(out.array(), out.position());
+    }
+}
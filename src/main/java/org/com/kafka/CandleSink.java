@@ -0,0 +1,15 @@
+package org.com.kafka;
+
+import org.com.model.Candle;
+import java.util.List;
+
+/**
+ * Destination for consumed candles.
+ * Each call receives one partition's records from a single poll, in offset order; calls for different partitions
+ * may run concurrently. Offsets are committed only after the call returns, so throwing makes the batch be redelivered.
+ */
+@FunctionalInterface
+public interface CandleSink {
+
+    void accept(int partition, List<Candle> candles) throws Exception;
+}
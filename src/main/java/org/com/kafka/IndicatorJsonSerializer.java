@@ -0,0 +1,44 @@
+package org.com.kafka;
+
+import org.apache.kafka.common.serialization.Serializer;
+import org.com.model.IndicatorValues;
+import org.com.util.FixedPoint;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes indicator values as JSON in a reused buffer; indicators that are not warmed up yet are written as null
+ */
+public class IndicatorJsonSerializer implements Serializer<IndicatorValues> {
+    private final StringBuilder text = new StringBuilder(320);
+
+    @Override
+    public synchronized byte[] serialize(String topic, IndicatorValues values) {
+        if (values == null) {
+            return null;
+        }
+
+        StringBuilder out = text;
+        out.setLength(0);
+        out.append("{\"symbol\":\"").append(values.getSymbol());
+        out.append("\",\"timeframe\":\"").append(values.getTimeframe().getLabel());
+        out.append("\",\"timestamp\":").append(values.getTimestamp());
+        appendValue(out.append(",\"close\":"), values.getClose());
+        appendValue(out.append(",\"ema\":"), values.getEma());
+        appendValue(out.append(",\"rsi\":"), values.getRsi());
+        appendValue(out.append(",\"atr\":"), values.getAtr());
+        appendValue(out.append(",\"bollingerMiddle\":"), values.getBollingerMiddle());
+        appendValue(out.append(",\"bollingerUpper\":"), values.getBollingerUpper());
+        appendValue(out.append(",\"bollingerLower\":"), values.getBollingerLower());
+        appendValue(out.append(",\"vwap\":"), values.getVwap());
+        out.append('}');
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendValue(StringBuilder out, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.append("null");
+        } else {
+            FixedPoint.appendDecimal(out, value);
+        }
+    }
+}
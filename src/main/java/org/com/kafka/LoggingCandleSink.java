@@ -0,0 +1,20 @@
+package org.com.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.model.Candle;
+import java.util.List;
+
+/**
+ * Default sink: logs each batch, with the individual candles at debug level
+ */
+@Slf4j
+public class LoggingCandleSink implements CandleSink {
+
+    @Override
+    public void accept(int partition, List<Candle> candles) {
+        log.info("Consumed {} candles from partition {}", candles.size(), partition);
+        if (log.isDebugEnabled()) {
+            candles.forEach(candle -> log.debug("Consumed candle from Kafka: {}", candle));
+        }
+    }
+}
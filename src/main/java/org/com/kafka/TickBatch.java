@@ -0,0 +1,109 @@
+package org.com.kafka;
+
+import org.com.pipeline.TickConsumer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Micro-batch of mid-price ticks in the value of one record on the ticks topic, in a fixed little-endian layout:
+ * <pre>
+ * byte   magic (0x7C)
+ * byte   version
+ * int    tick count
+ * then per tick:
+ * short  symbol id, unsigned
+ * long   exchange timestamp, epoch micros (the receive time for snapshots, which carry none)
+ * long   receive timestamp, epoch micros
+ * long   best bid, fixed-point (10^-8)
+ * long   best ask, fixed-point
+ * double mid, as recorded into the candle
+ * </pre>
+ * Symbol ids are indexes into kraken.instrument, as in the binary candle format. Not thread-safe.
+ */
+public class TickBatch implements TickConsumer {
+    public static final byte MAGIC = (byte) 0x7C;
+    public static final byte VERSION = 1;
+    public static final int HEADER_BYTES = 2 + Integer.BYTES;
+    public static final int TICK_BYTES = Short.BYTES + 5 * Long.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int maxTicks;
+    private int count;
+    private long firstTickNanos;
+
+    public TickBatch(int maxTicks) {
+        this.maxTicks = maxTicks;
+        this.buffer = ByteBuffer.allocate(HEADER_BYTES + maxTicks * TICK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        clear();
+    }
+
+    @Override
+    public void onTick(int symbolId, long exchangeMicros, long receiveMicros, long bid, long ask, double mid) {
+        if (count == 0) {
+            firstTickNanos = System.nanoTime();
+        }
+        buffer.putShort((short) symbolId);
+        buffer.putLong(exchangeMicros);
+        buffer.putLong(receiveMicros);
+        buffer.putLong(bid);
+        buffer.putLong(ask);
+        buffer.putDouble(mid);
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return ticks that still fit
+     */
+    public int remaining() {
+        return maxTicks - count;
+    }
+
+    /**
+     * @return System.nanoTime() when the first tick of the batch was added
+     */
+    public long getFirstTickNanos() {
+        return firstTickNanos;
+    }
+
+    /**
+     * @return the encoded batch; Kafka keeps the array, so this is the one copy per record
+     */
+    public byte[] toBytes() {
+        buffer.putInt(2, count);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    public void clear() {
+        buffer.clear();
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+        buffer.putInt(0);
+        count = 0;
+    }
+
+    /**
+     * Decodes a record value written by this class
+     * @return number of ticks handed to the consumer
+     */
+    public static int decode(byte[] value, TickConsumer consumer) {
+        ByteBuffer in = ByteBuffer.wrap(value).order(ByteOrder.LITTLE_ENDIAN);
+        if (value.length < HEADER_BYTES || in.get() != MAGIC) {
+            throw new IllegalArgumentException("Not a tick batch");
+        }
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported tick batch version " + version);
+        }
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            consumer.onTick(Short.toUnsignedInt(in.getShort()), in.getLong(), in.getLong(), in.getLong(), in.getLong(),
+                    in.getDouble());
+        }
+        return count;
+    }
+}
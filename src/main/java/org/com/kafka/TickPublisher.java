@@ -0,0 +1,191 @@
+package org.com.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.com.config.AppConfig;
+import org.com.pipeline.TickRing;
+import org.com.service.InstrumentState;
+import org.com.service.ShardedBookProcessor;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams every mid-price tick to the ticks topic.
+ * One publisher thread drains the symbols' {@link TickRing}s into a {@link TickBatch} per book shard, and sends a
+ * batch as one record, keyed by the shard, once it is full or its oldest tick has waited the linger. A symbol always
+ * belongs to the same shard, so its ticks stay in order within one partition.
+ * Nothing here can hold up ingest: a slow broker first fills the producer's bounded buffer, then blocks this thread
+ * briefly before the record is dropped, and meanwhile the rings fill and drop the newest ticks.
+ */
+@Slf4j
+public class TickPublisher {
+    private static final String TOPIC_NAME = "ticks";
+    private static final long MAX_BLOCK_MILLIS = 100;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final Producer<String, byte[]> producer;
+    private final TickRing[][] rings;
+    private final TickBatch[] batches;
+    private final String[] keys;
+    private final long lingerNanos;
+    private final Thread thread;
+    private volatile boolean running;
+
+    private final AtomicLong sentTicks = new AtomicLong();
+    private final AtomicLong sentRecords = new AtomicLong();
+    private final AtomicLong failedTicks = new AtomicLong();
+
+    public TickPublisher(AppConfig config, ShardedBookProcessor bookProcessor) {
+        Properties properties = CandleKafkaProducer.getDefaultProducerProperties(config);
+        properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, config.getTickCompression());
+        properties.put(ProducerConfig.BUFFER_MEMORY_CONFIG, config.getTickProducerBufferBytes());
+        properties.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, MAX_BLOCK_MILLIS);
+        // Records are already batched here; a short linger only groups the shards' records into one request
+        properties.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        this.producer = new KafkaProducer<>(properties, new StringSerializer(), new ByteArraySerializer());
+
+        int shards = bookProcessor.getShardCount();
+        List<List<TickRing>> byShard = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (InstrumentState instrument : bookProcessor.getInstruments()) {
+            if (instrument.getTickRing() != null) {
+                byShard.get(bookProcessor.shardOf(instrument.getSymbolId())).add(instrument.getTickRing());
+            }
+        }
+        this.rings = new TickRing[shards][];
+        this.batches = new TickBatch[shards];
+        this.keys = new String[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            rings[shard] = byShard.get(shard).toArray(TickRing[]::new);
+            batches[shard] = new TickBatch(config.getTickBatchSize());
+            keys[shard] = Integer.toString(shard);
+        }
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(config.getTickLingerMillis());
+        this.thread = new Thread(this::run, "tick-publisher");
+        this.thread.setDaemon(true);
+
+        log.info("Tick stream to topic: {} - {} ticks per record, {} ms linger, compression: {}", TOPIC_NAME,
+                config.getTickBatchSize(), config.getTickLingerMillis(), config.getTickCompression());
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    private void run() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * @return ticks taken from the rings
+     */
+    private int drain() {
+        int drained = 0;
+        long now = System.nanoTime();
+        for (int shard = 0; shard < rings.length; shard++) {
+            TickBatch batch = batches[shard];
+            for (TickRing ring : rings[shard]) {
+                int taken;
+                while ((taken = ring.drainTo(batch, batch.remaining())) > 0) {
+                    drained += taken;
+                    if (batch.remaining() == 0) {
+                        send(shard);
+                    }
+                }
+            }
+            if (batch.size() > 0 && now - batch.getFirstTickNanos() >= lingerNanos) {
+                send(shard);
+            }
+        }
+        return drained;
+    }
+
+    private void send(int shard) {
+        TickBatch batch = batches[shard];
+        int ticks = batch.size();
+        try {
+            producer.send(new ProducerRecord<>(TOPIC_NAME, keys[shard], batch.toBytes()), (metadata, exception) -> {
+                if (exception != null) {
+                    failedTicks.addAndGet(ticks);
+                    log.debug("Dropped {} ticks the broker did not take", ticks, exception);
+                } else {
+                    sentTicks.addAndGet(ticks);
+                    sentRecords.incrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            failedTicks.addAndGet(ticks);
+            log.debug("Dropped {} ticks that could not be sent", ticks, e);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Sends what the rings still hold and closes the producer; the shards must have stopped recording ticks
+     */
+    public void close() {
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        while (drain() > 0) {
+            // Keep sending until the rings are empty
+        }
+        for (int shard = 0; shard < batches.length; shard++) {
+            if (batches[shard].size() > 0) {
+                send(shard);
+            }
+        }
+        producer.close(Duration.ofSeconds(5));
+        log.info("Tick stream closed - {} ticks sent in {} records, {} dropped by the producer, {} dropped when full",
+                sentTicks.get(), sentRecords.get(), failedTicks.get(), getBufferDroppedTicks());
+    }
+
+    public long getSentTicks() {
+        return sentTicks.get();
+    }
+
+    public long getSentRecords() {
+        return sentRecords.get();
+    }
+
+    /**
+     * @return ticks in records that failed or timed out waiting for buffer space
+     */
+    public long getFailedTicks() {
+        return failedTicks.get();
+    }
+
+    /**
+     * @return ticks dropped because their symbol's ring was full
+     */
+    public long getBufferDroppedTicks() {
+        long dropped = 0;
+        for (TickRing[] shardRings : rings) {
+            for (TickRing ring : shardRings) {
+                dropped += ring.getDropped();
+            }
+        }
+        return dropped;
+    }
+}
@@ -0,0 +1,108 @@
+package org.com.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide ingest metrics: a latency recorder per {@link LatencyStage} and counters for messages, ticks,
+ * drops and book resets. Recording is allocation-free; {@link IngestMetricsBinder} exposes them through Micrometer.
+ */
+public final class IngestMetrics {
+    private static final IngestMetrics INSTANCE = new IngestMetrics();
+
+    private final LatencyRecorder[] recorders = new LatencyRecorder[LatencyStage.values().length];
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder drops = new LongAdder();
+    private final LongAdder bookResets = new LongAdder();
+    private volatile long lastRefreshNanos;
+
+    private IngestMetrics() {
+        for (LatencyStage stage : LatencyStage.values()) {
+            recorders[stage.ordinal()] = new LatencyRecorder();
+        }
+    }
+
+    public static IngestMetrics get() {
+        return INSTANCE;
+    }
+
+    public LatencyRecorder latency(LatencyStage stage) {
+        return recorders[stage.ordinal()];
+    }
+
+    public void recordMessage() {
+        messages.increment();
+    }
+
+    public void recordTick() {
+        ticks.increment();
+    }
+
+    /**
+     * Counts data that was discarded: undecodable frames, late ticks and updates for a book awaiting its snapshot
+     */
+    public void recordDrop() {
+        drops.increment();
+    }
+
+    public void recordDrops(long count) {
+        drops.add(count);
+    }
+
+    public void recordBookReset() {
+        bookResets.increment();
+    }
+
+    public long getMessages() {
+        return messages.sum();
+    }
+
+    public long getTicks() {
+        return ticks.sum();
+    }
+
+    public long getDrops() {
+        return drops.sum();
+    }
+
+    public long getBookResets() {
+        return bookResets.sum();
+    }
+
+    /**
+     * Starts a new histogram interval for every stage, at most once per minIntervalNanos,
+     * so several gauges read during one scrape see the same interval
+     */
+    public void refreshIfOlderThan(long minIntervalNanos) {
+        long now = System.nanoTime();
+        if (now - lastRefreshNanos < minIntervalNanos) {
+            return;
+        }
+        synchronized (this) {
+            if (now - lastRefreshNanos < minIntervalNanos) {
+                return;
+            }
+            for (LatencyRecorder recorder : recorders) {
+                recorder.refresh();
+            }
+            lastRefreshNanos = now;
+        }
+    }
+
+    /**
+     * @return p50/p99/p99.9/max in microseconds of the last interval, per stage, for logging
+     */
+    public Map<LatencyStage, String> summary() {
+        Map<LatencyStage, String> summary = new EnumMap<>(LatencyStage.class);
+        for (LatencyStage stage : LatencyStage.values()) {
+            LatencyRecorder recorder = latency(stage);
+            summary.put(stage, String.format("n=%d p50=%.1f p99=%.1f p99.9=%.1f max=%.1f us",
+                    recorder.getIntervalCount(), recorder.getPercentileNanos(50) / 1000.0,
+                    recorder.getPercentileNanos(99) / 1000.0, recorder.getPercentileNanos(99.9) / 1000.0,
+                    recorder.getMaxNanos() / 1000.0));
+        }
+        return summary;
+    }
+}
@@ -0,0 +1,63 @@
+package org.com.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@link IngestMetrics} to Micrometer.
+ * Latencies appear as {@code candle.latency{stage,quantile}} gauges in microseconds over the interval since the
+ * previous scrape (refreshed at most once a second), plus a {@code candle.latency.count} counter per stage.
+ */
+public class IngestMetricsBinder implements MeterBinder {
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final IngestMetrics metrics;
+
+    public IngestMetricsBinder(IngestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("candle.ingest.messages", metrics, IngestMetrics::getMessages)
+                .description("Book frames received from the exchange")
+                .register(registry);
+        FunctionCounter.builder("candle.ingest.ticks", metrics, IngestMetrics::getTicks)
+                .description("Mid-price ticks recorded into candles")
+                .register(registry);
+        FunctionCounter.builder("candle.ingest.drops", metrics, IngestMetrics::getDrops)
+                .description("Frames, ticks and updates discarded")
+                .register(registry);
+        FunctionCounter.builder("candle.ingest.book.resets", metrics, IngestMetrics::getBookResets)
+                .description("Books cleared and resubscribed after failing validation or checksum")
+                .register(registry);
+
+        for (LatencyStage stage : LatencyStage.values()) {
+            LatencyRecorder recorder = metrics.latency(stage);
+            for (double percentile : PERCENTILES) {
+                Gauge.builder("candle.latency", recorder, r -> {
+                            metrics.refreshIfOlderThan(REFRESH_NANOS);
+                            return r.getPercentileNanos(percentile) / 1000.0;
+                        })
+                        .tag("stage", stage.getTag())
+                        .tag("quantile", String.valueOf(percentile / 100))
+                        .baseUnit("microseconds")
+                        .register(registry);
+            }
+            Gauge.builder("candle.latency.max", recorder, r -> {
+                        metrics.refreshIfOlderThan(REFRESH_NANOS);
+                        return r.getMaxNanos() / 1000.0;
+                    })
+                    .tag("stage", stage.getTag())
+                    .baseUnit("microseconds")
+                    .register(registry);
+            FunctionCounter.builder("candle.latency.count", recorder, LatencyRecorder::getTotalCount)
+                    .tag("stage", stage.getTag())
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.com.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Nanosecond latency histogram for one stage.
+ * Writers record through an HdrHistogram {@link Recorder}, which is wait-free and does not allocate,
+ * so it can stay on in production. Readers take interval snapshots: each {@link #refresh()} swaps out
+ * the values recorded since the previous one, and the percentile getters describe that last interval.
+ */
+public class LatencyRecorder {
+    /** Values above this are clamped rather than resizing the histogram on the hot path */
+    private static final long MAX_TRACKABLE_NANOS = 60_000_000_000L;
+
+    private final Recorder recorder = new Recorder(1, MAX_TRACKABLE_NANOS, 3);
+    private Histogram interval;
+    private long totalCount;
+
+    public void record(long nanos) {
+        recorder.recordValue(Math.min(Math.max(nanos, 0), MAX_TRACKABLE_NANOS));
+    }
+
+    /**
+     * Records the time elapsed since startNanos (a System.nanoTime() reading)
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Swaps in the values recorded since the previous refresh
+     */
+    public synchronized void refresh() {
+        interval = recorder.getIntervalHistogram(interval);
+        totalCount += interval.getTotalCount();
+    }
+
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    public synchronized long getIntervalCount() {
+        return interval == null ? 0 : interval.getTotalCount();
+    }
+
+    /**
+     * @return the percentile (0-100) of the last interval in nanoseconds, or 0 if it had no values
+     */
+    public synchronized long getPercentileNanos(double percentile) {
+        return interval == null ? 0 : interval.getValueAtPercentile(percentile);
+    }
+
+    public synchronized long getMaxNanos() {
+        return interval == null ? 0 : interval.getMaxValue();
+    }
+}
@@ -0,0 +1,27 @@
+package org.com.metrics;
+
+/**
+ * Measured stages between an exchange book update and the Kafka acknowledgement of the candle it ends up in
+ */
+public enum LatencyStage {
+    /** Exchange timestamp to socket receive (includes clock skew between Kraken and this host) */
+    EXCHANGE_TO_RECEIVE("exchange_to_receive"),
+    /** Socket receive to the owning shard starting to apply the frame */
+    PIPELINE_QUEUE("pipeline_queue"),
+    DECODE("decode"),
+    /** Applying a frame's levels to the book, including checksum verification */
+    BOOK_APPLY("book_apply"),
+    RECORD_TICK("record_tick"),
+    /** Candle close to the producer callback for its record */
+    CANDLE_TO_ACK("candle_to_ack");
+
+    private final String tag;
+
+    LatencyStage(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
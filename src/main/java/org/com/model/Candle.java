@@ -1,6 +1,9 @@
 package org.com.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.*;
+import org.com.util.FixedPoint;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -10,8 +13,12 @@ import java.time.temporal.ChronoUnit;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class Candle {
     private String symbol;
+    @Builder.Default
+    private Timeframe timeframe = Timeframe.M1;
+    @JsonIgnore
     private Instant timestampAsInstant;
     private long timestamp;
     private double open;
@@ -19,6 +26,7 @@ public class Candle {
     private double low;
     private double close;
     private int ticks;
+    @JsonIgnore
     @Builder.Default
     private StringBuilder stringBuilder = new StringBuilder();
 
@@ -31,8 +39,17 @@ public class Candle {
         timestampAsInstant = Instant.ofEpochMilli(timestamp);
     }
 
+    /**
+     * Sets the candle's start in epoch seconds, the unit candles carry everywhere, and the matching instant
+     */
+    public void setTimestampSecondsAndInstant(long epochSeconds) {
+        timestamp = epochSeconds;
+        timestampAsInstant = Instant.ofEpochSecond(epochSeconds);
+    }
+
     public void clear() {
         symbol = null;
+        timeframe = Timeframe.M1;
         timestampAsInstant = null;
         timestamp = 0;
         open = 0;
@@ -45,14 +62,22 @@ public class Candle {
 
     public String toString() {
         stringBuilder.setLength(0);
-        stringBuilder.append("Candle: ");
-        stringBuilder.append("symbol=").append(symbol);
-        stringBuilder.append(", timestamp=").append(timestamp);
-        stringBuilder.append(", open=").append(open);
-        stringBuilder.append(", high=").append(high);
-        stringBuilder.append(", low=").append(low);
-        stringBuilder.append(", close=").append(close);
-        stringBuilder.append(", ticks=").append(ticks);
-        return stringBuilder.toString();
+        return appendTo(stringBuilder).toString();
+    }
+
+    /**
+     * Formats the candle into the given builder without allocating
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        out.append("Candle: ");
+        out.append("symbol=").append(symbol);
+        out.append(", timeframe=").append(timeframe == null ? null : timeframe.getLabel());
+        out.append(", timestamp=").append(timestamp);
+        FixedPoint.appendDecimal(out.append(", open="), open);
+        FixedPoint.appendDecimal(out.append(", high="), high);
+        FixedPoint.appendDecimal(out.append(", low="), low);
+        FixedPoint.appendDecimal(out.append(", close="), close);
+        out.append(", ticks=").append(ticks);
+        return out;
     }
 }
@@ -0,0 +1,78 @@
+package org.com.model;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide pool of reusable candles, so closing minutes does not allocate once the pool is warm.
+ * Candles are taken by the generators on close and returned by whoever consumes them last; a candle that is
+ * never returned is simply collected, so releasing is an optimization rather than an obligation.
+ * A released candle must not be referenced again.
+ */
+public final class CandlePool {
+    public static final int DEFAULT_CAPACITY = 4096;
+    private static final CandlePool INSTANCE = new CandlePool(DEFAULT_CAPACITY);
+
+    private final Candle[] free;
+    private int size;
+    private final AtomicLong allocated = new AtomicLong();
+
+    public CandlePool(int capacity) {
+        this.free = new Candle[capacity];
+    }
+
+    public static CandlePool get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return a cleared candle, allocating only when the pool is empty
+     */
+    public Candle acquire() {
+        synchronized (free) {
+            if (size > 0) {
+                Candle candle = free[--size];
+                free[size] = null;
+                return candle;
+            }
+        }
+        allocated.incrementAndGet();
+        Candle candle = new Candle();
+        candle.clear();
+        return candle;
+    }
+
+    public void release(Candle candle) {
+        if (candle == null) {
+            return;
+        }
+        candle.clear();
+        synchronized (free) {
+            if (size < free.length) {
+                free[size++] = candle;
+            }
+        }
+    }
+
+    /**
+     * Releases every candle of the list; the list itself is left untouched
+     */
+    public void releaseAll(List<Candle> candles) {
+        for (int i = 0; i < candles.size(); i++) {
+            release(candles.get(i));
+        }
+    }
+
+    /**
+     * @return candles created because the pool was empty, a steady value once the pool is warm
+     */
+    public long getAllocated() {
+        return allocated.get();
+    }
+
+    public int getFree() {
+        synchronized (free) {
+            return size;
+        }
+    }
+}
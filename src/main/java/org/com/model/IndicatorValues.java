@@ -0,0 +1,34 @@
+package org.com.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Technical indicators of one symbol and timeframe as of a closed candle.
+ * A value is NaN until its series has seen enough candles to fill the indicator's period.
+ */
+@Getter
+@AllArgsConstructor
+public class IndicatorValues {
+    private String symbol;
+    private Timeframe timeframe;
+    private long timestamp;
+    private double close;
+    private double ema;
+    private double rsi;
+    private double atr;
+    private double bollingerMiddle;
+    private double bollingerUpper;
+    private double bollingerLower;
+    /**
+     * Mean typical mid price ((high + low + close) / 3) over the window, weighted by each candle's tick count
+     */
+    private double vwap;
+
+    @Override
+    public String toString() {
+        return "Indicators: symbol=" + symbol + ", timeframe=" + (timeframe == null ? null : timeframe.getLabel())
+                + ", timestamp=" + timestamp + ", close=" + close + ", ema=" + ema + ", rsi=" + rsi + ", atr=" + atr
+                + ", bollinger=" + bollingerLower + "/" + bollingerMiddle + "/" + bollingerUpper + ", vwap=" + vwap;
+    }
+}
@@ -0,0 +1,26 @@
+package org.com.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Best bid and ask of a symbol's book at the time of its last applied update
+ */
+@Getter
+@AllArgsConstructor
+public class Quote {
+    private String symbol;
+    private double bid;
+    private double bidSize;
+    private double ask;
+    private double askSize;
+    private long timestamp;
+
+    public double getMid() {
+        return (bid + ask) / 2.0;
+    }
+
+    public double getSpread() {
+        return ask - bid;
+    }
+}
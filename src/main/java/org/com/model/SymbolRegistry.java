@@ -0,0 +1,147 @@
+package org.com.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Interns instrument symbols to dense int ids (0..size-1) in registration order.
+ * Lookups from a character range do not allocate, so decoders can resolve symbols without building Strings.
+ * Registration happens at startup; lookups are safe from any thread afterwards.
+ */
+public class SymbolRegistry {
+    public static final int UNKNOWN = -1;
+
+    private final List<String> symbols = new ArrayList<>();
+    private volatile char[][] names = new char[0][];
+    private volatile int[] table = new int[0];
+    private volatile int fingerprint = List.of().hashCode();
+
+    public SymbolRegistry() {
+    }
+
+    public SymbolRegistry(Collection<String> symbols) {
+        symbols.forEach(this::register);
+    }
+
+    /**
+     * @return the id of the symbol, registering it if it is new
+     */
+    public synchronized int register(String symbol) {
+        int existing = idOf(symbol);
+        if (existing != UNKNOWN) {
+            return existing;
+        }
+        symbols.add(symbol);
+        rebuild();
+        return symbols.size() - 1;
+    }
+
+    public int idOf(CharSequence symbol) {
+        return idOf(symbol, 0, symbol.length());
+    }
+
+    public int idOf(CharSequence source, int offset, int length) {
+        int[] table = this.table;
+        if (table.length == 0) {
+            return UNKNOWN;
+        }
+        char[][] names = this.names;
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + source.charAt(offset + i);
+        }
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (id == UNKNOWN) {
+                return UNKNOWN;
+            }
+            char[] name = names[id];
+            if (name.length == length && matches(name, source, offset)) {
+                return id;
+            }
+        }
+    }
+
+    public int idOf(char[] buffer, int offset, int length) {
+        int[] table = this.table;
+        if (table.length == 0) {
+            return UNKNOWN;
+        }
+        char[][] names = this.names;
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer[offset + i];
+        }
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (id == UNKNOWN) {
+                return UNKNOWN;
+            }
+            char[] name = names[id];
+            if (name.length == length && matches(name, buffer, offset)) {
+                return id;
+            }
+        }
+    }
+
+    public String symbolOf(int id) {
+        return symbols.get(id);
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+
+    public List<String> symbols() {
+        return List.copyOf(symbols);
+    }
+
+    /**
+     * @return a hash of the symbols in id order; registries built from the same list in the same order agree on it
+     */
+    public int fingerprint() {
+        return fingerprint;
+    }
+
+    private void rebuild() {
+        int capacity = Integer.highestOneBit(Math.max(2, symbols.size() * 2 - 1)) << 1;
+        int[] newTable = new int[capacity];
+        Arrays.fill(newTable, UNKNOWN);
+        char[][] newNames = new char[symbols.size()][];
+        for (int id = 0; id < symbols.size(); id++) {
+            String symbol = symbols.get(id);
+            newNames[id] = symbol.toCharArray();
+            int slot = symbol.hashCode() & (capacity - 1);
+            while (newTable[slot] != UNKNOWN) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            newTable[slot] = id;
+        }
+        names = newNames;
+        table = newTable;
+        // String and List hash codes are specified, so the fingerprint is stable across processes
+        fingerprint = symbols.hashCode();
+    }
+
+    private static boolean matches(char[] name, CharSequence source, int offset) {
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != source.charAt(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(char[] name, char[] buffer, int offset) {
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != buffer[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,58 @@
+package org.com.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Candle intervals, aligned to UTC epoch boundaries
+ */
+public enum Timeframe {
+    M1("1m", 60),
+    M5("5m", 300),
+    M15("15m", 900),
+    H1("1h", 3600),
+    D1("1d", 86400);
+
+    private final String label;
+    private final long seconds;
+
+    Timeframe(String label, long seconds) {
+        this.label = label;
+        this.seconds = seconds;
+    }
+
+    @JsonValue
+    public String getLabel() {
+        return label;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+
+    public long getMillis() {
+        return seconds * 1000;
+    }
+
+    /**
+     * @return the start (epoch seconds) of the interval containing the given epoch second
+     */
+    public long bucketStart(long epochSecond) {
+        return Math.floorDiv(epochSecond, seconds) * seconds;
+    }
+
+    /**
+     * @return true if the minute starting at the given epoch second is the last minute of an interval
+     */
+    public boolean closesAfterMinute(long minuteStart) {
+        return (minuteStart + M1.seconds) % seconds == 0;
+    }
+
+    public static Timeframe fromLabel(String label) {
+        for (Timeframe timeframe : values()) {
+            if (timeframe.label.equalsIgnoreCase(label)) {
+                return timeframe;
+            }
+        }
+        throw new IllegalArgumentException("Unknown timeframe: " + label);
+    }
+}
@@ -0,0 +1,154 @@
+package org.com.pipeline;
+
+import org.com.service.BookUpdateListener;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Pre-allocated ring slot holding one raw UTF-8 frame and, once decoded, its book events as primitive arrays.
+ * The frame bytes and the event log grow only when a frame is larger than any frame before it.
+ */
+public class DecodedFrame {
+    private static final byte START = 0;
+    private static final byte BID = 1;
+    private static final byte ASK = 2;
+    private static final byte TIMESTAMP = 3;
+    private static final byte CHECKSUM = 4;
+    private static final byte END = 5;
+
+    byte[] payload = new byte[4096];
+    int length;
+    long receiveNanos;
+    long receiveMillis;
+    boolean failed;
+    volatile long decodedSequence = -1;
+
+    private byte[] kinds = new byte[64];
+    private long[] first = new long[64];
+    private long[] second = new long[64];
+    private int size;
+
+    /**
+     * @return the raw frame as a String, for logging
+     */
+    public String getFrame() {
+        return new String(payload, 0, length, StandardCharsets.UTF_8);
+    }
+
+    void setFrame(ByteBuffer frame) {
+        int size = frame.remaining();
+        ensureCapacity(size);
+        frame.get(frame.position(), payload, 0, size);
+        length = size;
+    }
+
+    void setFrame(String frame) {
+        int size = frame.length();
+        ensureCapacity(size);
+        // Kraken frames are ASCII, so chars are copied as bytes without an intermediate array
+        for (int i = 0; i < size; i++) {
+            char c = frame.charAt(i);
+            if (c >= 0x80) {
+                byte[] bytes = frame.getBytes(StandardCharsets.UTF_8);
+                ensureCapacity(bytes.length);
+                System.arraycopy(bytes, 0, payload, 0, bytes.length);
+                length = bytes.length;
+                return;
+            }
+            payload[i] = (byte) c;
+        }
+        length = size;
+    }
+
+    private void ensureCapacity(int size) {
+        if (payload.length < size) {
+            payload = new byte[Integer.highestOneBit(size) << 1];
+        }
+    }
+
+    public long getReceiveNanos() {
+        return receiveNanos;
+    }
+
+    /**
+     * @return wall-clock receive time, recorded with the frame so replays see the same clock
+     */
+    public long getReceiveMillis() {
+        return receiveMillis;
+    }
+
+    void clearEvents() {
+        size = 0;
+        failed = false;
+    }
+
+    void onBookStart(int symbolId, boolean snapshot) {
+        record(START, symbolId, snapshot ? 1 : 0);
+    }
+
+    void onBid(long price, long quantity) {
+        record(BID, price, quantity);
+    }
+
+    void onAsk(long price, long quantity) {
+        record(ASK, price, quantity);
+    }
+
+    void onTimestamp(long epochMicros) {
+        record(TIMESTAMP, epochMicros, 0);
+    }
+
+    void onChecksum(long checksum) {
+        record(CHECKSUM, checksum, 0);
+    }
+
+    void onBookEnd() {
+        record(END, 0, 0);
+    }
+
+    /**
+     * Replays the decoded events of the symbols accepted by the filter, in their original order
+     */
+    public void replay(BookUpdateListener target, IntPredicate symbolFilter) {
+        boolean included = false;
+        for (int i = 0; i < size; i++) {
+            byte kind = kinds[i];
+            if (kind == START) {
+                included = symbolFilter.test((int) first[i]);
+                if (included) {
+                    target.onBookStart((int) first[i], second[i] == 1);
+                }
+                continue;
+            }
+            if (!included) {
+                continue;
+            }
+            switch (kind) {
+                case BID -> target.onBid(first[i], second[i]);
+                case ASK -> target.onAsk(first[i], second[i]);
+                case TIMESTAMP -> target.onTimestamp(first[i]);
+                case CHECKSUM -> target.onChecksum(first[i]);
+                case END -> {
+                    target.onBookEnd();
+                    included = false;
+                }
+                default -> throw new IllegalStateException("Unknown event kind " + kind);
+            }
+        }
+    }
+
+    private void record(byte kind, long a, long b) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            first = Arrays.copyOf(first, capacity);
+            second = Arrays.copyOf(second, capacity);
+        }
+        kinds[size] = kind;
+        first[size] = a;
+        second[size] = b;
+        size++;
+    }
+}
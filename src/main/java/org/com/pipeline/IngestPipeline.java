@@ -0,0 +1,348 @@
+package org.com.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.client.KrakenBookDecoder;
+import org.com.metrics.IngestMetrics;
+import org.com.metrics.LatencyRecorder;
+import org.com.metrics.LatencyStage;
+import org.com.model.SymbolRegistry;
+import org.com.service.BookUpdateListener;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Three-stage ingest pipeline over a pre-allocated ring of {@link DecodedFrame} slots.
+ * <ol>
+ *   <li>The socket thread only copies raw frame bytes into the next slot.</li>
+ *   <li>N decoder threads decode slots in parallel (decoder i takes every sequence where seq % N == i).</li>
+ *   <li>Each applier thread walks the ring strictly in arrival order, waiting for every slot to be decoded,
+ *       so the books it owns see updates in exactly the order they were received.</li>
+ * </ol>
+ * The publisher waits (and counts the wait) when the slowest applier is a full ring behind.
+ */
+@Slf4j
+public class IngestPipeline {
+    private final DecodedFrame[] ring;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final Decoder[] decoders;
+    private final Applier[] appliers;
+    private final List<Thread> threads = new ArrayList<>();
+
+    private volatile long publishedSequence = -1;
+    private volatile boolean running = true;
+    // Dekker handshake between the publisher and runQuiesced: each sets its own flag, then reads the other's
+    private volatile boolean publishing;
+    private volatile boolean paused;
+    private long cachedMinApplied = -1;
+
+    private final AtomicLong backpressureWaits = new AtomicLong();
+    private final AtomicLong decodeFailures = new AtomicLong();
+    private final IngestMetrics metrics = IngestMetrics.get();
+
+    public IngestPipeline(int ringSize, int decoderCount, WaitStrategy waitStrategy, SymbolRegistry symbols,
+                          List<? extends Consumer<DecodedFrame>> appliers) {
+        if (Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two: " + ringSize);
+        }
+        this.ring = new DecodedFrame[ringSize];
+        for (int i = 0; i < ringSize; i++) {
+            ring[i] = new DecodedFrame();
+        }
+        this.mask = ringSize - 1;
+        this.waitStrategy = waitStrategy;
+
+        this.decoders = new Decoder[decoderCount];
+        for (int i = 0; i < decoderCount; i++) {
+            decoders[i] = new Decoder(i, symbols);
+            threads.add(newThread(decoders[i], "frame-decoder-" + i));
+        }
+
+        this.appliers = new Applier[appliers.size()];
+        for (int i = 0; i < this.appliers.length; i++) {
+            this.appliers[i] = new Applier(appliers.get(i));
+            threads.add(newThread(this.appliers[i], "book-shard-" + i));
+        }
+
+        log.info("Ingest pipeline created - ring: {}, decoders: {}, appliers: {}, wait: {}",
+                ringSize, decoderCount, this.appliers.length, waitStrategy);
+    }
+
+    public void start() {
+        threads.forEach(Thread::start);
+    }
+
+    public void shutdown() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Publishes a raw frame stamped with the current time. Called from the socket thread only.
+     */
+    public void publish(String frame) {
+        publish(frame, System.nanoTime(), System.currentTimeMillis());
+    }
+
+    /**
+     * Publishes a raw frame with an explicit receive time, e.g. the recorded time of a replayed frame
+     */
+    public void publish(String frame, long receiveNanos, long receiveMillis) {
+        awaitResumed();
+        try {
+            DecodedFrame slot = claim();
+            slot.setFrame(frame);
+            commit(slot, receiveNanos, receiveMillis);
+        } finally {
+            publishing = false;
+        }
+    }
+
+    /**
+     * Publishes the remaining bytes of a UTF-8 frame, copied into the slot without consuming the buffer.
+     * Called from the socket thread only.
+     */
+    public void publish(ByteBuffer frame, long receiveNanos, long receiveMillis) {
+        awaitResumed();
+        try {
+            DecodedFrame slot = claim();
+            slot.setFrame(frame);
+            commit(slot, receiveNanos, receiveMillis);
+        } finally {
+            publishing = false;
+        }
+    }
+
+    /**
+     * Marks the publisher busy once no {@link #runQuiesced(Runnable)} is holding it back
+     */
+    private void awaitResumed() {
+        publishing = true;
+        while (paused && running) {
+            publishing = false;
+            int attempt = 0;
+            while (paused && running) {
+                waitStrategy.idle(attempt++);
+            }
+            publishing = true;
+        }
+    }
+
+    /**
+     * @return the next slot, once the slowest applier has released it
+     */
+    private DecodedFrame claim() {
+        long sequence = publishedSequence + 1;
+        long wrapPoint = sequence - ring.length;
+
+        if (cachedMinApplied < wrapPoint) {
+            int attempt = 0;
+            long minApplied;
+            while ((minApplied = minAppliedSequence()) < wrapPoint && running) {
+                if (attempt == 0) {
+                    backpressureWaits.incrementAndGet();
+                }
+                waitStrategy.idle(attempt++);
+            }
+            cachedMinApplied = minApplied;
+        }
+        return ring[(int) (sequence & mask)];
+    }
+
+    private void commit(DecodedFrame slot, long receiveNanos, long receiveMillis) {
+        slot.receiveNanos = receiveNanos;
+        slot.receiveMillis = receiveMillis;
+        publishedSequence = publishedSequence + 1;
+        metrics.recordMessage();
+    }
+
+    /**
+     * Waits until every published frame has been applied by every applier.
+     * Called from the publishing thread, or while the publisher is held back by {@link #runQuiesced(Runnable)}.
+     */
+    public void awaitApplied() {
+        long target = publishedSequence;
+        int attempt = 0;
+        while (minAppliedSequence() < target && running) {
+            waitStrategy.idle(attempt++);
+        }
+    }
+
+    /**
+     * Holds the publisher back, waits until every published frame has been applied and runs the action while
+     * no applier can touch a book or record a tick. Called from any thread other than the publisher.
+     */
+    public synchronized void runQuiesced(Runnable action) {
+        paused = true;
+        try {
+            int attempt = 0;
+            while (publishing && running) {
+                waitStrategy.idle(attempt++);
+            }
+            awaitApplied();
+            action.run();
+        } finally {
+            paused = false;
+        }
+    }
+
+    public long getPublishedFrames() {
+        return publishedSequence + 1;
+    }
+
+    /**
+     * @return number of times the socket thread had to wait for a full ring to drain
+     */
+    public long getBackpressureWaits() {
+        return backpressureWaits.get();
+    }
+
+    public long getDecodeFailures() {
+        return decodeFailures.get();
+    }
+
+    /**
+     * @return frames published but not yet decoded by every decoder
+     */
+    public long getDecodeQueueDepth() {
+        long minDecoded = Long.MAX_VALUE;
+        for (Decoder decoder : decoders) {
+            minDecoded = Math.min(minDecoded, decoder.sequence);
+        }
+        return Math.max(0, publishedSequence - minDecoded);
+    }
+
+    /**
+     * @return frames published but not yet applied by the slowest applier
+     */
+    public long getApplyQueueDepth() {
+        return Math.max(0, publishedSequence - minAppliedSequence());
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    private long minAppliedSequence() {
+        long min = Long.MAX_VALUE;
+        for (Applier applier : appliers) {
+            min = Math.min(min, applier.sequence);
+        }
+        return min;
+    }
+
+    private static Thread newThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private final class Decoder implements Runnable, BookUpdateListener {
+        private final int index;
+        private final KrakenBookDecoder decoder;
+        private final LatencyRecorder decodeLatency = metrics.latency(LatencyStage.DECODE);
+        private DecodedFrame current;
+        private volatile long sequence;
+
+        private Decoder(int index, SymbolRegistry symbols) {
+            this.index = index;
+            this.decoder = new KrakenBookDecoder(symbols, this);
+            this.sequence = index - decoders.length;
+        }
+
+        @Override
+        public void run() {
+            int attempt = 0;
+            while (running) {
+                long next = sequence + decoders.length;
+                if (next > publishedSequence) {
+                    waitStrategy.idle(attempt++);
+                    continue;
+                }
+                attempt = 0;
+
+                DecodedFrame slot = ring[(int) (next & mask)];
+                current = slot;
+                slot.clearEvents();
+                long decodeStart = System.nanoTime();
+                try {
+                    decoder.decode(slot.payload, 0, slot.length);
+                    decodeLatency.recordSince(decodeStart);
+                } catch (Exception e) {
+                    slot.failed = true;
+                    decodeFailures.incrementAndGet();
+                    metrics.recordDrop();
+                    log.error("Error decoding message: {}", slot.getFrame(), e);
+                }
+                slot.decodedSequence = next;
+                sequence = next;
+            }
+            log.info("Frame decoder {} stopped", index);
+        }
+
+        @Override
+        public void onBookStart(int symbolId, boolean snapshot) {
+            current.onBookStart(symbolId, snapshot);
+        }
+
+        @Override
+        public void onBid(long price, long quantity) {
+            current.onBid(price, quantity);
+        }
+
+        @Override
+        public void onAsk(long price, long quantity) {
+            current.onAsk(price, quantity);
+        }
+
+        @Override
+        public void onTimestamp(long epochMicros) {
+            current.onTimestamp(epochMicros);
+        }
+
+        @Override
+        public void onChecksum(long checksum) {
+            current.onChecksum(checksum);
+        }
+
+        @Override
+        public void onBookEnd() {
+            current.onBookEnd();
+        }
+    }
+
+    private final class Applier implements Runnable {
+        private final Consumer<DecodedFrame> handler;
+        private volatile long sequence = -1;
+
+        private Applier(Consumer<DecodedFrame> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            int attempt = 0;
+            while (running) {
+                long next = sequence + 1;
+                DecodedFrame slot = ring[(int) (next & mask)];
+                if (slot.decodedSequence != next) {
+                    waitStrategy.idle(attempt++);
+                    continue;
+                }
+                attempt = 0;
+
+                if (!slot.failed) {
+                    try {
+                        handler.accept(slot);
+                    } catch (Exception e) {
+                        log.error("Error applying message: {}", slot.getFrame(), e);
+                    }
+                }
+                sequence = next;
+            }
+        }
+    }
+}
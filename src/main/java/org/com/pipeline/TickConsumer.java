@@ -0,0 +1,11 @@
+package org.com.pipeline;
+
+/**
+ * Receives mid-price ticks field by field, so draining a {@link TickRing} does not allocate.
+ * Prices are fixed-point longs (see {@link org.com.util.FixedPoint}); times are epoch microseconds.
+ */
+@FunctionalInterface
+public interface TickConsumer {
+
+    void onTick(int symbolId, long exchangeMicros, long receiveMicros, long bid, long ask, double mid);
+}
@@ -0,0 +1,101 @@
+package org.com.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer, single-consumer ring of one symbol's mid-price ticks, held in primitive columns.
+ * The producer is whoever records the symbol's ticks (its shard, or the consolidated book's monitor) and never waits:
+ * a tick offered to a full ring is dropped and counted, so a slow reader costs ticks, not ingest latency.
+ * Sequences are published with ordered writes, and each side caches the other's sequence so the shared
+ * counters are only read when the cached value says the ring looks full or empty.
+ */
+public class TickRing {
+    private final int mask;
+    private final int[] symbolIds;
+    private final long[] exchangeMicros;
+    private final long[] receiveMicros;
+    private final long[] bids;
+    private final long[] asks;
+    private final double[] mids;
+
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // Producer-side
+    private long producerTail;
+    private long cachedHead;
+    // Consumer-side
+    private long consumerHead;
+    private long cachedTail;
+
+    public TickRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Tick ring capacity must be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.symbolIds = new int[capacity];
+        this.exchangeMicros = new long[capacity];
+        this.receiveMicros = new long[capacity];
+        this.bids = new long[capacity];
+        this.asks = new long[capacity];
+        this.mids = new double[capacity];
+    }
+
+    /**
+     * Appends a tick unless the ring is full. Called by the symbol's producer only.
+     * @return false if the tick was dropped
+     */
+    public boolean offer(int symbolId, long exchangeMicros, long receiveMicros, long bid, long ask, double mid) {
+        long sequence = producerTail;
+        if (sequence - cachedHead > mask) {
+            cachedHead = head.get();
+            if (sequence - cachedHead > mask) {
+                dropped.lazySet(dropped.get() + 1);
+                return false;
+            }
+        }
+        int slot = (int) (sequence & mask);
+        this.symbolIds[slot] = symbolId;
+        this.exchangeMicros[slot] = exchangeMicros;
+        this.receiveMicros[slot] = receiveMicros;
+        this.bids[slot] = bid;
+        this.asks[slot] = ask;
+        this.mids[slot] = mid;
+        producerTail = sequence + 1;
+        tail.lazySet(producerTail);
+        return true;
+    }
+
+    /**
+     * Hands up to max ticks to the consumer, oldest first. Called by the consumer only.
+     * @return number of ticks drained
+     */
+    public int drainTo(TickConsumer consumer, int max) {
+        long sequence = consumerHead;
+        if (sequence >= cachedTail) {
+            cachedTail = tail.get();
+            if (sequence >= cachedTail) {
+                return 0;
+            }
+        }
+        int count = (int) Math.min(max, cachedTail - sequence);
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((sequence + i) & mask);
+            consumer.onTick(symbolIds[slot], exchangeMicros[slot], receiveMicros[slot], bids[slot], asks[slot], mids[slot]);
+        }
+        consumerHead = sequence + count;
+        head.lazySet(consumerHead);
+        return count;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return ticks dropped because the ring was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,51 @@
+package org.com.pipeline;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a pipeline stage waits for its input to become available.
+ * BUSY_SPIN gives the lowest latency at the cost of a fully used core per thread,
+ * YIELD gives the core back to the scheduler, and PARK backs off to short sleeps when idle.
+ */
+public enum WaitStrategy {
+    BUSY_SPIN {
+        @Override
+        public void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+    YIELD {
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+    PARK {
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (attempt < SPIN_TRIES * 2) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = 50_000L;
+
+    /**
+     * Waits once; attempt counts consecutive idle calls since the stage last made progress
+     */
+    public abstract void idle(int attempt);
+
+    public static WaitStrategy fromName(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -0,0 +1,78 @@
+package org.com.service;
+
+import org.com.util.FixedPoint;
+import java.util.zip.CRC32;
+
+/**
+ * Kraken v2 book checksum: CRC32 over the top 10 asks (best first) followed by the top 10 bids,
+ * where each price and quantity is written at the instrument's precision with the decimal point
+ * and leading zeros removed.
+ * Digits go straight into a reused byte buffer, so verification does not allocate. Not thread-safe.
+ */
+public class BookChecksum {
+    public static final int LEVELS = 10;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L
+    };
+
+    private final byte[] buffer = new byte[LEVELS * 2 * 2 * 20];
+    private final CRC32 crc = new CRC32();
+    private int length;
+
+    /**
+     * @return the unsigned CRC32 of the book's top levels
+     */
+    public long compute(OrderBook book, int pricePrecision, int quantityPrecision) {
+        long priceDivisor = POWERS_OF_TEN[FixedPoint.DECIMALS - pricePrecision];
+        long quantityDivisor = POWERS_OF_TEN[FixedPoint.DECIMALS - quantityPrecision];
+
+        length = 0;
+        appendLevels(book.getAsks(), priceDivisor, quantityDivisor);
+        appendLevels(book.getBids(), priceDivisor, quantityDivisor);
+
+        crc.reset();
+        crc.update(buffer, 0, length);
+        return crc.getValue();
+    }
+
+    /**
+     * @return the number of decimals needed to write the fixed-point value exactly
+     */
+    public static int decimalsOf(long fixedPointValue) {
+        if (fixedPointValue == 0) {
+            return 0;
+        }
+        int decimals = FixedPoint.DECIMALS;
+        while (decimals > 0 && fixedPointValue % 10 == 0) {
+            fixedPointValue /= 10;
+            decimals--;
+        }
+        return decimals;
+    }
+
+    private void appendLevels(BookSide side, long priceDivisor, long quantityDivisor) {
+        int levels = Math.min(LEVELS, side.size());
+        for (int level = 0; level < levels; level++) {
+            appendDigits(side.priceAt(level) / priceDivisor);
+            appendDigits(side.quantityAt(level) / quantityDivisor);
+        }
+    }
+
+    private void appendDigits(long value) {
+        if (value == 0) {
+            buffer[length++] = '0';
+            return;
+        }
+        int start = length;
+        while (value > 0) {
+            buffer[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.com.service;
+
+/**
+ * Requests a fresh snapshot for one symbol after its book was found to be corrupt
+ */
+@FunctionalInterface
+public interface BookResyncHandler {
+
+    void requestResync(String symbol);
+}
@@ -0,0 +1,238 @@
+package org.com.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.metrics.IngestMetrics;
+import org.com.metrics.LatencyRecorder;
+import org.com.metrics.LatencyStage;
+import org.com.pipeline.DecodedFrame;
+import org.com.pipeline.TickRing;
+import org.com.util.FixedPoint;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Single-writer owner of a subset of symbols.
+ * Decoded frames are applied to the owned books in arrival order on this shard's pipeline thread only,
+ * so books and tick recording need no locks.
+ * After each message the book is checked against Kraken's checksum; a corrupt book is cleared, its updates are
+ * ignored and only that symbol is resubscribed until a fresh snapshot arrives.
+ */
+@Slf4j
+public class BookShard implements BookUpdateListener, Consumer<DecodedFrame> {
+    private final int index;
+    private final InstrumentState[] instruments;
+    private final IntPredicate ownsSymbol;
+    private final BookChecksum bookChecksum = new BookChecksum();
+    private final IngestMetrics metrics = IngestMetrics.get();
+    private final LatencyRecorder exchangeLatency = metrics.latency(LatencyStage.EXCHANGE_TO_RECEIVE);
+    private final LatencyRecorder queueLatency = metrics.latency(LatencyStage.PIPELINE_QUEUE);
+    private final LatencyRecorder applyLatency = metrics.latency(LatencyStage.BOOK_APPLY);
+    private final LatencyRecorder tickLatency = metrics.latency(LatencyStage.RECORD_TICK);
+
+    private volatile BookResyncHandler resyncHandler = symbol -> { };
+    private InstrumentState current;
+    private boolean snapshot;
+    private long eventTimeMicros;
+    private long receiveMillis;
+    private long applyStartNanos;
+    private long expectedChecksum;
+
+    /**
+     * @param instruments states indexed by symbol id, with null for symbols owned by other shards
+     */
+    public BookShard(int index, InstrumentState[] instruments) {
+        this.index = index;
+        this.instruments = instruments;
+        this.ownsSymbol = symbolId -> instruments[symbolId] != null;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setResyncHandler(BookResyncHandler resyncHandler) {
+        this.resyncHandler = resyncHandler;
+    }
+
+    @Override
+    public void accept(DecodedFrame frame) {
+        receiveMillis = frame.getReceiveMillis();
+        queueLatency.recordSince(frame.getReceiveNanos());
+        frame.replay(this, ownsSymbol);
+    }
+
+    @Override
+    public void onBookStart(int symbolId, boolean snapshot) {
+        this.current = instruments[symbolId];
+        this.snapshot = snapshot;
+        this.eventTimeMicros = -1;
+        this.expectedChecksum = -1;
+        this.applyStartNanos = System.nanoTime();
+        if (current == null) {
+            return;
+        }
+        if (snapshot) {
+            current.getOrderBook().clear();
+            current.setAwaitingSnapshot(false);
+        } else if (current.isAwaitingSnapshot()) {
+            // Updates on a corrupt book are meaningless until the requested snapshot arrives
+            current = null;
+            metrics.recordDrop();
+        }
+    }
+
+    @Override
+    public void onBid(long price, long quantity) {
+        if (current != null) {
+            current.getOrderBook().updateBid(price, quantity);
+        }
+    }
+
+    @Override
+    public void onAsk(long price, long quantity) {
+        if (current != null) {
+            current.getOrderBook().updateAsk(price, quantity);
+        }
+    }
+
+    @Override
+    public void onTimestamp(long epochMicros) {
+        eventTimeMicros = epochMicros;
+    }
+
+    @Override
+    public void onChecksum(long checksum) {
+        expectedChecksum = checksum;
+    }
+
+    @Override
+    public void onBookEnd() {
+        if (current == null) {
+            return;
+        }
+
+        OrderBook orderBook = current.getOrderBook();
+        if (snapshot) {
+            if (!orderBook.isValid()) {
+                resync("Order book validation failed - highest bid >= lowest ask");
+                return;
+            }
+        } else if (orderBook.isEmpty()) {
+            resync("Order book is empty after processing delta");
+            return;
+        }
+
+        if (expectedChecksum >= 0 && current.isChecksumEnabled() && !checksumMatches(orderBook)) {
+            current.recordChecksumMismatch();
+            resync("Order book checksum mismatch");
+            return;
+        }
+
+        applyLatency.recordSince(applyStartNanos);
+        if (eventTimeMicros >= 0) {
+            exchangeLatency.record((receiveMillis * 1000 - eventTimeMicros) * 1000);
+        }
+        // Snapshots carry no timestamp, so they are stamped with the receive time
+        long eventTimeMillis = eventTimeMicros >= 0 ? eventTimeMicros / 1000 : receiveMillis;
+        ConsolidatedBook consolidatedBook = current.getConsolidatedBook();
+        if (consolidatedBook != null) {
+            long tickStart = System.nanoTime();
+            if (consolidatedBook.update(ConsolidatedBook.PRIMARY_VENUE, orderBook, eventTimeMicros, receiveMillis) > 0) {
+                tickLatency.recordSince(tickStart);
+                metrics.recordTick();
+            }
+            return;
+        }
+        if (orderBook.isValid()) {
+            current.getTopOfBook().publish(orderBook, eventTimeMillis);
+        }
+
+        double midPrice = orderBook.getMidPrice();
+        if (midPrice > 0) {
+            long tickStart = System.nanoTime();
+            current.getCandleGenerator().recordTick(midPrice, eventTimeMillis);
+            TickRing tickRing = current.getTickRing();
+            if (tickRing != null) {
+                tickRing.offer(current.getSymbolId(), eventTimeMicros >= 0 ? eventTimeMicros : receiveMillis * 1000,
+                        receiveMillis * 1000, orderBook.getBids().bestPrice(), orderBook.getAsks().bestPrice(), midPrice);
+            }
+            tickLatency.recordSince(tickStart);
+            metrics.recordTick();
+        }
+    }
+
+    private boolean checksumMatches(OrderBook orderBook) {
+        if (current.isPrecisionKnown()) {
+            boolean matches = bookChecksum.compute(orderBook, current.getPricePrecision(),
+                    current.getQuantityPrecision()) == expectedChecksum;
+            if (matches || !snapshot) {
+                return matches;
+            }
+            // A freshly applied snapshot can only disagree if the precision is wrong; resyncing would loop forever
+            return disableChecksum();
+        }
+        if (!snapshot) {
+            // Precision is learned from the first snapshot
+            return true;
+        }
+
+        // The largest number of decimals seen in the snapshot is a lower bound on the instrument's precision;
+        // trailing zeros can hide the rest, so widen until the checksum matches
+        int minPrice = maxDecimals(orderBook, true);
+        int minQuantity = maxDecimals(orderBook, false);
+        for (int price = minPrice; price <= FixedPoint.DECIMALS; price++) {
+            for (int quantity = minQuantity; quantity <= FixedPoint.DECIMALS; quantity++) {
+                if (bookChecksum.compute(orderBook, price, quantity) == expectedChecksum) {
+                    current.setPricePrecision(price);
+                    current.setQuantityPrecision(quantity);
+                    current.setPrecisionKnown(true);
+                    log.info("Checksum precision for {} resolved to {} price / {} quantity decimals",
+                            current.getSymbol(), price, quantity);
+                    return true;
+                }
+            }
+        }
+
+        return disableChecksum();
+    }
+
+    private boolean disableChecksum() {
+        log.warn("Snapshot checksum for {} cannot be reproduced; disabling checksum verification (check kraken.precision.{})",
+                current.getSymbol(), current.getSymbol());
+        current.setChecksumEnabled(false);
+        return true;
+    }
+
+    private static int maxDecimals(OrderBook orderBook, boolean prices) {
+        int decimals = 0;
+        for (BookSide side : new BookSide[]{orderBook.getBids(), orderBook.getAsks()}) {
+            int levels = Math.min(BookChecksum.LEVELS, side.size());
+            for (int level = 0; level < levels; level++) {
+                long value = prices ? side.priceAt(level) : side.quantityAt(level);
+                decimals = Math.max(decimals, BookChecksum.decimalsOf(value));
+            }
+        }
+        return decimals;
+    }
+
+    /**
+     * Drops the symbol's book and asks for a fresh snapshot of that symbol only
+     */
+    private void resync(String reason) {
+        log.warn("{} for {}; requesting a fresh snapshot", reason, current.getSymbol());
+        current.getOrderBook().clear();
+        if (current.getConsolidatedBook() != null) {
+            current.getConsolidatedBook().withdraw(ConsolidatedBook.PRIMARY_VENUE);
+        } else {
+            current.getTopOfBook().clear();
+        }
+        current.setAwaitingSnapshot(true);
+        current.recordResync();
+        metrics.recordBookReset();
+        try {
+            resyncHandler.requestResync(current.getSymbol());
+        } catch (Exception e) {
+            log.error("Failed to request resync for {}", current.getSymbol(), e);
+        }
+    }
+}
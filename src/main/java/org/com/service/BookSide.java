@@ -0,0 +1,144 @@
+package org.com.service;
+
+/**
+ * One side of a price-level order book, kept as sorted primitive arrays with the best level at index 0.
+ * Prices and quantities are fixed-point longs (see {@link org.com.util.FixedPoint}).
+ * Arrays are sized to the book depth up front, so updates never allocate.
+ * Not thread-safe: a book side has a single writer.
+ */
+public class BookSide {
+    private final boolean bid;
+    private final int depth;
+    private final long[] prices;
+    private final long[] quantities;
+    private int size;
+
+    public BookSide(boolean bid, int depth) {
+        this.bid = bid;
+        this.depth = depth;
+        this.prices = new long[depth];
+        this.quantities = new long[depth];
+    }
+
+    /**
+     * Sets the quantity at a price level. A quantity of zero removes the level.
+     * New levels that fall outside the tracked depth are ignored, and levels pushed past it are dropped.
+     */
+    public void update(long price, long quantity) {
+        int index = indexOf(price);
+        if (index >= 0) {
+            if (quantity == 0) {
+                remove(index);
+            } else {
+                quantities[index] = quantity;
+            }
+            return;
+        }
+
+        if (quantity == 0) {
+            return;
+        }
+
+        int insertAt = -index - 1;
+        if (insertAt >= depth) {
+            return;
+        }
+
+        int moved = Math.min(size, depth - 1) - insertAt;
+        if (moved > 0) {
+            System.arraycopy(prices, insertAt, prices, insertAt + 1, moved);
+            System.arraycopy(quantities, insertAt, quantities, insertAt + 1, moved);
+        }
+        prices[insertAt] = price;
+        quantities[insertAt] = quantity;
+        if (size < depth) {
+            size++;
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean isBid() {
+        return bid;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public long bestPrice() {
+        return size == 0 ? 0 : prices[0];
+    }
+
+    public long bestQuantity() {
+        return size == 0 ? 0 : quantities[0];
+    }
+
+    public long priceAt(int level) {
+        return prices[level];
+    }
+
+    public long quantityAt(int level) {
+        return quantities[level];
+    }
+
+    /**
+     * @return the quantity resting at the given price, or 0 if there is no such level
+     */
+    public long sizeAtPrice(long price) {
+        int index = indexOf(price);
+        return index >= 0 ? quantities[index] : 0;
+    }
+
+    /**
+     * Copies up to n best levels into the supplied arrays.
+     * @return the number of levels copied
+     */
+    public int topLevels(int n, long[] outPrices, long[] outQuantities) {
+        int count = Math.min(n, size);
+        System.arraycopy(prices, 0, outPrices, 0, count);
+        System.arraycopy(quantities, 0, outQuantities, 0, count);
+        return count;
+    }
+
+    private void remove(int index) {
+        int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(prices, index + 1, prices, index, moved);
+            System.arraycopy(quantities, index + 1, quantities, index, moved);
+        }
+        size--;
+    }
+
+    /**
+     * Binary search in book order (descending for bids, ascending for asks).
+     * @return the level index, or -(insertion point) - 1 if the price is not present
+     */
+    private int indexOf(long price) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midPrice = prices[mid];
+            if (midPrice == price) {
+                return mid;
+            }
+            if (bid ? midPrice > price : midPrice < price) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return -(low + 1);
+    }
+}
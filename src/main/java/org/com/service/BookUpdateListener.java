@@ -0,0 +1,31 @@
+package org.com.service;
+
+/**
+ * Receives decoded order book messages level by level.
+ * Prices and quantities are fixed-point longs (see {@link org.com.util.FixedPoint}); a quantity of zero removes the level.
+ */
+public interface BookUpdateListener {
+
+    /**
+     * Called before the levels of one symbol's snapshot or update
+     */
+    void onBookStart(int symbolId, boolean snapshot);
+
+    void onBid(long price, long quantity);
+
+    void onAsk(long price, long quantity);
+
+    default void onChecksum(long checksum) {
+    }
+
+    /**
+     * Exchange timestamp of the message in epoch microseconds, delivered before {@link #onBookEnd()} when present
+     */
+    default void onTimestamp(long epochMicros) {
+    }
+
+    /**
+     * Called after all levels of the symbol's message have been delivered
+     */
+    void onBookEnd();
+}
@@ -0,0 +1,216 @@
+package org.com.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.model.Candle;
+import org.com.util.HashedTimingWheel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closes every instrument's candles on each minute boundary.
+ * Boundaries are timeouts on a {@link HashedTimingWheel}; each close schedules the next boundary from its own
+ * deadline, so closes stay on the wall-clock minute instead of drifting like a fixed-rate timer, and boundaries missed
+ * while the process was stalled are closed one by one in order rather than skipped. Higher timeframes close with the
+ * minute that completes them, through each instrument's {@link CandleRollup}.
+ * The instruments are split across close workers, each always closing the same ones so their candle state keeps a
+ * single writer; the workers' candles are handed to the listener as one batch per boundary.
+ */
+@Slf4j
+public class CandleCloseScheduler {
+    /**
+     * Receives the candles of one boundary on the wheel thread, before the next boundary is closed
+     */
+    public interface CloseListener {
+        /**
+         * @param closed every 1m candle and higher-timeframe candle of the boundary; pooled, valid during the call
+         * @param closedNanos when the workers finished closing
+         */
+        void onClosed(List<Candle> closed, long closedNanos);
+    }
+
+    private static final long MINUTE_MILLIS = 60000;
+
+    private final HashedTimingWheel wheel;
+    private final List<CloseTask> tasks = new ArrayList<>();
+    private final ExecutorService workers;
+    private final boolean eventTime;
+    private final long delayMillis;
+    private final Object closeLock;
+    private final CloseListener listener;
+    // Reused by every boundary, only touched by the wheel thread
+    private final List<Candle> closed = new ArrayList<>();
+    // Behind by more than a minute and closing the overdue boundaries, only touched by the wheel thread
+    private boolean catchingUp;
+    private volatile boolean running;
+
+    /**
+     * @param workerCount threads to spread the closes over; with one the wheel thread closes them itself
+     * @param eventTime true to close the minutes behind the event-time watermark instead of the minute just ended
+     * @param delayMillis how long after the boundary to close, e.g. the allowed lateness of event time
+     * @param closeLock held while closing, so nothing else reads candle state halfway through a boundary
+     */
+    public CandleCloseScheduler(List<InstrumentState> instruments, int workerCount, long tickMillis, boolean eventTime,
+                                long delayMillis, Object closeLock, CloseListener listener) {
+        int threads = Math.max(1, Math.min(workerCount, instruments.size()));
+        for (int i = 0; i < threads; i++) {
+            tasks.add(new CloseTask());
+        }
+        for (int i = 0; i < instruments.size(); i++) {
+            tasks.get(i % threads).instruments.add(instruments.get(i));
+        }
+        AtomicInteger workerIds = new AtomicInteger();
+        this.workers = threads > 1 ? Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "candle-close-" + workerIds.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        // A lap of the wheel covers a minute, so a boundary waits at most one lap
+        int wheelSize = (int) Math.min(1 << 16, Math.max(16, MINUTE_MILLIS / tickMillis));
+        this.wheel = new HashedTimingWheel("candle-close", tickMillis, wheelSize);
+        this.eventTime = eventTime;
+        this.delayMillis = delayMillis;
+        this.closeLock = closeLock;
+        this.listener = listener;
+    }
+
+    /**
+     * Schedules the first close at the next minute boundary
+     * @return the delay until the first close, in milliseconds
+     */
+    public long start() {
+        running = true;
+        wheel.start();
+        long now = System.currentTimeMillis();
+        long deadline = nextBoundary(now) + delayMillis;
+        wheel.schedule(deadline, this::close);
+        log.info("Candle closes of {} instruments spread over {} workers, {} ms timer resolution",
+                tasks.stream().mapToInt(task -> task.instruments.size()).sum(), tasks.size(), wheel.getTickMillis());
+        return deadline - now;
+    }
+
+    public void shutdown() {
+        running = false;
+        wheel.stop();
+        if (workers != null) {
+            workers.shutdown();
+            try {
+                if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                    workers.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                workers.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void close(long deadlineMillis) {
+        if (!running) {
+            return;
+        }
+        long boundary = deadlineMillis - delayMillis;
+        long minuteStart = boundary / 1000 - 60;
+        long startNanos = System.nanoTime();
+        long closedNanos;
+        try {
+            synchronized (closeLock) {
+                closeAll(minuteStart, deadlineMillis);
+            }
+            closedNanos = System.nanoTime();
+            for (int i = 0; i < tasks.size(); i++) {
+                closed.addAll(tasks.get(i).closed);
+                tasks.get(i).closed.clear();
+            }
+            listener.onClosed(closed, closedNanos);
+        } finally {
+            closed.clear();
+            scheduleNext(boundary);
+        }
+        log.debug("Closed minute {} for {} workers in {} us", minuteStart, tasks.size(),
+                TimeUnit.NANOSECONDS.toMicros(closedNanos - startNanos));
+    }
+
+    private void closeAll(long minuteStart, long nowMillis) {
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).set(minuteStart, nowMillis);
+        }
+        if (workers == null) {
+            tasks.get(0).call();
+            return;
+        }
+        try {
+            // Waits for every worker; the executor publishes their candle state to the next boundary's workers
+            for (Future<Void> future : workers.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Candle close worker failed", e.getCause());
+        }
+    }
+
+    private void scheduleNext(long boundary) {
+        if (!running) {
+            return;
+        }
+        long next = boundary + MINUTE_MILLIS;
+        long lagMillis = System.currentTimeMillis() - next - delayMillis;
+        if (lagMillis >= MINUTE_MILLIS) {
+            // Fell behind by more than a minute (a suspended process or a clock jump). The overdue boundaries fire on
+            // the wheel's next ticks one after another, so every missed minute is still closed and rolled up
+            if (!catchingUp) {
+                catchingUp = true;
+                log.warn("Candle close fell {} ms behind, closing {} overdue minute boundaries in order",
+                        lagMillis, lagMillis / MINUTE_MILLIS + 1);
+            }
+        } else if (catchingUp) {
+            catchingUp = false;
+            log.info("Candle close caught up, {} ms behind the boundary {}", Math.max(0, lagMillis), next);
+        }
+        wheel.schedule(next + delayMillis, this::close);
+    }
+
+    private static long nextBoundary(long nowMillis) {
+        return (nowMillis / MINUTE_MILLIS + 1) * MINUTE_MILLIS;
+    }
+
+    /**
+     * Closes a fixed set of instruments into its own list
+     */
+    private final class CloseTask implements Callable<Void> {
+        private final List<InstrumentState> instruments = new ArrayList<>();
+        private final List<Candle> closed = new ArrayList<>();
+        private long minuteStart;
+        private long nowMillis;
+
+        void set(long minuteStart, long nowMillis) {
+            this.minuteStart = minuteStart;
+            this.nowMillis = nowMillis;
+        }
+
+        @Override
+        public Void call() {
+            for (int i = 0; i < instruments.size(); i++) {
+                InstrumentState instrument = instruments.get(i);
+                try {
+                    if (eventTime) {
+                        instrument.closeEventTime(nowMillis, closed);
+                    } else {
+                        instrument.closeMinute(minuteStart, closed);
+                    }
+                } catch (Exception e) {
+                    log.error("Error generating candle for {}", instrument.getSymbol(), e);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -1,56 +1,497 @@
 package org.com.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.com.metrics.IngestMetrics;
 import org.com.model.Candle;
+import org.com.model.CandlePool;
+import org.com.model.Timeframe;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Generates 1-minute candles from tick data
+ * Generates 1-minute candles from tick data.
+ * Ticks are folded into a constant-memory OHLC accumulator as they arrive, so closing a minute is O(1).
+ * <p>
+ * In processing-time mode (the default) a tick belongs to whichever minute is open when it is recorded.
+ * In event-time mode ticks are bucketed by their exchange timestamp, and a minute is closed once the
+ * watermark (latest event time minus the allowed lateness) passes its end; ticks for closed minutes are dropped.
+ * <p>
+ * Recording is lock-free and double-buffered. The single tick writer fills the buffer selected by the epoch;
+ * a close flips the epoch, waits for a tick already in flight on the old buffer to finish, then reads and resets
+ * the old buffer while new ticks land in the other one. The writer never waits for the closer.
+ * In event-time mode the closer carries minutes that are still open across flips in its own pending ring.
+ * <p>
+ * The newest open minute is mirrored to a {@link LiveCandle} on every tick for lock-free queries.
  */
 
 @Slf4j
 public class CandleGenerator {
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final long NONE = Long.MIN_VALUE;
 
-    private final List<Double> currentMinuteTicks = Collections.synchronizedList(new ArrayList<>());
-    private final Object candleLock = new Object();
+    private static final VarHandle WRITE_SEQUENCE;
+    private static final VarHandle MAX_EVENT_TIME;
+    private static final VarHandle LAST_TICK_WALL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            WRITE_SEQUENCE = lookup.findVarHandle(CandleGenerator.class, "writeSequence", long.class);
+            MAX_EVENT_TIME = lookup.findVarHandle(CandleGenerator.class, "maxEventTimeMillis", long.class);
+            LAST_TICK_WALL = lookup.findVarHandle(CandleGenerator.class, "lastTickWallMillis", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final boolean eventTime;
+    private final long allowedLatenessMillis;
+    private final LiveCandle liveCandle = new LiveCandle();
+    private final AtomicLong lateTicks = new AtomicLong();
+
+    // Written by the tick writer; buffers[epoch & 1] is the one being filled
+    private final OhlcAccumulator[][] buffers;
+    private final long[][] bufferMinutes;
+    private final Queue<Candle> evicted = new ConcurrentLinkedQueue<>();
+    private final OhlcAccumulator liveMinuteTicks = new OhlcAccumulator();
+    private long liveMinute = NONE;
+    private long writeSequence;
+    private long maxEventTimeMillis = NONE;
+    private long lastTickWallMillis;
+
+    // Shared between the two sides
+    private volatile long epoch;
+    private volatile long closedThroughMinute = NONE;
+
+    // Owned by the closer; closers are serialized by closeLock, which the writer never takes
+    private final Object closeLock = new Object();
+    private final OhlcAccumulator[] pending;
+    private final long[] pendingMinutes;
+    private final List<Candle> drained = new ArrayList<>();
+
+    public CandleGenerator() {
+        this(false, 0);
+    }
+
+    public CandleGenerator(boolean eventTime, long allowedLatenessMillis) {
+        this.eventTime = eventTime;
+        this.allowedLatenessMillis = allowedLatenessMillis;
+
+        // Open minutes span the lateness window plus the minute being filled
+        int slots = eventTime ? (int) (allowedLatenessMillis / MINUTE_MILLIS) + 3 : 1;
+        this.buffers = new OhlcAccumulator[2][slots];
+        this.bufferMinutes = new long[2][slots];
+        this.pending = new OhlcAccumulator[eventTime ? slots : 0];
+        this.pendingMinutes = new long[pending.length];
+        for (int i = 0; i < slots; i++) {
+            for (int buffer = 0; buffer < 2; buffer++) {
+                buffers[buffer][i] = new OhlcAccumulator();
+                bufferMinutes[buffer][i] = NONE;
+            }
+        }
+        for (int i = 0; i < pending.length; i++) {
+            pending[i] = new OhlcAccumulator();
+            pendingMinutes[i] = NONE;
+        }
+    }
+
+    public boolean isEventTime() {
+        return eventTime;
+    }
+
+    /**
+     * @return a consistent copy of the minute being built, or null if it has no ticks yet
+     */
+    public Candle getLiveCandle(String symbol) {
+        if (!eventTime) {
+            // A close flips the epoch; ticks published under the old epoch belong to the closed minute
+            return liveCandle.snapshot(symbol, epoch);
+        }
+        Candle candle = liveCandle.snapshot(symbol, Long.MIN_VALUE);
+        long closedThrough = closedThroughMinute;
+        return candle != null && closedThrough != NONE && candle.getTimestamp() <= closedThrough * 60 ? null : candle;
+    }
 
     public void recordTick(double midPrice) {
-        synchronized (candleLock) {
-            currentMinuteTicks.add(midPrice);
+        long current = beginTick();
+        OhlcAccumulator minute = buffers[(int) (current & 1)][0];
+        minute.add(midPrice);
+        if (minute.getTicks() == 1) {
+            liveMinute = Math.floorDiv(System.currentTimeMillis(), MINUTE_MILLIS);
+        }
+        liveCandle.publish(current, liveMinute * 60, minute);
+        endTick();
+    }
+
+    /**
+     * Records a tick with its exchange timestamp; the timestamp is only used in event-time mode
+     */
+    public void recordTick(double midPrice, long eventTimeMillis) {
+        if (!eventTime) {
+            recordTick(midPrice);
+            return;
+        }
+
+        // The epoch is read before the close marker; a closer publishes the marker before flipping,
+        // so a tick that writes to the new buffer always sees the minutes that were closed
+        long current = beginTick();
+        try {
+            long minute = Math.floorDiv(eventTimeMillis, MINUTE_MILLIS);
+            long closedThrough = closedThroughMinute;
+            if (closedThrough != NONE && minute <= closedThrough) {
+                recordLate(1);
+                return;
+            }
+
+            OhlcAccumulator[] ring = buffers[(int) (current & 1)];
+            long[] minutes = bufferMinutes[(int) (current & 1)];
+            int slot = (int) Math.floorMod(minute, (long) ring.length);
+            OhlcAccumulator bucket = ring[slot];
+            if (minutes[slot] != minute) {
+                if (!bucket.isEmpty()) {
+                    if (minutes[slot] > minute) {
+                        recordLate(1);
+                        return;
+                    }
+                    // The closer fell behind by a whole ring; hand the stale minute over rather than lose it
+                    evicted.add(bucket.toCandle(null, minutes[slot] * 60, Timeframe.M1));
+                    bucket.reset();
+                }
+                minutes[slot] = minute;
+            }
+            bucket.add(midPrice);
+
+            if (liveMinute == NONE || minute > liveMinute) {
+                liveMinute = minute;
+                liveMinuteTicks.reset();
+            }
+            if (minute == liveMinute) {
+                liveMinuteTicks.add(midPrice);
+                liveCandle.publish(current, minute * 60, liveMinuteTicks);
+            }
+
+            if (eventTimeMillis > maxEventTimeMillis) {
+                MAX_EVENT_TIME.setRelease(this, eventTimeMillis);
+            }
+            LAST_TICK_WALL.setRelease(this, System.currentTimeMillis());
+        } finally {
+            endTick();
         }
     }
 
+    /**
+     * Marks a tick in flight (odd sequence) and returns the epoch it writes under.
+     * The volatile write orders the mark before the epoch read, so a closer that flipped the epoch either
+     * sees this tick in flight or this tick sees the new epoch.
+     */
+    private long beginTick() {
+        WRITE_SEQUENCE.setVolatile(this, writeSequence + 1);
+        return epoch;
+    }
+
+    private void endTick() {
+        WRITE_SEQUENCE.setRelease(this, writeSequence + 1);
+    }
+
+    /**
+     * Flips the writer to the other buffer and waits out a tick still writing to the old one
+     * @return the epoch of the buffer that is now safe to read
+     */
+    private long flip() {
+        long closing = epoch;
+        epoch = closing + 1;
+        long sequence = (long) WRITE_SEQUENCE.getVolatile(this);
+        if ((sequence & 1) != 0) {
+            while ((long) WRITE_SEQUENCE.getVolatile(this) == sequence) {
+                Thread.onSpinWait();
+            }
+        }
+        return closing;
+    }
+
+    private void recordLate(long ticks) {
+        lateTicks.addAndGet(ticks);
+        IngestMetrics.get().recordDrops(ticks);
+    }
+
     public Candle generateCandle(final String symbol) {
-        synchronized (candleLock) {
-            if (currentMinuteTicks.isEmpty()) {
+        return generateCandle(symbol, Instant.now().truncatedTo(ChronoUnit.MINUTES).minusSeconds(60).getEpochSecond());
+    }
+
+    /**
+     * Closes the current minute and stamps the candle with the given minute start (epoch seconds)
+     */
+    public Candle generateCandle(final String symbol, final long timestamp) {
+        synchronized (closeLock) {
+            OhlcAccumulator minute = buffers[(int) (flip() & 1)][0];
+            if (minute.isEmpty()) {
                 log.debug("No ticks recorded for current minute");
                 return null;
             }
 
-            // Calculate candle data
-            long timestamp = Instant.now().truncatedTo(ChronoUnit.MINUTES).minusSeconds(60).getEpochSecond();
-            double open = currentMinuteTicks.get(0);
-            double close = currentMinuteTicks.get(currentMinuteTicks.size() - 1);
-            double high = currentMinuteTicks.stream().mapToDouble(Double::doubleValue).max().orElse(0.0);
-            double low = currentMinuteTicks.stream().mapToDouble(Double::doubleValue).min().orElse(0.0);
-            int ticks = currentMinuteTicks.size();
+            Candle candle = minute.toCandle(symbol, timestamp, Timeframe.M1);
+
+            // Reset for the flip that hands this buffer back to the writer
+            minute.reset();
+
+            return candle;
+        }
+    }
+
+    /**
+     * Closes every event-time minute that ends at or before the watermark, oldest first.
+     * The watermark is the latest event time minus the allowed lateness; if no tick has arrived for longer
+     * than the allowed lateness, the wall clock advances it instead so idle symbols still close.
+     */
+    public List<Candle> closeEventTimeCandles(final String symbol, final long nowMillis) {
+        List<Candle> closed = new ArrayList<>();
+        closeEventTimeCandles(symbol, nowMillis, closed);
+        return closed;
+    }
+
+    /**
+     * Appends the closed minutes to the given list, oldest first, without allocating once the pools are warm
+     */
+    public void closeEventTimeCandles(final String symbol, final long nowMillis, final List<Candle> closed) {
+        synchronized (closeLock) {
+            long maxEventTime = (long) MAX_EVENT_TIME.getAcquire(this);
+            long watermark = maxEventTime == NONE ? NONE : maxEventTime - allowedLatenessMillis;
+            if (nowMillis - (long) LAST_TICK_WALL.getAcquire(this) > allowedLatenessMillis) {
+                watermark = Math.max(watermark, nowMillis - allowedLatenessMillis);
+            }
+            long closeThrough = Math.floorDiv(watermark, MINUTE_MILLIS) - 1;
+            long previouslyClosed = closedThroughMinute;
+            if (previouslyClosed != NONE && closeThrough <= previouslyClosed) {
+                return;
+            }
+
+            // Publish the marker first so ticks that see the new epoch also see it and drop closed minutes
+            closedThroughMinute = closeThrough;
+            int closing = (int) (flip() & 1);
+
+            int firstClosed = closed.size();
+            OhlcAccumulator[] ring = buffers[closing];
+            long[] minutes = bufferMinutes[closing];
+            // Evicted parts can be older than what the old buffer still holds, and pendingFor drops a minute older
+            // than the one in its slot, so buffer and evicted parts are merged oldest minute first
+            for (Candle partial; (partial = evicted.poll()) != null; ) {
+                drained.add(partial);
+            }
+            sortByTimestamp(drained, 0);
+            int nextDrained = 0;
+            while (true) {
+                int oldest = -1;
+                for (int i = 0; i < ring.length; i++) {
+                    if (minutes[i] != NONE && (oldest < 0 || minutes[i] < minutes[oldest])) {
+                        oldest = i;
+                    }
+                }
+                for (; nextDrained < drained.size(); nextDrained++) {
+                    Candle partial = drained.get(nextDrained);
+                    long minute = partial.getTimestamp() / 60;
+                    if (oldest >= 0 && minute >= minutes[oldest]) {
+                        break;
+                    }
+                    OhlcAccumulator target = pendingFor(minute, partial.getTicks(), previouslyClosed, symbol, closed);
+                    if (target != null) {
+                        target.merge(partial);
+                    }
+                    CandlePool.get().release(partial);
+                }
+                if (oldest < 0) {
+                    break;
+                }
+                OhlcAccumulator target = pendingFor(minutes[oldest], ring[oldest].getTicks(), previouslyClosed, symbol, closed);
+                if (target != null) {
+                    target.merge(ring[oldest]);
+                }
+                ring[oldest].reset();
+                minutes[oldest] = NONE;
+            }
+            drained.clear();
+
+            for (int i = 0; i < pending.length; i++) {
+                if (pendingMinutes[i] != NONE && pendingMinutes[i] <= closeThrough) {
+                    if (!pending[i].isEmpty()) {
+                        closed.add(pending[i].toCandle(symbol, pendingMinutes[i] * 60, Timeframe.M1));
+                    }
+                    pending[i].reset();
+                    pendingMinutes[i] = NONE;
+                }
+            }
+            sortByTimestamp(closed, firstClosed);
+        }
+    }
+
+    /**
+     * Insertion sort of the candles from the given index on; closes produce a handful of nearly ordered
+     * candles, and unlike List.sort this does not copy them into a temporary array
+     */
+    private static void sortByTimestamp(List<Candle> candles, int from) {
+        for (int i = from + 1; i < candles.size(); i++) {
+            Candle candle = candles.get(i);
+            int j = i - 1;
+            while (j >= from && candles.get(j).getTimestamp() > candle.getTimestamp()) {
+                candles.set(j + 1, candles.get(j));
+                j--;
+            }
+            candles.set(j + 1, candle);
+        }
+    }
+
+    /**
+     * Finds the closer's accumulator for a partial minute taken from a writer buffer or evicted by the writer
+     * @return the accumulator to merge the partial into, or null if the partial arrived too late and was dropped
+     */
+    private OhlcAccumulator pendingFor(long minute, int ticks, long previouslyClosed, String symbol, List<Candle> closed) {
+        if (ticks == 0) {
+            return null;
+        }
+        if (previouslyClosed != NONE && minute <= previouslyClosed) {
+            recordLate(ticks);
+            return null;
+        }
+
+        int slot = (int) Math.floorMod(minute, (long) pending.length);
+        if (pendingMinutes[slot] != minute) {
+            if (!pending[slot].isEmpty()) {
+                if (pendingMinutes[slot] > minute) {
+                    recordLate(ticks);
+                    return null;
+                }
+                // Ticks ran a whole ring ahead of the watermark; close the stale minute rather than lose it
+                closed.add(pending[slot].toCandle(symbol, pendingMinutes[slot] * 60, Timeframe.M1));
+                pending[slot].reset();
+            }
+            pendingMinutes[slot] = minute;
+        }
+        return pending[slot];
+    }
+
+    int checkpointBytes() {
+        int partials = 1 + buffers[0].length + pending.length + evicted.size();
+        return 4 * Long.BYTES + Integer.BYTES + partials * (Long.BYTES + OhlcAccumulator.CHECKPOINT_BYTES);
+    }
+
+    /**
+     * Writes the open minutes and the watermark state as a list of partial minutes, oldest part first.
+     * No tick may be recorded meanwhile; the caller quiesces the ingest pipeline.
+     */
+    void writeCheckpoint(ByteBuffer out) {
+        synchronized (closeLock) {
+            out.putLong(closedThroughMinute);
+            out.putLong(maxEventTimeMillis);
+            out.putLong(lastTickWallMillis);
+            out.putLong(lateTicks.get());
+
+            int countAt = out.position();
+            out.putInt(0);
+            int count = 0;
+            OhlcAccumulator[] ring = buffers[(int) (epoch & 1)];
+            long[] minutes = bufferMinutes[(int) (epoch & 1)];
+            if (!eventTime) {
+                if (!ring[0].isEmpty()) {
+                    out.putLong(liveMinute);
+                    ring[0].writeTo(out);
+                    count++;
+                }
+            } else {
+                // Earlier epochs first, then parts the writer evicted, then the buffer being filled
+                for (int i = 0; i < pending.length; i++) {
+                    if (pendingMinutes[i] != NONE && !pending[i].isEmpty()) {
+                        out.putLong(pendingMinutes[i]);
+                        pending[i].writeTo(out);
+                        count++;
+                    }
+                }
+                OhlcAccumulator scratch = new OhlcAccumulator();
+                for (Candle partial : evicted) {
+                    scratch.reset();
+                    scratch.merge(partial);
+                    out.putLong(partial.getTimestamp() / 60);
+                    scratch.writeTo(out);
+                    count++;
+                }
+                for (int i = 0; i < ring.length; i++) {
+                    if (minutes[i] != NONE && !ring[i].isEmpty()) {
+                        out.putLong(minutes[i]);
+                        ring[i].writeTo(out);
+                        count++;
+                    }
+                }
+            }
+            out.putInt(countAt, count);
+        }
+    }
+
+    /**
+     * Restores a checkpoint into a generator that has not recorded any tick yet.
+     * A processing-time minute can only resume if the checkpoint was taken in the current minute; an older one
+     * is closed straight away, as are event-time minutes that no longer fit the ring.
+     * @param closed receives the candles closed by the restore
+     */
+    void readCheckpoint(ByteBuffer in, String symbol, long nowMillis, List<Candle> closed) {
+        synchronized (closeLock) {
+            closedThroughMinute = in.getLong();
+            maxEventTimeMillis = in.getLong();
+            lastTickWallMillis = in.getLong();
+            lateTicks.set(in.getLong());
+
+            int count = in.getInt();
+            OhlcAccumulator partial = new OhlcAccumulator();
+            for (int n = 0; n < count; n++) {
+                long minute = in.getLong();
+                partial.readFrom(in);
+                if (!eventTime) {
+                    if (minute == Math.floorDiv(nowMillis, MINUTE_MILLIS)) {
+                        OhlcAccumulator open = buffers[(int) (epoch & 1)][0];
+                        open.merge(partial);
+                        liveMinute = minute;
+                        liveCandle.publish(epoch, minute * 60, open);
+                    } else {
+                        closed.add(partial.toCandle(symbol, minute * 60, Timeframe.M1));
+                    }
+                    continue;
+                }
 
-            // Clear ticks for next minute
-            currentMinuteTicks.clear();
+                OhlcAccumulator target = pendingFor(minute, partial.getTicks(), closedThroughMinute, symbol, closed);
+                if (target != null) {
+                    target.merge(partial);
+                }
+            }
 
-            return Candle.builder()
-                    .symbol(symbol)
-                    .timestamp(timestamp)
-                    .open(open)
-                    .high(high)
-                    .low(low)
-                    .close(close)
-                    .ticks(ticks)
-                    .build();
+            if (eventTime) {
+                for (int i = 0; i < pending.length; i++) {
+                    if (pendingMinutes[i] != NONE && (liveMinute == NONE || pendingMinutes[i] > liveMinute)) {
+                        liveMinute = pendingMinutes[i];
+                        liveMinuteTicks.reset();
+                        liveMinuteTicks.merge(pending[i]);
+                    }
+                }
+                if (liveMinute != NONE) {
+                    liveCandle.publish(epoch, liveMinute * 60, liveMinuteTicks);
+                }
+            }
         }
     }
+
+    /**
+     * @return start (epoch seconds) of the last minute closed in event-time mode, or Long.MIN_VALUE if none
+     */
+    public long getClosedThroughMinuteStart() {
+        long closedThrough = closedThroughMinute;
+        return closedThrough == NONE ? NONE : closedThrough * 60;
+    }
+
+    public long getLateTicks() {
+        return lateTicks.get();
+    }
 }
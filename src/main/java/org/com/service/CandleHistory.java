@@ -0,0 +1,168 @@
+package org.com.service;
+
+import org.com.model.Candle;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.com.util.SeqLock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bounded in-memory history of recently closed candles, one ring per symbol and configured timeframe.
+ * Only the candle scheduler appends. Candles are copied into preallocated slots, so appending does not allocate
+ * and the closed candles can be returned to their pool. Readers copy the newest slots under per-slot seqlocks
+ * without blocking the writer and discard any slot it lapped while they were copying.
+ */
+public class CandleHistory {
+    public static final int DEFAULT_CAPACITY = 1440;
+
+    private final SymbolRegistry symbols;
+    private final int capacity;
+    private final Ring[][] rings;
+
+    /**
+     * @param timeframes the timeframes candles are generated for; only these get rings
+     */
+    public CandleHistory(SymbolRegistry symbols, List<Timeframe> timeframes, int capacity) {
+        this.symbols = symbols;
+        this.capacity = capacity;
+        // Indexed by ordinal, timeframes that are not generated stay null
+        this.rings = new Ring[symbols.size()][Timeframe.values().length];
+        for (int id = 0; id < rings.length; id++) {
+            for (Timeframe timeframe : timeframes) {
+                rings[id][timeframe.ordinal()] = new Ring(symbols.symbolOf(id), timeframe, capacity);
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Appends copies of closed candles; candles for symbols outside the registry are ignored
+     */
+    public void addAll(List<Candle> candles) {
+        for (int i = 0; i < candles.size(); i++) {
+            Candle candle = candles.get(i);
+            int id = symbols.idOf(candle.getSymbol());
+            if (id != SymbolRegistry.UNKNOWN && id < rings.length) {
+                Ring ring = rings[id][candle.getTimeframe().ordinal()];
+                if (ring != null) {
+                    ring.add(candle);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return up to limit of the newest closed candles, oldest first; empty for a timeframe that is not generated
+     */
+    public List<Candle> latest(int symbolId, Timeframe timeframe, int limit) {
+        Ring ring = rings[symbolId][timeframe.ordinal()];
+        return ring == null ? Collections.emptyList() : ring.latest(limit);
+    }
+
+    private static final class Ring {
+        private final String symbol;
+        private final Timeframe timeframe;
+        private final Slot[] slots;
+        private volatile long published;
+
+        Ring(String symbol, Timeframe timeframe, int capacity) {
+            this.symbol = symbol;
+            this.timeframe = timeframe;
+            this.slots = new Slot[capacity];
+            for (int i = 0; i < capacity; i++) {
+                slots[i] = new Slot();
+            }
+        }
+
+        void add(Candle candle) {
+            long next = published;
+            slots[(int) (next % slots.length)].write(next, candle);
+            published = next + 1;
+        }
+
+        List<Candle> latest(int limit) {
+            long end = published;
+            int count = (int) Math.min(Math.min(limit, slots.length), end);
+            if (count <= 0) {
+                return Collections.emptyList();
+            }
+
+            List<Candle> result = new ArrayList<>(count);
+            for (long index = end - count; index < end; index++) {
+                Candle candle = slots[(int) (index % slots.length)].read(index, symbol, timeframe);
+                if (candle == null) {
+                    // The writer lapped this slot mid-copy, so everything older is gone too
+                    result.clear();
+                } else {
+                    result.add(candle);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Copy of one closed candle; the writer overwrites it in place, so the source candle can go back to its pool
+     */
+    private static final class Slot {
+        private final SeqLock lock = new SeqLock();
+        private long index = -1;
+        private long timestamp;
+        private double open;
+        private double high;
+        private double low;
+        private double close;
+        private int ticks;
+
+        void write(long index, Candle candle) {
+            lock.beginWrite();
+            this.index = index;
+            this.timestamp = candle.getTimestamp();
+            this.open = candle.getOpen();
+            this.high = candle.getHigh();
+            this.low = candle.getLow();
+            this.close = candle.getClose();
+            this.ticks = candle.getTicks();
+            lock.endWrite();
+        }
+
+        /**
+         * @return a new candle with the slot's content, or null if the slot no longer holds the expected index
+         */
+        Candle read(long expectedIndex, String symbol, Timeframe timeframe) {
+            long seq;
+            long held, time;
+            double o, h, l, c;
+            int count;
+            do {
+                seq = lock.readBegin();
+                held = index;
+                time = timestamp;
+                o = open;
+                h = high;
+                l = low;
+                c = close;
+                count = ticks;
+            } while (lock.readRetry(seq));
+
+            if (held != expectedIndex) {
+                return null;
+            }
+            return Candle.builder()
+                    .symbol(symbol)
+                    .timeframe(timeframe)
+                    .timestamp(time)
+                    .open(o)
+                    .high(h)
+                    .low(l)
+                    .close(c)
+                    .ticks(count)
+                    .build();
+        }
+    }
+}
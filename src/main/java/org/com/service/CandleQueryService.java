@@ -0,0 +1,82 @@
+package org.com.service;
+
+import org.com.indicator.IndicatorEngine;
+import org.com.model.Candle;
+import org.com.model.IndicatorValues;
+import org.com.model.Quote;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Read side for live and recent market state.
+ * Every read is a seqlock snapshot or a ring copy, so any number of query threads can poll without
+ * blocking the shard threads or the candle scheduler.
+ */
+public class CandleQueryService {
+    private final ShardedBookProcessor bookProcessor;
+    private final CandleHistory history;
+    // Null when indicators are disabled
+    private final IndicatorEngine indicators;
+
+    public CandleQueryService(ShardedBookProcessor bookProcessor, CandleHistory history) {
+        this(bookProcessor, history, null);
+    }
+
+    public CandleQueryService(ShardedBookProcessor bookProcessor, CandleHistory history, IndicatorEngine indicators) {
+        this.bookProcessor = bookProcessor;
+        this.history = history;
+        this.indicators = indicators;
+    }
+
+    public List<String> getSymbols() {
+        return bookProcessor.getSymbols().symbols();
+    }
+
+    public int getHistoryCapacity() {
+        return history.getCapacity();
+    }
+
+    /**
+     * @return the 1m candle still being built, or null if its minute has no ticks yet
+     */
+    public Candle getLiveCandle(String symbol) {
+        InstrumentState instrument = instrument(symbol);
+        return instrument.getCandleGenerator().getLiveCandle(instrument.getSymbol());
+    }
+
+    /**
+     * @return up to limit of the newest closed candles of the timeframe, oldest first
+     */
+    public List<Candle> getRecentCandles(String symbol, Timeframe timeframe, int limit) {
+        return history.latest(instrument(symbol).getSymbolId(), timeframe, limit);
+    }
+
+    /**
+     * @return the best bid and ask, or null while the book is being built or resynced
+     */
+    public Quote getTopOfBook(String symbol) {
+        InstrumentState instrument = instrument(symbol);
+        return instrument.getTopOfBook().snapshot(instrument.getSymbol());
+    }
+
+    /**
+     * @return indicators as of the last closed candle of the timeframe, or null before its first close
+     * @throws UnsupportedOperationException if indicators are disabled
+     */
+    public IndicatorValues getIndicators(String symbol, Timeframe timeframe) {
+        if (indicators == null) {
+            throw new UnsupportedOperationException("Indicators are disabled (indicator.enabled)");
+        }
+        return indicators.getLatest(instrument(symbol).getSymbol(), timeframe);
+    }
+
+    private InstrumentState instrument(String symbol) {
+        int id = bookProcessor.getSymbols().idOf(symbol);
+        if (id == SymbolRegistry.UNKNOWN) {
+            throw new NoSuchElementException("Unknown symbol: " + symbol);
+        }
+        return bookProcessor.getInstrument(id);
+    }
+}
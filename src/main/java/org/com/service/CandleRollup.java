@@ -0,0 +1,103 @@
+package org.com.service;
+
+import org.com.model.Candle;
+import org.com.model.Timeframe;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Derives higher-timeframe candles (5m, 15m, 1h, 1d, ...) for one symbol from its closed 1-minute candles.
+ * Each timeframe keeps one accumulator, so the cost per minute is O(timeframes) and ticks are never re-scanned.
+ * The first candle of each timeframe after startup only covers the minutes seen since then.
+ * Called by one candle-close worker at a time.
+ */
+public class CandleRollup {
+    private final String symbol;
+    private final Timeframe[] timeframes;
+    private final OhlcAccumulator[] accumulators;
+    private final long[] bucketStarts;
+
+    public CandleRollup(String symbol, List<Timeframe> timeframes) {
+        this.symbol = symbol;
+        this.timeframes = timeframes.stream()
+                .filter(timeframe -> timeframe != Timeframe.M1)
+                .toArray(Timeframe[]::new);
+        this.accumulators = new OhlcAccumulator[this.timeframes.length];
+        this.bucketStarts = new long[this.timeframes.length];
+        for (int i = 0; i < accumulators.length; i++) {
+            accumulators[i] = new OhlcAccumulator();
+        }
+    }
+
+    int checkpointBytes() {
+        return Integer.BYTES + timeframes.length * (1 + Long.BYTES + OhlcAccumulator.CHECKPOINT_BYTES);
+    }
+
+    void writeCheckpoint(ByteBuffer out) {
+        out.putInt(timeframes.length);
+        for (int i = 0; i < timeframes.length; i++) {
+            out.put((byte) timeframes[i].ordinal());
+            out.putLong(bucketStarts[i]);
+            accumulators[i].writeTo(out);
+        }
+    }
+
+    /**
+     * Restores the intervals in progress; timeframes that are no longer configured are skipped
+     */
+    void readCheckpoint(ByteBuffer in) {
+        int count = in.getInt();
+        OhlcAccumulator skipped = new OhlcAccumulator();
+        for (int n = 0; n < count; n++) {
+            Timeframe timeframe = Timeframe.values()[in.get()];
+            long bucketStart = in.getLong();
+            int i = indexOf(timeframe);
+            if (i < 0) {
+                skipped.readFrom(in);
+                continue;
+            }
+            bucketStarts[i] = bucketStart;
+            accumulators[i].readFrom(in);
+        }
+    }
+
+    private int indexOf(Timeframe timeframe) {
+        for (int i = 0; i < timeframes.length; i++) {
+            if (timeframes[i] == timeframe) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Folds one closed minute into every higher timeframe.
+     * Minutes must arrive in order but may skip empty minutes; an interval whose end was skipped over is closed first.
+     * @param minuteStart epoch seconds of the minute that just closed
+     * @param oneMinute the minute's candle, or null if it had no ticks
+     * @param closed receives the higher-timeframe candles that closed with this minute
+     */
+    public void onMinuteClosed(long minuteStart, Candle oneMinute, List<Candle> closed) {
+        for (int i = 0; i < timeframes.length; i++) {
+            OhlcAccumulator accumulator = accumulators[i];
+            Timeframe timeframe = timeframes[i];
+            long bucketStart = timeframe.bucketStart(minuteStart);
+
+            if (!accumulator.isEmpty() && bucketStarts[i] != bucketStart) {
+                closed.add(accumulator.toCandle(symbol, bucketStarts[i], timeframe));
+                accumulator.reset();
+            }
+            if (oneMinute != null) {
+                accumulator.merge(oneMinute);
+                bucketStarts[i] = bucketStart;
+            }
+
+            if (timeframe.closesAfterMinute(minuteStart)) {
+                if (!accumulator.isEmpty()) {
+                    closed.add(accumulator.toCandle(symbol, bucketStart, timeframe));
+                }
+                accumulator.reset();
+            }
+        }
+    }
+}
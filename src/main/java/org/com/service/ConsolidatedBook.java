@@ -0,0 +1,188 @@
+package org.com.service;
+
+import org.com.pipeline.TickRing;
+import org.com.util.FixedPoint;
+
+/**
+ * Best bid and offer of one symbol across every venue that quotes it.
+ * Each venue reports its own top of book; two tournament trees over the venues (highest bid, lowest ask) are
+ * replayed along the changed venue's path only, so a change costs O(log venues) instead of a rescan of every book.
+ * The consolidated quote is published to the symbol's {@link TopOfBook} and its mid is recorded as the candle tick
+ * (and offered to the symbol's {@link TickRing} when ticks are streamed).
+ * Venues report from their own feed threads; the monitor serializes them, which also keeps the candle generator
+ * single-writer.
+ */
+public class ConsolidatedBook {
+    /**
+     * Venue id of the Kraken feed applied by the book shards
+     */
+    public static final int PRIMARY_VENUE = 0;
+
+    private final int symbolId;
+    private final String[] venues;
+    private final Tournament bids;
+    private final Tournament asks;
+    private final TopOfBook topOfBook;
+    private final CandleGenerator candleGenerator;
+    // Null unless ticks are streamed
+    private final TickRing tickRing;
+    private long lastEventTimeMillis;
+
+    /**
+     * @param venues venue names, indexed by venue id
+     * @param tickRing receives the consolidated ticks of the symbol, or null
+     */
+    public ConsolidatedBook(int symbolId, String[] venues, TopOfBook topOfBook, CandleGenerator candleGenerator,
+                            TickRing tickRing) {
+        this.symbolId = symbolId;
+        this.tickRing = tickRing;
+        this.venues = venues;
+        this.bids = new Tournament(venues.length, true);
+        this.asks = new Tournament(venues.length, false);
+        this.topOfBook = topOfBook;
+        this.candleGenerator = candleGenerator;
+    }
+
+    /**
+     * Replaces the venue's best levels with those of its book; an empty or crossed book withdraws the venue
+     * @param eventTimeMicros exchange timestamp of the venue's message, or -1 if it carried none
+     * @param receiveMillis when the message was received, which stands in for a missing exchange timestamp
+     * @return the consolidated mid recorded as a tick, or 0 if either side has no quote
+     */
+    public synchronized double update(int venue, OrderBook orderBook, long eventTimeMicros, long receiveMillis) {
+        if (orderBook.isValid()) {
+            bids.update(venue, orderBook.getBids().bestPrice(), orderBook.getBids().bestQuantity());
+            asks.update(venue, orderBook.getAsks().bestPrice(), orderBook.getAsks().bestQuantity());
+        } else {
+            bids.withdraw(venue);
+            asks.withdraw(venue);
+        }
+        return publish(eventTimeMicros >= 0 ? eventTimeMicros : receiveMillis * 1000, receiveMillis);
+    }
+
+    /**
+     * Removes the venue's quotes, e.g. while its book is resyncing; the remaining venues' quote is republished
+     * without recording a tick, since no venue reported a new price
+     */
+    public synchronized void withdraw(int venue) {
+        bids.withdraw(venue);
+        asks.withdraw(venue);
+        if (!bids.isQuoted() || !asks.isQuoted()) {
+            topOfBook.clear();
+        } else {
+            topOfBook.publish(bids.bestPrice(), bids.bestQuantity(), asks.bestPrice(), asks.bestQuantity(),
+                    lastEventTimeMillis);
+        }
+    }
+
+    private double publish(long eventTimeMicros, long receiveMillis) {
+        if (!bids.isQuoted() || !asks.isQuoted()) {
+            topOfBook.clear();
+            return 0;
+        }
+        long eventTimeMillis = eventTimeMicros / 1000;
+        lastEventTimeMillis = eventTimeMillis;
+        topOfBook.publish(bids.bestPrice(), bids.bestQuantity(), asks.bestPrice(), asks.bestQuantity(), eventTimeMillis);
+        double midPrice = FixedPoint.toDouble(bids.bestPrice() + asks.bestPrice()) / 2.0;
+        candleGenerator.recordTick(midPrice, eventTimeMillis);
+        if (tickRing != null) {
+            tickRing.offer(symbolId, eventTimeMicros, receiveMillis * 1000, bids.bestPrice(), asks.bestPrice(), midPrice);
+        }
+        return midPrice;
+    }
+
+    public synchronized long getBestBid() {
+        return bids.bestPrice();
+    }
+
+    public synchronized long getBestAsk() {
+        return asks.bestPrice();
+    }
+
+    /**
+     * @return the venue with the best bid, or null if no venue is bidding
+     */
+    public synchronized String getBestBidVenue() {
+        return bids.isQuoted() ? venues[bids.winner()] : null;
+    }
+
+    /**
+     * @return the venue with the best ask, or null if no venue is offering
+     */
+    public synchronized String getBestAskVenue() {
+        return asks.isQuoted() ? venues[asks.winner()] : null;
+    }
+
+    public int getVenueCount() {
+        return venues.length;
+    }
+
+    /**
+     * Winner tree over one side of every venue's book. Leaves hold the venues' best levels; each inner node holds
+     * the venue winning its subtree, so the root is the venue with the best price. Ties go to the lower venue id.
+     */
+    private static final class Tournament {
+        private final boolean bid;
+        private final int leaves;
+        private final long[] prices;
+        private final long[] quantities;
+        private final int[] tree;
+
+        Tournament(int venues, boolean bid) {
+            this.bid = bid;
+            this.leaves = Integer.highestOneBit(Math.max(1, venues - 1)) << 1;
+            this.prices = new long[leaves];
+            this.quantities = new long[leaves];
+            this.tree = new int[2 * leaves];
+            for (int venue = 0; venue < leaves; venue++) {
+                prices[venue] = empty();
+                tree[leaves + venue] = venue;
+            }
+            for (int node = leaves - 1; node > 0; node--) {
+                tree[node] = tree[2 * node];
+            }
+        }
+
+        void update(int venue, long price, long quantity) {
+            prices[venue] = price;
+            quantities[venue] = quantity;
+            replay(venue);
+        }
+
+        void withdraw(int venue) {
+            update(venue, empty(), 0);
+        }
+
+        private void replay(int venue) {
+            for (int node = (leaves + venue) >> 1; node > 0; node >>= 1) {
+                int left = tree[2 * node];
+                int right = tree[2 * node + 1];
+                tree[node] = beats(right, left) ? right : left;
+            }
+        }
+
+        private boolean beats(int venue, int other) {
+            return bid ? prices[venue] > prices[other] : prices[venue] < prices[other];
+        }
+
+        private long empty() {
+            return bid ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+
+        int winner() {
+            return tree[1];
+        }
+
+        boolean isQuoted() {
+            return prices[tree[1]] != empty();
+        }
+
+        long bestPrice() {
+            return isQuoted() ? prices[tree[1]] : 0;
+        }
+
+        long bestQuantity() {
+            return isQuoted() ? quantities[tree[1]] : 0;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package org.com.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.com.model.Candle;
+import org.com.model.Timeframe;
+import org.com.pipeline.TickRing;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-symbol market state: the symbol's order book, its candle generator and higher-timeframe rollups,
+ * plus the checksum verification state of the book. With more than one venue, the symbol's quote and candle ticks
+ * come from the {@link ConsolidatedBook} instead of the Kraken book alone.
+ * The book and verification state are only touched by the shard worker that owns the symbol.
+ */
+@Getter
+public class InstrumentState {
+    private final int symbolId;
+    private final String symbol;
+    private final OrderBook orderBook;
+    private final CandleGenerator candleGenerator;
+    private final CandleRollup candleRollup;
+    private final TopOfBook topOfBook = new TopOfBook();
+    // Null when Kraken is the only venue
+    private final ConsolidatedBook consolidatedBook;
+    // Null unless ticks are streamed to Kafka
+    private final TickRing tickRing;
+    // Scratch for event-time closes, only used by the closing thread
+    @Getter(AccessLevel.NONE)
+    private final List<Candle> minutes = new ArrayList<>();
+
+    @Setter
+    private boolean precisionKnown;
+    @Setter
+    private int pricePrecision;
+    @Setter
+    private int quantityPrecision;
+    @Setter
+    private boolean checksumEnabled = true;
+    @Setter
+    private boolean awaitingSnapshot;
+    private volatile long checksumMismatches;
+    private volatile long resyncs;
+
+    /**
+     * @param precision configured {price, quantity} decimals for checksums, or null to infer them from snapshots
+     */
+    public InstrumentState(int symbolId, String symbol, int depth, List<Timeframe> timeframes, CandleGenerator candleGenerator,
+                           int[] precision) {
+        this(symbolId, symbol, depth, timeframes, candleGenerator, precision, new String[]{"kraken"}, null);
+    }
+
+    /**
+     * @param venues names of the venues quoting the symbol, indexed by venue id, Kraken first
+     * @param tickRing receives every tick recorded into the candle, or null to keep ticks internal
+     */
+    public InstrumentState(int symbolId, String symbol, int depth, List<Timeframe> timeframes, CandleGenerator candleGenerator,
+                           int[] precision, String[] venues, TickRing tickRing) {
+        this.symbolId = symbolId;
+        this.symbol = symbol;
+        this.orderBook = new OrderBook(depth);
+        this.candleGenerator = candleGenerator;
+        this.candleRollup = new CandleRollup(symbol, timeframes);
+        this.tickRing = tickRing;
+        this.consolidatedBook = venues.length > 1
+                ? new ConsolidatedBook(symbolId, venues, topOfBook, candleGenerator, tickRing) : null;
+        this.precisionKnown = precision != null;
+        if (precision != null) {
+            this.pricePrecision = precision[0];
+            this.quantityPrecision = precision[1];
+        }
+    }
+
+    void recordChecksumMismatch() {
+        checksumMismatches++;
+    }
+
+    void recordResync() {
+        resyncs++;
+    }
+
+    /**
+     * @return an upper bound on the bytes {@link #writeCheckpoint(ByteBuffer)} writes
+     */
+    int checkpointBytes() {
+        int book = 2 * (Integer.BYTES + orderBook.getDepth() * 2 * Long.BYTES);
+        return 2 + 2 * Integer.BYTES + book + candleRollup.checkpointBytes() + candleGenerator.checkpointBytes();
+    }
+
+    /**
+     * Writes the checksum settings, the book and the candles in progress.
+     * The shard and the candle scheduler must both be idle.
+     */
+    void writeCheckpoint(ByteBuffer out) {
+        out.put((byte) (precisionKnown ? 1 : 0));
+        out.putInt(pricePrecision);
+        out.putInt(quantityPrecision);
+        out.put((byte) (checksumEnabled ? 1 : 0));
+        writeSide(orderBook.getBids(), out);
+        writeSide(orderBook.getAsks(), out);
+        candleRollup.writeCheckpoint(out);
+        candleGenerator.writeCheckpoint(out);
+    }
+
+    /**
+     * Restores state written by {@link #writeCheckpoint(ByteBuffer)} before any market data is applied.
+     * Configured precision wins over the checkpointed one. The book only serves queries until the exchange
+     * sends a fresh snapshot on subscribe.
+     * @param closed receives candles for minutes that ended while the process was down, with their rollups
+     */
+    void readCheckpoint(ByteBuffer in, long checkpointMillis, long nowMillis, List<Candle> closed) {
+        boolean knew = in.get() != 0;
+        int price = in.getInt();
+        int quantity = in.getInt();
+        if (knew && !precisionKnown) {
+            precisionKnown = true;
+            pricePrecision = price;
+            quantityPrecision = quantity;
+        }
+        checksumEnabled = in.get() != 0;
+
+        orderBook.clear();
+        for (int i = in.getInt(); i > 0; i--) {
+            orderBook.updateBid(in.getLong(), in.getLong());
+        }
+        for (int i = in.getInt(); i > 0; i--) {
+            orderBook.updateAsk(in.getLong(), in.getLong());
+        }
+        if (orderBook.isValid()) {
+            topOfBook.publish(orderBook, checkpointMillis);
+        }
+
+        candleRollup.readCheckpoint(in);
+        minutes.clear();
+        candleGenerator.readCheckpoint(in, symbol, nowMillis, minutes);
+        for (int i = 0; i < minutes.size(); i++) {
+            Candle candle = minutes.get(i);
+            closed.add(candle);
+            candleRollup.onMinuteClosed(candle.getTimestamp(), candle, closed);
+        }
+        minutes.clear();
+    }
+
+    private static void writeSide(BookSide side, ByteBuffer out) {
+        out.putInt(side.size());
+        for (int i = 0; i < side.size(); i++) {
+            out.putLong(side.priceAt(i));
+            out.putLong(side.quantityAt(i));
+        }
+    }
+
+    /**
+     * Closes the processing-time minute starting at minuteStart (epoch seconds)
+     * @param closed receives the 1m candle, if it had ticks, followed by any higher-timeframe candles it completed
+     */
+    public void closeMinute(long minuteStart, List<Candle> closed) {
+        Candle candle = candleGenerator.generateCandle(symbol, minuteStart);
+        if (candle != null) {
+            closed.add(candle);
+        }
+        candleRollup.onMinuteClosed(minuteStart, candle, closed);
+    }
+
+    /**
+     * Closes every event-time minute behind the watermark
+     * @param closed receives the closed 1m candles in time order, each followed by any higher-timeframe candles it completed
+     */
+    public void closeEventTime(long nowMillis, List<Candle> closed) {
+        minutes.clear();
+        candleGenerator.closeEventTimeCandles(symbol, nowMillis, minutes);
+        long lastMinute = Long.MIN_VALUE;
+        for (int i = 0; i < minutes.size(); i++) {
+            Candle candle = minutes.get(i);
+            closed.add(candle);
+            candleRollup.onMinuteClosed(candle.getTimestamp(), candle, closed);
+            lastMinute = candle.getTimestamp();
+        }
+        minutes.clear();
+
+        // Let intervals ending on empty minutes close too
+        long closedThrough = candleGenerator.getClosedThroughMinuteStart();
+        if (closedThrough != Long.MIN_VALUE && closedThrough > lastMinute) {
+            candleRollup.onMinuteClosed(closedThrough, null, closed);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.com.service;
+
+import org.com.model.Candle;
+import org.com.model.Timeframe;
+import org.com.util.SeqLock;
+
+/**
+ * Copy of the candle currently being built, published under a {@link SeqLock} on every tick.
+ * Queries read it without touching the generator's buffers, so polling never stalls tick recording.
+ * Only the tick writer publishes.
+ */
+public class LiveCandle {
+    private final SeqLock lock = new SeqLock();
+    private long generation;
+    private long minuteStart;
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private int ticks;
+
+    /**
+     * @param generation writer-defined version of the candle, used by readers to discard a superseded one
+     */
+    void publish(long generation, long minuteStart, OhlcAccumulator ohlc) {
+        lock.beginWrite();
+        this.generation = generation;
+        this.minuteStart = minuteStart;
+        this.open = ohlc.getOpen();
+        this.high = ohlc.getHigh();
+        this.low = ohlc.getLow();
+        this.close = ohlc.getClose();
+        this.ticks = ohlc.getTicks();
+        lock.endWrite();
+    }
+
+    /**
+     * @return a consistent copy of the in-progress 1m candle, or null if nothing at or after the given
+     * generation has been published
+     */
+    public Candle snapshot(String symbol, long minGeneration) {
+        long seq;
+        long published;
+        long minute;
+        double o, h, l, c;
+        int count;
+        do {
+            seq = lock.readBegin();
+            published = generation;
+            minute = minuteStart;
+            o = open;
+            h = high;
+            l = low;
+            c = close;
+            count = ticks;
+        } while (lock.readRetry(seq));
+
+        if (count == 0 || published < minGeneration) {
+            return null;
+        }
+        return Candle.builder()
+                .symbol(symbol)
+                .timeframe(Timeframe.M1)
+                .timestamp(minute)
+                .open(o)
+                .high(h)
+                .low(l)
+                .close(c)
+                .ticks(count)
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+package org.com.service;
+
+import org.com.model.Candle;
+import org.com.model.CandlePool;
+import org.com.model.Timeframe;
+import java.nio.ByteBuffer;
+
+/**
+ * Constant-memory OHLC state, updated in O(1) per tick or per merged candle.
+ * Not thread-safe; callers guard it.
+ */
+public class OhlcAccumulator {
+    static final int CHECKPOINT_BYTES = 4 * Double.BYTES + Integer.BYTES;
+
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private int ticks;
+
+    public void add(double price) {
+        if (ticks == 0) {
+            open = price;
+            high = price;
+            low = price;
+        } else {
+            if (price > high) {
+                high = price;
+            }
+            if (price < low) {
+                low = price;
+            }
+        }
+        close = price;
+        ticks++;
+    }
+
+    /**
+     * Folds a closed candle of a finer interval into this one
+     */
+    public void merge(Candle candle) {
+        if (candle.getTicks() == 0) {
+            return;
+        }
+        if (ticks == 0) {
+            open = candle.getOpen();
+            high = candle.getHigh();
+            low = candle.getLow();
+        } else {
+            high = Math.max(high, candle.getHigh());
+            low = Math.min(low, candle.getLow());
+        }
+        close = candle.getClose();
+        ticks += candle.getTicks();
+    }
+
+    /**
+     * Folds a later part of the same interval into this one
+     */
+    public void merge(OhlcAccumulator later) {
+        if (later.ticks == 0) {
+            return;
+        }
+        if (ticks == 0) {
+            open = later.open;
+            high = later.high;
+            low = later.low;
+        } else {
+            high = Math.max(high, later.high);
+            low = Math.min(low, later.low);
+        }
+        close = later.close;
+        ticks += later.ticks;
+    }
+
+    public boolean isEmpty() {
+        return ticks == 0;
+    }
+
+    public void reset() {
+        open = 0;
+        high = 0;
+        low = 0;
+        close = 0;
+        ticks = 0;
+    }
+
+    void writeTo(ByteBuffer out) {
+        out.putDouble(open);
+        out.putDouble(high);
+        out.putDouble(low);
+        out.putDouble(close);
+        out.putInt(ticks);
+    }
+
+    void readFrom(ByteBuffer in) {
+        open = in.getDouble();
+        high = in.getDouble();
+        low = in.getDouble();
+        close = in.getDouble();
+        ticks = in.getInt();
+    }
+
+    /**
+     * @return a candle from the {@link CandlePool} holding this state
+     */
+    public Candle toCandle(String symbol, long timestamp, Timeframe timeframe) {
+        Candle candle = CandlePool.get().acquire();
+        candle.setSymbol(symbol);
+        candle.setTimeframe(timeframe);
+        candle.setTimestamp(timestamp);
+        candle.setOpen(open);
+        candle.setHigh(high);
+        candle.setLow(low);
+        candle.setClose(close);
+        candle.setTicks(ticks);
+        return candle;
+    }
+
+    public double getOpen() {
+        return open;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    public double getClose() {
+        return close;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+}
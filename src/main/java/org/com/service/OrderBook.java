@@ -1,92 +1,65 @@
 package org.com.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import lombok.extern.slf4j.Slf4j;
-import java.util.*;
-import java.util.concurrent.ConcurrentSkipListSet;
+import org.com.util.FixedPoint;
 
 /**
- * Thread-safe order book implementation
+ * Price-level order book with quantities, backed by fixed-point primitive arrays.
+ * Best bid/ask are O(1), level lookups are O(log depth), and updates never allocate.
+ * Not thread-safe: the book is owned by the thread that applies market data to it.
  */
 
-@Slf4j
 public class OrderBook {
+    public static final int DEFAULT_DEPTH = 10;
+    public static final int MAX_DEPTH = 1000;
 
-    // Using TreeMap for automatic sorting by price
-    private final ConcurrentSkipListSet<Double> bids = new ConcurrentSkipListSet<>(Collections.reverseOrder()); // price -> quantity
-    private final ConcurrentSkipListSet<Double> asks = new ConcurrentSkipListSet<>(); // price -> quantity
-
-    public void processSnapshot(JsonNode data) {
-        try {
-            // Process bids
-            if (data.has("bids")) {
-                JsonNode bidsNode = data.get("bids");
-                for (JsonNode bid : bidsNode) {
-                    double price = bid.get("price").asDouble();
-                    double quantity = bid.get("qty").asDouble();
-                    if (quantity > 0) {
-                        bids.add(price);
-                    }
-                }
-            }
-
-            // Process asks
-            if (data.has("asks")) {
-                JsonNode asksNode = data.get("asks");
-                for (JsonNode ask : asksNode) {
-                    double price = ask.get("price").asDouble();
-                    double quantity = ask.get("qty").asDouble();
-                    if (quantity > 0) {
-                        asks.add(price);
-                    }
-                }
-            }
-
-            log.debug("Order book snapshot updated - bids: {}, asks: {}", bids.size(), asks.size());
-
-        } catch (Exception e) {
-            log.error("Error updating order book snapshot", e);
-        }
+    private final BookSide bids;
+    private final BookSide asks;
+
+    public OrderBook() {
+        this(DEFAULT_DEPTH);
     }
 
-    public void processDelta(JsonNode data) {
-        try {
-            // Process bid updates
-            if (data.has("bids")) {
-                JsonNode bidsNode = data.get("bids");
-                for (JsonNode bid : bidsNode) {
-                    double price = bid.get("price").asDouble();
-                    double quantity = bid.get("qty").asDouble();
-
-                    if (quantity == 0) {
-                        bids.remove(price);
-                    } else {
-                        bids.add(price);
-                    }
-                }
-            }
-
-            // Process ask updates
-            if (data.has("asks")) {
-                JsonNode asksNode = data.get("asks");
-                for (JsonNode ask : asksNode) {
-                    double price = ask.get("price").asDouble();
-                    double quantity = ask.get("qty").asDouble();
-
-                    if (quantity == 0) {
-                        asks.remove(price);
-                    } else {
-                        asks.add(price);
-                    }
-                }
-            }
-
-        } catch (Exception e) {
-            log.error("Error updating order book delta", e);
+    public OrderBook(int depth) {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Order book depth must be between 1 and " + MAX_DEPTH + ": " + depth);
         }
+        this.bids = new BookSide(true, depth);
+        this.asks = new BookSide(false, depth);
+    }
+
+    /**
+     * Sets the bid quantity at a fixed-point price; zero quantity removes the level
+     */
+    public void updateBid(long price, long quantity) {
+        bids.update(price, quantity);
+    }
+
+    /**
+     * Sets the ask quantity at a fixed-point price; zero quantity removes the level
+     */
+    public void updateAsk(long price, long quantity) {
+        asks.update(price, quantity);
+    }
 
-        if (bids.isEmpty() && asks.isEmpty())
-            throw new RuntimeException("Order book is empty after processing delta");
+    public void clear() {
+        bids.clear();
+        asks.clear();
+    }
+
+    public boolean isEmpty() {
+        return bids.isEmpty() && asks.isEmpty();
+    }
+
+    public int getDepth() {
+        return bids.depth();
+    }
+
+    public BookSide getBids() {
+        return bids;
+    }
+
+    public BookSide getAsks() {
+        return asks;
     }
 
     public boolean isValid() {
@@ -94,10 +67,7 @@ public class OrderBook {
             return false;
         }
 
-        double highestBid = bids.first();
-        double lowestAsk = asks.first();
-
-        return highestBid < lowestAsk;
+        return bids.bestPrice() < asks.bestPrice();
     }
 
     public double getMidPrice() {
@@ -105,9 +75,38 @@ public class OrderBook {
             return 0.0;
         }
 
-        double highestBid = bids.first();
-        double lowestAsk = asks.first();
+        return FixedPoint.toDouble(bids.bestPrice() + asks.bestPrice()) / 2.0;
+    }
+
+    public double getBestBid() {
+        return FixedPoint.toDouble(bids.bestPrice());
+    }
+
+    public double getBestAsk() {
+        return FixedPoint.toDouble(asks.bestPrice());
+    }
+
+    public double getBidSize(double price) {
+        return FixedPoint.toDouble(bids.sizeAtPrice(FixedPoint.toFixed(price)));
+    }
+
+    public double getAskSize(double price) {
+        return FixedPoint.toDouble(asks.sizeAtPrice(FixedPoint.toFixed(price)));
+    }
+
+    /**
+     * Copies up to n best bid levels (fixed-point) into the supplied arrays.
+     * @return the number of levels copied
+     */
+    public int getTopBids(int n, long[] prices, long[] quantities) {
+        return bids.topLevels(n, prices, quantities);
+    }
 
-        return (highestBid + lowestAsk) / 2.0;
+    /**
+     * Copies up to n best ask levels (fixed-point) into the supplied arrays.
+     * @return the number of levels copied
+     */
+    public int getTopAsks(int n, long[] prices, long[] quantities) {
+        return asks.topLevels(n, prices, quantities);
     }
 }
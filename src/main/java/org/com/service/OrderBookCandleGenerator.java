@@ -1,11 +1,36 @@
 package org.com.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.com.config.AppConfig;
+import org.com.client.LocalVenueFeed;
+import org.com.client.VenueFeed;
 import org.com.client.WebSocketClientImpl;
+import org.com.indicator.IndicatorCandleSink;
+import org.com.indicator.IndicatorEngine;
+import org.com.indicator.IndicatorPeriods;
+import org.com.journal.FrameJournal;
 import org.com.kafka.CandleKafkaConsumer;
 import org.com.kafka.CandleKafkaProducer;
+import org.com.kafka.TickPublisher;
+import org.com.kafka.CandleSink;
+import org.com.kafka.LoggingCandleSink;
+import org.com.metrics.IngestMetrics;
 import org.com.model.Candle;
+import org.com.model.CandlePool;
+import org.com.model.IndicatorValues;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.com.pipeline.IngestPipeline;
+import org.com.storage.CandleStore;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -13,25 +38,47 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * Main application that connects to Kraken WebSocket API to receive order book data
  * and generates 1-minute candles from tick-level data.
  * Assumptions:
- * - Using BTC/USD pair for demonstration
+ * - Instruments come from kraken.instrument (default BTC/USD), each with its own book and candle state
  * - Candles are generated every minute on the minute boundary
  * - Mid price calculation: (highest_bid + lowest_ask) / 2
  * - Order book is maintained in memory with concurrent access support
  */
 @Slf4j
 public class OrderBookCandleGenerator {
-    private static final String KRAKEN_WS_URL = "wss://ws.kraken.com/v2";
-    private static final String SYMBOL = "BTC/USD";
-
-    private final OrderBook orderBook = new OrderBook();
-    private final CandleGenerator candleGenerator = new CandleGenerator();
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
-    private final CandleKafkaProducer kafkaProducer = new CandleKafkaProducer();
-    private final CandleKafkaConsumer kafkaConsumer = new CandleKafkaConsumer();
+    private final AppConfig config = AppConfig.load();
+    private final ShardedBookProcessor bookProcessor = new ShardedBookProcessor(new SymbolRegistry(config.getInstruments()), config);
+    // Runs periodic checkpoints; minute closes run on the close scheduler
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final CandlePool candlePool = CandlePool.get();
+    // Candles of the minutes closed by a checkpoint restore
+    private final List<Candle> closedCandles = new ArrayList<>();
+    private final CandleHistory candleHistory = new CandleHistory(bookProcessor.getSymbols(),
+            config.getCandleTimeframes(), config.getQueryHistorySize());
+    private final IndicatorEngine indicatorEngine = config.isIndicatorsEnabled()
+            ? new IndicatorEngine(bookProcessor.getSymbols(), IndicatorPeriods.from(config)) : null;
+    // Reused by every publish, for the indicators of a close
+    private final List<IndicatorValues> closedIndicators = new ArrayList<>();
+    private final CandleQueryService queryService = new CandleQueryService(bookProcessor, candleHistory, indicatorEngine);
+    private final CandleKafkaProducer kafkaProducer = new CandleKafkaProducer(config, bookProcessor.getSymbols());
+    private final TickPublisher tickPublisher = config.isTickStreamEnabled() ? new TickPublisher(config, bookProcessor) : null;
+    private final FrameJournal journal = config.isJournalEnabled() ? openJournal(config) : null;
+    private final StateCheckpoint checkpoint = config.isCheckpointEnabled()
+            ? new StateCheckpoint(config.getCheckpointFile(), bookProcessor, config.isEventTime()) : null;
+    // Keeps checkpoints from reading rollups and pending minutes while a close is updating them
+    private final Object closeLock = new Object();
+    private final CandleStore candleStore = config.isStorageEnabled() ? new CandleStore(config.getStoragePath()) : null;
+    private final CandleKafkaConsumer kafkaConsumer = new CandleKafkaConsumer(bookProcessor.getSymbols(), consumerSink());
     private final AtomicBoolean isConnected = new AtomicBoolean(false);
-    private final WebSocketClientImpl webSocketClient = new WebSocketClientImpl(URI.create(KRAKEN_WS_URL), candleGenerator, orderBook, isConnected);
+    private final WebSocketClientImpl webSocketClient = new WebSocketClientImpl(URI.create(config.getKrakenUrl()), bookProcessor,
+            config.getKrakenDepth(), isConnected);
+    // Venues besides Kraken, consolidated into one quote per symbol
+    private final List<VenueFeed> venueFeeds = createVenueFeeds();
 
+    private CandleCloseScheduler closeScheduler;
     private boolean kafkaEnabled = false;
+    // Set once the checkpoint has been restored, so a shutdown before that cannot overwrite it with empty state
+    private volatile boolean restored;
+    private long lastBackpressureWaits;
 
     public static void main(String[] args) {
         OrderBookCandleGenerator app = new OrderBookCandleGenerator();
@@ -48,8 +95,7 @@ public class OrderBookCandleGenerator {
 
     public void start() {
         try {
-            connectToKraken();
-            startCandleGeneration();
+            run();
 
             // Keep the application running
             Thread.currentThread().join();
@@ -59,7 +105,71 @@ public class OrderBookCandleGenerator {
         }
     }
 
+    /**
+     * Connects to Kraken and schedules candle generation without blocking the caller
+     */
+    public void run() throws Exception {
+        warmUpIndicators();
+        restoreCheckpoint();
+        connectToKraken();
+        startCandleGeneration();
+    }
+
+    /**
+     * Loads each series' most recent stored candles into the indicators, so they have values from the first close
+     */
+    private void warmUpIndicators() {
+        if (indicatorEngine == null || candleStore == null) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        int candles = 0;
+        long now = System.currentTimeMillis() / 1000;
+        for (String symbol : bookProcessor.getSymbols().symbols()) {
+            for (Timeframe timeframe : config.getCandleTimeframes()) {
+                long from = now - (long) config.getIndicatorWarmUpCandles() * timeframe.getSeconds();
+                List<Candle> history = candleStore.query(symbol, timeframe, from, now);
+                indicatorEngine.warmUp(symbol, timeframe, history);
+                candles += history.size();
+            }
+        }
+        log.info("Indicators warmed up from {} stored candles in {} ms", candles,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Restores books and candles in progress before any market data arrives; minutes that ended while the
+     * process was down are published straight away
+     */
+    private void restoreCheckpoint() {
+        if (checkpoint == null) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            if (checkpoint.restore(System.currentTimeMillis(), closedCandles)) {
+                log.info("Warm restart from {} took {} ms, {} candles closed while down", checkpoint.getPath(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), closedCandles.size());
+            }
+            candleHistory.addAll(closedCandles);
+            publishCandles(closedCandles, System.nanoTime());
+        } finally {
+            candlePool.releaseAll(closedCandles);
+            closedCandles.clear();
+        }
+        restored = true;
+    }
+
     private void connectToKraken() throws Exception {
+        bookProcessor.setResyncHandler(webSocketClient::resubscribe);
+        if (journal != null) {
+            webSocketClient.setJournal(journal);
+        }
+        bookProcessor.start();
+        if (tickPublisher != null) {
+            tickPublisher.start();
+        }
+        venueFeeds.forEach(VenueFeed::connect);
         webSocketClient.connect();
 
         // Wait for connection
@@ -73,51 +183,139 @@ public class OrderBookCandleGenerator {
     }
 
     private void startCandleGeneration() {
-        // Calculate delay to next minute boundary
-        long now = System.currentTimeMillis();
-        long nextMinute = ((now / 60000) + 1) * 60000;
-        long initialDelay = nextMinute - now;
+        // In event time, give late ticks their allowed lateness before the watermark closes the minute
+        long delay = config.isEventTime() ? config.getAllowedLatenessMillis() : 0;
+        closeScheduler = new CandleCloseScheduler(bookProcessor.getInstruments(), config.getCloseWorkers(),
+                config.getCloseTickMillis(), config.isEventTime(), delay, closeLock, this::onMinuteClosed);
+        long initialDelay = closeScheduler.start();
 
-        // Schedule candle generation every minute
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                Candle candle = candleGenerator.generateCandle(SYMBOL);
-                if (candle != null) {
-                    publishCandle(candle);
-                }
-            } catch (Exception e) {
-                log.error("Error generating candle", e);
-            }
-        }, initialDelay, 60000, TimeUnit.MILLISECONDS);
+        if (checkpoint != null) {
+            long interval = config.getCheckpointIntervalMillis();
+            scheduler.scheduleWithFixedDelay(this::writeCheckpoint, interval, interval, TimeUnit.MILLISECONDS);
+        }
 
         log.info("Candle generation scheduled to start in {} ms", initialDelay);
     }
 
-    private void publishCandle(Candle candle) {
-        if (candle == null) {
+    /**
+     * Publishes the candles of one minute boundary as a batch, on the close scheduler's thread
+     */
+    private void onMinuteClosed(List<Candle> candles, long closedNanos) {
+        logPipelineStats();
+        try {
+            candleHistory.addAll(candles);
+            publishCandles(candles, closedNanos);
+        } finally {
+            // History keeps copies and Kafka has serialized them, so nothing refers to the candles any more
+            candlePool.releaseAll(candles);
+        }
+        // A checkpoint right after the close keeps a restart from closing the same minute twice
+        writeCheckpoint();
+    }
+
+    /**
+     * Snapshots books and candles in progress while the ingest pipeline is drained and held back, then writes the
+     * snapshot to disk once ingestion has resumed
+     */
+    private void writeCheckpoint() {
+        if (checkpoint == null || !restored) {
             return;
         }
+        try {
+            long startNanos = System.nanoTime();
+            int[] bytes = new int[1];
+            synchronized (closeLock) {
+                bookProcessor.runQuiesced(() -> bytes[0] = checkpoint.snapshot(System.currentTimeMillis()));
+            }
+            long snapshotNanos = System.nanoTime();
+            checkpoint.persist();
+            log.debug("Checkpoint of {} bytes taken in {} us with ingestion held back, written in {} us", bytes[0],
+                    TimeUnit.NANOSECONDS.toMicros(snapshotNanos - startNanos),
+                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - snapshotNanos));
+        } catch (Exception e) {
+            log.error("Failed to write checkpoint {}", checkpoint.getPath(), e);
+        }
+    }
+
+    private void logPipelineStats() {
+        IngestPipeline pipeline = bookProcessor.getPipeline();
+        long waits = pipeline.getBackpressureWaits();
+        if (waits > lastBackpressureWaits) {
+            log.warn("Ingest pipeline saturated - socket thread waited {} times in the last minute, apply backlog: {}/{}",
+                    waits - lastBackpressureWaits, pipeline.getApplyQueueDepth(), pipeline.getCapacity());
+        }
+        lastBackpressureWaits = waits;
+        log.debug("Ingest pipeline - frames: {}, decode backlog: {}, apply backlog: {}, decode failures: {}",
+                pipeline.getPublishedFrames(), pipeline.getDecodeQueueDepth(), pipeline.getApplyQueueDepth(),
+                pipeline.getDecodeFailures());
+
+        if (log.isDebugEnabled()) {
+            IngestMetrics metrics = IngestMetrics.get();
+            metrics.refreshIfOlderThan(0);
+            log.debug("Ingest counters - messages: {}, ticks: {}, drops: {}, book resets: {}",
+                    metrics.getMessages(), metrics.getTicks(), metrics.getDrops(), metrics.getBookResets());
+            metrics.summary().forEach((stage, latency) -> log.debug("Latency {} - {}", stage.getTag(), latency));
+        }
+        if (tickPublisher != null) {
+            log.debug("Tick stream - sent: {} in {} records, dropped by producer: {}, dropped when full: {}",
+                    tickPublisher.getSentTicks(), tickPublisher.getSentRecords(), tickPublisher.getFailedTicks(),
+                    tickPublisher.getBufferDroppedTicks());
+        }
+    }
 
+    private void publishCandles(List<Candle> candles, long closedNanos) {
         // Log to console (original requirement)
-        log.info("Generated candle: {}", candle);
+        if (log.isInfoEnabled()) {
+            for (int i = 0; i < candles.size(); i++) {
+                log.info("Generated candle: {}", candles.get(i));
+            }
+        }
 
-        // Publish to Kafka if enabled (bonus requirement)
+        if (indicatorEngine != null) {
+            indicatorEngine.onCandles(candles, closedIndicators);
+            if (log.isDebugEnabled()) {
+                for (int i = 0; i < closedIndicators.size(); i++) {
+                    log.debug("Indicators: {}", closedIndicators.get(i));
+                }
+            }
+        }
+
+        // Publish to Kafka if enabled (bonus requirement), the whole minute close as one batch
         if (kafkaEnabled) {
             try {
-                kafkaProducer.publishCandle(candle);
+                kafkaProducer.publishCandles(candles, closedNanos);
+                kafkaProducer.publishIndicators(closedIndicators);
+                log.debug("Kafka producer - sent: {}, failed: {}, send latency avg/max: {}/{} us, batch avg: {} bytes",
+                        kafkaProducer.getSentRecords(), kafkaProducer.getFailedRecords(),
+                        kafkaProducer.getAverageSendLatencyMicros(), kafkaProducer.getMaxSendLatencyMicros(),
+                        kafkaProducer.getAverageBatchSize());
             } catch (Exception e) {
-                log.error("Failed to publish candle to Kafka", e);
+                log.error("Failed to publish candles to Kafka", e);
             }
         }
+        closedIndicators.clear();
+    }
+
+    /**
+     * @return lock-free reads of live candles, recent history, indicators and top of book for the query API
+     */
+    public CandleQueryService getQueryService() {
+        return queryService;
     }
 
     public void shutdown() {
         if (webSocketClient.isOpen()) {
             webSocketClient.close();
         }
-        kafkaProducer.close();
-        kafkaConsumer.close();
+        for (VenueFeed feed : venueFeeds) {
+            if (feed.isOpen()) {
+                feed.close();
+            }
+        }
 
+        if (closeScheduler != null) {
+            closeScheduler.shutdown();
+        }
         if (!scheduler.isShutdown()) {
             scheduler.shutdown();
             try {
@@ -129,9 +327,67 @@ public class OrderBookCandleGenerator {
                 Thread.currentThread().interrupt();
             }
         }
+
+        // The shards must still be running to drain the frames already received
+        writeCheckpoint();
+        bookProcessor.shutdown();
+        if (tickPublisher != null) {
+            tickPublisher.close();
+        }
+        kafkaProducer.close();
+        kafkaConsumer.close();
+        if (candleStore != null) {
+            candleStore.close();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private List<VenueFeed> createVenueFeeds() {
+        List<String> venues = config.getVenues();
+        List<VenueFeed> feeds = new ArrayList<>();
+        for (int venue = 1; venue < venues.size(); venue++) {
+            String name = venues.get(venue);
+            VenueBookProcessor books = new VenueBookProcessor(venue, name, bookProcessor.getInstruments(), config.getKrakenDepth());
+            if (LocalVenueFeed.VENUE.equals(name)) {
+                feeds.add(new LocalVenueFeed(bookProcessor.getSymbols(), books));
+            } else {
+                throw new IllegalArgumentException("Unknown venue: " + name);
+            }
+        }
+        if (!feeds.isEmpty()) {
+            log.info("Consolidating books across venues {}", venues);
+        }
+        return feeds;
+    }
+
+    /**
+     * @return feeds of the venues besides Kraken, in venue id order
+     */
+    public List<VenueFeed> getVenueFeeds() {
+        return venueFeeds;
+    }
+
+    private CandleSink consumerSink() {
+        CandleSink sink = candleStore != null ? candleStore : new LoggingCandleSink();
+        if (config.isConsumerIndicatorsEnabled()) {
+            return new IndicatorCandleSink(new IndicatorEngine(bookProcessor.getSymbols(), IndicatorPeriods.from(config)), sink);
+        }
+        return sink;
+    }
+
+    private static FrameJournal openJournal(AppConfig config) {
+        try {
+            Files.createDirectories(config.getJournalDirectory());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create journal directory " + config.getJournalDirectory(), e);
+        }
+        String name = "frames-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC).format(Instant.now()) + ".journal";
+        return new FrameJournal(config.getJournalDirectory().resolve(name), FrameJournal.DEFAULT_CHUNK_BYTES);
     }
 
-    private void initializeKafka() {
+    public void initializeKafka() {
         try {
             kafkaEnabled = true;
 
@@ -0,0 +1,128 @@
+package org.com.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.config.AppConfig;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.com.pipeline.IngestPipeline;
+import org.com.pipeline.TickRing;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Feeds raw book frames through the {@link IngestPipeline} to a fixed pool of single-writer shards keyed by symbol.
+ * Each symbol always lands on the same shard, so its book and candle state are only written by one thread
+ * and symbols spread across cores without shared locks.
+ */
+@Slf4j
+public class ShardedBookProcessor {
+    private final SymbolRegistry symbols;
+    private final InstrumentState[] instruments;
+    private final BookShard[] shards;
+    private final IngestPipeline pipeline;
+
+    public ShardedBookProcessor(SymbolRegistry symbols, AppConfig config) {
+        int shardCount = Math.min(config.getBookWorkers(), Math.max(1, symbols.size()));
+        List<Timeframe> timeframes = config.getCandleTimeframes();
+        String[] venues = config.getVenues().toArray(String[]::new);
+
+        this.symbols = symbols;
+        this.instruments = new InstrumentState[symbols.size()];
+        this.shards = new BookShard[shardCount];
+
+        for (int id = 0; id < instruments.length; id++) {
+            String symbol = symbols.symbolOf(id);
+            instruments[id] = new InstrumentState(id, symbol, config.getKrakenDepth(), timeframes,
+                    new CandleGenerator(config.isEventTime(), config.getAllowedLatenessMillis()),
+                    config.getPrecision(symbol), venues,
+                    config.isTickStreamEnabled() ? new TickRing(config.getTickBufferSize()) : null);
+        }
+
+        for (int shard = 0; shard < shardCount; shard++) {
+            InstrumentState[] owned = new InstrumentState[instruments.length];
+            for (int id = shard; id < instruments.length; id += shardCount) {
+                owned[id] = instruments[id];
+            }
+            shards[shard] = new BookShard(shard, owned);
+        }
+        this.pipeline = new IngestPipeline(config.getPipelineRingSize(), config.getPipelineDecoders(),
+                config.getPipelineWaitStrategy(), symbols, Arrays.asList(shards));
+
+        log.info("Order book processing for {} symbols sharded across {} workers", instruments.length, shardCount);
+    }
+
+    public void start() {
+        pipeline.start();
+    }
+
+    /**
+     * Publishes a raw frame to the pipeline; frames for untracked symbols are dropped by the decoders.
+     * Waits while the pipeline is a full ring behind.
+     */
+    public void dispatch(String message) {
+        pipeline.publish(message);
+    }
+
+    public void dispatch(String message, long receiveNanos, long receiveMillis) {
+        pipeline.publish(message, receiveNanos, receiveMillis);
+    }
+
+    /**
+     * Publishes the remaining bytes of a UTF-8 frame without building a String; the buffer is not consumed
+     */
+    public void dispatch(ByteBuffer message, long receiveNanos, long receiveMillis) {
+        pipeline.publish(message, receiveNanos, receiveMillis);
+    }
+
+    /**
+     * Waits until every dispatched frame has been applied to its book
+     */
+    public void awaitApplied() {
+        pipeline.awaitApplied();
+    }
+
+    /**
+     * Runs the action once every dispatched frame has been applied, holding back new frames until it returns
+     */
+    public void runQuiesced(Runnable action) {
+        pipeline.runQuiesced(action);
+    }
+
+    /**
+     * Sets who is asked for a fresh snapshot when a book fails validation or its checksum
+     */
+    public void setResyncHandler(BookResyncHandler resyncHandler) {
+        for (BookShard shard : shards) {
+            shard.setResyncHandler(resyncHandler);
+        }
+    }
+
+    public int shardOf(int symbolId) {
+        return symbolId % shards.length;
+    }
+
+    public SymbolRegistry getSymbols() {
+        return symbols;
+    }
+
+    public List<InstrumentState> getInstruments() {
+        return Arrays.asList(instruments);
+    }
+
+    public InstrumentState getInstrument(int symbolId) {
+        return instruments[symbolId];
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public IngestPipeline getPipeline() {
+        return pipeline;
+    }
+
+    public void shutdown() {
+        pipeline.shutdown();
+    }
+}
@@ -0,0 +1,200 @@
+package org.com.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.model.Candle;
+import org.com.model.SymbolRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshot of every instrument's book and candles in progress, so a restart resumes the current minute
+ * instead of losing it.
+ * The file is little-endian: a header ({@code int magic, int version, byte eventTime, long createdMillis, int count}),
+ * one entry per instrument ({@code short symbolLength, symbol bytes, int bodyLength, body}) and a CRC32 of
+ * everything before it. It is written to a temporary file and moved over the previous checkpoint, so a crash
+ * mid-write leaves the previous one intact. Entries for symbols that are no longer configured are skipped.
+ * Taking a checkpoint is split in two: {@link #snapshot(long)} encodes the state into memory while ingestion is held
+ * back, and {@link #persist()} does the file write, fsync and rename afterwards, so ingestion never waits on the disk.
+ */
+@Slf4j
+public class StateCheckpoint {
+    static final int MAGIC = 0x4B434B31;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 2 * Integer.BYTES + 1 + Long.BYTES + Integer.BYTES;
+
+    private final Path path;
+    private final Path tempPath;
+    private final ShardedBookProcessor bookProcessor;
+    private final boolean eventTime;
+    private final CRC32 crc = new CRC32();
+    // Guards the file; taken without the monitor, so a snapshot never waits on a write in progress
+    private final Object fileLock = new Object();
+    // The newest snapshot, and the one being written; swapped under the monitor
+    private ByteBuffer snapshot = ByteBuffer.allocate(0);
+    private ByteBuffer writing = ByteBuffer.allocate(0);
+    private boolean snapshotPending;
+
+    public StateCheckpoint(Path path, ShardedBookProcessor bookProcessor, boolean eventTime) {
+        this.path = path;
+        this.tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        this.bookProcessor = bookProcessor;
+        this.eventTime = eventTime;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Encodes the state into memory, replacing a snapshot not persisted yet. Nothing may apply market data or close
+     * candles meanwhile; see {@link ShardedBookProcessor#runQuiesced(Runnable)}.
+     * @return the size of the checkpoint in bytes
+     */
+    public synchronized int snapshot(long nowMillis) {
+        List<InstrumentState> instruments = bookProcessor.getInstruments();
+        int size = HEADER_BYTES + Integer.BYTES;
+        for (InstrumentState instrument : instruments) {
+            size += Short.BYTES + instrument.getSymbol().length() + Integer.BYTES + instrument.checkpointBytes();
+        }
+        if (snapshot.capacity() < size) {
+            snapshot = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        ByteBuffer out = snapshot.clear();
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.put((byte) (eventTime ? 1 : 0));
+        out.putLong(nowMillis);
+        out.putInt(instruments.size());
+        for (InstrumentState instrument : instruments) {
+            byte[] symbol = instrument.getSymbol().getBytes(StandardCharsets.US_ASCII);
+            out.putShort((short) symbol.length);
+            out.put(symbol);
+            int lengthAt = out.position();
+            out.putInt(0);
+            instrument.writeCheckpoint(out);
+            out.putInt(lengthAt, out.position() - lengthAt - Integer.BYTES);
+        }
+        crc.reset();
+        crc.update(out.array(), 0, out.position());
+        out.putInt((int) crc.getValue());
+        out.flip();
+        snapshotPending = true;
+        return out.limit();
+    }
+
+    /**
+     * Writes the newest snapshot to disk and moves it over the previous checkpoint; does nothing if it was
+     * already written. Needs no quiescing.
+     * @return the bytes written
+     */
+    public int persist() {
+        synchronized (fileLock) {
+            synchronized (this) {
+                if (!snapshotPending) {
+                    return 0;
+                }
+                ByteBuffer next = snapshot;
+                snapshot = writing;
+                writing = next;
+                snapshotPending = false;
+            }
+
+            ByteBuffer out = writing;
+            try {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+                try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                    while (out.hasRemaining()) {
+                        channel.write(out);
+                    }
+                    channel.force(true);
+                }
+                Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write checkpoint " + path, e);
+            }
+            return out.limit();
+        }
+    }
+
+    /**
+     * Restores the checkpoint into instruments that have not applied any market data yet.
+     * A missing, corrupt or incompatible checkpoint is logged and ignored, leaving a cold start.
+     * @param closed receives candles for minutes that ended while the process was down
+     * @return true if the checkpoint was restored
+     */
+    public synchronized boolean restore(long nowMillis, List<Candle> closed) {
+        if (!Files.exists(path)) {
+            log.info("No checkpoint at {}, starting cold", path.toAbsolutePath());
+            return false;
+        }
+
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            log.warn("Failed to read checkpoint {}, starting cold", path.toAbsolutePath(), e);
+            return false;
+        }
+        in.order(ByteOrder.LITTLE_ENDIAN);
+
+        int end = in.limit() - Integer.BYTES;
+        if (end < HEADER_BYTES || in.getInt(0) != MAGIC || in.getInt(Integer.BYTES) != VERSION) {
+            log.warn("{} is not a version {} checkpoint, starting cold", path.toAbsolutePath(), VERSION);
+            return false;
+        }
+        crc.reset();
+        crc.update(in.slice(0, end));
+        if ((int) crc.getValue() != in.getInt(end)) {
+            log.warn("Checkpoint {} is corrupt, starting cold", path.toAbsolutePath());
+            return false;
+        }
+
+        in.position(2 * Integer.BYTES);
+        boolean checkpointEventTime = in.get() != 0;
+        long createdMillis = in.getLong();
+        int count = in.getInt();
+        if (checkpointEventTime != eventTime) {
+            log.warn("Checkpoint {} was taken in {}-time mode, starting cold", path.toAbsolutePath(),
+                    checkpointEventTime ? "event" : "processing");
+            return false;
+        }
+
+        SymbolRegistry symbols = bookProcessor.getSymbols();
+        int restored = 0;
+        byte[] symbolBytes = new byte[Short.MAX_VALUE];
+        for (int n = 0; n < count; n++) {
+            int symbolLength = in.getShort();
+            in.get(symbolBytes, 0, symbolLength);
+            String symbol = new String(symbolBytes, 0, symbolLength, StandardCharsets.US_ASCII);
+            int bodyLength = in.getInt();
+            int next = in.position() + bodyLength;
+
+            int id = symbols.idOf(symbol);
+            if (id == SymbolRegistry.UNKNOWN) {
+                log.info("Skipping checkpointed state of {}, which is no longer configured", symbol);
+            } else {
+                ByteBuffer body = in.slice(in.position(), bodyLength).order(ByteOrder.LITTLE_ENDIAN);
+                bookProcessor.getInstrument(id).readCheckpoint(body, createdMillis, nowMillis, closed);
+                restored++;
+            }
+            in.position(next);
+        }
+
+        log.info("Restored {} instruments from checkpoint {} taken {} ms ago", restored, path.toAbsolutePath(),
+                nowMillis - createdMillis);
+        return true;
+    }
+}
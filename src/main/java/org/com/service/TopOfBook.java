@@ -0,0 +1,62 @@
+package org.com.service;
+
+import org.com.model.Quote;
+import org.com.util.FixedPoint;
+import org.com.util.SeqLock;
+
+/**
+ * Best bid and ask of one book, republished under a {@link SeqLock} by the owning shard after every applied message,
+ * or of the {@link ConsolidatedBook} when several venues quote the symbol.
+ * Queries read it without going near the book, which only its shard thread may touch.
+ */
+public class TopOfBook {
+    private final SeqLock lock = new SeqLock();
+    private long bidPrice;
+    private long bidQuantity;
+    private long askPrice;
+    private long askQuantity;
+    private long timestamp;
+
+    void publish(OrderBook orderBook, long timestampMillis) {
+        publish(orderBook.getBids().bestPrice(), orderBook.getBids().bestQuantity(),
+                orderBook.getAsks().bestPrice(), orderBook.getAsks().bestQuantity(), timestampMillis);
+    }
+
+    void publish(long bidPrice, long bidQuantity, long askPrice, long askQuantity, long timestampMillis) {
+        lock.beginWrite();
+        this.bidPrice = bidPrice;
+        this.bidQuantity = bidQuantity;
+        this.askPrice = askPrice;
+        this.askQuantity = askQuantity;
+        this.timestamp = timestampMillis;
+        lock.endWrite();
+    }
+
+    void clear() {
+        lock.beginWrite();
+        this.timestamp = 0;
+        lock.endWrite();
+    }
+
+    /**
+     * @return a consistent copy of the best levels, or null if the book has not been built or is resyncing
+     */
+    public Quote snapshot(String symbol) {
+        long seq;
+        long bid, bidSize, ask, askSize, time;
+        do {
+            seq = lock.readBegin();
+            bid = bidPrice;
+            bidSize = bidQuantity;
+            ask = askPrice;
+            askSize = askQuantity;
+            time = timestamp;
+        } while (lock.readRetry(seq));
+
+        if (time == 0) {
+            return null;
+        }
+        return new Quote(symbol, FixedPoint.toDouble(bid), FixedPoint.toDouble(bidSize),
+                FixedPoint.toDouble(ask), FixedPoint.toDouble(askSize), time);
+    }
+}
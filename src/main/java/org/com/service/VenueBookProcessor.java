@@ -0,0 +1,90 @@
+package org.com.service;
+
+import org.com.metrics.IngestMetrics;
+import org.com.model.SymbolRegistry;
+import java.util.List;
+
+/**
+ * Maintains one additional venue's books and reports each change to the symbols' {@link ConsolidatedBook}s.
+ * Kraken books are applied by the {@link BookShard}s; every other venue gets one of these, written only by that
+ * venue's feed thread.
+ */
+public class VenueBookProcessor implements BookUpdateListener {
+    private final int venue;
+    private final String venueName;
+    private final OrderBook[] books;
+    private final ConsolidatedBook[] consolidatedBooks;
+    private final IngestMetrics metrics = IngestMetrics.get();
+
+    private int symbolId = SymbolRegistry.UNKNOWN;
+    private long eventTimeMicros;
+
+    /**
+     * @param venue the venue's id, its index in the venues setting
+     */
+    public VenueBookProcessor(int venue, String venueName, List<InstrumentState> instruments, int depth) {
+        this.venue = venue;
+        this.venueName = venueName;
+        this.books = new OrderBook[instruments.size()];
+        this.consolidatedBooks = new ConsolidatedBook[instruments.size()];
+        for (int id = 0; id < books.length; id++) {
+            books[id] = new OrderBook(depth);
+            consolidatedBooks[id] = instruments.get(id).getConsolidatedBook();
+            if (consolidatedBooks[id] == null) {
+                throw new IllegalStateException("Venue " + venueName + " is not configured for consolidation");
+            }
+        }
+    }
+
+    public String getVenueName() {
+        return venueName;
+    }
+
+    /**
+     * @return the venue's own book for the symbol; only safe to read from the venue's feed thread
+     */
+    public OrderBook getBook(int symbolId) {
+        return books[symbolId];
+    }
+
+    @Override
+    public void onBookStart(int symbolId, boolean snapshot) {
+        this.symbolId = symbolId;
+        this.eventTimeMicros = -1;
+        if (snapshot) {
+            books[symbolId].clear();
+        }
+    }
+
+    @Override
+    public void onBid(long price, long quantity) {
+        books[symbolId].updateBid(price, quantity);
+    }
+
+    @Override
+    public void onAsk(long price, long quantity) {
+        books[symbolId].updateAsk(price, quantity);
+    }
+
+    @Override
+    public void onTimestamp(long epochMicros) {
+        eventTimeMicros = epochMicros;
+    }
+
+    @Override
+    public void onBookEnd() {
+        if (consolidatedBooks[symbolId].update(venue, books[symbolId], eventTimeMicros, System.currentTimeMillis()) > 0) {
+            metrics.recordTick();
+        }
+    }
+
+    /**
+     * Withdraws every quote of the venue, e.g. after its connection dropped
+     */
+    public void withdrawAll() {
+        for (int id = 0; id < books.length; id++) {
+            books[id].clear();
+            consolidatedBooks[id].withdraw(venue);
+        }
+    }
+}
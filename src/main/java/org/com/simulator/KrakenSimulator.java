@@ -0,0 +1,272 @@
+package org.com.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.com.util.IsoTimestamps;
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Localhost WebSocket server speaking the Kraken v2 book channel, for load tests that cannot hit the real exchange.
+ * Clients subscribe and unsubscribe as they would on Kraken (acknowledgement, then a snapshot per symbol) and then
+ * receive {@link SimulatedBook} updates with checksums and timestamps, round-robin across the subscribed symbols at a
+ * fixed total message rate. Any symbol can be subscribed; its book takes the depth of its first subscription.
+ * <p>
+ * One generator thread owns the books and sends every message, so requests from the socket threads are queued to it.
+ * A connection whose outbound queue is full is skipped rather than buffered without bound; those skips are counted,
+ * so a client that cannot keep up shows as a shortfall against the offered rate instead of exhausting memory.
+ */
+@Slf4j
+public class KrakenSimulator extends WebSocketServer {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int MAX_QUEUED_FRAMES = 10_000;
+    // Messages per pass of the generator when the rate is unlimited
+    private static final int UNLIMITED_BATCH = 256;
+
+    private final double messagesPerSecond;
+    private final long seed;
+    private final Queue<Request> requests = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong skippedMessages = new AtomicLong();
+    private final StringBuilder message = new StringBuilder(1024);
+
+    // Generator thread state
+    private final Map<String, SimulatedBook> books = new HashMap<>();
+    private final Map<SimulatedBook, List<WebSocket>> subscribers = new HashMap<>();
+    private final List<SimulatedBook> active = new ArrayList<>();
+    private int nextBook;
+    private volatile boolean running;
+    private Thread generator;
+
+    /**
+     * @param messagesPerSecond total update rate across all symbols, or 0 to send as fast as the clients drain
+     */
+    public KrakenSimulator(InetSocketAddress address, double messagesPerSecond, long seed) {
+        super(address);
+        this.messagesPerSecond = messagesPerSecond;
+        this.seed = seed;
+        setReuseAddr(true);
+        setTcpNoDelay(true);
+    }
+
+    /**
+     * Starts the server and the generator and waits until the server accepts connections
+     */
+    public void startAndAwait() throws InterruptedException {
+        running = true;
+        generator = new Thread(this::generate, "kraken-simulator");
+        generator.setDaemon(true);
+        generator.start();
+        start();
+        started.await();
+    }
+
+    /**
+     * Stops the generator and closes every connection
+     */
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (generator != null) {
+            generator.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        stop(1000);
+    }
+
+    public long getSentMessages() {
+        return sentMessages.get();
+    }
+
+    /**
+     * @return updates not sent because the receiving connection had fallen too far behind
+     */
+    public long getSkippedMessages() {
+        return skippedMessages.get();
+    }
+
+    @Override
+    public void onStart() {
+        log.info("Kraken simulator listening on port {} at {} messages/s", getPort(),
+                messagesPerSecond > 0 ? String.format("%.0f", messagesPerSecond) : "max");
+        started.countDown();
+    }
+
+    @Override
+    public void onOpen(WebSocket connection, ClientHandshake handshake) {
+        log.info("Simulator client connected from {}", connection.getRemoteSocketAddress());
+    }
+
+    @Override
+    public void onClose(WebSocket connection, int code, String reason, boolean remote) {
+        requests.add(new Request(connection, null, List.of(), 0));
+    }
+
+    @Override
+    public void onMessage(WebSocket connection, String text) {
+        try {
+            JsonNode request = objectMapper.readTree(text);
+            String method = request.path("method").asText();
+            JsonNode params = request.path("params");
+            if (!"book".equals(params.path("channel").asText())
+                    || !("subscribe".equals(method) || "unsubscribe".equals(method))) {
+                connection.send("{\"method\":\"" + method + "\",\"error\":\"Unsupported request\",\"success\":false}");
+                return;
+            }
+            List<String> symbols = new ArrayList<>();
+            params.path("symbol").forEach(symbol -> symbols.add(symbol.asText()));
+            requests.add(new Request(connection, method, symbols, params.path("depth").asInt(10)));
+
+        } catch (Exception e) {
+            log.warn("Unreadable simulator request: {}", text, e);
+        }
+    }
+
+    @Override
+    public void onError(WebSocket connection, Exception ex) {
+        log.error("Kraken simulator error", ex);
+    }
+
+    private void generate() {
+        long startNanos = System.nanoTime();
+        long generated = 0;
+        while (running) {
+            drainRequests();
+            if (active.isEmpty()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                startNanos = System.nanoTime();
+                generated = 0;
+                continue;
+            }
+
+            long due = messagesPerSecond > 0
+                    ? (long) ((System.nanoTime() - startNanos) * messagesPerSecond / 1e9) - generated
+                    : UNLIMITED_BATCH;
+            long maxBacklog = (long) (messagesPerSecond / 10);
+            if (due > maxBacklog && messagesPerSecond > 0) {
+                // More than 100 ms behind: drop the backlog rather than burst to catch up
+                generated += due - maxBacklog;
+                due = maxBacklog;
+            }
+            if (due <= 0) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                continue;
+            }
+            // Bounded so requests are still served while catching up
+            long batch = Math.min(due, UNLIMITED_BATCH * 16L);
+            for (long i = 0; i < batch; i++) {
+                sendUpdate(active.get(nextBook));
+                nextBook = nextBook + 1 == active.size() ? 0 : nextBook + 1;
+            }
+            generated += batch;
+        }
+    }
+
+    private void sendUpdate(SimulatedBook book) {
+        message.setLength(0);
+        long nowMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        String update = book.appendUpdate(message, nowMicros).toString();
+        for (WebSocket connection : subscribers.get(book)) {
+            if (connection instanceof WebSocketImpl impl && impl.outQueue.size() > MAX_QUEUED_FRAMES) {
+                skippedMessages.incrementAndGet();
+                continue;
+            }
+            send(connection, update);
+        }
+    }
+
+    private void drainRequests() {
+        Request request;
+        while ((request = requests.poll()) != null) {
+            if (request.method == null) {
+                for (SimulatedBook book : new ArrayList<>(active)) {
+                    unsubscribe(request.connection, book);
+                }
+                continue;
+            }
+            for (String symbol : request.symbols) {
+                if ("subscribe".equals(request.method)) {
+                    SimulatedBook book = subscribe(request.connection, symbol, request.depth);
+                    send(request.connection, acknowledgement(request.method, symbol, book.getDepth()));
+                    message.setLength(0);
+                    send(request.connection, book.appendSnapshot(message).toString());
+                } else {
+                    SimulatedBook book = books.get(symbol);
+                    if (book != null) {
+                        unsubscribe(request.connection, book);
+                    }
+                    send(request.connection, acknowledgement(request.method, symbol, request.depth));
+                }
+            }
+        }
+    }
+
+    private SimulatedBook subscribe(WebSocket connection, String symbol, int depth) {
+        SimulatedBook book = books.computeIfAbsent(symbol,
+                ignored -> new SimulatedBook(symbol, depth, seed * 31 + symbol.hashCode()));
+        List<WebSocket> connections = subscribers.computeIfAbsent(book, ignored -> new ArrayList<>());
+        if (connections.isEmpty()) {
+            active.add(book);
+        }
+        if (!connections.contains(connection)) {
+            connections.add(connection);
+        }
+        return book;
+    }
+
+    private void unsubscribe(WebSocket connection, SimulatedBook book) {
+        List<WebSocket> connections = subscribers.get(book);
+        if (connections != null && connections.remove(connection) && connections.isEmpty()) {
+            active.remove(book);
+            nextBook = 0;
+        }
+    }
+
+    private String acknowledgement(String method, String symbol, int depth) {
+        long nowMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        message.setLength(0);
+        message.append("{\"method\":\"").append(method).append("\",\"result\":{\"channel\":\"book\",\"depth\":")
+                .append(depth).append(",\"snapshot\":true,\"symbol\":\"").append(symbol)
+                .append("\"},\"success\":true,\"time_in\":\"");
+        IsoTimestamps.appendEpochMicros(message, nowMicros).append("\",\"time_out\":\"");
+        return IsoTimestamps.appendEpochMicros(message, nowMicros).append("\"}").toString();
+    }
+
+    private void send(WebSocket connection, String text) {
+        if (!connection.isOpen()) {
+            return;
+        }
+        connection.send(text);
+        sentMessages.incrementAndGet();
+    }
+
+    /**
+     * A client request, or a disconnect when method is null
+     */
+    private static final class Request {
+        private final WebSocket connection;
+        private final String method;
+        private final List<String> symbols;
+        private final int depth;
+
+        private Request(WebSocket connection, String method, List<String> symbols, int depth) {
+            this.connection = connection;
+            this.method = method;
+            this.symbols = symbols;
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.com.simulator;
+
+import org.com.service.BookChecksum;
+import org.com.service.BookSide;
+import org.com.service.OrderBook;
+import org.com.util.FixedPoint;
+import org.com.util.IsoTimestamps;
+import java.util.SplittableRandom;
+
+/**
+ * Random-walk order book of one simulated symbol, rendered as Kraken v2 book messages.
+ * Each update changes a level's quantity, improves a side inside the spread or takes out its best level, keeping
+ * every side at full depth; improving the bid or taking out the best ask moves the mid up, and vice versa.
+ * Levels that leave the book are deleted explicitly, so a client book of the same depth stays identical and the
+ * checksum, computed with the client's own {@link BookChecksum}, verifies. Owned by one thread.
+ */
+final class SimulatedBook {
+    static final int PRICE_PRECISION = 1;
+    static final int QUANTITY_PRECISION = 8;
+    private static final long TICK = FixedPoint.SCALE / 10;
+    private static final long MIN_QUANTITY = FixedPoint.SCALE / 10_000;
+    private static final long MAX_QUANTITY = 10 * FixedPoint.SCALE;
+
+    private final String symbol;
+    private final int depth;
+    private final OrderBook book;
+    private final BookChecksum checksum = new BookChecksum();
+    private final SplittableRandom random;
+    // Levels of the update being built, deletions first
+    private final long[] bidPrices = new long[2];
+    private final long[] bidQuantities = new long[2];
+    private final long[] askPrices = new long[2];
+    private final long[] askQuantities = new long[2];
+    private int bidChanges;
+    private int askChanges;
+
+    SimulatedBook(String symbol, int depth, long seed) {
+        this.symbol = symbol;
+        this.depth = depth;
+        this.book = new OrderBook(depth);
+        this.random = new SplittableRandom(seed);
+        long mid = (1_000 + random.nextLong(50_000)) * FixedPoint.SCALE;
+        for (int level = 0; level < depth; level++) {
+            book.updateBid(mid - (level + 1) * TICK, quantity());
+            book.updateAsk(mid + (level + 1) * TICK, quantity());
+        }
+    }
+
+    String getSymbol() {
+        return symbol;
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Appends a snapshot of the whole book
+     */
+    StringBuilder appendSnapshot(StringBuilder out) {
+        out.append("{\"channel\":\"book\",\"type\":\"snapshot\",\"data\":[{\"symbol\":\"").append(symbol)
+                .append("\",\"bids\":[");
+        appendSide(out, book.getBids());
+        out.append("],\"asks\":[");
+        appendSide(out, book.getAsks());
+        return out.append("],\"checksum\":").append(checksum()).append("}]}");
+    }
+
+    /**
+     * Moves the book one step and appends the update
+     * @param epochMicros exchange timestamp of the update
+     */
+    StringBuilder appendUpdate(StringBuilder out, long epochMicros) {
+        bidChanges = 0;
+        askChanges = 0;
+        boolean bid = random.nextBoolean();
+        BookSide side = bid ? book.getBids() : book.getAsks();
+        long direction = bid ? 1 : -1;
+        int action = random.nextInt(10);
+        // 0-5 change a quantity, 6-7 improve the side, 8-9 take out its best level
+        long spread = book.getAsks().bestPrice() - book.getBids().bestPrice();
+        long best = side.bestPrice();
+        long worst = side.priceAt(side.size() - 1);
+
+        if (action >= 6 && action < 8 && spread > TICK) {
+            change(bid, worst, 0);
+            change(bid, best + direction * TICK, quantity());
+        } else if (action >= 8 && worst - direction * TICK > 0) {
+            change(bid, best, 0);
+            change(bid, worst - direction * TICK, quantity());
+        } else {
+            change(bid, side.priceAt(random.nextInt(side.size())), quantity());
+        }
+
+        out.append("{\"channel\":\"book\",\"type\":\"update\",\"data\":[{\"symbol\":\"").append(symbol)
+                .append("\",\"bids\":[");
+        appendLevels(out, bidPrices, bidQuantities, bidChanges);
+        out.append("],\"asks\":[");
+        appendLevels(out, askPrices, askQuantities, askChanges);
+        out.append("],\"checksum\":").append(checksum()).append(",\"timestamp\":\"");
+        return IsoTimestamps.appendEpochMicros(out, epochMicros).append("\"}]}");
+    }
+
+    private void change(boolean bid, long price, long quantity) {
+        if (bid) {
+            book.updateBid(price, quantity);
+            bidPrices[bidChanges] = price;
+            bidQuantities[bidChanges++] = quantity;
+        } else {
+            book.updateAsk(price, quantity);
+            askPrices[askChanges] = price;
+            askQuantities[askChanges++] = quantity;
+        }
+    }
+
+    private long quantity() {
+        return random.nextLong(MIN_QUANTITY, MAX_QUANTITY);
+    }
+
+    private long checksum() {
+        return checksum.compute(book, PRICE_PRECISION, QUANTITY_PRECISION);
+    }
+
+    private static void appendSide(StringBuilder out, BookSide side) {
+        for (int level = 0; level < side.size(); level++) {
+            appendLevel(out, level, side.priceAt(level), side.quantityAt(level));
+        }
+    }
+
+    private static void appendLevels(StringBuilder out, long[] prices, long[] quantities, int count) {
+        for (int i = 0; i < count; i++) {
+            appendLevel(out, i, prices[i], quantities[i]);
+        }
+    }
+
+    private static void appendLevel(StringBuilder out, int index, long price, long quantity) {
+        if (index > 0) {
+            out.append(',');
+        }
+        FixedPoint.appendDecimal(out.append("{\"price\":"), FixedPoint.toDouble(price));
+        FixedPoint.appendDecimal(out.append(",\"qty\":"), FixedPoint.toDouble(quantity)).append('}');
+    }
+}
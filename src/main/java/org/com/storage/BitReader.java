@@ -0,0 +1,36 @@
+package org.com.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads bit fields, most significant bit first, straight from a (usually memory-mapped) buffer using absolute offsets
+ */
+class BitReader {
+    private ByteBuffer buffer;
+    private int base;
+    private long bitPosition;
+
+    void reset(ByteBuffer buffer, int base) {
+        this.buffer = buffer;
+        this.base = base;
+        this.bitPosition = 0;
+    }
+
+    boolean readBit() {
+        return readBits(1) == 1;
+    }
+
+    long readBits(int count) {
+        long value = 0;
+        while (count > 0) {
+            int current = buffer.get(base + (int) (bitPosition >>> 3)) & 0xFF;
+            int available = 8 - (int) (bitPosition & 7);
+            int take = Math.min(available, count);
+            int chunk = (current >>> (available - take)) & ((1 << take) - 1);
+            value = (value << take) | chunk;
+            bitPosition += take;
+            count -= take;
+        }
+        return value;
+    }
+}
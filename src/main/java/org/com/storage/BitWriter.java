@@ -0,0 +1,55 @@
+package org.com.storage;
+
+import java.util.Arrays;
+
+/**
+ * Appends bit fields, most significant bit first, into a fixed byte array
+ */
+class BitWriter {
+    private final byte[] bytes;
+    private long bitPosition;
+
+    BitWriter(int capacityBytes) {
+        this.bytes = new byte[capacityBytes];
+    }
+
+    void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Writes the low count bits of value
+     */
+    void writeBits(long value, int count) {
+        while (count > 0) {
+            int index = (int) (bitPosition >>> 3);
+            int free = 8 - (int) (bitPosition & 7);
+            int take = Math.min(free, count);
+            int chunk = (int) (value >>> (count - take)) & ((1 << take) - 1);
+            bytes[index] |= (byte) (chunk << (free - take));
+            bitPosition += take;
+            count -= take;
+        }
+    }
+
+    void reset() {
+        Arrays.fill(bytes, 0, byteLength(), (byte) 0);
+        bitPosition = 0;
+    }
+
+    long bitLength() {
+        return bitPosition;
+    }
+
+    int byteLength() {
+        return (int) ((bitPosition + 7) >>> 3);
+    }
+
+    int capacity() {
+        return bytes.length;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+}
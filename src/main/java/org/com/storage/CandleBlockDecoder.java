@@ -0,0 +1,103 @@
+package org.com.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes blocks written by {@link CandleBlockEncoder}, reading directly from the segment buffer
+ */
+class CandleBlockDecoder {
+    private final BitReader reader = new BitReader();
+    private final long[] previousBits = new long[4];
+    private final int[] previousLeading = new int[4];
+    private final int[] previousTrailing = new int[4];
+    private final double[] values = new double[4];
+
+    /**
+     * Visits the block's candles whose timestamp lies in [from, to]
+     * @return false once a candle past {@code to} was seen, so callers can stop scanning later blocks
+     */
+    boolean decode(ByteBuffer buffer, int dataOffset, int count, long from, long to, CandleVisitor visitor) {
+        reader.reset(buffer, dataOffset);
+
+        long timestamp = reader.readBits(64);
+        for (int field = 0; field < 4; field++) {
+            previousBits[field] = reader.readBits(64);
+            previousLeading[field] = -1;
+            values[field] = Double.longBitsToDouble(previousBits[field]);
+        }
+        int ticks = (int) reader.readBits(32);
+        long delta = 0;
+
+        for (int i = 0; ; ) {
+            if (timestamp > to) {
+                return false;
+            }
+            if (timestamp >= from) {
+                visitor.visit(timestamp, values[0], values[1], values[2], values[3], ticks);
+            }
+            if (++i == count) {
+                return true;
+            }
+
+            delta += readTimestampDeltaOfDelta();
+            timestamp += delta;
+            for (int field = 0; field < 4; field++) {
+                readValue(field);
+            }
+            ticks += (int) readTicksDelta();
+        }
+    }
+
+    private long readTimestampDeltaOfDelta() {
+        if (!reader.readBit()) {
+            return 0;
+        }
+        if (!reader.readBit()) {
+            return signed(reader.readBits(7), 7);
+        }
+        if (!reader.readBit()) {
+            return signed(reader.readBits(9), 9);
+        }
+        if (!reader.readBit()) {
+            return signed(reader.readBits(12), 12);
+        }
+        return reader.readBits(64);
+    }
+
+    private void readValue(int field) {
+        if (!reader.readBit()) {
+            return;
+        }
+        long xor;
+        if (!reader.readBit()) {
+            int significant = 64 - previousLeading[field] - previousTrailing[field];
+            xor = reader.readBits(significant) << previousTrailing[field];
+        } else {
+            int leading = (int) reader.readBits(5);
+            int significant = (int) reader.readBits(6) + 1;
+            int trailing = 64 - leading - significant;
+            xor = reader.readBits(significant) << trailing;
+            previousLeading[field] = leading;
+            previousTrailing[field] = trailing;
+        }
+        previousBits[field] ^= xor;
+        values[field] = Double.longBitsToDouble(previousBits[field]);
+    }
+
+    private long readTicksDelta() {
+        if (!reader.readBit()) {
+            return 0;
+        }
+        if (!reader.readBit()) {
+            return signed(reader.readBits(8), 8);
+        }
+        if (!reader.readBit()) {
+            return signed(reader.readBits(16), 16);
+        }
+        return signed(reader.readBits(32), 32);
+    }
+
+    private static long signed(long value, int bits) {
+        return (value << (64 - bits)) >> (64 - bits);
+    }
+}
@@ -0,0 +1,162 @@
+package org.com.storage;
+
+/**
+ * Gorilla-style encoder for one self-contained block of a candle series.
+ * The first candle is stored raw; after that timestamps are stored as delta-of-delta and each OHLC field as the XOR
+ * with its previous value, so a regular 1m series costs one bit per timestamp and few bits per unchanged price.
+ * Tick counts are stored as deltas.
+ */
+class CandleBlockEncoder {
+    static final int MAX_CANDLES = 1024;
+    /** Worst case for one candle: 68 timestamp bits, 4 x 77 value bits and 35 tick bits */
+    static final int MAX_RECORD_BYTES = 52;
+
+    private final BitWriter writer;
+    private final long[] previousBits = new long[4];
+    private final int[] previousLeading = new int[4];
+    private final int[] previousTrailing = new int[4];
+
+    private int count;
+    private long firstTimestamp;
+    private long lastTimestamp;
+    private long previousDelta;
+    private int previousTicks;
+
+    CandleBlockEncoder(int capacityBytes) {
+        this.writer = new BitWriter(capacityBytes);
+    }
+
+    boolean hasRoom() {
+        return count < MAX_CANDLES && writer.capacity() - writer.byteLength() >= MAX_RECORD_BYTES;
+    }
+
+    void append(long timestamp, double open, double high, double low, double close, int ticks) {
+        if (count == 0) {
+            firstTimestamp = timestamp;
+            writer.writeBits(timestamp, 64);
+            writeFirstValue(0, open);
+            writeFirstValue(1, high);
+            writeFirstValue(2, low);
+            writeFirstValue(3, close);
+            writer.writeBits(ticks, 32);
+        } else {
+            writeTimestamp(timestamp);
+            writeValue(0, open);
+            writeValue(1, high);
+            writeValue(2, low);
+            writeValue(3, close);
+            writeTicks(ticks);
+        }
+        lastTimestamp = timestamp;
+        previousTicks = ticks;
+        count++;
+    }
+
+    void reset() {
+        writer.reset();
+        count = 0;
+        previousDelta = 0;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    int byteLength() {
+        return writer.byteLength();
+    }
+
+    int bitLength() {
+        return (int) writer.bitLength();
+    }
+
+    byte[] bytes() {
+        return writer.bytes();
+    }
+
+    private void writeTimestamp(long timestamp) {
+        long delta = timestamp - lastTimestamp;
+        long deltaOfDelta = delta - previousDelta;
+        previousDelta = delta;
+
+        if (deltaOfDelta == 0) {
+            writer.writeBits(0b0, 1);
+        } else if (fits(deltaOfDelta, 7)) {
+            writer.writeBits(0b10, 2);
+            writer.writeBits(deltaOfDelta, 7);
+        } else if (fits(deltaOfDelta, 9)) {
+            writer.writeBits(0b110, 3);
+            writer.writeBits(deltaOfDelta, 9);
+        } else if (fits(deltaOfDelta, 12)) {
+            writer.writeBits(0b1110, 4);
+            writer.writeBits(deltaOfDelta, 12);
+        } else {
+            writer.writeBits(0b1111, 4);
+            writer.writeBits(deltaOfDelta, 64);
+        }
+    }
+
+    private void writeFirstValue(int field, double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        writer.writeBits(bits, 64);
+        previousBits[field] = bits;
+        previousLeading[field] = -1;
+    }
+
+    private void writeValue(int field, double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        long xor = bits ^ previousBits[field];
+        previousBits[field] = bits;
+
+        if (xor == 0) {
+            writer.writeBit(false);
+            return;
+        }
+        writer.writeBit(true);
+
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (previousLeading[field] >= 0 && leading >= previousLeading[field] && trailing >= previousTrailing[field]) {
+            // Meaningful bits fit inside the previous window
+            writer.writeBit(false);
+            writer.writeBits(xor >>> previousTrailing[field], 64 - previousLeading[field] - previousTrailing[field]);
+        } else {
+            int significant = 64 - leading - trailing;
+            writer.writeBit(true);
+            writer.writeBits(leading, 5);
+            writer.writeBits(significant - 1, 6);
+            writer.writeBits(xor >>> trailing, significant);
+            previousLeading[field] = leading;
+            previousTrailing[field] = trailing;
+        }
+    }
+
+    private void writeTicks(int ticks) {
+        long delta = (long) ticks - previousTicks;
+        if (delta == 0) {
+            writer.writeBits(0b0, 1);
+        } else if (fits(delta, 8)) {
+            writer.writeBits(0b10, 2);
+            writer.writeBits(delta, 8);
+        } else if (fits(delta, 16)) {
+            writer.writeBits(0b110, 3);
+            writer.writeBits(delta, 16);
+        } else {
+            writer.writeBits(0b111, 3);
+            writer.writeBits(delta, 32);
+        }
+    }
+
+    private static boolean fits(long value, int bits) {
+        long limit = 1L << (bits - 1);
+        return value >= -limit && value < limit;
+    }
+}
@@ -0,0 +1,285 @@
+package org.com.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only segment file for one symbol and timeframe.
+ * After a file header ({@code int magic, int version}) the file is a sequence of self-contained blocks, each a
+ * little-endian header (first timestamp, last timestamp, candle count, data bits, CRC32) followed by the
+ * Gorilla-encoded candles.
+ * Only the last block is open: it is rewritten in place as candles arrive and sealed once full. Its data is written
+ * before its header, and the CRC covers the header fields and exactly the data bits the header describes. Appending
+ * only adds bits past those, so a crash between the two writes leaves the previous header valid, while a torn header
+ * or garbage fails the CRC and is truncated on recovery instead of being decoded.
+ * A sparse index of one entry per block is rebuilt from the headers on open. Queries binary-search it and decode
+ * sealed blocks from a cached {@link MappedByteBuffer}, remapped only when a block is sealed, and the open block
+ * from its encoder's memory.
+ */
+@Slf4j
+class CandleSeries implements AutoCloseable {
+    static final int MAGIC = 0x43534732;
+    static final int VERSION = 2;
+    static final int FILE_HEADER_BYTES = 2 * Integer.BYTES;
+    static final int HEADER_BYTES = 2 * Long.BYTES + 3 * Integer.BYTES;
+    static final int BLOCK_BYTES = 4096;
+    // Header fields covered by the CRC, which follows them
+    private static final int CHECKED_HEADER_BYTES = HEADER_BYTES - Integer.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final CandleBlockEncoder openBlock = new CandleBlockEncoder(BLOCK_BYTES);
+    private final ByteBuffer openBlockBuffer = ByteBuffer.wrap(openBlock.bytes());
+    private final CandleBlockDecoder decoder = new CandleBlockDecoder();
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+
+    private long[] blockFirst = new long[16];
+    private long[] blockLast = new long[16];
+    private long[] blockOffset = new long[16];
+    private int[] blockCount = new int[16];
+    private int blocks;
+
+    private long openBlockOffset = FILE_HEADER_BYTES;
+    private int writtenBytes;
+    // Sealed blocks never change, so their mapping is reused until another block is sealed
+    private MappedByteBuffer sealed;
+    private long sealedBytes;
+
+    CandleSeries(Path path) throws IOException {
+        this.path = path;
+        this.channel = open(path);
+        recover();
+    }
+
+    /**
+     * @return false if the candle is not newer than the last stored one (redelivered or out of order) and was skipped
+     */
+    synchronized boolean append(long timestamp, double open, double high, double low, double close, int ticks) throws IOException {
+        if (blocks > 0 && timestamp <= blockLast[blocks - 1]) {
+            return false;
+        }
+        if (!openBlock.hasRoom()) {
+            openBlockOffset += HEADER_BYTES + openBlock.byteLength();
+            openBlock.reset();
+            writtenBytes = 0;
+        }
+
+        openBlock.append(timestamp, open, high, low, close, ticks);
+        if (openBlock.getCount() == 1) {
+            addIndexEntry(timestamp, openBlockOffset);
+        }
+        blockLast[blocks - 1] = timestamp;
+        blockCount[blocks - 1] = openBlock.getCount();
+        writeOpenBlock();
+        return true;
+    }
+
+    /**
+     * Visits the stored candles with timestamps in [from, to] in time order
+     */
+    synchronized void query(long from, long to, CandleVisitor visitor) throws IOException {
+        if (blocks == 0 || from > to) {
+            return;
+        }
+        int first = firstBlockEndingAtOrAfter(from);
+        if (first == blocks) {
+            return;
+        }
+
+        int open = blocks - 1;
+        if (first < open && sealedBytes < openBlockOffset) {
+            sealed = channel.map(FileChannel.MapMode.READ_ONLY, 0, openBlockOffset);
+            sealed.order(ByteOrder.LITTLE_ENDIAN);
+            sealedBytes = openBlockOffset;
+        }
+        for (int block = first; block < blocks && blockFirst[block] <= to; block++) {
+            boolean more = block == open
+                    ? decoder.decode(openBlockBuffer, 0, blockCount[block], from, to, visitor)
+                    : decoder.decode(sealed, (int) blockOffset[block] + HEADER_BYTES, blockCount[block], from, to, visitor);
+            if (!more) {
+                break;
+            }
+        }
+    }
+
+    synchronized long getLastTimestamp() {
+        return blocks == 0 ? Long.MIN_VALUE : blockLast[blocks - 1];
+    }
+
+    synchronized int getBlockCount() {
+        return blocks;
+    }
+
+    synchronized void flush() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+        sealed = null;
+    }
+
+    private void writeOpenBlock() throws IOException {
+        // Only the last partially filled byte and the new bytes changed
+        int from = Math.max(0, writtenBytes - 1);
+        int length = openBlock.byteLength();
+        writeFully(ByteBuffer.wrap(openBlock.bytes(), from, length - from), openBlockOffset + HEADER_BYTES + from);
+        writtenBytes = length;
+
+        // The header goes last, so it never describes data that is not on disk yet
+        header.clear();
+        header.putLong(openBlock.getFirstTimestamp());
+        header.putLong(openBlock.getLastTimestamp());
+        header.putInt(openBlock.getCount());
+        header.putInt(openBlock.bitLength());
+        header.putInt(checksum(header.array(), openBlock.bytes(), 0, openBlock.bitLength()));
+        header.flip();
+        writeFully(header, openBlockOffset);
+    }
+
+    /**
+     * CRC32 of the checked header fields and the block's first dataBits bits; bits past them are masked off, so
+     * appending to the block does not invalidate the checksum of the header written before
+     */
+    private int checksum(byte[] headerBytes, byte[] data, int dataOffset, int dataBits) {
+        crc.reset();
+        crc.update(headerBytes, 0, CHECKED_HEADER_BYTES);
+        int fullBytes = dataBits >>> 3;
+        crc.update(data, dataOffset, fullBytes);
+        int partialBits = dataBits & 7;
+        if (partialBits != 0) {
+            crc.update(data[dataOffset + fullBytes] & (0xFF << (8 - partialBits)));
+        }
+        return (int) crc.getValue();
+    }
+
+    private void writeFully(ByteBuffer source, long position) throws IOException {
+        while (source.hasRemaining()) {
+            position += channel.write(source, position);
+        }
+    }
+
+    /**
+     * Rebuilds the index from the block headers, drops a torn or corrupt tail and reopens the last block for appends
+     */
+    private void recover() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            fileHeader.putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(fileHeader, 0);
+            return;
+        }
+
+        MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        if (size < FILE_HEADER_BYTES || segment.getInt(0) != MAGIC || segment.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException(path + " is not a version " + VERSION + " candle segment");
+        }
+
+        byte[] headerBytes = new byte[HEADER_BYTES];
+        byte[] data = new byte[BLOCK_BYTES];
+        long offset = FILE_HEADER_BYTES;
+        while (offset + HEADER_BYTES <= size) {
+            segment.get((int) offset, headerBytes);
+            ByteBuffer fields = ByteBuffer.wrap(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+            long first = fields.getLong();
+            long last = fields.getLong();
+            int count = fields.getInt();
+            int dataBits = fields.getInt();
+            int expectedCrc = fields.getInt();
+            int dataBytes = (dataBits + 7) >>> 3;
+            if (count <= 0 || dataBits <= 0 || dataBytes > BLOCK_BYTES || offset + HEADER_BYTES + dataBytes > size) {
+                break;
+            }
+            segment.get((int) offset + HEADER_BYTES, data, 0, dataBytes);
+            if (checksum(headerBytes, data, 0, dataBits) != expectedCrc) {
+                log.warn("Block at offset {} of {} fails its checksum", offset, path);
+                break;
+            }
+            addIndexEntry(first, offset);
+            blockLast[blocks - 1] = last;
+            blockCount[blocks - 1] = count;
+            offset += HEADER_BYTES + dataBytes;
+        }
+        if (offset < size) {
+            log.warn("Truncating {} bytes of incomplete data at the end of {}", size - offset, path);
+            channel.truncate(offset);
+        }
+        if (blocks == 0) {
+            return;
+        }
+
+        // Re-encode the last block so appends continue inside it; encoding is deterministic, so the bytes are unchanged
+        int last = blocks - 1;
+        long lastOffset = blockOffset[last];
+        CandleVisitor reopen = (timestamp, open, high, low, close, ticks) ->
+                openBlock.append(timestamp, open, high, low, close, ticks);
+        decoder.decode(segment, (int) lastOffset + HEADER_BYTES, blockCount[last], Long.MIN_VALUE, Long.MAX_VALUE, reopen);
+        openBlockOffset = lastOffset;
+        writtenBytes = openBlock.byteLength();
+    }
+
+    /**
+     * Opens the segment, moving aside a file from before the current format so it is kept but not misread
+     */
+    private static FileChannel open(Path path) throws IOException {
+        if (Files.exists(path) && Files.size(path) > 0) {
+            try (FileChannel existing = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                existing.read(fileHeader, 0);
+                fileHeader.flip();
+                boolean current = fileHeader.remaining() == FILE_HEADER_BYTES && fileHeader.getInt() == MAGIC
+                        && fileHeader.getInt() == VERSION;
+                if (!current) {
+                    Path aside = path.resolveSibling(path.getFileName() + ".old");
+                    log.warn("{} is not a version {} segment, moving it to {} and starting the series afresh",
+                            path, VERSION, aside);
+                    existing.close();
+                    Files.move(path, aside, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private int firstBlockEndingAtOrAfter(long timestamp) {
+        int low = 0;
+        int high = blocks;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (blockLast[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void addIndexEntry(long firstTimestamp, long offset) {
+        if (blocks == blockFirst.length) {
+            int capacity = blocks * 2;
+            blockFirst = Arrays.copyOf(blockFirst, capacity);
+            blockLast = Arrays.copyOf(blockLast, capacity);
+            blockOffset = Arrays.copyOf(blockOffset, capacity);
+            blockCount = Arrays.copyOf(blockCount, capacity);
+        }
+        blockFirst[blocks] = firstTimestamp;
+        blockOffset[blocks] = offset;
+        blocks++;
+    }
+}
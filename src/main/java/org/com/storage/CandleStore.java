@@ -0,0 +1,146 @@
+package org.com.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.com.kafka.CandleSink;
+import org.com.model.Candle;
+import org.com.model.Timeframe;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Embedded candle history: one Gorilla-compressed, append-only {@link CandleSeries} segment per symbol and timeframe,
+ * stored as {@code <directory>/<symbol>/<timeframe>.seg} (a '/' in the symbol becomes '-').
+ * Range queries decode straight from the memory-mapped segment.
+ * As a {@link CandleSink} it stores consumed candles and forces them to disk before the consumer commits.
+ */
+@Slf4j
+public class CandleStore implements CandleSink, AutoCloseable {
+    private static final Timeframe[] TIMEFRAMES = Timeframe.values();
+
+    private final Path directory;
+    private final Map<String, CandleSeries[]> series = new ConcurrentHashMap<>();
+
+    public CandleStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create candle store at " + directory, e);
+        }
+        log.info("Candle store opened at {}", directory.toAbsolutePath());
+    }
+
+    /**
+     * @return false if the series already holds a candle at or after this one's timestamp
+     */
+    public boolean append(Candle candle) {
+        try {
+            return seriesOf(candle.getSymbol(), candle.getTimeframe()).append(candle.getTimestamp(), candle.getOpen(),
+                    candle.getHigh(), candle.getLow(), candle.getClose(), candle.getTicks());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store candle " + candle, e);
+        }
+    }
+
+    /**
+     * Visits candles with timestamps (epoch seconds) in [from, to], oldest first, without allocating per candle
+     */
+    public void query(String symbol, Timeframe timeframe, long from, long to, CandleVisitor visitor) {
+        try {
+            seriesOf(symbol, timeframe).query(from, to, visitor);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to query " + symbol + " " + timeframe.getLabel(), e);
+        }
+    }
+
+    public List<Candle> query(String symbol, Timeframe timeframe, long from, long to) {
+        List<Candle> candles = new ArrayList<>();
+        query(symbol, timeframe, from, to, (timestamp, open, high, low, close, ticks) -> {
+            Candle candle = Candle.builder()
+                    .symbol(symbol)
+                    .timeframe(timeframe)
+                    .open(open)
+                    .high(high)
+                    .low(low)
+                    .close(close)
+                    .ticks(ticks)
+                    .build();
+            candle.setTimestampSecondsAndInstant(timestamp);
+            candles.add(candle);
+        });
+        return candles;
+    }
+
+    /**
+     * @return timestamp of the newest stored candle, or Long.MIN_VALUE if the series is empty
+     */
+    public long getLastTimestamp(String symbol, Timeframe timeframe) {
+        return seriesOf(symbol, timeframe).getLastTimestamp();
+    }
+
+    @Override
+    public void accept(int partition, List<Candle> candles) {
+        for (Candle candle : candles) {
+            append(candle);
+        }
+        flush();
+    }
+
+    public void flush() {
+        forEachSeries(CandleSeries::flush);
+    }
+
+    @Override
+    public void close() {
+        forEachSeries(CandleSeries::close);
+        series.clear();
+    }
+
+    private CandleSeries seriesOf(String symbol, Timeframe timeframe) {
+        CandleSeries[] timeframes = series.computeIfAbsent(symbol, ignored -> new CandleSeries[TIMEFRAMES.length]);
+        synchronized (timeframes) {
+            if (timeframes[timeframe.ordinal()] == null) {
+                timeframes[timeframe.ordinal()] = openSeries(symbol, timeframe);
+            }
+            return timeframes[timeframe.ordinal()];
+        }
+    }
+
+    private CandleSeries openSeries(String symbol, Timeframe timeframe) {
+        Path symbolDirectory = directory.resolve(symbol.replace('/', '-'));
+        try {
+            Files.createDirectories(symbolDirectory);
+            return new CandleSeries(symbolDirectory.resolve(timeframe.getLabel() + ".seg"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open candle series " + symbol + " " + timeframe.getLabel(), e);
+        }
+    }
+
+    private void forEachSeries(SeriesAction action) {
+        for (CandleSeries[] timeframes : series.values()) {
+            synchronized (timeframes) {
+                for (CandleSeries candleSeries : timeframes) {
+                    if (candleSeries == null) {
+                        continue;
+                    }
+                    try {
+                        action.apply(candleSeries);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to flush candle store", e);
+                    }
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SeriesAction {
+        void apply(CandleSeries candleSeries) throws IOException;
+    }
+}
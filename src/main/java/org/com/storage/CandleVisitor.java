@@ -0,0 +1,10 @@
+package org.com.storage;
+
+/**
+ * Receives candles decoded straight from the mapped segment, without materialising Candle objects
+ */
+@FunctionalInterface
+public interface CandleVisitor {
+
+    void visit(long timestamp, double open, double high, double low, double close, int ticks);
+}
@@ -0,0 +1,24 @@
+package org.com.stream;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Registers the live update stream at /ws/candles
+ */
+@Configuration
+@EnableWebSocket
+public class CandleStreamConfig implements WebSocketConfigurer {
+    private final CandleStreamHandler handler;
+
+    public CandleStreamConfig(CandleStreamHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(handler, "/ws/candles").setAllowedOriginPatterns("*");
+    }
+}
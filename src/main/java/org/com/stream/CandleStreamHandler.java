@@ -0,0 +1,143 @@
+package org.com.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebSocket endpoint for conflated live candle and top-of-book updates.
+ * Clients send {"action":"subscribe","symbols":["BTC/USD"],"maxRate":5} (maxRate in updates per second per symbol,
+ * capped by the server) or {"action":"unsubscribe","symbols":[...]}.
+ * Each client gets at most the latest state per symbol at its rate; sends run on a fixed pool of sender threads, one
+ * batch at a time per client, so a slow socket holds at most one sender until the send timeout disconnects it.
+ */
+@Slf4j
+public class CandleStreamHandler extends TextWebSocketHandler {
+    private final LiveUpdateHub hub;
+    private final ObjectMapper objectMapper;
+    private final double defaultRate;
+    private final double maxRate;
+    private final long sendTimeoutNanos;
+    private final Map<String, ClientSubscription> clients = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "candle-stream-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param sendThreads sender threads shared by all clients; more clients than threads queue their sends
+     */
+    public CandleStreamHandler(LiveUpdateHub hub, ObjectMapper objectMapper, double defaultRate, double maxRate,
+                               long sendTimeoutMillis, int sendThreads) {
+        this.hub = hub;
+        this.objectMapper = objectMapper;
+        this.defaultRate = Math.min(defaultRate, maxRate);
+        this.maxRate = maxRate;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        AtomicInteger senderIds = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(sendThreads, runnable -> {
+            Thread thread = new Thread(runnable, "candle-stream-sender-" + senderIds.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        long period = hub.getIntervalMillis();
+        flusher.scheduleAtFixedRate(this::flush, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        clients.put(session.getId(), new ClientSubscription(session, hub.getSymbols().size(), intervalNanos(defaultRate)));
+        log.debug("Stream client {} connected from {}", session.getId(), session.getRemoteAddress());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        ClientSubscription client = clients.get(session.getId());
+        if (client == null) {
+            return;
+        }
+
+        JsonNode request;
+        try {
+            request = objectMapper.readTree(message.getPayload());
+        } catch (IOException e) {
+            session.close(CloseStatus.BAD_DATA.withReason("Malformed request"));
+            return;
+        }
+
+        String action = request.path("action").asText();
+        boolean subscribe = "subscribe".equals(action);
+        if (!subscribe && !"unsubscribe".equals(action)) {
+            session.close(CloseStatus.BAD_DATA.withReason("Unknown action: " + action));
+            return;
+        }
+        for (JsonNode symbol : request.path("symbols")) {
+            int id = hub.idOf(symbol.asText());
+            if (id < 0) {
+                session.close(CloseStatus.BAD_DATA.withReason("Unknown symbol: " + symbol.asText()));
+                return;
+            }
+            client.setSubscribed(id, subscribe);
+        }
+        if (request.has("maxRate")) {
+            double rate = request.get("maxRate").asDouble();
+            if (rate <= 0) {
+                session.close(CloseStatus.BAD_DATA.withReason("maxRate must be positive"));
+                return;
+            }
+            client.setIntervalNanos(intervalNanos(Math.min(rate, maxRate)));
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("Stream client {} transport error: {}", session.getId(), exception.getMessage());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        clients.remove(session.getId());
+        log.debug("Stream client {} disconnected: {}", session.getId(), status);
+    }
+
+    private void flush() {
+        long now = System.nanoTime();
+        for (ClientSubscription client : clients.values()) {
+            try {
+                client.flush(now, hub, senders, sendTimeoutNanos);
+            } catch (Exception e) {
+                log.error("Error flushing stream client {}", client.getSession().getId(), e);
+            }
+        }
+    }
+
+    private static long intervalNanos(double rate) {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+
+    public void shutdown() {
+        flusher.shutdownNow();
+        senders.shutdownNow();
+    }
+}
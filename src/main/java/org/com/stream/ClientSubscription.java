@@ -0,0 +1,120 @@
+package org.com.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One stream client: the symbols it follows, its rate limit and the version of each symbol it was last sent.
+ * At most one batch is in flight per client; while it is, newer updates simply replace older ones in the hub,
+ * so a slow client receives fewer, fresher updates instead of queueing memory.
+ * Flushing is driven by a single thread; only subscription changes come from the session's own thread.
+ */
+@Slf4j
+final class ClientSubscription {
+    private final WebSocketSession session;
+    private final long[] sentVersions;
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private volatile boolean[] subscribed;
+    private volatile long intervalNanos;
+    private volatile long sendStartNanos;
+    private long nextDueNanos;
+    private boolean closing;
+
+    ClientSubscription(WebSocketSession session, int symbolCount, long intervalNanos) {
+        this.session = session;
+        this.sentVersions = new long[symbolCount];
+        this.subscribed = new boolean[symbolCount];
+        this.intervalNanos = intervalNanos;
+    }
+
+    WebSocketSession getSession() {
+        return session;
+    }
+
+    synchronized void setSubscribed(int symbolId, boolean on) {
+        boolean[] next = subscribed.clone();
+        next[symbolId] = on;
+        subscribed = next;
+    }
+
+    void setIntervalNanos(long intervalNanos) {
+        this.intervalNanos = intervalNanos;
+    }
+
+    /**
+     * Sends every subscribed symbol that changed since the last send, if the client is due and idle.
+     * A client whose send has been stuck longer than the timeout is disconnected.
+     */
+    void flush(long nowNanos, LiveUpdateHub hub, Executor senders, long sendTimeoutNanos) {
+        if (closing) {
+            return;
+        }
+        if (sending.get()) {
+            if (nowNanos - sendStartNanos > sendTimeoutNanos) {
+                closing = true;
+                log.warn("Stream client {} has not drained a send for {} ms; disconnecting",
+                        session.getId(), sendTimeoutNanos / 1_000_000);
+                senders.execute(() -> close(CloseStatus.SESSION_NOT_RELIABLE));
+            }
+            return;
+        }
+        if (nowNanos - nextDueNanos < 0) {
+            return;
+        }
+
+        List<TextMessage> pending = collect(hub);
+        if (pending.isEmpty()) {
+            return;
+        }
+        nextDueNanos = nowNanos + intervalNanos;
+        sendStartNanos = nowNanos;
+        sending.set(true);
+        senders.execute(() -> send(pending));
+    }
+
+    private List<TextMessage> collect(LiveUpdateHub hub) {
+        boolean[] subscribed = this.subscribed;
+        List<TextMessage> pending = new ArrayList<>();
+        for (int id = 0; id < subscribed.length; id++) {
+            if (!subscribed[id]) {
+                // Resubscribing starts from the current state again
+                sentVersions[id] = 0;
+                continue;
+            }
+            LiveUpdateHub.Published update = hub.latest(id);
+            if (update != null && update.getVersion() != sentVersions[id]) {
+                sentVersions[id] = update.getVersion();
+                pending.add(update.getMessage());
+            }
+        }
+        return pending;
+    }
+
+    private void send(List<TextMessage> messages) {
+        try {
+            for (TextMessage message : messages) {
+                session.sendMessage(message);
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Failed to send to stream client {}: {}", session.getId(), e.getMessage());
+            close(CloseStatus.SERVER_ERROR);
+        } finally {
+            sending.set(false);
+        }
+    }
+
+    private void close(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("Failed to close stream client {}", session.getId(), e);
+        }
+    }
+}
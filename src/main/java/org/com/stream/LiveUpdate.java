@@ -0,0 +1,18 @@
+package org.com.stream;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.com.model.Candle;
+import org.com.model.Quote;
+
+/**
+ * Latest state of one symbol as pushed to stream subscribers: the in-progress 1m candle and the top of book.
+ * Either part is null until it exists.
+ */
+@Getter
+@AllArgsConstructor
+public class LiveUpdate {
+    private String symbol;
+    private Candle candle;
+    private Quote quote;
+}
@@ -0,0 +1,135 @@
+package org.com.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.com.model.Candle;
+import org.com.model.Quote;
+import org.com.service.CandleQueryService;
+import org.springframework.web.socket.TextMessage;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Samples every symbol's live candle and top of book at a fixed rate and keeps only the newest state per symbol.
+ * Each change is serialized once into a shared {@link TextMessage}, so the cost of an update does not grow
+ * with the number of subscribers. Sampling reads the lock-free snapshots, so ingest threads do no extra work.
+ */
+@Slf4j
+public class LiveUpdateHub {
+    private final CandleQueryService queryService;
+    private final ObjectMapper objectMapper;
+    private final long intervalMillis;
+    private final List<String> symbols;
+    private final AtomicReferenceArray<Published> latest;
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "live-update-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LiveUpdateHub(CandleQueryService queryService, ObjectMapper objectMapper, long intervalMillis) {
+        this.queryService = queryService;
+        this.objectMapper = objectMapper;
+        this.intervalMillis = intervalMillis;
+        this.symbols = queryService.getSymbols();
+        this.latest = new AtomicReferenceArray<>(symbols.size());
+    }
+
+    public void start() {
+        sampler.scheduleAtFixedRate(this::sample, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Sampling live updates for {} symbols every {} ms", symbols.size(), intervalMillis);
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public List<String> getSymbols() {
+        return symbols;
+    }
+
+    public int idOf(String symbol) {
+        return symbols.indexOf(symbol);
+    }
+
+    /**
+     * @return the newest serialized update of the symbol, or null if nothing has been seen for it yet
+     */
+    public Published latest(int symbolId) {
+        return latest.get(symbolId);
+    }
+
+    /**
+     * Takes one sample of every symbol; runs on the sampler thread, or directly in tests
+     */
+    void sample() {
+        for (int id = 0; id < symbols.size(); id++) {
+            try {
+                String symbol = symbols.get(id);
+                Candle candle = queryService.getLiveCandle(symbol);
+                Quote quote = queryService.getTopOfBook(symbol);
+                Published previous = latest.get(id);
+                if ((candle == null && quote == null) || (previous != null && previous.sameState(candle, quote))) {
+                    continue;
+                }
+
+                String json = objectMapper.writeValueAsString(new LiveUpdate(symbol, candle, quote));
+                long version = previous == null ? 1 : previous.version + 1;
+                latest.set(id, new Published(version, new TextMessage(json), candle, quote));
+            } catch (JsonProcessingException e) {
+                log.error("Failed to serialize live update for {}", symbols.get(id), e);
+            } catch (Exception e) {
+                log.error("Error sampling live update for {}", symbols.get(id), e);
+            }
+        }
+    }
+
+    public void shutdown() {
+        sampler.shutdownNow();
+    }
+
+    /**
+     * An immutable serialized update; versions increase per symbol so subscribers can tell what they already sent
+     */
+    public static final class Published {
+        private final long version;
+        private final TextMessage message;
+        private final long candleTimestamp;
+        private final int candleTicks;
+        private final long quoteTimestamp;
+        private final double bid;
+        private final double ask;
+
+        Published(long version, TextMessage message, Candle candle, Quote quote) {
+            this.version = version;
+            this.message = message;
+            this.candleTimestamp = candle == null ? Long.MIN_VALUE : candle.getTimestamp();
+            this.candleTicks = candle == null ? 0 : candle.getTicks();
+            this.quoteTimestamp = quote == null ? 0 : quote.getTimestamp();
+            this.bid = quote == null ? 0 : quote.getBid();
+            this.ask = quote == null ? 0 : quote.getAsk();
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public TextMessage getMessage() {
+            return message;
+        }
+
+        boolean sameState(Candle candle, Quote quote) {
+            boolean sameCandle = candle == null
+                    ? candleTicks == 0
+                    : candle.getTimestamp() == candleTimestamp && candle.getTicks() == candleTicks;
+            boolean sameQuote = quote == null
+                    ? quoteTimestamp == 0
+                    : quote.getTimestamp() == quoteTimestamp && quote.getBid() == bid && quote.getAsk() == ask;
+            return sameCandle && sameQuote;
+        }
+    }
+}
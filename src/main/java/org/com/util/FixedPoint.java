@@ -0,0 +1,154 @@
+package org.com.util;
+
+/**
+ * Fixed-point conversion for prices and quantities.
+ * Values are held as longs scaled by 10^8, which covers every Kraken price and lot precision.
+ */
+public final class FixedPoint {
+    public static final int DECIMALS = 8;
+    public static final long SCALE = 100_000_000L;
+
+    private static final int MAX_APPEND_DECIMALS = 9;
+    private static final long[] POWERS_OF_TEN = new long[MAX_APPEND_DECIMALS + 1];
+    // Largest magnitude whose value * 10^decimals is still an exact integer in a double
+    private static final double[] EXACT_LIMITS = new double[MAX_APPEND_DECIMALS + 1];
+
+    static {
+        long power = 1;
+        for (int i = 0; i <= MAX_APPEND_DECIMALS; i++) {
+            POWERS_OF_TEN[i] = power;
+            EXACT_LIMITS[i] = (double) (1L << 53) / power;
+            power *= 10;
+        }
+    }
+
+    private FixedPoint() {
+    }
+
+    public static long toFixed(double value) {
+        return Math.round(value * SCALE);
+    }
+
+    public static double toDouble(long value) {
+        return value / (double) SCALE;
+    }
+
+    /**
+     * Appends a decimal without trailing zeros and without allocating, unlike StringBuilder.append(double).
+     * Up to 9 decimals are kept (a mid price of 8-decimal quotes needs 9), fewer for values so large that the
+     * extra digits would be double rounding noise; NaN, infinities and huge values fall back to append(double).
+     */
+    public static StringBuilder appendDecimal(StringBuilder out, double value) {
+        double magnitude = Math.abs(value);
+        int decimals = MAX_APPEND_DECIMALS;
+        while (decimals > 0 && magnitude >= EXACT_LIMITS[decimals]) {
+            decimals--;
+        }
+        if (!(magnitude < EXACT_LIMITS[decimals])) {
+            return out.append(value);
+        }
+
+        long scaled = Math.round(magnitude * POWERS_OF_TEN[decimals]);
+        if (value < 0 && scaled != 0) {
+            out.append('-');
+        }
+        out.append(scaled / POWERS_OF_TEN[decimals]).append('.');
+        long fraction = scaled % POWERS_OF_TEN[decimals];
+        if (fraction == 0) {
+            return out.append('0');
+        }
+        int digits = decimals;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        for (long pad = POWERS_OF_TEN[digits - 1]; pad > fraction; pad /= 10) {
+            out.append('0');
+        }
+        return out.append(fraction);
+    }
+
+    /**
+     * Parses a decimal number (optionally signed, with fraction and exponent) straight from characters,
+     * without going through a String or a double. Digits beyond the fixed-point precision are rounded half-up.
+     * @throws NumberFormatException on malformed input or a magnitude too large for a fixed-point long
+     */
+    public static long parse(char[] buffer, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int scale = 0;
+        int significant = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            char c = buffer[i];
+            if (c >= '0' && c <= '9') {
+                if (significant < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        significant++;
+                    }
+                    if (fraction) {
+                        scale++;
+                    }
+                } else if (!fraction) {
+                    scale--;
+                }
+            } else if (c == '.') {
+                fraction = true;
+            } else if (c == 'e' || c == 'E') {
+                scale -= parseExponent(buffer, i + 1, end);
+                break;
+            } else {
+                throw new NumberFormatException("Invalid character '" + c + "' in number");
+            }
+        }
+
+        long value = rescale(mantissa, DECIMALS - scale);
+        return negative ? -value : value;
+    }
+
+    private static int parseExponent(char[] buffer, int from, int end) {
+        boolean negative = false;
+        if (from < end && (buffer[from] == '-' || buffer[from] == '+')) {
+            negative = buffer[from] == '-';
+            from++;
+        }
+        int exponent = 0;
+        for (int i = from; i < end; i++) {
+            exponent = exponent * 10 + (buffer[i] - '0');
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    private static long rescale(long mantissa, int powerOfTen) {
+        if (powerOfTen >= 0) {
+            if (mantissa == 0) {
+                return 0;
+            }
+            try {
+                for (int p = 0; p < powerOfTen; p++) {
+                    mantissa = Math.multiplyExact(mantissa, 10);
+                }
+            } catch (ArithmeticException e) {
+                // Past about 9.2e10 the value no longer fits at this precision; wrapping would corrupt the book
+                throw new NumberFormatException("Number out of fixed-point range");
+            }
+            return mantissa;
+        }
+        if (powerOfTen <= -19) {
+            return 0;
+        }
+        long divisor = 1;
+        for (int p = 0; p < -powerOfTen; p++) {
+            divisor *= 10;
+        }
+        return (mantissa + divisor / 2) / divisor;
+    }
+}
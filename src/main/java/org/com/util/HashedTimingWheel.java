@@ -0,0 +1,171 @@
+package org.com.util;
+
+import lombok.extern.slf4j.Slf4j;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * Hashed timing wheel for tasks due at wall-clock instants.
+ * A timeout goes into the bucket of the tick holding its deadline, so scheduling is O(1) whatever the number of
+ * pending timeouts, and each tick only looks at its own bucket. Ticks are aligned to multiples of the tick duration on
+ * the wall clock and the thread sleeps until the next one is due rather than for a fixed period, so firing never drifts;
+ * ticks missed to a long task or a clock jump are caught up in order.
+ * Timeouts may be scheduled from any thread. They run on the wheel thread and must hand longer work to other threads,
+ * since everything due later waits for them.
+ */
+@Slf4j
+public final class HashedTimingWheel {
+    private final long tickMillis;
+    private final Timeout[] buckets;
+    private final int mask;
+    // Handed over to the wheel thread, which owns the buckets
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running;
+    private long lastTick;
+
+    /**
+     * @param tickMillis resolution of the wheel
+     * @param wheelSize buckets, rounded up to a power of two; timeouts further out than one lap are carried over
+     */
+    public HashedTimingWheel(String name, long tickMillis, int wheelSize) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        this.tickMillis = tickMillis;
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.buckets = new Timeout[size];
+        this.mask = size - 1;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        lastTick = System.currentTimeMillis() / tickMillis;
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * @param task receives the deadline it was scheduled for
+     * @return a handle to cancel the timeout with
+     */
+    public Timeout schedule(long deadlineMillis, LongConsumer task) {
+        Timeout timeout = new Timeout(deadlineMillis, task);
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the wheel without running the timeouts still pending
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    private void run() {
+        while (running) {
+            long now = System.currentTimeMillis();
+            long nextTickMillis = (lastTick + 1) * tickMillis;
+            if (now < nextTickMillis) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(nextTickMillis - now));
+                continue;
+            }
+            transferScheduled();
+            long currentTick = now / tickMillis;
+            // Past one lap every bucket is visited anyway
+            long firstTick = Math.max(lastTick + 1, currentTick - mask);
+            for (long tick = firstTick; tick <= currentTick && running; tick++) {
+                expire((int) (tick & mask), now);
+            }
+            lastTick = currentTick;
+        }
+    }
+
+    private void transferScheduled() {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (!timeout.cancelled) {
+                // Due at the first tick at or after the deadline; overdue timeouts fire on this pass
+                long tick = Math.floorDiv(timeout.deadlineMillis + tickMillis - 1, tickMillis);
+                int bucket = (int) (Math.max(tick, lastTick + 1) & mask);
+                timeout.next = buckets[bucket];
+                buckets[bucket] = timeout;
+            }
+        }
+    }
+
+    private void expire(int bucket, long now) {
+        Timeout previous = null;
+        Timeout timeout = buckets[bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            // Deadlines a lap or more ahead stay in the bucket
+            if (timeout.cancelled || timeout.deadlineMillis <= now) {
+                if (previous == null) {
+                    buckets[bucket] = next;
+                } else {
+                    previous.next = next;
+                }
+                timeout.next = null;
+                if (!timeout.cancelled) {
+                    fire(timeout);
+                }
+            } else {
+                previous = timeout;
+            }
+            timeout = next;
+        }
+    }
+
+    private void fire(Timeout timeout) {
+        try {
+            timeout.task.accept(timeout.deadlineMillis);
+        } catch (Exception e) {
+            log.error("Timeout due at {} failed", timeout.deadlineMillis, e);
+        }
+    }
+
+    /**
+     * A scheduled task; cancelling it before its deadline keeps it from running
+     */
+    public static final class Timeout {
+        private final long deadlineMillis;
+        private final LongConsumer task;
+        private volatile boolean cancelled;
+        // Bucket chain, only touched by the wheel thread
+        private Timeout next;
+
+        private Timeout(long deadlineMillis, LongConsumer task) {
+            this.deadlineMillis = deadlineMillis;
+            this.task = task;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.com.util;
+
+/**
+ * Allocation-free parsing and formatting of UTC ISO-8601 timestamps such as 2023-10-06T17:35:55.440295Z,
+ * as sent by Kraken, to and from epoch microseconds.
+ */
+public final class IsoTimestamps {
+
+    private IsoTimestamps() {
+    }
+
+    public static long parseEpochMicros(char[] buffer, int offset, int length) {
+        if (length < 20 || buffer[offset + 4] != '-' || buffer[offset + 10] != 'T') {
+            throw new IllegalArgumentException("Unsupported timestamp: " + new String(buffer, offset, length));
+        }
+
+        int year = digits(buffer, offset, 4);
+        int month = digits(buffer, offset + 5, 2);
+        int day = digits(buffer, offset + 8, 2);
+        int hour = digits(buffer, offset + 11, 2);
+        int minute = digits(buffer, offset + 14, 2);
+        int second = digits(buffer, offset + 17, 2);
+
+        long micros = 0;
+        int i = offset + 19;
+        int end = offset + length;
+        if (i < end && buffer[i] == '.') {
+            i++;
+            int fractionDigits = 0;
+            while (i < end && buffer[i] >= '0' && buffer[i] <= '9') {
+                if (fractionDigits < 6) {
+                    micros = micros * 10 + (buffer[i] - '0');
+                    fractionDigits++;
+                }
+                i++;
+            }
+            for (; fractionDigits < 6; fractionDigits++) {
+                micros *= 10;
+            }
+        }
+
+        long epochSeconds = daysFromCivil(year, month, day) * 86_400L + hour * 3_600L + minute * 60L + second;
+        return epochSeconds * 1_000_000L + micros;
+    }
+
+    /**
+     * Appends the timestamp with microsecond precision, the inverse of {@link #parseEpochMicros}
+     */
+    public static StringBuilder appendEpochMicros(StringBuilder out, long epochMicros) {
+        long epochSeconds = Math.floorDiv(epochMicros, 1_000_000L);
+        long micros = Math.floorMod(epochMicros, 1_000_000L);
+        long days = Math.floorDiv(epochSeconds, 86_400L);
+        int secondOfDay = (int) Math.floorMod(epochSeconds, 86_400L);
+
+        // H. Hinnant's civil_from_days
+        long z = days + 719_468L;
+        long era = Math.floorDiv(z, 146_097L);
+        int dayOfEra = (int) (z - era * 146_097L);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+        int month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        appendDigits(out, year, 4).append('-');
+        appendDigits(out, month, 2).append('-');
+        appendDigits(out, day, 2).append('T');
+        appendDigits(out, secondOfDay / 3_600, 2).append(':');
+        appendDigits(out, secondOfDay / 60 % 60, 2).append(':');
+        appendDigits(out, secondOfDay % 60, 2).append('.');
+        return appendDigits(out, micros, 6).append('Z');
+    }
+
+    private static StringBuilder appendDigits(StringBuilder out, long value, int width) {
+        for (long pad = 10; width > 1; width--, pad *= 10) {
+            if (value < pad) {
+                out.append('0');
+            }
+        }
+        return out.append(value);
+    }
+
+    /**
+     * Days since 1970-01-01 for a proleptic Gregorian date (H. Hinnant's days_from_civil)
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468L;
+    }
+
+    private static int digits(char[] buffer, int offset, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            char c = buffer[offset + i];
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Unsupported timestamp: " + new String(buffer, offset, count));
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,61 @@
+package org.com.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Sequence lock for state with a single writer (or writers serialized elsewhere) and any number of readers.
+ * The writer never waits on readers: it bumps the sequence to odd, writes plain fields and bumps it back to even.
+ * Readers copy the fields optimistically and retry if the sequence moved while they were copying.
+ * <pre>
+ * long seq;
+ * do {
+ *     seq = lock.readBegin();
+ *     // copy fields
+ * } while (lock.readRetry(seq));
+ * </pre>
+ */
+public final class SeqLock {
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(SeqLock.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private long sequence;
+
+    public void beginWrite() {
+        SEQUENCE.setOpaque(this, sequence + 1);
+        // Field writes must not become visible before the odd sequence
+        VarHandle.storeStoreFence();
+    }
+
+    public void endWrite() {
+        SEQUENCE.setRelease(this, sequence + 1);
+    }
+
+    /**
+     * Waits out a write in progress
+     * @return the sequence to pass to {@link #readRetry(long)}
+     */
+    public long readBegin() {
+        long seq;
+        while (((seq = (long) SEQUENCE.getAcquire(this)) & 1) != 0) {
+            Thread.onSpinWait();
+        }
+        return seq;
+    }
+
+    /**
+     * @return true if a write overlapped the reads since {@link #readBegin()}, so the copied fields may be torn
+     */
+    public boolean readRetry(long seq) {
+        // Field reads must complete before the sequence is re-read
+        VarHandle.loadLoadFence();
+        return (long) SEQUENCE.getOpaque(this) != seq;
+    }
+}
@@ -0,0 +1,104 @@
+package org.com.api;
+
+import org.com.config.AppConfig;
+import org.com.model.Candle;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.com.service.CandleHistory;
+import org.com.service.CandleQueryService;
+import org.com.service.ShardedBookProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CandleQueryControllerTest {
+    private static final List<String> SYMBOLS = List.of("BTC/USD", "ETH/USD");
+    private static final int CAPACITY = 8;
+
+    private ShardedBookProcessor processor;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("kraken.instrument", String.join(",", SYMBOLS));
+        SymbolRegistry symbols = new SymbolRegistry(SYMBOLS);
+        processor = new ShardedBookProcessor(symbols, new AppConfig(properties));
+
+        CandleHistory history = new CandleHistory(symbols, List.of(Timeframe.M1, Timeframe.M5), CAPACITY);
+        List<Candle> closed = new ArrayList<>();
+        for (int minute = 0; minute < 20; minute++) {
+            closed.add(Candle.builder().symbol("BTC/USD").timeframe(Timeframe.M1).timestamp(minute * 60L)
+                    .open(100).high(101).low(99).close(100 + minute).ticks(5).build());
+        }
+        history.addAll(closed);
+
+        // Indicators disabled
+        mvc = MockMvcBuilders.standaloneSetup(new CandleQueryController(new CandleQueryService(processor, history)))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    @Test
+    void returnsTheNewestClosedCandlesOldestFirst() throws Exception {
+        mvc.perform(get("/api/candles").param("symbol", "BTC/USD").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].timestamp").value(17 * 60))
+                .andExpect(jsonPath("$[2].timestamp").value(19 * 60))
+                .andExpect(jsonPath("$[2].close").value(119.0))
+                .andExpect(jsonPath("$[2].timeframe").value("1m"));
+
+        // Limits beyond the ring are capped to its capacity
+        mvc.perform(get("/api/candles").param("symbol", "BTC/USD").param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(CAPACITY)));
+        mvc.perform(get("/api/candles").param("symbol", "ETH/USD").param("timeframe", "5m"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void answersNoContentBeforeTheFirstTickOrBook() throws Exception {
+        mvc.perform(get("/api/candles/live").param("symbol", "BTC/USD")).andExpect(status().isNoContent());
+        mvc.perform(get("/api/book/top").param("symbol", "BTC/USD")).andExpect(status().isNoContent());
+        mvc.perform(get("/api/symbols"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1]").value("ETH/USD"));
+    }
+
+    @Test
+    void unknownSymbolsAndDisabledIndicatorsAreNotFound() throws Exception {
+        mvc.perform(get("/api/candles").param("symbol", "XRP/USD"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Unknown symbol: XRP/USD"));
+        mvc.perform(get("/api/candles/live").param("symbol", "XRP/USD")).andExpect(status().isNotFound());
+        mvc.perform(get("/api/indicators").param("symbol", "BTC/USD"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error", containsString("disabled")));
+    }
+
+    @Test
+    void rejectsBadLimitsAndTimeframes() throws Exception {
+        mvc.perform(get("/api/candles").param("symbol", "BTC/USD").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/candles").param("symbol", "BTC/USD").param("timeframe", "7m"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unknown timeframe: 7m"));
+    }
+}
@@ -0,0 +1,148 @@
+package org.com.backfill;
+
+import org.com.config.AppConfig;
+import org.com.model.Candle;
+import org.com.model.Timeframe;
+import org.com.service.CandleGenerator;
+import org.com.service.InstrumentState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Backfilling historical ticks must produce the candles the live event-time path builds from the same ticks
+ */
+class CandleBackfillTest {
+    private static final List<String> SYMBOLS = List.of("BTC/USD", "ETH/USD", "SOL/USD");
+    private static final List<Timeframe> TIMEFRAMES = List.of(Timeframe.M1, Timeframe.M5, Timeframe.M15, Timeframe.H1,
+            Timeframe.D1);
+    private static final long DAY_MILLIS = 86_400_000L;
+    // 21:00 UTC, so the ticks run over a day boundary
+    private static final long START_MILLIS = 19_700L * DAY_MILLIS + 21 * 3_600_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void backfillMatchesTheLiveEventTimePath() throws IOException {
+        List<long[]> ticks = ticks(new Random(17));
+        Path first = directory.resolve("ticks-1.csv");
+        Path second = directory.resolve("ticks-2.csv");
+        // Split across two files in time order, one with a header and ISO timestamps, one with epoch millis
+        int half = ticks.size() / 2;
+        write(first, ticks.subList(0, half), true);
+        write(second, ticks.subList(half, ticks.size()), false);
+
+        List<Candle> backfilled = new ArrayList<>();
+        BackfillReport report = new CandleBackfill(config(), 3)
+                .run(List.of(first, second), CandleBackfill.Format.CSV, backfilled::addAll);
+        assertEquals(ticks.size(), report.getTicks());
+        assertEquals(backfilled.size(), report.getCandles());
+
+        List<Candle> live = live(ticks);
+        assertTrue(live.stream().anyMatch(candle -> candle.getTimeframe() == Timeframe.D1), "expected daily candles");
+        sort(backfilled);
+        sort(live);
+        assertEquals(live.size(), backfilled.size());
+        for (int i = 0; i < live.size(); i++) {
+            Candle expected = live.get(i);
+            Candle actual = backfilled.get(i);
+            String at = expected.getSymbol() + " " + expected.getTimeframe() + " " + expected.getTimestamp();
+            assertEquals(expected.getSymbol(), actual.getSymbol(), at);
+            assertEquals(expected.getTimeframe(), actual.getTimeframe(), at);
+            assertEquals(expected.getTimestamp(), actual.getTimestamp(), at);
+            assertEquals(expected.getOpen(), actual.getOpen(), at);
+            assertEquals(expected.getHigh(), actual.getHigh(), at);
+            assertEquals(expected.getLow(), actual.getLow(), at);
+            assertEquals(expected.getClose(), actual.getClose(), at);
+            assertEquals(expected.getTicks(), actual.getTicks(), at);
+        }
+    }
+
+    /**
+     * Feeds the ticks through the live event-time generator and rollups of every symbol
+     */
+    private static List<Candle> live(List<long[]> ticks) {
+        List<InstrumentState> instruments = new ArrayList<>();
+        for (int id = 0; id < SYMBOLS.size(); id++) {
+            instruments.add(new InstrumentState(id, SYMBOLS.get(id), 10, TIMEFRAMES, new CandleGenerator(true, 0), null));
+        }
+        List<Candle> closed = new ArrayList<>();
+        for (int i = 0; i < ticks.size(); i++) {
+            long[] tick = ticks.get(i);
+            InstrumentState instrument = instruments.get((int) tick[1]);
+            instrument.getCandleGenerator().recordTick(tick[2] / 100.0, tick[0]);
+            if (i % 50 == 0) {
+                for (InstrumentState each : instruments) {
+                    each.closeEventTime(tick[0], closed);
+                }
+            }
+        }
+
+        long lastDay = Math.floorDiv(ticks.get(ticks.size() - 1)[0], DAY_MILLIS);
+        for (InstrumentState instrument : instruments) {
+            // Idle past the lateness, so the wall clock closes the last minutes
+            instrument.closeEventTime(Long.MAX_VALUE / 4, closed);
+            // Backfill closes the intervals that end with the last day, live waits for the next minute to arrive
+            instrument.getCandleRollup().onMinuteClosed((lastDay + 1) * DAY_MILLIS / 1000 - 60, null, closed);
+        }
+        return closed;
+    }
+
+    /**
+     * Ticks in time order over 27 hours as {millis, symbol index, price in cents}, with quiet minutes and a quiet
+     * hour before midnight, so empty minutes and intervals whose last minute is empty are covered
+     */
+    private static List<long[]> ticks(Random random) {
+        List<long[]> ticks = new ArrayList<>();
+        long[] cents = {3_000_000, 200_000, 10_000};
+        long end = START_MILLIS + 27 * 3_600_000L;
+        for (long millis = START_MILLIS; millis < end; millis += 1 + random.nextInt(4000)) {
+            long minuteOfDay = Math.floorMod(millis, DAY_MILLIS) / 60_000;
+            if (minuteOfDay >= 23 * 60 || random.nextInt(100) == 0 && minuteOfDay % 7 == 3) {
+                continue;
+            }
+            int symbol = random.nextInt(SYMBOLS.size());
+            cents[symbol] = Math.max(1, cents[symbol] + random.nextInt(21) - 10);
+            ticks.add(new long[]{millis, symbol, cents[symbol]});
+        }
+        return ticks;
+    }
+
+    private static void write(Path file, List<long[]> ticks, boolean header) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            if (header) {
+                out.write("timestamp,symbol,price\n");
+            }
+            for (long[] tick : ticks) {
+                String timestamp = header ? Instant.ofEpochMilli(tick[0]).toString() : Long.toString(tick[0]);
+                String price = tick[2] / 100 + "." + String.format("%02d", tick[2] % 100);
+                out.write(timestamp + "," + SYMBOLS.get((int) tick[1]) + "," + price + "\n");
+            }
+        }
+    }
+
+    private static AppConfig config() {
+        Properties properties = new Properties();
+        properties.setProperty("candle.timeframes", "1m,5m,15m,1h,1d");
+        return new AppConfig(properties);
+    }
+
+    private static void sort(List<Candle> candles) {
+        candles.sort(Comparator.comparing(Candle::getSymbol)
+                .thenComparing(Candle::getTimeframe)
+                .thenComparingLong(Candle::getTimestamp));
+    }
+}
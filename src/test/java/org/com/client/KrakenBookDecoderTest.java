@@ -0,0 +1,173 @@
+package org.com.client;
+
+import org.com.model.SymbolRegistry;
+import org.com.service.BookUpdateListener;
+import org.com.service.OrderBook;
+import org.com.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KrakenBookDecoderTest {
+    private static final SymbolRegistry SYMBOLS = new SymbolRegistry(List.of("ETH/USD", "BTC/USD"));
+
+    @Test
+    void decodesTheSnapshotFixture() throws IOException {
+        Events events = new Events();
+        assertTrue(new KrakenBookDecoder(SYMBOLS, events).decode(fixture("test_snapshot.json")));
+
+        assertEquals("start 1 snapshot", events.log.get(0));
+        assertEquals(22, events.log.size());
+        assertEquals("bid " + FixedPoint.toFixed(0.5666) + " " + FixedPoint.toFixed(4831.75496356), events.log.get(1));
+        assertEquals("bid " + FixedPoint.toFixed(0.566) + " " + FixedPoint.toFixed(18097.1547), events.log.get(7));
+        assertEquals("ask " + FixedPoint.toFixed(0.5668) + " " + FixedPoint.toFixed(4410.79769741), events.log.get(11));
+        assertEquals("ask " + FixedPoint.toFixed(0.5677) + " " + FixedPoint.toFixed(36304.0847022), events.log.get(20));
+        // Snapshots carry no timestamp
+        assertEquals("checksum 2439117997", events.log.get(21));
+        assertEquals(1, events.ends);
+    }
+
+    @Test
+    void decodesTheUpdateFixture() throws IOException {
+        Events events = new Events();
+        assertTrue(new KrakenBookDecoder(SYMBOLS, events).decode(fixture("test_update_bids.json")));
+
+        long micros = Instant.parse("2023-10-06T17:35:55.440295Z").getEpochSecond() * 1_000_000 + 440_295;
+        assertEquals(List.of("start 1 update",
+                "bid " + FixedPoint.toFixed(0.5657) + " " + FixedPoint.toFixed(1098.3947558),
+                "timestamp " + micros,
+                "checksum 2114181697"), events.log);
+        assertEquals(1, events.ends);
+    }
+
+    @Test
+    void bytesDecodeLikeTheString() throws IOException {
+        String message = fixture("test_snapshot.json");
+        Events fromString = new Events();
+        new KrakenBookDecoder(SYMBOLS, fromString).decode(message);
+
+        byte[] utf8 = message.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(utf8.length + 3);
+        direct.put(new byte[]{'x', 'y', 'z'}).put(utf8).flip().position(3);
+        Events fromDirect = new Events();
+        assertTrue(new KrakenBookDecoder(SYMBOLS, fromDirect).decode(direct));
+        assertEquals(3, direct.position());
+
+        Events fromArray = new Events();
+        byte[] padded = new byte[utf8.length + 5];
+        System.arraycopy(utf8, 0, padded, 5, utf8.length);
+        assertTrue(new KrakenBookDecoder(SYMBOLS, fromArray).decode(padded, 5, utf8.length));
+
+        assertEquals(fromString.log, fromDirect.log);
+        assertEquals(fromString.log, fromArray.log);
+    }
+
+    @Test
+    void zeroQuantityDeletesTheLevel() throws IOException {
+        OrderBook book = new OrderBook(10);
+        KrakenBookDecoder decoder = new KrakenBookDecoder(SYMBOLS, new BookUpdateListener() {
+            @Override
+            public void onBookStart(int symbolId, boolean snapshot) {
+                if (snapshot) {
+                    book.clear();
+                }
+            }
+
+            @Override
+            public void onBid(long price, long quantity) {
+                book.updateBid(price, quantity);
+            }
+
+            @Override
+            public void onAsk(long price, long quantity) {
+                book.updateAsk(price, quantity);
+            }
+
+            @Override
+            public void onBookEnd() {
+            }
+        });
+        decoder.decode(fixture("test_snapshot.json"));
+        assertEquals(FixedPoint.toFixed(0.5666), book.getBids().bestPrice());
+
+        decoder.decode("{\"channel\":\"book\",\"type\":\"update\",\"data\":[{\"symbol\":\"BTC/USD\","
+                + "\"bids\":[{\"price\":0.5666,\"qty\":0}],\"asks\":[{\"price\":0.5668,\"qty\":0.0}],\"checksum\":1}]}");
+        assertEquals(FixedPoint.toFixed(0.5665), book.getBids().bestPrice());
+        assertEquals(FixedPoint.toFixed(0.5669), book.getAsks().bestPrice());
+        assertEquals(9, book.getBids().size());
+        assertEquals(9, book.getAsks().size());
+    }
+
+    @Test
+    void ignoresOtherMessagesAndUnknownSymbols() throws IOException {
+        Events events = new Events();
+        KrakenBookDecoder decoder = new KrakenBookDecoder(SYMBOLS, events);
+        assertFalse(decoder.decode(fixture("test_subscribe.json")));
+        assertFalse(decoder.decode(fixture("test_unsubscribe.json")));
+        assertFalse(decoder.decode("{\"channel\":\"heartbeat\"}"));
+        assertFalse(decoder.decode("[]"));
+        assertFalse(decoder.decode(fixture("test_snapshot.json").replace("BTC/USD", "DOGE/USD")));
+        assertTrue(events.log.isEmpty());
+    }
+
+    @Test
+    void quantityTooLargeForFixedPointFailsTheFrame() {
+        KrakenBookDecoder decoder = new KrakenBookDecoder(SYMBOLS, new Events());
+        assertThrows(NumberFormatException.class, () -> decoder.decode("{\"channel\":\"book\",\"type\":\"update\","
+                + "\"data\":[{\"symbol\":\"BTC/USD\",\"bids\":[{\"price\":0.5,\"qty\":100000000000}]}]}"));
+    }
+
+    private static String fixture(String name) throws IOException {
+        try (InputStream in = KrakenBookDecoderTest.class.getResourceAsStream("/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Every event as a line of text, except the book end, which is counted
+     */
+    private static final class Events implements BookUpdateListener {
+        private final List<String> log = new ArrayList<>();
+        private int ends;
+
+        @Override
+        public void onBookStart(int symbolId, boolean snapshot) {
+            log.add("start " + symbolId + (snapshot ? " snapshot" : " update"));
+        }
+
+        @Override
+        public void onBid(long price, long quantity) {
+            log.add("bid " + price + " " + quantity);
+        }
+
+        @Override
+        public void onAsk(long price, long quantity) {
+            log.add("ask " + price + " " + quantity);
+        }
+
+        @Override
+        public void onChecksum(long checksum) {
+            log.add("checksum " + checksum);
+        }
+
+        @Override
+        public void onTimestamp(long epochMicros) {
+            log.add("timestamp " + epochMicros);
+        }
+
+        @Override
+        public void onBookEnd() {
+            ends++;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.com.indicator;
+
+import org.com.model.Candle;
+import org.com.model.IndicatorValues;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The batch warm-up must end where updating candle by candle ends, with the scalar kernels and with whichever
+ * kernels the JVM provides (vectorized when started with the incubator module)
+ */
+class IndicatorEngineTest {
+    private static final String SYMBOL = "BTC/USD";
+    private static final IndicatorPeriods PERIODS = new IndicatorPeriods(20, 14, 14, 20, 2, 20);
+    private static final SymbolRegistry SYMBOLS = new SymbolRegistry(List.of(SYMBOL, "ETH/USD"));
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    void warmUpOfEveryPrefixMatchesIncrementalUpdates() {
+        List<Candle> candles = candles(Timeframe.M1, 300, 7);
+        List<IndicatorValues> incremental = incremental(candles);
+        // Short and odd lengths exercise the kernels' scalar tails and the periods still filling
+        for (IndicatorEngine engine : List.of(new IndicatorEngine(SYMBOLS, PERIODS, new ScalarKernels()),
+                new IndicatorEngine(SYMBOLS, PERIODS))) {
+            for (int count = 1; count <= candles.size(); count++) {
+                engine.warmUp(SYMBOL, Timeframe.M1, candles.subList(0, count));
+                assertSameValues(incremental.get(count - 1), engine.getLatest(SYMBOL, Timeframe.M1), "prefix " + count);
+            }
+        }
+    }
+
+    @Test
+    void updatesAfterWarmUpContinueTheSeries() {
+        List<Candle> candles = candles(Timeframe.M1, 400, 11);
+        List<IndicatorValues> incremental = incremental(candles);
+
+        IndicatorEngine engine = new IndicatorEngine(SYMBOLS, PERIODS);
+        engine.warmUp(SYMBOL, Timeframe.M1, candles.subList(0, 123));
+        for (int i = 123; i < candles.size(); i++) {
+            assertSameValues(incremental.get(i), engine.onCandle(candles.get(i)), "candle " + i);
+        }
+    }
+
+    @Test
+    void valuesAppearOncePeriodsAreFilled() {
+        List<IndicatorValues> incremental = incremental(candles(Timeframe.M1, 30, 3));
+        assertTrue(Double.isNaN(incremental.get(18).getEma()));
+        assertFalse(Double.isNaN(incremental.get(19).getEma()));
+        assertTrue(Double.isNaN(incremental.get(13).getRsi()));
+        assertFalse(Double.isNaN(incremental.get(14).getRsi()));
+        assertTrue(Double.isNaN(incremental.get(12).getAtr()));
+        assertFalse(Double.isNaN(incremental.get(13).getAtr()));
+        assertFalse(Double.isNaN(incremental.get(19).getBollingerUpper()));
+        assertFalse(Double.isNaN(incremental.get(19).getVwap()));
+    }
+
+    @Test
+    void seriesAreKeptPerSymbolAndTimeframe() {
+        IndicatorEngine engine = new IndicatorEngine(SYMBOLS, PERIODS, new ScalarKernels());
+        engine.warmUp(SYMBOL, Timeframe.M5, candles(Timeframe.M5, 50, 5));
+        assertNull(engine.getLatest(SYMBOL, Timeframe.M1));
+        assertNull(engine.getLatest("ETH/USD", Timeframe.M5));
+        assertNull(engine.getLatest("DOGE/USD", Timeframe.M5));
+        assertEquals(50, engine.getLatest(SYMBOL, Timeframe.M5).getTimestamp() / 300);
+    }
+
+    private static List<IndicatorValues> incremental(List<Candle> candles) {
+        IndicatorEngine engine = new IndicatorEngine(SYMBOLS, PERIODS, new ScalarKernels());
+        List<IndicatorValues> values = new ArrayList<>();
+        engine.onCandles(candles, values);
+        assertEquals(candles.size(), values.size());
+        return values;
+    }
+
+    /**
+     * A random walk with flat stretches, so RSI sees candles without losses and ATR sees zero ranges
+     */
+    private static List<Candle> candles(Timeframe timeframe, int count, long seed) {
+        Random random = new Random(seed);
+        List<Candle> candles = new ArrayList<>();
+        double close = 30_000;
+        for (int i = 1; i <= count; i++) {
+            double open = close;
+            boolean flat = random.nextInt(8) == 0;
+            close = flat ? open : open + random.nextGaussian() * 25;
+            double high = Math.max(open, close) + (flat ? 0 : random.nextDouble() * 10);
+            double low = Math.min(open, close) - (flat ? 0 : random.nextDouble() * 10);
+            candles.add(Candle.builder()
+                    .symbol(SYMBOL)
+                    .timeframe(timeframe)
+                    .timestamp(i * timeframe.getSeconds())
+                    .open(open)
+                    .high(high)
+                    .low(low)
+                    .close(close)
+                    .ticks(1 + random.nextInt(200))
+                    .build());
+        }
+        return candles;
+    }
+
+    private static void assertSameValues(IndicatorValues expected, IndicatorValues actual, String at) {
+        assertEquals(expected.getTimestamp(), actual.getTimestamp(), at);
+        assertEquals(expected.getClose(), actual.getClose(), at);
+        assertClose(expected.getEma(), actual.getEma(), "ema at " + at);
+        assertClose(expected.getRsi(), actual.getRsi(), "rsi at " + at);
+        assertClose(expected.getAtr(), actual.getAtr(), "atr at " + at);
+        assertClose(expected.getBollingerMiddle(), actual.getBollingerMiddle(), "bollinger middle at " + at);
+        assertClose(expected.getBollingerUpper(), actual.getBollingerUpper(), "bollinger upper at " + at);
+        assertClose(expected.getBollingerLower(), actual.getBollingerLower(), "bollinger lower at " + at);
+        assertClose(expected.getVwap(), actual.getVwap(), "vwap at " + at);
+    }
+
+    /**
+     * Equal up to rounding relative to the magnitude, or both NaN
+     */
+    private static void assertClose(double expected, double actual, String what) {
+        if (Double.isNaN(expected) || Double.isNaN(actual)) {
+            assertEquals(Double.isNaN(expected), Double.isNaN(actual), what + ": " + expected + " vs " + actual);
+            return;
+        }
+        assertEquals(expected, actual, TOLERANCE * Math.max(1, Math.abs(expected)), what);
+    }
+}
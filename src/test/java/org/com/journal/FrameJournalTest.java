@@ -0,0 +1,126 @@
+package org.com.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FrameJournalTest {
+    // Small chunks so a few dozen frames roll over several times
+    private static final int CHUNK_BYTES = 256;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackEveryFrameWithItsReceiveTimes() {
+        Path path = directory.resolve("frames.journal");
+        List<String> frames = new ArrayList<>();
+        try (FrameJournal journal = new FrameJournal(path, CHUNK_BYTES)) {
+            for (int i = 0; i < 50; i++) {
+                String frame = "{\"seq\":" + i + ",\"pad\":\"" + "x".repeat(i % 40) + "\"}";
+                frames.add(frame);
+                if (i % 2 == 0) {
+                    journal.append(frame, 1_000L + i, 2_000L + i);
+                } else {
+                    ByteBuffer bytes = ByteBuffer.wrap(frame.getBytes(StandardCharsets.UTF_8));
+                    journal.append(bytes, 1_000L + i, 2_000L + i);
+                    assertEquals(0, bytes.position());
+                }
+            }
+            assertEquals(50, journal.getFrames());
+        }
+
+        List<Record> read = read(path);
+        assertEquals(frames.size(), read.size());
+        for (int i = 0; i < frames.size(); i++) {
+            assertEquals(new Record(frames.get(i), 1_000L + i, 2_000L + i), read.get(i));
+        }
+    }
+
+    @Test
+    void nonAsciiFramesAreWrittenAsUtf8() {
+        Path path = directory.resolve("frames.journal");
+        // Leaves 36 bytes in the first chunk: room for the accented frame at a byte per char (35) but not for its
+        // UTF-8 bytes (38), so the record is rewritten in the next chunk
+        String ascii = "a".repeat(CHUNK_BYTES - FrameJournal.FILE_HEADER_BYTES - 2 * FrameJournal.RECORD_HEADER_BYTES - 16);
+        String accented = "{\"symbol\":\"é€\"}";
+        String spanning = "é".repeat(6);
+        try (FrameJournal journal = new FrameJournal(path, CHUNK_BYTES)) {
+            journal.append(ascii, 1, 1);
+            journal.append(accented, 2, 2);
+            journal.append(spanning, 3, 3);
+            journal.append("{}", 4, 4);
+        }
+
+        List<Record> read = read(path);
+        assertEquals(List.of(new Record(ascii, 1, 1), new Record(accented, 2, 2), new Record(spanning, 3, 3),
+                new Record("{}", 4, 4)), read);
+    }
+
+    @Test
+    void stopsAtATornLastRecord() throws IOException {
+        Path path = directory.resolve("frames.journal");
+        try (FrameJournal journal = new FrameJournal(path, CHUNK_BYTES)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append("{\"seq\":" + i + "}", i, i);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        List<Record> read = read(path);
+        assertEquals(9, read.size());
+        assertEquals("{\"seq\":8}", read.get(8).frame());
+    }
+
+    @Test
+    void readsAJournalThatWasNeverClosed() {
+        Path path = directory.resolve("frames.journal");
+        FrameJournal journal = new FrameJournal(path, CHUNK_BYTES);
+        try {
+            for (int i = 0; i < 20; i++) {
+                journal.append("{\"seq\":" + i + "}", i, i);
+            }
+            journal.flush();
+            // The mapped tail is zero-filled, which ends the journal
+            assertEquals(20, read(path).size());
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    void rejectsFramesLargerThanAChunkAndFilesThatAreNotJournals() throws IOException {
+        Path path = directory.resolve("frames.journal");
+        try (FrameJournal journal = new FrameJournal(path, CHUNK_BYTES)) {
+            assertThrows(IllegalArgumentException.class, () -> journal.append("x".repeat(CHUNK_BYTES), 0, 0));
+        }
+
+        Path other = directory.resolve("other.txt");
+        Files.writeString(other, "not a journal at all");
+        assertThrows(IllegalArgumentException.class, () -> new FrameJournalReader(other).replay((frame, nanos, millis) -> { }));
+    }
+
+    private static List<Record> read(Path path) {
+        List<Record> records = new ArrayList<>();
+        long frames = new FrameJournalReader(path)
+                .replay((frame, receiveNanos, receiveMillis) -> records.add(new Record(frame, receiveNanos, receiveMillis)));
+        assertEquals(records.size(), frames);
+        return records;
+    }
+
+    private record Record(String frame, long receiveNanos, long receiveMillis) {
+    }
+}
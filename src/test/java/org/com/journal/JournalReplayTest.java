@@ -0,0 +1,87 @@
+package org.com.journal;
+
+import org.com.config.AppConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replaying the same journal must always yield the same candles, whatever the shard threads' timing
+ */
+class JournalReplayTest {
+    private static final List<String> SYMBOLS = List.of("BTC/USD", "ETH/USD", "SOL/USD");
+    private static final long START_MILLIS = 1_700_000_000_000L;
+    private static final int FRAMES = 6_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayingAJournalTwiceYieldsTheSameCandles() {
+        Path path = directory.resolve("frames.journal");
+        record(path);
+
+        JournalReplay replay = new JournalReplay(config());
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        assertEquals(SYMBOLS.size() + FRAMES, replay.replay(path, 0, candle -> first.add(candle.toString())));
+        assertEquals(SYMBOLS.size() + FRAMES, replay.replay(path, 0, candle -> second.add(candle.toString())));
+
+        // Ticks span five minutes, each of which closes a candle per symbol
+        assertTrue(first.size() >= 5 * SYMBOLS.size(), "expected candles for every minute, got " + first.size());
+        assertEquals(first, second);
+    }
+
+    private static void record(Path path) {
+        SplittableRandom random = new SplittableRandom(7);
+        try (FrameJournal journal = new FrameJournal(path, 64 * 1024)) {
+            for (String symbol : SYMBOLS) {
+                journal.append(snapshot(symbol), 0, START_MILLIS);
+            }
+            // Five minutes of updates, 50 ms apart
+            for (int i = 0; i < FRAMES; i++) {
+                long receiveMillis = START_MILLIS + i * 50L;
+                String symbol = SYMBOLS.get(random.nextInt(SYMBOLS.size()));
+                boolean bid = random.nextBoolean();
+                // Bids trade in 90-100 and asks in 101-111; a third of the changes delete a level
+                int price = bid ? 90 + random.nextInt(11) : 101 + random.nextInt(11);
+                String quantity = random.nextInt(3) == 0 ? "0" : Integer.toString(1 + random.nextInt(9));
+                journal.append(update(symbol, bid, price, quantity), (receiveMillis - START_MILLIS) * 1_000_000L,
+                        receiveMillis);
+            }
+        }
+    }
+
+    private static String snapshot(String symbol) {
+        StringBuilder bids = new StringBuilder();
+        StringBuilder asks = new StringBuilder();
+        for (int level = 0; level < 10; level++) {
+            bids.append(level == 0 ? "" : ",").append("{\"price\":").append(100 - level).append(",\"qty\":1}");
+            asks.append(level == 0 ? "" : ",").append("{\"price\":").append(101 + level).append(",\"qty\":1}");
+        }
+        return "{\"channel\":\"book\",\"type\":\"snapshot\",\"data\":[{\"symbol\":\"" + symbol + "\",\"bids\":[" + bids
+                + "],\"asks\":[" + asks + "]}]}";
+    }
+
+    private static String update(String symbol, boolean bid, int price, String quantity) {
+        String level = "[{\"price\":" + price + ",\"qty\":" + quantity + "}]";
+        return "{\"channel\":\"book\",\"type\":\"update\",\"data\":[{\"symbol\":\"" + symbol + "\",\"bids\":"
+                + (bid ? level : "[]") + ",\"asks\":" + (bid ? "[]" : level) + "}]}";
+    }
+
+    private static AppConfig config() {
+        Properties properties = new Properties();
+        properties.setProperty("kraken.instrument", String.join(",", SYMBOLS));
+        properties.setProperty("kraken.workers", "2");
+        properties.setProperty("candle.timeframes", "1m,5m");
+        properties.setProperty("pipeline.ring.size", "256");
+        return new AppConfig(properties);
+    }
+}
@@ -0,0 +1,203 @@
+package org.com.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.com.model.Candle;
+import org.com.model.Timeframe;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Drives the poll loop against a {@link MockConsumer} that redelivers a rewound partition, as a broker does
+ */
+class CandleKafkaConsumerTest {
+    private static final TopicPartition FIRST = new TopicPartition("candle-data", 0);
+    private static final TopicPartition SECOND = new TopicPartition("candle-data", 1);
+
+    private final RedeliveringConsumer mock = new RedeliveringConsumer();
+    private CandleKafkaConsumer consumer;
+
+    @AfterEach
+    void close() {
+        if (consumer != null) {
+            consumer.close();
+        }
+    }
+
+    @Test
+    void commitsOnlyAfterTheSinkProcessedThePoll() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Map<Integer, List<Long>> received = new ConcurrentHashMap<>();
+        start((partition, candles) -> {
+            if (partition == 0) {
+                started.countDown();
+                release.await(30, TimeUnit.SECONDS);
+            }
+            candles.forEach(candle -> received.computeIfAbsent(partition, key -> new CopyOnWriteArrayList<>())
+                    .add(candle.getTimestamp()));
+        });
+        // Both partitions arrive in the same poll
+        mock.schedulePollTask(() -> {
+            addRecords(FIRST, 0, 3);
+            addRecords(SECOND, 0, 2);
+        });
+
+        // The poll thread waits for every partition of the poll, so nothing commits while one is still processing
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertNull(committed(FIRST));
+        assertNull(committed(SECOND));
+
+        release.countDown();
+        awaitTrue(() -> committed(FIRST) != null && committed(SECOND) != null);
+        assertEquals(3, committed(FIRST).offset());
+        assertEquals(2, committed(SECOND).offset());
+        assertEquals(List.of(0L, 60L, 120L), received.get(0));
+        assertEquals(List.of(0L, 60L), received.get(1));
+        assertEquals(5, consumer.getConsumedRecords());
+    }
+
+    @Test
+    void rewindsAndPausesAFailedPartitionThenRetriesIt() {
+        AtomicInteger attempts = new AtomicInteger();
+        List<List<Long>> batches = new CopyOnWriteArrayList<>();
+        start((partition, candles) -> {
+            if (partition != 0) {
+                return;
+            }
+            batches.add(candles.stream().map(Candle::getTimestamp).toList());
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("store unavailable");
+            }
+        });
+        addRecords(FIRST, 0, 3);
+        addRecords(SECOND, 0, 2);
+
+        awaitTrue(() -> committed(FIRST) != null && committed(SECOND) != null);
+        assertEquals(3, committed(FIRST).offset());
+        assertEquals(2, committed(SECOND).offset());
+        // The retry starts again from the batch's first offset
+        assertEquals(List.of(List.of(0L, 60L, 120L), List.of(0L, 60L, 120L)), batches);
+        assertEquals(List.of(0L), mock.rewinds.get(FIRST));
+        assertTrue(mock.paused().isEmpty());
+        assertEquals(1, consumer.getFailedBatches());
+        assertEquals(0, consumer.getDeadLetteredBatches());
+    }
+
+    @Test
+    void deadLettersABatchThatKeepsFailingAndMovesOn() {
+        AtomicInteger attempts = new AtomicInteger();
+        List<Long> later = new CopyOnWriteArrayList<>();
+        start((partition, candles) -> {
+            if (candles.get(0).getTimestamp() == 0) {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("poison candle");
+            }
+            candles.forEach(candle -> later.add(candle.getTimestamp()));
+        });
+        addRecords(FIRST, 0, 2);
+
+        awaitTrue(() -> committed(FIRST) != null);
+        assertEquals(2, committed(FIRST).offset());
+        assertEquals(8, attempts.get());
+        assertEquals(8, consumer.getFailedBatches());
+        assertEquals(1, consumer.getDeadLetteredBatches());
+
+        // Records after the dead-lettered batch are processed normally
+        addRecords(FIRST, 2, 2);
+        awaitTrue(() -> committed(FIRST).offset() == 4);
+        assertEquals(List.of(120L, 180L), later);
+    }
+
+    private void start(CandleSink sink) {
+        consumer = new CandleKafkaConsumer(mock, sink, 1);
+        mock.updateBeginningOffsets(Map.of(FIRST, 0L, SECOND, 0L));
+        mock.schedulePollTask(() -> mock.rebalance(List.of(FIRST, SECOND)));
+        consumer.startConsuming();
+        awaitTrue(() -> mock.assignment().size() == 2);
+    }
+
+    /**
+     * Adds candles whose timestamps are 60 times their offsets
+     */
+    private void addRecords(TopicPartition partition, long firstOffset, int count) {
+        for (long offset = firstOffset; offset < firstOffset + count; offset++) {
+            Candle candle = Candle.builder().symbol("BTC/USD").timeframe(Timeframe.M1).timestamp(offset * 60)
+                    .open(1).high(1).low(1).close(1).ticks(1).build();
+            mock.addRecord(new ConsumerRecord<>(partition.topic(), partition.partition(), offset, "BTC/USD", candle));
+        }
+    }
+
+    private OffsetAndMetadata committed(TopicPartition partition) {
+        return mock.committed(Set.of(partition)).get(partition);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met within 30 s");
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("interrupted");
+            }
+        }
+    }
+
+    /**
+     * MockConsumer hands out each added record once. The consumer rewinds a failed partition and pauses it, so on a
+     * pause this re-serves the partition from its rewound position, as a broker would.
+     */
+    private static final class RedeliveringConsumer extends MockConsumer<String, Candle> {
+        private final Map<TopicPartition, List<ConsumerRecord<String, Candle>>> log = new HashMap<>();
+        private final Map<TopicPartition, List<Long>> rewinds = new ConcurrentHashMap<>();
+
+        RedeliveringConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+
+        @Override
+        public synchronized void addRecord(ConsumerRecord<String, Candle> record) {
+            log.computeIfAbsent(new TopicPartition(record.topic(), record.partition()), key -> new ArrayList<>()).add(record);
+            super.addRecord(record);
+        }
+
+        @Override
+        public synchronized void pause(Collection<TopicPartition> partitions) {
+            super.pause(partitions);
+            for (TopicPartition partition : partitions) {
+                long position = position(partition);
+                rewinds.computeIfAbsent(partition, key -> new CopyOnWriteArrayList<>()).add(position);
+                for (ConsumerRecord<String, Candle> record : log.getOrDefault(partition, List.of())) {
+                    if (record.offset() >= position) {
+                        super.addRecord(record);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.com.kafka;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.com.config.AppConfig;
+import org.com.model.Candle;
+import org.com.model.IndicatorValues;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CandleKafkaProducerTest {
+    private static final SymbolRegistry SYMBOLS = new SymbolRegistry(List.of("BTC/USD", "ETH/USD"));
+    private static final List<Timeframe> TIMEFRAMES = List.of(Timeframe.M1, Timeframe.M5, Timeframe.H1);
+
+    @Test
+    void keysEverySeriesOfASymbolBySymbolSoTheyShareAPartition() {
+        MockProducer<String, Candle> mock = candleProducer(true);
+        CandleKafkaProducer producer = new CandleKafkaProducer(config(false), SYMBOLS, mock, null);
+        producer.publishCandles(closedMinute());
+
+        List<ProducerRecord<String, Candle>> sent = mock.history();
+        assertEquals(2 * TIMEFRAMES.size(), sent.size());
+        for (ProducerRecord<String, Candle> record : sent) {
+            assertEquals("candle-data", record.topic());
+            assertEquals(record.value().getSymbol(), record.key());
+        }
+        assertEquals(sent.size(), producer.getSentRecords());
+        assertEquals(0, producer.getFailedRecords());
+    }
+
+    @Test
+    void keysBySymbolAndTimeframeWhenConfigured() {
+        MockProducer<String, Candle> mock = candleProducer(true);
+        CandleKafkaProducer producer = new CandleKafkaProducer(config(true), SYMBOLS, mock, null);
+        producer.publishCandles(closedMinute());
+        // Unknown symbols are keyed the same way
+        producer.publishCandle(candle("XRP/USD", Timeframe.M5));
+
+        List<String> keys = mock.history().stream().map(ProducerRecord::key).toList();
+        assertEquals(List.of("BTC/USD@1m", "BTC/USD@5m", "BTC/USD@1h", "ETH/USD@1m", "ETH/USD@5m", "ETH/USD@1h",
+                "XRP/USD@5m"), keys);
+        // Keys are cached per series rather than rebuilt per record
+        producer.publishCandle(candle("BTC/USD", Timeframe.M5));
+        assertSame(mock.history().get(1).key(), mock.history().get(7).key());
+    }
+
+    @Test
+    void publishesAWholeCloseInOrderAndCountsEachOutcome() {
+        MockProducer<String, Candle> mock = candleProducer(false);
+        CandleKafkaProducer producer = new CandleKafkaProducer(config(false), SYMBOLS, mock, null);
+        List<Candle> candles = closedMinute();
+        producer.publishCandles(candles);
+        producer.publishCandles(List.of());
+
+        // Nothing is acknowledged until the broker answers
+        assertEquals(candles.size(), mock.history().size());
+        for (int i = 0; i < candles.size(); i++) {
+            assertSame(candles.get(i), mock.history().get(i).value());
+        }
+        assertEquals(0, producer.getSentRecords());
+
+        assertTrue(mock.errorNext(new RuntimeException("broker unavailable")));
+        while (mock.completeNext()) {
+            // drain
+        }
+        assertEquals(1, producer.getFailedRecords());
+        assertEquals(candles.size() - 1, producer.getSentRecords());
+        assertTrue(producer.getAverageSendLatencyMicros() >= 0);
+    }
+
+    @Test
+    void publishesIndicatorsOnlyWhenEnabled() {
+        MockProducer<String, IndicatorValues> indicators = new MockProducer<>(true, new StringSerializer(),
+                new IndicatorJsonSerializer());
+        CandleKafkaProducer producer = new CandleKafkaProducer(config(false), SYMBOLS, candleProducer(true), indicators);
+        IndicatorValues values = new IndicatorValues("ETH/USD", Timeframe.M5, 300, 10, 10, 50, 1, 10, 11, 9, 10);
+        producer.publishIndicators(List.of(values));
+
+        assertEquals(1, indicators.history().size());
+        assertEquals("candle-indicators", indicators.history().get(0).topic());
+        assertEquals("ETH/USD", indicators.history().get(0).key());
+
+        // Disabled: there is no indicator producer to publish to
+        CandleKafkaProducer disabled = new CandleKafkaProducer(config(false), SYMBOLS, candleProducer(true), null);
+        assertDoesNotThrow(() -> disabled.publishIndicators(List.of(values)));
+    }
+
+    private static MockProducer<String, Candle> candleProducer(boolean autoComplete) {
+        return new MockProducer<>(autoComplete, new StringSerializer(), new CandleSerializer(SYMBOLS));
+    }
+
+    private static List<Candle> closedMinute() {
+        List<Candle> candles = new ArrayList<>();
+        for (String symbol : SYMBOLS.symbols()) {
+            for (Timeframe timeframe : TIMEFRAMES) {
+                candles.add(candle(symbol, timeframe));
+            }
+        }
+        return candles;
+    }
+
+    private static Candle candle(String symbol, Timeframe timeframe) {
+        return Candle.builder().symbol(symbol).timeframe(timeframe).timestamp(3600)
+                .open(100).high(101).low(99).close(100.5).ticks(7).build();
+    }
+
+    private static AppConfig config(boolean keyByTimeframe) {
+        Properties properties = new Properties();
+        properties.setProperty("kafka.producer.key", keyByTimeframe ? "symbol-timeframe" : "symbol");
+        return new AppConfig(properties);
+    }
+}
@@ -0,0 +1,70 @@
+package org.com.kafka;
+
+import org.com.model.Candle;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.junit.jupiter.api.Test;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CandleSerializerTest {
+    private static final long MINUTE_START = 1_700_000_040L;
+
+    @Test
+    void roundTripsRegisteredSymbolWithEpochSecondInstant() {
+        SymbolRegistry symbols = new SymbolRegistry(List.of("BTC/USD", "ETH/USD"));
+        byte[] bytes = new CandleSerializer(symbols).serialize("candles", candle("ETH/USD"));
+
+        assertEquals(CandleSerializer.FIXED_SIZE, bytes.length);
+        Candle decoded = new CandleDeserializer(new SymbolRegistry(List.of("BTC/USD", "ETH/USD"))).deserialize("candles", bytes);
+        assertEquals("ETH/USD", decoded.getSymbol());
+        assertEquals(Timeframe.M5, decoded.getTimeframe());
+        assertEquals(MINUTE_START, decoded.getTimestamp());
+        assertEquals(Instant.ofEpochSecond(MINUTE_START), decoded.getTimestampAsInstant());
+        assertEquals(101.5, decoded.getClose());
+        assertEquals(7, decoded.getTicks());
+    }
+
+    @Test
+    void rejectsSymbolIdsFromADifferentRegistry() {
+        byte[] bytes = new CandleSerializer(new SymbolRegistry(List.of("BTC/USD", "ETH/USD"))).serialize("candles", candle("ETH/USD"));
+
+        assertNull(new CandleDeserializer(new SymbolRegistry(List.of("ETH/USD", "BTC/USD"))).deserialize("candles", bytes));
+        assertNull(new CandleDeserializer(new SymbolRegistry(List.of("BTC/USD", "ETH/USD", "SOL/USD"))).deserialize("candles", bytes));
+    }
+
+    @Test
+    void inlinedSymbolsDoNotDependOnTheRegistry() {
+        byte[] bytes = new CandleSerializer(new SymbolRegistry(List.of("BTC/USD"))).serialize("candles", candle("DOGE/USD"));
+
+        Candle decoded = new CandleDeserializer(new SymbolRegistry(List.of("ETH/USD"))).deserialize("candles", bytes);
+        assertEquals("DOGE/USD", decoded.getSymbol());
+        assertEquals(Instant.ofEpochSecond(MINUTE_START), decoded.getTimestampAsInstant());
+    }
+
+    @Test
+    void jsonCandlesGetAnEpochSecondInstant() {
+        byte[] json = ("{\"symbol\":\"BTC/USD\",\"timeframe\":\"1m\",\"timestamp\":" + MINUTE_START
+                + ",\"open\":1,\"high\":2,\"low\":0.5,\"close\":1.5,\"ticks\":3}").getBytes();
+
+        Candle decoded = new CandleDeserializer(new SymbolRegistry(List.of("BTC/USD"))).deserialize("candles", json);
+        assertEquals(MINUTE_START, decoded.getTimestamp());
+        assertEquals(Instant.ofEpochSecond(MINUTE_START), decoded.getTimestampAsInstant());
+    }
+
+    private static Candle candle(String symbol) {
+        Candle candle = new Candle();
+        candle.setSymbol(symbol);
+        candle.setTimeframe(Timeframe.M5);
+        candle.setTimestamp(MINUTE_START);
+        candle.setOpen(100);
+        candle.setHigh(102.25);
+        candle.setLow(99.75);
+        candle.setClose(101.5);
+        candle.setTicks(7);
+        return candle;
+    }
+}
@@ -0,0 +1,102 @@
+package org.com.kafka;
+
+import org.com.pipeline.TickRing;
+import org.com.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TickBatchTest {
+
+    @Test
+    void decodesEveryFieldOfEveryTick() {
+        TickBatch batch = new TickBatch(4);
+        batch.onTick(0, 1_700_000_000_000_001L, 1_700_000_000_000_500L, FixedPoint.toFixed(30_000.5), FixedPoint.toFixed(30_001), 30_000.75);
+        batch.onTick(40_000, 1_700_000_000_100_000L, 1_700_000_000_100_250L, FixedPoint.toFixed(0.00000001), FixedPoint.toFixed(0.00000003), 0.00000002);
+        assertEquals(2, batch.size());
+        assertEquals(2, batch.remaining());
+
+        byte[] value = batch.toBytes();
+        assertEquals(TickBatch.HEADER_BYTES + 2 * TickBatch.TICK_BYTES, value.length);
+        List<long[]> ticks = new ArrayList<>();
+        List<Double> mids = new ArrayList<>();
+        assertEquals(2, TickBatch.decode(value, (symbolId, exchangeMicros, receiveMicros, bid, ask, mid) -> {
+            ticks.add(new long[]{symbolId, exchangeMicros, receiveMicros, bid, ask});
+            mids.add(mid);
+        }));
+
+        assertArrayEquals(new long[]{0, 1_700_000_000_000_001L, 1_700_000_000_000_500L, FixedPoint.toFixed(30_000.5),
+                FixedPoint.toFixed(30_001)}, ticks.get(0));
+        assertArrayEquals(new long[]{40_000, 1_700_000_000_100_000L, 1_700_000_000_100_250L, 1, 3}, ticks.get(1));
+        assertEquals(List.of(30_000.75, 0.00000002), mids);
+    }
+
+    @Test
+    void clearedBatchIsReusedWithoutEarlierTicks() {
+        TickBatch batch = new TickBatch(3);
+        for (int i = 0; i < 3; i++) {
+            batch.onTick(i, i, i, i, i, i);
+        }
+        assertEquals(0, batch.remaining());
+        batch.toBytes();
+        batch.clear();
+
+        assertEquals(0, TickBatch.decode(batch.toBytes(), (symbolId, exchangeMicros, receiveMicros, bid, ask, mid) -> {
+            throw new AssertionError("empty batch decoded a tick");
+        }));
+        batch.onTick(7, 70, 71, 72, 73, 74.5);
+        List<Integer> symbols = new ArrayList<>();
+        assertEquals(1, TickBatch.decode(batch.toBytes(), (symbolId, exchangeMicros, receiveMicros, bid, ask, mid) -> symbols.add(symbolId)));
+        assertEquals(List.of(7), symbols);
+    }
+
+    @Test
+    void ringDrainedIntoBatchesRoundTrips() {
+        TickRing ring = new TickRing(64);
+        for (int i = 0; i < 50; i++) {
+            ring.offer(i % 3, 1_000L * i, 1_000L * i + 7, FixedPoint.toFixed(100 + i), FixedPoint.toFixed(101 + i), 100.5 + i);
+        }
+
+        // Drained the way the publisher does, batch by batch until the ring is empty
+        TickBatch batch = new TickBatch(16);
+        List<byte[]> values = new ArrayList<>();
+        while (ring.drainTo(batch, batch.remaining()) > 0) {
+            if (batch.remaining() == 0) {
+                values.add(batch.toBytes());
+                batch.clear();
+            }
+        }
+        values.add(batch.toBytes());
+        assertEquals(4, values.size());
+
+        int[] next = new int[1];
+        for (byte[] value : values) {
+            TickBatch.decode(value, (symbolId, exchangeMicros, receiveMicros, bid, ask, mid) -> {
+                int i = next[0]++;
+                assertEquals(i % 3, symbolId);
+                assertEquals(1_000L * i, exchangeMicros);
+                assertEquals(1_000L * i + 7, receiveMicros);
+                assertEquals(FixedPoint.toFixed(100 + i), bid);
+                assertEquals(FixedPoint.toFixed(101 + i), ask);
+                assertEquals(100.5 + i, mid);
+            });
+        }
+        assertEquals(50, next[0]);
+    }
+
+    @Test
+    void rejectsOtherRecords() {
+        byte[] value = new TickBatch(1).toBytes();
+        value[0] = CandleSerializer.MAGIC;
+        assertThrows(IllegalArgumentException.class, () -> TickBatch.decode(value, (a, b, c, d, e, f) -> { }));
+
+        byte[] future = new TickBatch(1).toBytes();
+        future[1] = TickBatch.VERSION + 1;
+        assertThrows(IllegalArgumentException.class, () -> TickBatch.decode(future, (a, b, c, d, e, f) -> { }));
+        assertThrows(IllegalArgumentException.class, () -> TickBatch.decode(new byte[3], (a, b, c, d, e, f) -> { }));
+    }
+}
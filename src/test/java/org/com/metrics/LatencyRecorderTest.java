@@ -0,0 +1,96 @@
+package org.com.metrics;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Latency and counter recording sits on the ingest hot path, so once warm it must not allocate;
+ * readers see the values recorded since the previous refresh
+ */
+class LatencyRecorderTest {
+    // Room for the counter's own bookkeeping, far below one allocation per operation
+    private static final long SLACK_BYTES = 1024;
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeAll
+    static void enableAllocationCounting() {
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isThreadAllocatedMemorySupported(), "allocation counting not supported by this JVM");
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    void recordingDoesNotAllocate() {
+        IngestMetrics metrics = IngestMetrics.get();
+        int operations = 1_000_000;
+        record(metrics, operations);
+
+        long before = allocatedBytes();
+        record(metrics, operations);
+        long allocated = allocatedBytes() - before;
+
+        assertTrue(allocated <= SLACK_BYTES, allocated + " bytes allocated by " + operations + " recordings");
+    }
+
+    @Test
+    void refreshSwapsInTheValuesRecordedSinceThePreviousOne() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        assertEquals(0, recorder.getPercentileNanos(50));
+        for (int micros = 1; micros <= 1000; micros++) {
+            recorder.record(micros * 1000L);
+        }
+        recorder.refresh();
+        assertEquals(1000, recorder.getIntervalCount());
+        assertEquals(1000, recorder.getTotalCount());
+        // Three significant digits
+        assertEquals(500_000, recorder.getPercentileNanos(50), 500);
+        assertEquals(990_000, recorder.getPercentileNanos(99), 990);
+        assertEquals(1_000_000, recorder.getMaxNanos(), 1000);
+
+        recorder.record(5);
+        recorder.record(-5);
+        recorder.refresh();
+        assertEquals(2, recorder.getIntervalCount());
+        assertEquals(1002, recorder.getTotalCount());
+        assertEquals(5, recorder.getMaxNanos());
+
+        recorder.refresh();
+        assertEquals(0, recorder.getIntervalCount());
+        assertEquals(0, recorder.getMaxNanos());
+        assertEquals(1002, recorder.getTotalCount());
+    }
+
+    @Test
+    void clampsValuesBeyondTheTrackableRange() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record(Long.MAX_VALUE);
+        recorder.refresh();
+        assertEquals(1, recorder.getIntervalCount());
+        assertEquals(60_000_000_000L, recorder.getMaxNanos(), 60_000_000);
+    }
+
+    /**
+     * Records what a book shard records per frame: every latency stage plus the message and tick counters
+     */
+    private static void record(IngestMetrics metrics, int operations) {
+        LatencyStage[] stages = LatencyStage.values();
+        for (int i = 0; i < operations; i++) {
+            metrics.latency(stages[i % stages.length]).record(i * 997L);
+            metrics.latency(LatencyStage.BOOK_APPLY).recordSince(System.nanoTime() - i);
+            metrics.recordMessage();
+            metrics.recordTick();
+            if ((i & 1023) == 0) {
+                metrics.recordDrop();
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
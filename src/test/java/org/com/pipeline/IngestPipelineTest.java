@@ -0,0 +1,237 @@
+package org.com.pipeline;
+
+import org.com.model.SymbolRegistry;
+import org.com.service.BookUpdateListener;
+import org.com.util.FixedPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestPipelineTest {
+    private static final int SYMBOL_COUNT = 8;
+    private static final SymbolRegistry SYMBOLS = new SymbolRegistry(
+            IntStream.range(0, SYMBOL_COUNT).mapToObj(IngestPipelineTest::symbol).toList());
+
+    private IngestPipeline pipeline;
+
+    @AfterEach
+    void shutdown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    void eachShardAppliesItsSymbolsInArrivalOrder() {
+        // Even symbols on one shard, odd on the other, decoded by three threads out of order
+        Shard even = new Shard(0);
+        Shard odd = new Shard(1);
+        pipeline = new IngestPipeline(64, 3, WaitStrategy.YIELD, SYMBOLS, List.of(even, odd));
+        pipeline.start();
+
+        int frames = 20_000;
+        for (int sequence = 0; sequence < frames; sequence++) {
+            pipeline.publish(frame(sequence % SYMBOL_COUNT, sequence));
+        }
+        pipeline.awaitApplied();
+
+        assertEquals(frames, pipeline.getPublishedFrames());
+        assertEquals(0, pipeline.getApplyQueueDepth());
+        assertEquals(frames / 2, even.applied.size());
+        assertEquals(frames / 2, odd.applied.size());
+        for (Shard shard : List.of(even, odd)) {
+            long previous = -1;
+            for (long[] event : shard.applied) {
+                assertEquals(shard.parity, (int) event[0] % 2, "symbol applied by the wrong shard");
+                assertEquals(event[1] % SYMBOL_COUNT, event[0], "events of one frame mixed up");
+                assertTrue(event[1] > previous, "frame " + event[1] + " applied after " + previous);
+                previous = event[1];
+            }
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    void publisherWaitsForTheSlowestShardWhenTheRingIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Shard slow = new Shard(0) {
+            @Override
+            public void accept(DecodedFrame frame) {
+                await(release);
+                super.accept(frame);
+            }
+        };
+        Shard fast = new Shard(1);
+        pipeline = new IngestPipeline(16, 2, WaitStrategy.YIELD, SYMBOLS, List.of(slow, fast));
+        pipeline.start();
+        long waitsBefore = pipeline.getBackpressureWaits();
+
+        int frames = 100;
+        Thread publisher = new Thread(() -> {
+            for (int sequence = 0; sequence < frames; sequence++) {
+                pipeline.publish(frame(sequence % SYMBOL_COUNT, sequence));
+            }
+            pipeline.awaitApplied();
+        });
+        publisher.start();
+
+        // The slow shard holds the first frame, so the publisher can fill the ring and no more
+        while (pipeline.getBackpressureWaits() == waitsBefore) {
+            Thread.yield();
+        }
+        assertEquals(pipeline.getCapacity(), pipeline.getPublishedFrames());
+        assertTrue(publisher.isAlive());
+
+        release.countDown();
+        publisher.join();
+        assertEquals(frames, pipeline.getPublishedFrames());
+        assertEquals(frames / 2, slow.applied.size());
+        assertEquals(frames / 2, fast.applied.size());
+    }
+
+    @Test
+    @Timeout(60)
+    void quiescedActionSeesEveryPublishedFrameAppliedAndNothingMoving() throws InterruptedException {
+        Shard even = new Shard(0);
+        Shard odd = new Shard(1);
+        pipeline = new IngestPipeline(64, 2, WaitStrategy.YIELD, SYMBOLS, List.of(even, odd));
+        pipeline.start();
+
+        int frames = 20_000;
+        Thread publisher = new Thread(() -> {
+            for (int sequence = 0; sequence < frames; sequence++) {
+                pipeline.publish(frame(sequence % SYMBOL_COUNT, sequence));
+            }
+        });
+        publisher.start();
+
+        List<String> failures = new ArrayList<>();
+        int rounds = 0;
+        while (publisher.isAlive() || rounds == 0) {
+            // Let the publisher get ahead between rounds, so the action lands in the middle of the stream
+            long resumedAt = pipeline.getPublishedFrames();
+            while (publisher.isAlive() && pipeline.getPublishedFrames() < resumedAt + 500) {
+                Thread.yield();
+            }
+            pipeline.runQuiesced(() -> {
+                long published = pipeline.getPublishedFrames();
+                int applied = even.count + odd.count;
+                if (applied != published) {
+                    failures.add(published + " published but " + applied + " applied");
+                }
+                // Neither the publisher nor a shard may move while the action runs
+                for (int i = 0; i < 20; i++) {
+                    Thread.yield();
+                }
+                if (pipeline.getPublishedFrames() != published || even.count + odd.count != applied) {
+                    failures.add("pipeline moved during the action at " + published);
+                }
+            });
+            rounds++;
+        }
+        publisher.join();
+        pipeline.awaitApplied();
+
+        assertEquals(List.of(), failures);
+        assertTrue(rounds > 1, "expected several quiesced rounds while publishing");
+        assertEquals(frames, even.count + odd.count);
+    }
+
+    @Test
+    @Timeout(60)
+    void undecodableFramesAreSkippedWithoutStallingTheRing() {
+        Shard even = new Shard(0);
+        Shard odd = new Shard(1);
+        pipeline = new IngestPipeline(16, 2, WaitStrategy.YIELD, SYMBOLS, List.of(even, odd));
+        pipeline.start();
+        long failuresBefore = pipeline.getDecodeFailures();
+
+        pipeline.publish(frame(0, 0));
+        pipeline.publish("{\"channel\":\"book\",\"type\":\"update\",\"data\":[{\"symbol\":\"" + symbol(2)
+                + "\",\"bids\":[{\"price\":1.5x,\"qty\":1}]}]}");
+        for (int sequence = 2; sequence < 40; sequence++) {
+            pipeline.publish(frame(sequence % SYMBOL_COUNT, sequence));
+        }
+        pipeline.awaitApplied();
+
+        assertEquals(failuresBefore + 1, pipeline.getDecodeFailures());
+        // The broken frame took the place of the first odd symbol's frame
+        assertEquals(20, even.applied.size());
+        assertEquals(19, odd.applied.size());
+    }
+
+    @Test
+    void rejectsRingSizesThatAreNotPowersOfTwo() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new IngestPipeline(100, 1, WaitStrategy.YIELD, SYMBOLS, List.of(new Shard(0))));
+    }
+
+    private static String symbol(int id) {
+        return "S" + id + "/USD";
+    }
+
+    /**
+     * A one-level update whose bid price carries the frame's sequence number
+     */
+    private static String frame(int symbolId, long sequence) {
+        return "{\"channel\":\"book\",\"type\":\"update\",\"data\":[{\"symbol\":\"" + symbol(symbolId)
+                + "\",\"bids\":[{\"price\":" + sequence + ",\"qty\":1}],\"asks\":[]}]}";
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Applies the symbols of one parity, recording {symbol, sequence} per frame on its applier thread
+     */
+    private static class Shard implements Consumer<DecodedFrame>, BookUpdateListener {
+        private final int parity;
+        private final List<long[]> applied = new ArrayList<>();
+        private volatile int count;
+        private int symbolId;
+
+        Shard(int parity) {
+            this.parity = parity;
+        }
+
+        @Override
+        public void accept(DecodedFrame frame) {
+            frame.replay(this, id -> id % 2 == parity);
+        }
+
+        @Override
+        public void onBookStart(int symbolId, boolean snapshot) {
+            this.symbolId = symbolId;
+        }
+
+        @Override
+        public void onBid(long price, long quantity) {
+            applied.add(new long[]{symbolId, price / FixedPoint.SCALE});
+        }
+
+        @Override
+        public void onAsk(long price, long quantity) {
+        }
+
+        @Override
+        public void onBookEnd() {
+            count++;
+        }
+    }
+}
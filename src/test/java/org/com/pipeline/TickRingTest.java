@@ -0,0 +1,81 @@
+package org.com.pipeline;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickRingTest {
+
+    @Test
+    void dropsTicksOfferedToAFullRingAndKeepsTheOlderOnes() {
+        TickRing ring = new TickRing(8);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(ring.offer(1, i, i, i, i, i));
+        }
+        assertFalse(ring.offer(1, 8, 8, 8, 8, 8));
+        assertEquals(1, ring.getDropped());
+
+        List<Long> drained = new ArrayList<>();
+        TickConsumer collect = (symbolId, exchangeMicros, receiveMicros, bid, ask, mid) -> drained.add(exchangeMicros);
+        assertEquals(3, ring.drainTo(collect, 3));
+        // The freed slots take new ticks, which wrap around the ring behind the ones still queued
+        for (int i = 9; i < 12; i++) {
+            assertTrue(ring.offer(1, i, i, i, i, i));
+        }
+        int remaining = 0;
+        for (int count; (count = ring.drainTo(collect, 100)) > 0; ) {
+            remaining += count;
+        }
+        assertEquals(8, remaining);
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 9L, 10L, 11L), drained);
+    }
+
+    @Test
+    void rejectsCapacitiesThatAreNotPowersOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TickRing(100));
+        assertEquals(128, new TickRing(128).capacity());
+    }
+
+    @Test
+    @Timeout(30)
+    void concurrentConsumerSeesTicksInOrderAndEveryLossIsCounted() throws InterruptedException {
+        TickRing ring = new TickRing(1024);
+        int ticks = 2_000_000;
+        long[] received = new long[1];
+        long[] last = {-1};
+        boolean[] done = new boolean[1];
+        Thread consumer = new Thread(() -> {
+            TickConsumer check = (symbolId, exchangeMicros, receiveMicros, bid, ask, mid) -> {
+                if (exchangeMicros <= last[0] || receiveMicros != exchangeMicros + 1 || bid != 2 * exchangeMicros
+                        || ask != bid + 1 || mid != exchangeMicros + 0.5 || symbolId != (int) (exchangeMicros & 7)) {
+                    throw new AssertionError("torn or reordered tick " + exchangeMicros + " after " + last[0]);
+                }
+                last[0] = exchangeMicros;
+                received[0]++;
+            };
+            while (!done[0] || ring.drainTo(check, 256) > 0) {
+                if (ring.drainTo(check, 256) == 0) {
+                    Thread.yield();
+                }
+            }
+        });
+        consumer.start();
+
+        for (long i = 0; i < ticks; i++) {
+            ring.offer((int) (i & 7), i, i + 1, 2 * i, 2 * i + 1, i + 0.5);
+        }
+        synchronized (done) {
+            done[0] = true;
+        }
+        consumer.join();
+
+        assertEquals(ticks, received[0] + ring.getDropped());
+        assertTrue(received[0] > 0);
+    }
+}
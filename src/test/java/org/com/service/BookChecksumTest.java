@@ -0,0 +1,190 @@
+package org.com.service;
+
+import org.com.client.KrakenBookDecoder;
+import org.com.model.SymbolRegistry;
+import org.com.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kraken's book checksum, checked against the values Kraken sent with the fixture messages, and what a shard does
+ * with it: learn the precision from the first snapshot, then clear and resubscribe a book that stops matching
+ */
+class BookChecksumTest {
+    private static final String SYMBOL = "BTC/USD";
+    private static final long SNAPSHOT_CHECKSUM = 2439117997L;
+    private static final long UPDATE_CHECKSUM = 2114181697L;
+
+    @Test
+    void reproducesKrakensChecksumsOfTheFixtures() throws IOException {
+        OrderBook book = new OrderBook(10);
+        BookChecksum checksum = new BookChecksum();
+        decodeInto(book, fixture("test_snapshot.json"));
+        assertEquals(10, book.getBids().size());
+        assertEquals(10, book.getAsks().size());
+        assertEquals(SNAPSHOT_CHECKSUM, checksum.compute(book, 4, 8));
+
+        decodeInto(book, fixture("test_update_bids.json"));
+        assertEquals(UPDATE_CHECKSUM, checksum.compute(book, 4, 8));
+        // Written at the wrong precision the digits differ, and so does the checksum
+        assertNotEquals(UPDATE_CHECKSUM, checksum.compute(book, 5, 8));
+    }
+
+    @Test
+    void decimalsOfIgnoresTrailingZeros() {
+        assertEquals(0, BookChecksum.decimalsOf(0));
+        assertEquals(0, BookChecksum.decimalsOf(FixedPoint.toFixed(42)));
+        assertEquals(3, BookChecksum.decimalsOf(FixedPoint.toFixed(0.566)));
+        assertEquals(4, BookChecksum.decimalsOf(FixedPoint.toFixed(0.5666)));
+        assertEquals(8, BookChecksum.decimalsOf(1));
+    }
+
+    @Test
+    void shardLearnsThePrecisionFromTheFirstSnapshot() throws IOException {
+        InstrumentState instrument = instrument();
+        List<String> resyncs = new ArrayList<>();
+        KrakenBookDecoder decoder = decoder(instrument, resyncs);
+
+        assertTrue(decoder.decode(fixture("test_snapshot.json")));
+        assertTrue(instrument.isPrecisionKnown());
+        assertEquals(4, instrument.getPricePrecision());
+        assertEquals(8, instrument.getQuantityPrecision());
+
+        assertTrue(decoder.decode(fixture("test_update_bids.json")));
+        assertEquals(0, instrument.getChecksumMismatches());
+        assertEquals(FixedPoint.toFixed(1098.3947558),
+                instrument.getOrderBook().getBids().sizeAtPrice(FixedPoint.toFixed(0.5657)));
+        assertTrue(resyncs.isEmpty());
+    }
+
+    @Test
+    void precisionHiddenByTrailingZerosIsWidenedUntilTheChecksumMatches() throws IOException {
+        // Every price happens to end in a zero at the instrument's two decimals
+        OrderBook expected = new OrderBook(10);
+        StringBuilder bids = new StringBuilder();
+        StringBuilder asks = new StringBuilder();
+        for (int level = 0; level < 10; level++) {
+            double bid = 100 - level * 0.5;
+            double ask = 100.5 + level * 0.5;
+            expected.updateBid(FixedPoint.toFixed(bid), FixedPoint.toFixed(1 + level));
+            expected.updateAsk(FixedPoint.toFixed(ask), FixedPoint.toFixed(2 + level));
+            bids.append(level == 0 ? "" : ",").append(level(bid, 1 + level));
+            asks.append(level == 0 ? "" : ",").append(level(ask, 2 + level));
+        }
+        long checksum = new BookChecksum().compute(expected, 2, 3);
+
+        InstrumentState instrument = instrument();
+        List<String> resyncs = new ArrayList<>();
+        assertTrue(decoder(instrument, resyncs).decode(snapshot(bids, asks, checksum)));
+
+        assertTrue(instrument.isPrecisionKnown());
+        assertEquals(2, instrument.getPricePrecision());
+        assertEquals(3, instrument.getQuantityPrecision());
+        assertTrue(instrument.isChecksumEnabled());
+        assertTrue(resyncs.isEmpty());
+    }
+
+    @Test
+    void mismatchClearsTheBookAndResubscribesUntilASnapshotArrives() throws IOException {
+        InstrumentState instrument = instrument();
+        List<String> resyncs = new ArrayList<>();
+        KrakenBookDecoder decoder = decoder(instrument, resyncs);
+        decoder.decode(fixture("test_snapshot.json"));
+
+        String update = fixture("test_update_bids.json");
+        decoder.decode(update.replace(Long.toString(UPDATE_CHECKSUM), Long.toString(UPDATE_CHECKSUM + 1)));
+        assertEquals(1, instrument.getChecksumMismatches());
+        assertEquals(1, instrument.getResyncs());
+        assertEquals(List.of(SYMBOL), resyncs);
+        assertTrue(instrument.isAwaitingSnapshot());
+        assertTrue(instrument.getOrderBook().isEmpty());
+        assertNull(instrument.getTopOfBook().snapshot(SYMBOL));
+
+        // Updates meanwhile would build on a book that no longer exists
+        decoder.decode(update);
+        assertTrue(instrument.getOrderBook().isEmpty());
+        assertEquals(1, resyncs.size());
+
+        decoder.decode(fixture("test_snapshot.json"));
+        assertFalse(instrument.isAwaitingSnapshot());
+        assertEquals(10, instrument.getOrderBook().getBids().size());
+        decoder.decode(update);
+        assertEquals(1, instrument.getChecksumMismatches());
+    }
+
+    @Test
+    void unreproducibleSnapshotChecksumDisablesVerificationInsteadOfResyncing() throws IOException {
+        InstrumentState instrument = instrument();
+        List<String> resyncs = new ArrayList<>();
+        KrakenBookDecoder decoder = decoder(instrument, resyncs);
+
+        decoder.decode(fixture("test_snapshot.json").replace(Long.toString(SNAPSHOT_CHECKSUM), "7"));
+        assertFalse(instrument.isChecksumEnabled());
+        assertFalse(instrument.isPrecisionKnown());
+        assertEquals(10, instrument.getOrderBook().getBids().size());
+
+        decoder.decode(fixture("test_update_bids.json").replace(Long.toString(UPDATE_CHECKSUM), "7"));
+        assertEquals(0, instrument.getChecksumMismatches());
+        assertTrue(resyncs.isEmpty());
+    }
+
+    private static InstrumentState instrument() {
+        return new InstrumentState(0, SYMBOL, 10, List.of(), new CandleGenerator(), null);
+    }
+
+    private static KrakenBookDecoder decoder(InstrumentState instrument, List<String> resyncs) {
+        BookShard shard = new BookShard(0, new InstrumentState[]{instrument});
+        shard.setResyncHandler(resyncs::add);
+        return new KrakenBookDecoder(new SymbolRegistry(List.of(SYMBOL)), shard);
+    }
+
+    private static void decodeInto(OrderBook book, String message) throws IOException {
+        new KrakenBookDecoder(new SymbolRegistry(List.of(SYMBOL)), new BookUpdateListener() {
+            @Override
+            public void onBookStart(int symbolId, boolean snapshot) {
+                if (snapshot) {
+                    book.clear();
+                }
+            }
+
+            @Override
+            public void onBid(long price, long quantity) {
+                book.updateBid(price, quantity);
+            }
+
+            @Override
+            public void onAsk(long price, long quantity) {
+                book.updateAsk(price, quantity);
+            }
+
+            @Override
+            public void onBookEnd() {
+            }
+        }).decode(message);
+    }
+
+    private static String level(double price, double quantity) {
+        return "{\"price\":" + price + ",\"qty\":" + quantity + "}";
+    }
+
+    private static String snapshot(CharSequence bids, CharSequence asks, long checksum) {
+        return "{\"channel\":\"book\",\"type\":\"snapshot\",\"data\":[{\"symbol\":\"" + SYMBOL + "\",\"bids\":[" + bids
+                + "],\"asks\":[" + asks + "],\"checksum\":" + checksum + "}]}";
+    }
+
+    private static String fixture(String name) throws IOException {
+        try (InputStream in = BookChecksumTest.class.getResourceAsStream("/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
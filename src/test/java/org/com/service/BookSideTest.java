@@ -0,0 +1,180 @@
+package org.com.service;
+
+import org.com.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookSideTest {
+
+    @Test
+    void keepsBidsDescendingAndAsksAscending() {
+        BookSide bids = new BookSide(true, 10);
+        BookSide asks = new BookSide(false, 10);
+        for (long price : new long[]{103, 101, 105, 102, 104}) {
+            bids.update(price, price * 10);
+            asks.update(price, price * 10);
+        }
+
+        assertLevels(bids, 105, 104, 103, 102, 101);
+        assertLevels(asks, 101, 102, 103, 104, 105);
+        assertEquals(105, bids.bestPrice());
+        assertEquals(1050, bids.bestQuantity());
+        assertEquals(101, asks.bestPrice());
+    }
+
+    @Test
+    void updatesReplaceTheQuantityAndZeroRemovesTheLevel() {
+        BookSide bids = new BookSide(true, 10);
+        bids.update(100, 1);
+        bids.update(99, 2);
+        bids.update(100, 5);
+        assertEquals(2, bids.size());
+        assertEquals(5, bids.sizeAtPrice(100));
+
+        bids.update(100, 0);
+        assertLevels(bids, 99);
+        assertEquals(0, bids.sizeAtPrice(100));
+        assertEquals(99, bids.bestPrice());
+
+        // Deleting a level that is not there changes nothing
+        bids.update(98, 0);
+        bids.update(100, 0);
+        assertLevels(bids, 99);
+
+        bids.update(99, 0);
+        assertTrue(bids.isEmpty());
+        assertEquals(0, bids.bestPrice());
+        assertEquals(0, bids.bestQuantity());
+    }
+
+    @Test
+    void truncatesAtTheDepth() {
+        BookSide asks = new BookSide(false, 3);
+        asks.update(10, 1);
+        asks.update(11, 1);
+        asks.update(12, 1);
+        // Worse than the worst tracked level of a full side
+        asks.update(13, 1);
+        assertLevels(asks, 10, 11, 12);
+
+        // A better level pushes the worst one out
+        asks.update(9, 1);
+        assertLevels(asks, 9, 10, 11);
+        assertEquals(0, asks.sizeAtPrice(12));
+
+        // The dropped level does not come back when room frees up
+        asks.update(9, 0);
+        assertLevels(asks, 10, 11);
+        asks.update(12, 4);
+        assertLevels(asks, 10, 11, 12);
+        assertEquals(4, asks.sizeAtPrice(12));
+    }
+
+    @Test
+    void copiesTheTopLevels() {
+        BookSide bids = new BookSide(true, 10);
+        for (long price = 1; price <= 6; price++) {
+            bids.update(price, price * 100);
+        }
+        long[] prices = new long[4];
+        long[] quantities = new long[4];
+
+        assertEquals(4, bids.topLevels(4, prices, quantities));
+        assertArrayEquals(new long[]{6, 5, 4, 3}, prices);
+        assertArrayEquals(new long[]{600, 500, 400, 300}, quantities);
+
+        bids.clear();
+        bids.update(7, 70);
+        assertEquals(1, bids.topLevels(4, prices, quantities));
+        assertEquals(7, prices[0]);
+        assertEquals(70, quantities[0]);
+    }
+
+    @Test
+    void orderBookTopOfBookFollowsDeletesOfTheBestLevel() {
+        OrderBook book = new OrderBook(5);
+        book.updateBid(FixedPoint.toFixed(100), FixedPoint.toFixed(1));
+        book.updateBid(FixedPoint.toFixed(99.5), FixedPoint.toFixed(2));
+        book.updateAsk(FixedPoint.toFixed(101), FixedPoint.toFixed(3));
+        book.updateAsk(FixedPoint.toFixed(101.5), FixedPoint.toFixed(4));
+        assertTrue(book.isValid());
+        assertEquals(100.0, book.getBestBid());
+        assertEquals(101.0, book.getBestAsk());
+        assertEquals(100.5, book.getMidPrice());
+        assertEquals(2.0, book.getBidSize(99.5));
+        assertEquals(0.0, book.getAskSize(99.5));
+
+        book.updateBid(FixedPoint.toFixed(100), 0);
+        book.updateAsk(FixedPoint.toFixed(101), 0);
+        assertEquals(99.5, book.getBestBid());
+        assertEquals(101.5, book.getBestAsk());
+        assertEquals(100.5, book.getMidPrice());
+
+        // Crossed and one-sided books are not valid and have no mid
+        book.updateBid(FixedPoint.toFixed(102), FixedPoint.toFixed(1));
+        assertFalse(book.isValid());
+        book.clear();
+        book.updateBid(FixedPoint.toFixed(100), FixedPoint.toFixed(1));
+        assertFalse(book.isValid());
+        assertEquals(0.0, book.getMidPrice());
+        assertFalse(book.isEmpty());
+    }
+
+    @Test
+    void orderBookRejectsDepthsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderBook(0));
+        assertThrows(IllegalArgumentException.class, () -> new OrderBook(OrderBook.MAX_DEPTH + 1));
+        assertEquals(OrderBook.DEFAULT_DEPTH, new OrderBook().getDepth());
+    }
+
+    @Test
+    void matchesASortedMapTruncatedToTheDepth() {
+        Random random = new Random(11);
+        for (boolean bid : new boolean[]{true, false}) {
+            int depth = 8;
+            BookSide side = new BookSide(bid, depth);
+            Comparator<Long> bookOrder = bid ? Comparator.reverseOrder() : Comparator.naturalOrder();
+            TreeMap<Long, Long> expected = new TreeMap<>(bookOrder);
+            for (int step = 0; step < 50_000; step++) {
+                long price = 1000 + random.nextInt(40);
+                long quantity = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(1000);
+                side.update(price, quantity);
+
+                if (quantity == 0) {
+                    expected.remove(price);
+                } else if (expected.containsKey(price) || expected.size() < depth
+                        || bookOrder.compare(price, expected.lastKey()) < 0) {
+                    expected.put(price, quantity);
+                    if (expected.size() > depth) {
+                        expected.pollLastEntry();
+                    }
+                }
+
+                assertEquals(expected.size(), side.size(), "size at step " + step);
+                int level = 0;
+                for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+                    assertEquals(entry.getKey(), side.priceAt(level), "price at step " + step);
+                    assertEquals(entry.getValue(), side.quantityAt(level), "quantity at step " + step);
+                    level++;
+                }
+                assertEquals(expected.getOrDefault(price, 0L), side.sizeAtPrice(price));
+            }
+        }
+    }
+
+    private static void assertLevels(BookSide side, long... prices) {
+        assertEquals(prices.length, side.size());
+        for (int level = 0; level < prices.length; level++) {
+            assertEquals(prices[level], side.priceAt(level), "level " + level);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.com.service;
+
+import org.com.kafka.CandleSerializer;
+import org.com.model.Candle;
+import org.com.model.CandlePool;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the bytes the current thread allocates on the tick and minute-close paths once they are warm.
+ * Recording a tick must not allocate at all; a close may only allocate the one array per candle that the Kafka
+ * serializer API hands back.
+ */
+class CandleAllocationTest {
+    private static final List<Timeframe> TIMEFRAMES = List.of(Timeframe.M1, Timeframe.M5, Timeframe.M15, Timeframe.H1);
+    private static final long START = 1_700_000_000L / 3600 * 3600;
+    // Room for the counter's own bookkeeping, far below one allocation per operation
+    private static final long SLACK_BYTES = 1024;
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeAll
+    static void enableAllocationCounting() {
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isThreadAllocatedMemorySupported(), "allocation counting not supported by this JVM");
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    void processingTimeTicksDoNotAllocate() {
+        CandleGenerator generator = new CandleGenerator();
+        int ticks = 1_000_000;
+        recordTicks(generator, ticks);
+
+        long before = allocatedBytes();
+        recordTicks(generator, ticks);
+        long allocated = allocatedBytes() - before;
+
+        assertTrue(allocated <= SLACK_BYTES, allocated + " bytes allocated by " + ticks + " ticks");
+    }
+
+    @Test
+    void eventTimeTicksAndClosesDoNotAllocate() {
+        CandleGenerator generator = new CandleGenerator(true, 0);
+        List<Candle> closed = new ArrayList<>();
+        int minutes = 5000;
+        recordEventTimeMinutes(generator, 0, minutes, closed);
+
+        long before = allocatedBytes();
+        recordEventTimeMinutes(generator, minutes, minutes, closed);
+        long allocated = allocatedBytes() - before;
+
+        assertTrue(allocated <= SLACK_BYTES, allocated + " bytes allocated by " + minutes + " event-time minutes");
+    }
+
+    @Test
+    void closePublishAndReleaseOnlyAllocateTheSerializedValues() {
+        SymbolRegistry symbols = new SymbolRegistry(List.of("BTC/USD"));
+        InstrumentState instrument = new InstrumentState(0, "BTC/USD", 10, TIMEFRAMES, new CandleGenerator(), null);
+        CandleHistory history = new CandleHistory(symbols, TIMEFRAMES, CandleHistory.DEFAULT_CAPACITY);
+        CandleSerializer serializer = new CandleSerializer(symbols);
+        List<Candle> closed = new ArrayList<>();
+        int minutes = 20_000;
+        closeMinutes(instrument, history, serializer, closed, 0, minutes);
+
+        long pooled = CandlePool.get().getAllocated();
+        long before = allocatedBytes();
+        long candles = closeMinutes(instrument, history, serializer, closed, minutes, minutes);
+        long allocated = allocatedBytes() - before;
+
+        assertEquals(pooled, CandlePool.get().getAllocated(), "candles created past the warm-up");
+        assertTrue(candles > minutes, "expected higher-timeframe candles as well");
+        long valueBytes = candles * arrayBytes(CandleSerializer.FIXED_SIZE);
+        assertTrue(allocated <= valueBytes + SLACK_BYTES,
+                allocated + " bytes allocated by " + candles + " candles, " + valueBytes + " of them serialized values");
+    }
+
+    private static void recordTicks(CandleGenerator generator, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            generator.recordTick(100 + (i & 1023) * 0.01);
+        }
+    }
+
+    private static void recordEventTimeMinutes(CandleGenerator generator, int firstMinute, int minutes, List<Candle> closed) {
+        for (int minute = firstMinute; minute < firstMinute + minutes; minute++) {
+            long minuteMillis = (START + minute * 60L) * 1000;
+            for (int i = 0; i < 20; i++) {
+                generator.recordTick(100 + i * 0.5, minuteMillis + i * 3000L);
+            }
+            // The watermark is only at the new minute, so this closes the one before
+            generator.recordTick(101, minuteMillis + 60_000);
+            generator.closeEventTimeCandles("BTC/USD", 0, closed);
+            CandlePool.get().releaseAll(closed);
+            closed.clear();
+        }
+    }
+
+    /**
+     * @return the candles closed, 1m and higher timeframes
+     */
+    private static long closeMinutes(InstrumentState instrument, CandleHistory history, CandleSerializer serializer,
+                                     List<Candle> closed, int firstMinute, int minutes) {
+        long candles = 0;
+        for (int minute = firstMinute; minute < firstMinute + minutes; minute++) {
+            for (int i = 0; i < 20; i++) {
+                instrument.getCandleGenerator().recordTick(100 + i * 0.5);
+            }
+            instrument.closeMinute(START + minute * 60L, closed);
+            history.addAll(closed);
+            for (int i = 0; i < closed.size(); i++) {
+                if (serializer.serialize("candles", closed.get(i)).length != CandleSerializer.FIXED_SIZE) {
+                    throw new AssertionError("unexpected value size");
+                }
+            }
+            candles += closed.size();
+            CandlePool.get().releaseAll(closed);
+            closed.clear();
+        }
+        return candles;
+    }
+
+    private static long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return heap bytes of a byte array, assuming a 16-byte header and 8-byte alignment
+     */
+    private static long arrayBytes(int length) {
+        return (16 + length + 7) / 8 * 8;
+    }
+}
@@ -0,0 +1,214 @@
+package org.com.service;
+
+import org.com.model.Candle;
+import org.com.model.CandlePool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stresses the double buffer: every writer thread owns a generator, as a book shard does, while closer threads
+ * flip all of them while the ticks arrive. No tick may be lost or counted twice across the flips.
+ */
+class CandleGeneratorTest {
+    private static final int WRITERS = 4;
+    private static final int CLOSERS = 2;
+    private static final int TICKS = 200_000;
+    // Writers wait for a pass of the closers every this many ticks, so every run interleaves hundreds of flips
+    private static final int TICKS_PER_ROUND = 400;
+    // Writer w records prices in [w * 1000 + 1, w * 1000 + PRICES]
+    private static final int PRICES = 997;
+
+    @Test
+    @Timeout(60)
+    void processingTimeFlipsNeitherLoseNorDuplicateTicks() throws InterruptedException {
+        CandleGenerator[] generators = new CandleGenerator[WRITERS];
+        for (int w = 0; w < WRITERS; w++) {
+            generators[w] = new CandleGenerator();
+        }
+        long[][] closedTicks = new long[CLOSERS][WRITERS];
+        int[][] flips = new int[CLOSERS][WRITERS];
+
+        runConcurrently(generators, (closer, w, generator) -> {
+            Candle candle = generator.generateCandle(symbol(w), 0);
+            flips[closer][w]++;
+            if (candle != null) {
+                assertWithinWriterRange(w, candle);
+                closedTicks[closer][w] += candle.getTicks();
+                CandlePool.get().release(candle);
+            }
+        }, (w, generator, i) -> generator.recordTick(price(w, i)));
+
+        for (int w = 0; w < WRITERS; w++) {
+            long closed = 0;
+            int flipCount = 0;
+            for (int closer = 0; closer < CLOSERS; closer++) {
+                closed += closedTicks[closer][w];
+                flipCount += flips[closer][w];
+            }
+            assertTrue(flipCount >= TICKS / TICKS_PER_ROUND, "expected the closers to flip repeatedly while ticks were recorded");
+
+            // Whatever the closers did not take is the live minute, and the last close takes exactly that
+            Candle live = generators[w].getLiveCandle(symbol(w));
+            Candle last = generators[w].generateCandle(symbol(w), 0);
+            long liveTicks = live == null ? 0 : live.getTicks();
+            assertEquals(last == null ? 0 : last.getTicks(), liveTicks);
+            if (live != null) {
+                assertEquals(last.getOpen(), live.getOpen());
+                assertEquals(last.getHigh(), live.getHigh());
+                assertEquals(last.getLow(), live.getLow());
+                assertEquals(last.getClose(), live.getClose());
+                assertEquals(price(w, TICKS - 1), last.getClose());
+                CandlePool.get().release(last);
+            }
+            assertEquals(TICKS, closed + liveTicks, "ticks of writer " + w);
+            assertNull(generators[w].generateCandle(symbol(w), 0));
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    void eventTimeFlipsCloseEveryMinuteWhole() throws InterruptedException {
+        // 500 ms between ticks: a round of the closers spans more minutes than the writer's ring holds, so the
+        // writer also evicts minutes the closers have not taken yet
+        int ticksPerMinute = 120;
+        CandleGenerator[] generators = new CandleGenerator[WRITERS];
+        for (int w = 0; w < WRITERS; w++) {
+            generators[w] = new CandleGenerator(true, 0);
+        }
+        List<List<List<Candle>>> closed = new ArrayList<>();
+        for (int closer = 0; closer < CLOSERS; closer++) {
+            List<List<Candle>> perWriter = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                perWriter.add(new ArrayList<>());
+            }
+            closed.add(perWriter);
+        }
+
+        // A wall clock of 0 keeps the idle fallback out, so only event time moves the watermark
+        runConcurrently(generators, (closer, w, generator) -> generator.closeEventTimeCandles(symbol(w), 0, closed.get(closer).get(w)),
+                (w, generator, i) -> generator.recordTick(price(w, i), i * 500L));
+
+        for (int w = 0; w < WRITERS; w++) {
+            List<Candle> candles = new ArrayList<>();
+            for (int closer = 0; closer < CLOSERS; closer++) {
+                candles.addAll(closed.get(closer).get(w));
+            }
+            // Idle long enough for the wall clock to close the rest
+            generators[w].closeEventTimeCandles(symbol(w), Long.MAX_VALUE / 4, candles);
+            candles.sort((a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()));
+
+            assertEquals((TICKS + ticksPerMinute - 1) / ticksPerMinute, candles.size());
+            long total = 0;
+            for (int m = 0; m < candles.size(); m++) {
+                Candle candle = candles.get(m);
+                assertEquals(m * 60L, candle.getTimestamp());
+                assertEquals(Math.min(ticksPerMinute, TICKS - m * ticksPerMinute), candle.getTicks());
+                assertEquals(price(w, m * ticksPerMinute), candle.getOpen());
+                assertWithinWriterRange(w, candle);
+                total += candle.getTicks();
+            }
+            assertEquals(TICKS, total, "ticks of writer " + w);
+            assertEquals(0, generators[w].getLateTicks());
+            CandlePool.get().releaseAll(candles);
+        }
+    }
+
+    private interface Close {
+        void close(int closer, int writer, CandleGenerator generator);
+    }
+
+    private interface Record {
+        void record(int writer, CandleGenerator generator, int tick);
+    }
+
+    /**
+     * Runs one writer thread per generator and the closer threads over all generators until the writers are done
+     */
+    private static void runConcurrently(CandleGenerator[] generators, Close close, Record record) throws InterruptedException {
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger rounds = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> writers = new ArrayList<>();
+        List<Thread> closers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(thread("writer-" + w, start, failures, () -> {
+                int round = rounds.get();
+                for (int i = 0; i < TICKS; i++) {
+                    record.record(writer, generators[writer], i);
+                    if (i % TICKS_PER_ROUND == TICKS_PER_ROUND - 1) {
+                        while (rounds.get() == round) {
+                            Thread.yield();
+                        }
+                        round = rounds.get();
+                    }
+                }
+            }));
+        }
+        for (int c = 0; c < CLOSERS; c++) {
+            int closer = c;
+            closers.add(thread("closer-" + c, start, failures, () -> {
+                while (writing.get()) {
+                    for (int w = 0; w < WRITERS; w++) {
+                        close.close(closer, w, generators[w]);
+                    }
+                    rounds.incrementAndGet();
+                }
+            }));
+        }
+
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        writing.set(false);
+        for (Thread closer : closers) {
+            closer.join();
+        }
+        synchronized (failures) {
+            if (!failures.isEmpty()) {
+                throw new AssertionError("worker failed", failures.get(0));
+            }
+        }
+    }
+
+    private static Thread thread(String name, CountDownLatch start, List<Throwable> failures, Runnable body) {
+        Thread thread = new Thread(() -> {
+            try {
+                start.await();
+                body.run();
+            } catch (Throwable e) {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+            }
+        }, name);
+        thread.start();
+        return thread;
+    }
+
+    private static void assertWithinWriterRange(int writer, Candle candle) {
+        assertTrue(candle.getLow() >= writer * 1000 + 1 && candle.getHigh() <= writer * 1000 + PRICES,
+                "candle of writer " + writer + " holds another writer's prices");
+        assertTrue(candle.getLow() <= candle.getOpen() && candle.getOpen() <= candle.getHigh());
+        assertTrue(candle.getLow() <= candle.getClose() && candle.getClose() <= candle.getHigh());
+    }
+
+    private static double price(int writer, int tick) {
+        return writer * 1000 + tick % PRICES + 1;
+    }
+
+    private static String symbol(int writer) {
+        return "SYM" + writer;
+    }
+}
@@ -0,0 +1,73 @@
+package org.com.service;
+
+import org.com.model.Candle;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CandleHistoryTest {
+    private static final SymbolRegistry SYMBOLS = new SymbolRegistry(List.of("BTC/USD", "ETH/USD"));
+
+    @Test
+    void returnsTheNewestCandlesOldestFirst() {
+        CandleHistory history = new CandleHistory(SYMBOLS, List.of(Timeframe.M1, Timeframe.M5), 4);
+        List<Candle> closed = new ArrayList<>();
+        for (int minute = 0; minute < 10; minute++) {
+            closed.add(candle("BTC/USD", Timeframe.M1, minute * 60L, 100 + minute));
+            closed.add(candle("ETH/USD", Timeframe.M1, minute * 60L, 10 + minute));
+        }
+        closed.add(candle("BTC/USD", Timeframe.M5, 0, 104));
+        history.addAll(closed);
+
+        assertEquals(List.of(420L, 480L, 540L), timestamps(history.latest(0, Timeframe.M1, 3)));
+        // The ring only keeps its capacity
+        List<Candle> all = history.latest(0, Timeframe.M1, 100);
+        assertEquals(List.of(360L, 420L, 480L, 540L), timestamps(all));
+        assertEquals(109, all.get(3).getClose());
+        assertEquals("BTC/USD", all.get(3).getSymbol());
+        assertEquals(Timeframe.M1, all.get(3).getTimeframe());
+
+        assertEquals(List.of(540L), timestamps(history.latest(1, Timeframe.M1, 1)));
+        assertEquals(19, history.latest(1, Timeframe.M1, 1).get(0).getClose());
+        assertEquals(List.of(0L), timestamps(history.latest(0, Timeframe.M5, 10)));
+        assertTrue(history.latest(1, Timeframe.M5, 10).isEmpty());
+    }
+
+    @Test
+    void ignoresTimeframesAndSymbolsItDoesNotKeep() {
+        CandleHistory history = new CandleHistory(SYMBOLS, List.of(Timeframe.M1), 4);
+        history.addAll(List.of(candle("BTC/USD", Timeframe.H1, 0, 1), candle("XRP/USD", Timeframe.M1, 0, 1)));
+        assertTrue(history.latest(0, Timeframe.H1, 10).isEmpty());
+        assertTrue(history.latest(0, Timeframe.M1, 10).isEmpty());
+    }
+
+    /**
+     * Copies are taken on add, so closed candles can be recycled right away
+     */
+    @Test
+    void keepsItsOwnCopyOfEveryCandle() {
+        CandleHistory history = new CandleHistory(SYMBOLS, List.of(Timeframe.M1), 4);
+        Candle candle = candle("BTC/USD", Timeframe.M1, 60, 100);
+        history.addAll(List.of(candle));
+        candle.clear();
+
+        Candle kept = history.latest(0, Timeframe.M1, 1).get(0);
+        assertEquals(60, kept.getTimestamp());
+        assertEquals(100, kept.getClose());
+        assertEquals(3, kept.getTicks());
+    }
+
+    private static Candle candle(String symbol, Timeframe timeframe, long timestamp, double close) {
+        return Candle.builder().symbol(symbol).timeframe(timeframe).timestamp(timestamp)
+                .open(close - 1).high(close + 1).low(close - 2).close(close).ticks(3).build();
+    }
+
+    private static List<Long> timestamps(List<Candle> candles) {
+        return candles.stream().map(Candle::getTimestamp).toList();
+    }
+}
@@ -0,0 +1,154 @@
+package org.com.service;
+
+import org.com.model.Candle;
+import org.com.model.Timeframe;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Higher timeframes must close on their UTC boundaries with the OHLC of exactly the minutes they cover
+ */
+class CandleRollupTest {
+    private static final List<Timeframe> TIMEFRAMES = List.of(Timeframe.M1, Timeframe.M5, Timeframe.M15, Timeframe.H1,
+            Timeframe.D1);
+    // 22:00 UTC, so three hours of minutes cross a day boundary
+    private static final long START = 19_700L * 86_400 + 22 * 3_600;
+
+    @Test
+    void closesEveryIntervalOnItsBoundaryWithTheMinutesItCovers() {
+        CandleRollup rollup = new CandleRollup("BTC/USD", TIMEFRAMES);
+        Random random = new Random(5);
+        List<Candle> minutes = new ArrayList<>();
+        Map<Timeframe, List<Candle>> closedBy = new TreeMap<>();
+        double price = 100;
+        for (int minute = 0; minute < 180; minute++) {
+            long minuteStart = START + minute * 60L;
+            double open = price;
+            double high = open;
+            double low = open;
+            int ticks = 1 + random.nextInt(20);
+            for (int tick = 1; tick < ticks; tick++) {
+                price += random.nextGaussian();
+                high = Math.max(high, price);
+                low = Math.min(low, price);
+            }
+            Candle candle = minute(minuteStart, open, high, low, price, ticks);
+            minutes.add(candle);
+
+            List<Candle> closed = new ArrayList<>();
+            rollup.onMinuteClosed(minuteStart, candle, closed);
+            for (Candle higher : closed) {
+                // Emitted with the last minute of its interval, never later
+                assertEquals(higher.getTimestamp() + higher.getTimeframe().getSeconds() - 60, minuteStart,
+                        higher.getTimeframe() + " " + higher.getTimestamp());
+                closedBy.computeIfAbsent(higher.getTimeframe(), key -> new ArrayList<>()).add(copy(higher));
+            }
+        }
+
+        assertEquals(36, closedBy.get(Timeframe.M5).size());
+        assertEquals(12, closedBy.get(Timeframe.M15).size());
+        assertEquals(3, closedBy.get(Timeframe.H1).size());
+        // Only the two hours before midnight were seen of the first day; the second day is still open
+        assertEquals(1, closedBy.get(Timeframe.D1).size());
+        for (List<Candle> candles : closedBy.values()) {
+            for (Candle candle : candles) {
+                assertSameOhlc(expected(minutes, candle.getTimeframe(), candle.getTimestamp()), candle);
+            }
+        }
+        Candle day = closedBy.get(Timeframe.D1).get(0);
+        assertEquals(START - 22 * 3_600, day.getTimestamp());
+        assertEquals(120, countMinutes(minutes, Timeframe.D1, day.getTimestamp()));
+    }
+
+    @Test
+    void closesAnIntervalWhoseLastMinuteWasSkipped() {
+        CandleRollup rollup = new CandleRollup("BTC/USD", List.of(Timeframe.M1, Timeframe.M5));
+        List<Candle> closed = new ArrayList<>();
+        rollup.onMinuteClosed(START + 60, minute(START + 60, 10, 12, 9, 11, 3), closed);
+        rollup.onMinuteClosed(START + 120, minute(START + 120, 11, 15, 11, 14, 2), closed);
+        assertTrue(closed.isEmpty());
+
+        // The next closed minute is in the following interval, so the first closes before it is folded in
+        rollup.onMinuteClosed(START + 420, minute(START + 420, 20, 21, 19, 20, 1), closed);
+        assertEquals(1, closed.size());
+        assertSameOhlc(new double[]{10, 15, 9, 14, 5}, closed.get(0));
+        assertEquals(START, closed.get(0).getTimestamp());
+
+        // Empty minutes still close an interval on its boundary
+        closed.clear();
+        rollup.onMinuteClosed(START + 480, null, closed);
+        rollup.onMinuteClosed(START + 540, null, closed);
+        assertEquals(1, closed.size());
+        assertSameOhlc(new double[]{20, 21, 19, 20, 1}, closed.get(0));
+        assertEquals(START + 300, closed.get(0).getTimestamp());
+    }
+
+    @Test
+    void emitsNothingForIntervalsWithoutTicks() {
+        CandleRollup rollup = new CandleRollup("BTC/USD", TIMEFRAMES);
+        List<Candle> closed = new ArrayList<>();
+        for (int minute = 0; minute < 180; minute++) {
+            rollup.onMinuteClosed(START + minute * 60L, null, closed);
+        }
+        rollup.onMinuteClosed(START + 180 * 60L, minute(START + 180 * 60L, 1, 1, 1, 1, 0), closed);
+        assertTrue(closed.isEmpty());
+    }
+
+    private static Candle minute(long minuteStart, double open, double high, double low, double close, int ticks) {
+        return candle(Timeframe.M1, minuteStart, open, high, low, close, ticks);
+    }
+
+    /**
+     * Rolled-up candles come from the pool, so they are copied before the next minute
+     */
+    private static Candle copy(Candle candle) {
+        return candle(candle.getTimeframe(), candle.getTimestamp(), candle.getOpen(), candle.getHigh(), candle.getLow(),
+                candle.getClose(), candle.getTicks());
+    }
+
+    private static Candle candle(Timeframe timeframe, long timestamp, double open, double high, double low, double close,
+                                 int ticks) {
+        return Candle.builder().symbol("BTC/USD").timeframe(timeframe).timestamp(timestamp)
+                .open(open).high(high).low(low).close(close).ticks(ticks).build();
+    }
+
+    /**
+     * @return {open, high, low, close, ticks} of the minutes in the interval, computed from scratch
+     */
+    private static double[] expected(List<Candle> minutes, Timeframe timeframe, long bucketStart) {
+        double[] ohlc = null;
+        for (Candle minute : minutes) {
+            if (timeframe.bucketStart(minute.getTimestamp()) != bucketStart) {
+                continue;
+            }
+            if (ohlc == null) {
+                ohlc = new double[]{minute.getOpen(), minute.getHigh(), minute.getLow(), 0, 0};
+            }
+            ohlc[1] = Math.max(ohlc[1], minute.getHigh());
+            ohlc[2] = Math.min(ohlc[2], minute.getLow());
+            ohlc[3] = minute.getClose();
+            ohlc[4] += minute.getTicks();
+        }
+        return ohlc;
+    }
+
+    private static long countMinutes(List<Candle> minutes, Timeframe timeframe, long bucketStart) {
+        return minutes.stream().filter(minute -> timeframe.bucketStart(minute.getTimestamp()) == bucketStart).count();
+    }
+
+    private static void assertSameOhlc(double[] expected, Candle candle) {
+        String interval = candle.getTimeframe() + " " + candle.getTimestamp();
+        assertEquals(expected[0], candle.getOpen(), interval);
+        assertEquals(expected[1], candle.getHigh(), interval);
+        assertEquals(expected[2], candle.getLow(), interval);
+        assertEquals(expected[3], candle.getClose(), interval);
+        assertEquals((int) expected[4], candle.getTicks(), interval);
+    }
+}
@@ -0,0 +1,96 @@
+package org.com.service;
+
+import org.com.model.Candle;
+import org.com.model.CandlePool;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Event-time minutes stay open for late ticks until the watermark, the latest event time minus the allowed
+ * lateness, passes their end; after that their ticks are dropped and counted
+ */
+class CandleWatermarkTest {
+    private static final long LATENESS_MILLIS = 2_000;
+    // Start of an arbitrary minute, in epoch millis
+    private static final long MINUTE = 28_333_333L * 60_000;
+
+    @Test
+    void lateTicksInsideTheLatenessWindowLandInTheirMinute() {
+        CandleGenerator generator = new CandleGenerator(true, LATENESS_MILLIS);
+        generator.recordTick(100, MINUTE + 10_000);
+        generator.recordTick(101, MINUTE + 59_000);
+        // Next minute, but the watermark (61 s - 2 s) is still inside the first
+        generator.recordTick(200, MINUTE + 61_000);
+        generator.recordTick(99, MINUTE + 30_000);
+        assertTrue(close(generator).isEmpty());
+
+        // The watermark reaches 60.5 s, past the end of the first minute
+        generator.recordTick(201, MINUTE + 62_500);
+        List<Candle> closed = close(generator);
+        assertEquals(1, closed.size());
+        Candle candle = closed.get(0);
+        assertEquals(MINUTE / 1000, candle.getTimestamp());
+        assertEquals(3, candle.getTicks());
+        assertEquals(100, candle.getOpen());
+        assertEquals(101, candle.getHigh());
+        assertEquals(99, candle.getLow());
+        // Ticks are folded in arrival order, so the late tick is the close
+        assertEquals(99, candle.getClose());
+        assertEquals(MINUTE / 1000, generator.getClosedThroughMinuteStart());
+        assertEquals(0, generator.getLateTicks());
+        CandlePool.get().releaseAll(closed);
+    }
+
+    @Test
+    void ticksForAClosedMinuteAreDroppedAndCounted() {
+        CandleGenerator generator = new CandleGenerator(true, LATENESS_MILLIS);
+        generator.recordTick(100, MINUTE + 1_000);
+        generator.recordTick(100, MINUTE + 63_000);
+        List<Candle> closed = close(generator);
+        assertEquals(1, closed.size());
+
+        generator.recordTick(50, MINUTE + 59_999);
+        generator.recordTick(50, MINUTE - 1);
+        assertEquals(2, generator.getLateTicks());
+
+        // The next minute only closes once the watermark passes it, without the dropped ticks
+        generator.recordTick(102, MINUTE + 122_000);
+        List<Candle> next = close(generator);
+        assertEquals(1, next.size());
+        assertEquals(MINUTE / 1000 + 60, next.get(0).getTimestamp());
+        assertEquals(1, next.get(0).getTicks());
+        assertEquals(100, next.get(0).getLow());
+        CandlePool.get().releaseAll(closed);
+        CandlePool.get().releaseAll(next);
+    }
+
+    @Test
+    void theWallClockClosesMinutesOfAnIdleSymbol() {
+        CandleGenerator generator = new CandleGenerator(true, LATENESS_MILLIS);
+        generator.recordTick(100, MINUTE + 1_000);
+        // The watermark alone never passes the minute, as no later tick arrives
+        assertTrue(close(generator).isEmpty());
+        assertEquals(100, generator.getLiveCandle("BTC/USD").getClose());
+
+        long idle = System.currentTimeMillis() + LATENESS_MILLIS + 1;
+        List<Candle> closed = generator.closeEventTimeCandles("BTC/USD", idle);
+        assertEquals(1, closed.size());
+        assertEquals(MINUTE / 1000, closed.get(0).getTimestamp());
+        assertNull(generator.getLiveCandle("BTC/USD"));
+        CandlePool.get().releaseAll(closed);
+    }
+
+    /**
+     * Closes on the current wall clock, which never advances the watermark while ticks keep arriving
+     */
+    private static List<Candle> close(CandleGenerator generator) {
+        List<Candle> closed = new ArrayList<>();
+        generator.closeEventTimeCandles("BTC/USD", System.currentTimeMillis(), closed);
+        return closed;
+    }
+}
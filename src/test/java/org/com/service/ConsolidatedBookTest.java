@@ -0,0 +1,112 @@
+package org.com.service;
+
+import org.com.model.Candle;
+import org.com.model.Quote;
+import org.com.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ConsolidatedBookTest {
+    private static final String[] VENUES = {"kraken", "coinbase", "bitstamp", "binance", "okx"};
+    private static final long RECEIVE_MILLIS = 1_700_000_000_000L;
+
+    @Test
+    void bestLevelsComeFromDifferentVenues() {
+        TopOfBook topOfBook = new TopOfBook();
+        CandleGenerator generator = new CandleGenerator();
+        ConsolidatedBook book = new ConsolidatedBook(0, VENUES, topOfBook, generator, null);
+
+        book.update(0, book(100.0, 2, 101.0, 3), -1, RECEIVE_MILLIS);
+        book.update(2, book(100.5, 1, 102.0, 4), -1, RECEIVE_MILLIS);
+        double mid = book.update(4, book(99.0, 5, 100.75, 6), 1_700_000_000_123_000L, RECEIVE_MILLIS);
+
+        assertEquals("bitstamp", book.getBestBidVenue());
+        assertEquals("okx", book.getBestAskVenue());
+        assertEquals(FixedPoint.toFixed(100.5), book.getBestBid());
+        assertEquals(FixedPoint.toFixed(100.75), book.getBestAsk());
+        assertEquals(100.625, mid);
+
+        Quote quote = topOfBook.snapshot("BTC/USD");
+        assertEquals(100.5, quote.getBid());
+        assertEquals(1.0, quote.getBidSize());
+        assertEquals(100.75, quote.getAsk());
+        assertEquals(6.0, quote.getAskSize());
+        assertEquals(1_700_000_000_123L, quote.getTimestamp());
+
+        Candle live = generator.getLiveCandle("BTC/USD");
+        assertEquals(3, live.getTicks());
+        assertEquals(100.625, live.getClose());
+    }
+
+    @Test
+    void tiesGoToTheLowerVenueAndWithdrawalsFallBack() {
+        TopOfBook topOfBook = new TopOfBook();
+        ConsolidatedBook book = new ConsolidatedBook(0, VENUES, topOfBook, new CandleGenerator(), null);
+        book.update(3, book(100.0, 1, 101.0, 1), -1, RECEIVE_MILLIS);
+        book.update(1, book(100.0, 2, 101.0, 2), -1, RECEIVE_MILLIS);
+        assertEquals("coinbase", book.getBestBidVenue());
+        assertEquals("coinbase", book.getBestAskVenue());
+
+        book.withdraw(1);
+        assertEquals("binance", book.getBestBidVenue());
+        assertEquals(1.0, topOfBook.snapshot("BTC/USD").getBidSize());
+
+        // A crossed book withdraws the venue as well
+        assertEquals(0, book.update(3, book(102.0, 1, 101.0, 1), -1, RECEIVE_MILLIS));
+        assertNull(book.getBestBidVenue());
+        assertNull(book.getBestAskVenue());
+        assertNull(topOfBook.snapshot("BTC/USD"));
+    }
+
+    @Test
+    void matchesAScanOfEveryVenueAfterRandomUpdates() {
+        Random random = new Random(42);
+        ConsolidatedBook book = new ConsolidatedBook(0, VENUES, new TopOfBook(), new CandleGenerator(), null);
+        long[] bids = new long[VENUES.length];
+        long[] asks = new long[VENUES.length];
+        boolean[] quoted = new boolean[VENUES.length];
+
+        for (int step = 0; step < 20_000; step++) {
+            int venue = random.nextInt(VENUES.length);
+            if (random.nextInt(10) == 0) {
+                book.withdraw(venue);
+                quoted[venue] = false;
+            } else {
+                // Whole-cent prices around 100, so ties between venues are common
+                double bid = 99 + random.nextInt(200) / 100.0;
+                double ask = bid + 0.01 * (1 + random.nextInt(50));
+                book.update(venue, book(bid, 1, ask, 1), -1, RECEIVE_MILLIS + step);
+                bids[venue] = FixedPoint.toFixed(bid);
+                asks[venue] = FixedPoint.toFixed(ask);
+                quoted[venue] = true;
+            }
+
+            int bestBid = -1;
+            int bestAsk = -1;
+            for (int v = 0; v < VENUES.length; v++) {
+                if (quoted[v] && (bestBid < 0 || bids[v] > bids[bestBid])) {
+                    bestBid = v;
+                }
+                if (quoted[v] && (bestAsk < 0 || asks[v] < asks[bestAsk])) {
+                    bestAsk = v;
+                }
+            }
+            assertEquals(bestBid < 0 ? null : VENUES[bestBid], book.getBestBidVenue(), "bid venue at step " + step);
+            assertEquals(bestAsk < 0 ? null : VENUES[bestAsk], book.getBestAskVenue(), "ask venue at step " + step);
+            assertEquals(bestBid < 0 ? 0 : bids[bestBid], book.getBestBid());
+            assertEquals(bestAsk < 0 ? 0 : asks[bestAsk], book.getBestAsk());
+        }
+    }
+
+    private static OrderBook book(double bid, double bidSize, double ask, double askSize) {
+        OrderBook book = new OrderBook(10);
+        book.updateBid(FixedPoint.toFixed(bid), FixedPoint.toFixed(bidSize));
+        book.updateBid(FixedPoint.toFixed(bid - 1), FixedPoint.toFixed(10));
+        book.updateAsk(FixedPoint.toFixed(ask), FixedPoint.toFixed(askSize));
+        book.updateAsk(FixedPoint.toFixed(ask + 1), FixedPoint.toFixed(10));
+        return book;
+    }
+}
@@ -0,0 +1,135 @@
+package org.com.service;
+
+import org.com.config.AppConfig;
+import org.com.model.SymbolRegistry;
+import org.com.util.FixedPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * A symbol's frames must always be applied by the same shard, in the order they were received
+ */
+class ShardedBookProcessorTest {
+    private static final List<String> SYMBOLS = List.of("BTC/USD", "ETH/USD", "SOL/USD", "XRP/USD", "ADA/USD", "DOT/USD");
+    private static final int WORKERS = 3;
+
+    private ShardedBookProcessor processor;
+
+    @AfterEach
+    void shutdown() {
+        if (processor != null) {
+            processor.shutdown();
+        }
+    }
+
+    @Test
+    void spreadsSymbolsOverEveryShardByTheirId() {
+        processor = start();
+        assertEquals(WORKERS, processor.getShardCount());
+        Set<Integer> used = new HashSet<>();
+        for (int id = 0; id < SYMBOLS.size(); id++) {
+            assertEquals(id % WORKERS, processor.shardOf(id));
+            used.add(processor.shardOf(id));
+        }
+        assertEquals(WORKERS, used.size());
+    }
+
+    @Test
+    void eachSymbolsUpdatesAreAppliedInArrivalOrder() {
+        processor = start();
+        Map<Integer, List<Long>> published = new HashMap<>();
+        for (int id = 0; id < SYMBOLS.size(); id++) {
+            processor.dispatch(snapshot(SYMBOLS.get(id), 1, 1_000_000));
+            published.computeIfAbsent(id, key -> new ArrayList<>()).add(1L);
+        }
+        // Every update raises the symbol's best bid, so each tick's bid identifies the update that produced it
+        Random random = new Random(3);
+        long[] next = new long[SYMBOLS.size()];
+        for (int i = 0; i < 3_000; i++) {
+            int id = random.nextInt(SYMBOLS.size());
+            long price = 2 + next[id]++;
+            processor.dispatch(bidUpdate(SYMBOLS.get(id), price));
+            published.get(id).add(price);
+        }
+        processor.awaitApplied();
+
+        for (InstrumentState instrument : processor.getInstruments()) {
+            List<Long> applied = new ArrayList<>();
+            instrument.getTickRing().drainTo((symbolId, exchangeMicros, receiveMicros, bid, ask, mid) -> {
+                assertEquals(instrument.getSymbolId(), symbolId);
+                applied.add(bid / FixedPoint.SCALE);
+            }, Integer.MAX_VALUE);
+            assertEquals(0, instrument.getTickRing().getDropped());
+            assertEquals(published.get(instrument.getSymbolId()), applied, instrument.getSymbol());
+        }
+    }
+
+    @Test
+    void aSymbolIsAlwaysAppliedOnItsShardsThread() {
+        processor = start();
+        Map<String, Set<Thread>> threads = new ConcurrentHashMap<>();
+        processor.setResyncHandler(symbol -> threads.computeIfAbsent(symbol, key -> ConcurrentHashMap.newKeySet())
+                .add(Thread.currentThread()));
+
+        // Emptying a book with a delta makes its shard request a resync, and the next snapshot clears it again
+        int rounds = 10;
+        for (int round = 0; round < rounds; round++) {
+            for (String symbol : SYMBOLS) {
+                processor.dispatch(snapshot(symbol, 1, 2));
+                processor.dispatch("{\"channel\":\"book\",\"type\":\"update\",\"data\":[{\"symbol\":\"" + symbol
+                        + "\",\"bids\":[{\"price\":1,\"qty\":0}],\"asks\":[{\"price\":2,\"qty\":0}]}]}");
+            }
+        }
+        processor.awaitApplied();
+
+        Thread[] shardThreads = new Thread[WORKERS];
+        for (InstrumentState instrument : processor.getInstruments()) {
+            assertEquals(rounds, instrument.getResyncs(), instrument.getSymbol());
+            Set<Thread> seen = threads.get(instrument.getSymbol());
+            assertEquals(1, seen.size(), instrument.getSymbol() + " was applied on " + seen);
+            Thread thread = seen.iterator().next();
+            int shard = processor.shardOf(instrument.getSymbolId());
+            if (shardThreads[shard] == null) {
+                shardThreads[shard] = thread;
+            }
+            assertEquals(shardThreads[shard], thread, instrument.getSymbol());
+        }
+        for (int shard = 1; shard < WORKERS; shard++) {
+            assertNotEquals(shardThreads[0], shardThreads[shard]);
+        }
+    }
+
+    private static ShardedBookProcessor start() {
+        Properties properties = new Properties();
+        properties.setProperty("kraken.instrument", String.join(",", SYMBOLS));
+        properties.setProperty("kraken.workers", Integer.toString(WORKERS));
+        properties.setProperty("pipeline.ring.size", "256");
+        properties.setProperty("ticks.enabled", "true");
+        properties.setProperty("ticks.buffer.size", "4096");
+        ShardedBookProcessor processor = new ShardedBookProcessor(new SymbolRegistry(SYMBOLS), new AppConfig(properties));
+        processor.start();
+        return processor;
+    }
+
+    private static String snapshot(String symbol, long bid, long ask) {
+        return "{\"channel\":\"book\",\"type\":\"snapshot\",\"data\":[{\"symbol\":\"" + symbol + "\",\"bids\":[{\"price\":"
+                + bid + ",\"qty\":1}],\"asks\":[{\"price\":" + ask + ",\"qty\":1}]}]}";
+    }
+
+    private static String bidUpdate(String symbol, long price) {
+        return "{\"channel\":\"book\",\"type\":\"update\",\"data\":[{\"symbol\":\"" + symbol + "\",\"bids\":[{\"price\":"
+                + price + ",\"qty\":1}],\"asks\":[]}]}";
+    }
+}
@@ -0,0 +1,176 @@
+package org.com.service;
+
+import org.com.config.AppConfig;
+import org.com.model.Candle;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.com.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StateCheckpointTest {
+    private static final List<String> SYMBOLS = List.of("BTC/USD", "ETH/USD");
+    private static final long FIVE_MINUTES = 1_700_000_100L / 300 * 300;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresBooksAndCandlesInProgress() {
+        Path file = directory.resolve("state.bin");
+        ShardedBookProcessor before = processor();
+        fill(before);
+        StateCheckpoint written = checkpoint(file, before);
+        int size = written.snapshot(System.currentTimeMillis());
+        assertEquals(size, written.persist());
+
+        ShardedBookProcessor after = processor();
+        List<Candle> closed = new ArrayList<>();
+        long liveMinuteMillis = before.getInstrument(0).getCandleGenerator().getLiveCandle("BTC/USD").getTimestamp() * 1000;
+        assertTrue(checkpoint(file, after).restore(liveMinuteMillis + 1000, closed));
+        assertTrue(closed.isEmpty(), "the checkpointed minute is still open");
+
+        for (int id = 0; id < SYMBOLS.size(); id++) {
+            InstrumentState original = before.getInstrument(id);
+            InstrumentState restored = after.getInstrument(id);
+            assertEquals(original.getOrderBook().getBestBid(), restored.getOrderBook().getBestBid());
+            assertEquals(original.getOrderBook().getBestAsk(), restored.getOrderBook().getBestAsk());
+            assertEquals(original.getOrderBook().getBids().size(), restored.getOrderBook().getBids().size());
+            assertEquals(original.getOrderBook().getAsks().size(), restored.getOrderBook().getAsks().size());
+            assertSameCandle(original.getCandleGenerator().getLiveCandle(original.getSymbol()),
+                    restored.getCandleGenerator().getLiveCandle(restored.getSymbol()));
+
+            // The last minute of the 5m interval closes the live minute and the rollup restored with it
+            List<Candle> expected = new ArrayList<>();
+            List<Candle> actual = new ArrayList<>();
+            original.closeMinute(FIVE_MINUTES + 240, expected);
+            restored.closeMinute(FIVE_MINUTES + 240, actual);
+            assertEquals(2, expected.size());
+            assertEquals(Timeframe.M5, expected.get(1).getTimeframe());
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertSameCandle(expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    @Test
+    void minuteThatEndedWhileDownIsClosedOnRestore() {
+        Path file = directory.resolve("state.bin");
+        ShardedBookProcessor before = processor();
+        fill(before);
+        StateCheckpoint checkpoint = checkpoint(file, before);
+        checkpoint.snapshot(System.currentTimeMillis());
+        checkpoint.persist();
+        Candle live = before.getInstrument(0).getCandleGenerator().getLiveCandle("BTC/USD");
+
+        ShardedBookProcessor after = processor();
+        List<Candle> closed = new ArrayList<>();
+        assertTrue(checkpoint(file, after).restore(live.getTimestamp() * 1000 + 120_000, closed));
+
+        Candle minute = closed.stream().filter(c -> c.getSymbol().equals("BTC/USD") && c.getTimeframe() == Timeframe.M1)
+                .findFirst().orElse(null);
+        assertSameCandle(live, minute);
+        assertNull(after.getInstrument(0).getCandleGenerator().getLiveCandle("BTC/USD"));
+    }
+
+    @Test
+    void persistWritesOnlyTheNewestSnapshotOnce() throws IOException {
+        Path file = directory.resolve("state.bin");
+        ShardedBookProcessor processor = processor();
+        StateCheckpoint checkpoint = checkpoint(file, processor);
+        assertEquals(0, checkpoint.persist());
+
+        int empty = checkpoint.snapshot(System.currentTimeMillis());
+        fill(processor);
+        int filled = checkpoint.snapshot(System.currentTimeMillis());
+        assertTrue(filled > empty);
+        assertEquals(filled, checkpoint.persist());
+        assertEquals(filled, Files.size(file));
+        assertEquals(0, checkpoint.persist());
+        assertFalse(Files.exists(file.resolveSibling("state.bin.tmp")));
+    }
+
+    @Test
+    void corruptCheckpointStartsCold() throws IOException {
+        Path file = directory.resolve("state.bin");
+        ShardedBookProcessor before = processor();
+        fill(before);
+        StateCheckpoint checkpoint = checkpoint(file, before);
+        checkpoint.snapshot(System.currentTimeMillis());
+        checkpoint.persist();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x13, 0x37}), StateCheckpoint.HEADER_BYTES + 4);
+        }
+
+        ShardedBookProcessor after = processor();
+        List<Candle> closed = new ArrayList<>();
+        assertFalse(checkpoint(file, after).restore(System.currentTimeMillis(), closed));
+        assertTrue(closed.isEmpty());
+        assertTrue(after.getInstrument(0).getOrderBook().isEmpty());
+        assertNull(after.getInstrument(0).getCandleGenerator().getLiveCandle("BTC/USD"));
+    }
+
+    private static ShardedBookProcessor processor() {
+        Properties properties = new Properties();
+        properties.setProperty("candle.timeframes", "1m,5m");
+        properties.setProperty("kraken.depth", "10");
+        return new ShardedBookProcessor(new SymbolRegistry(SYMBOLS), new AppConfig(properties));
+    }
+
+    private static StateCheckpoint checkpoint(Path file, ShardedBookProcessor processor) {
+        return new StateCheckpoint(file, processor, false);
+    }
+
+    /**
+     * Builds books, closes the first minute of a 5m interval and leaves ticks in the minute being built
+     */
+    private static void fill(ShardedBookProcessor processor) {
+        for (int id = 0; id < SYMBOLS.size(); id++) {
+            InstrumentState instrument = processor.getInstrument(id);
+            double base = 100 * (id + 1);
+            for (int level = 0; level < 5; level++) {
+                instrument.getOrderBook().updateBid(FixedPoint.toFixed(base - level), FixedPoint.toFixed(1 + level));
+                instrument.getOrderBook().updateAsk(FixedPoint.toFixed(base + 1 + level), FixedPoint.toFixed(2 + level));
+            }
+            CandleGenerator generator = instrument.getCandleGenerator();
+            for (int i = 0; i < 10; i++) {
+                generator.recordTick(base + i);
+            }
+            List<Candle> closed = new ArrayList<>();
+            instrument.closeMinute(FIVE_MINUTES, closed);
+            assertEquals(1, closed.size());
+            for (int i = 0; i < 10; i++) {
+                generator.recordTick(base + 5 - i * 0.5);
+            }
+        }
+    }
+
+    private static void assertSameCandle(Candle expected, Candle actual) {
+        assertNotNull(expected);
+        assertNotNull(actual);
+        assertEquals(expected.getSymbol(), actual.getSymbol());
+        assertEquals(expected.getTimeframe(), actual.getTimeframe());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getOpen(), actual.getOpen());
+        assertEquals(expected.getHigh(), actual.getHigh());
+        assertEquals(expected.getLow(), actual.getLow());
+        assertEquals(expected.getClose(), actual.getClose());
+        assertEquals(expected.getTicks(), actual.getTicks());
+    }
+}
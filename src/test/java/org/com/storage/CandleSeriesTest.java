@@ -0,0 +1,114 @@
+package org.com.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CandleSeriesTest {
+    private static final long START = 1_700_000_000L / 60 * 60;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void queriesSpanSealedBlocksAndTheOpenBlockAcrossReopen() throws IOException {
+        Path path = directory.resolve("1m.seg");
+        int candles = 3000;
+        try (CandleSeries series = new CandleSeries(path)) {
+            appendMinutes(series, 0, candles);
+            assertTrue(series.getBlockCount() > 2, "expected several blocks");
+            assertEquals(candles, timestamps(series, Long.MIN_VALUE, Long.MAX_VALUE).size());
+        }
+        try (CandleSeries series = new CandleSeries(path)) {
+            appendMinutes(series, candles, 10);
+            List<Long> all = timestamps(series, Long.MIN_VALUE, Long.MAX_VALUE);
+            assertEquals(candles + 10, all.size());
+            for (int i = 0; i < all.size(); i++) {
+                assertEquals(START + 60L * i, all.get(i));
+            }
+            assertEquals(List.of(START + 60L * 1500, START + 60L * 1501), timestamps(series, START + 60L * 1500, START + 60L * 1501));
+        }
+    }
+
+    @Test
+    void bitsPastTheHeaderDoNotInvalidateTheOpenBlock() throws IOException {
+        Path path = directory.resolve("1m.seg");
+        try (CandleSeries series = new CandleSeries(path)) {
+            appendMinutes(series, 0, 20);
+        }
+        // A torn append: new data bytes reached the file but the header still describes the previous candles
+        long size = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, size - 1);
+            last.put(0, (byte) (last.get(0) | 0x01));
+            last.rewind();
+            channel.write(last, size - 1);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xA5, 0x5A, 0x7F}), size);
+        }
+        try (CandleSeries series = new CandleSeries(path)) {
+            assertEquals(20, timestamps(series, Long.MIN_VALUE, Long.MAX_VALUE).size());
+            appendMinutes(series, 20, 5);
+        }
+        try (CandleSeries series = new CandleSeries(path)) {
+            assertEquals(25, timestamps(series, Long.MIN_VALUE, Long.MAX_VALUE).size());
+        }
+    }
+
+    @Test
+    void corruptTailBlockIsTruncatedInsteadOfDecoded() throws IOException {
+        Path path = directory.resolve("1m.seg");
+        int sealedCandles;
+        try (CandleSeries series = new CandleSeries(path)) {
+            appendMinutes(series, 0, 2000);
+            sealedCandles = timestamps(series, Long.MIN_VALUE, Long.MAX_VALUE).size();
+        }
+        long size = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x13, 0x37}), size - 40);
+        }
+        try (CandleSeries series = new CandleSeries(path)) {
+            List<Long> recovered = timestamps(series, Long.MIN_VALUE, Long.MAX_VALUE);
+            assertTrue(recovered.size() < sealedCandles, "the corrupt block must be dropped");
+            for (int i = 0; i < recovered.size(); i++) {
+                assertEquals(START + 60L * i, recovered.get(i));
+            }
+            assertTrue(Files.size(path) < size);
+        }
+    }
+
+    @Test
+    void segmentsFromAnOlderFormatAreMovedAside() throws IOException {
+        Path path = directory.resolve("1m.seg");
+        Files.write(path, new byte[64]);
+        try (CandleSeries series = new CandleSeries(path)) {
+            assertEquals(0, series.getBlockCount());
+            appendMinutes(series, 0, 3);
+            assertEquals(3, timestamps(series, Long.MIN_VALUE, Long.MAX_VALUE).size());
+        }
+        assertTrue(Files.exists(directory.resolve("1m.seg.old")));
+    }
+
+    private static void appendMinutes(CandleSeries series, int from, int count) throws IOException {
+        for (int i = from; i < from + count; i++) {
+            double price = 30000 + (i % 97) * 0.5;
+            series.append(START + 60L * i, price, price + 2, price - 1.5, price + 0.5, 10 + i % 7);
+        }
+    }
+
+    private static List<Long> timestamps(CandleSeries series, long from, long to) throws IOException {
+        List<Long> timestamps = new ArrayList<>();
+        series.query(from, to, (timestamp, open, high, low, close, ticks) -> timestamps.add(timestamp));
+        return timestamps;
+    }
+}
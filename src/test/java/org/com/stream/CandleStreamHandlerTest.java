@@ -0,0 +1,97 @@
+package org.com.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.com.config.AppConfig;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.com.service.CandleHistory;
+import org.com.service.CandleQueryService;
+import org.com.service.ShardedBookProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CandleStreamHandlerTest {
+    private static final List<String> SYMBOLS = List.of("BTC/USD", "ETH/USD");
+
+    private ShardedBookProcessor processor;
+    private LiveUpdateHub hub;
+    private CandleStreamHandler handler;
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("kraken.instrument", String.join(",", SYMBOLS));
+        SymbolRegistry symbols = new SymbolRegistry(SYMBOLS);
+        processor = new ShardedBookProcessor(symbols, new AppConfig(properties));
+        CandleHistory history = new CandleHistory(symbols, List.of(Timeframe.M1), 4);
+        hub = new LiveUpdateHub(new CandleQueryService(processor, history), new ObjectMapper(), 100);
+        handler = new CandleStreamHandler(hub, new ObjectMapper(), 2, 10, 1000, 2);
+
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("client-1");
+        handler.afterConnectionEstablished(session);
+    }
+
+    @AfterEach
+    void tearDown() {
+        handler.shutdown();
+        hub.shutdown();
+        processor.shutdown();
+    }
+
+    @Test
+    void tracksClientsUntilTheyDisconnect() throws IOException {
+        handler.handleTextMessage(session, new TextMessage("{\"action\":\"subscribe\",\"symbols\":[\"BTC/USD\"],\"maxRate\":50}"));
+        handler.handleTextMessage(session, new TextMessage("{\"action\":\"unsubscribe\",\"symbols\":[\"BTC/USD\"]}"));
+        verify(session, never()).close(any());
+        assertEquals(1, handler.getClientCount());
+
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+        assertEquals(0, handler.getClientCount());
+    }
+
+    @Test
+    void closesTheSessionOnAnUnknownSymbol() throws IOException {
+        assertClosedWith("{\"action\":\"subscribe\",\"symbols\":[\"XRP/USD\"]}", "Unknown symbol: XRP/USD");
+    }
+
+    @Test
+    void closesTheSessionOnANonPositiveRate() throws IOException {
+        assertClosedWith("{\"action\":\"subscribe\",\"symbols\":[\"BTC/USD\"],\"maxRate\":0}", "maxRate must be positive");
+    }
+
+    @Test
+    void closesTheSessionOnAnUnknownAction() throws IOException {
+        assertClosedWith("{\"action\":\"replay\"}", "Unknown action: replay");
+    }
+
+    @Test
+    void closesTheSessionOnMalformedJson() throws IOException {
+        assertClosedWith("{\"action\":", "Malformed request");
+    }
+
+    private void assertClosedWith(String request, String reason) throws IOException {
+        handler.handleTextMessage(session, new TextMessage(request));
+        ArgumentCaptor<CloseStatus> status = ArgumentCaptor.forClass(CloseStatus.class);
+        verify(session).close(status.capture());
+        assertEquals(CloseStatus.BAD_DATA.getCode(), status.getValue().getCode());
+        assertTrue(status.getValue().getReason().contains(reason), status.getValue().getReason());
+    }
+}
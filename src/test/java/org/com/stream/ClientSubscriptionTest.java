@@ -0,0 +1,171 @@
+package org.com.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.com.config.AppConfig;
+import org.com.model.SymbolRegistry;
+import org.com.model.Timeframe;
+import org.com.service.CandleHistory;
+import org.com.service.CandleQueryService;
+import org.com.service.ShardedBookProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A client gets the newest state of each subscribed symbol at its own rate, with one send in flight at a time
+ */
+class ClientSubscriptionTest {
+    private static final List<String> SYMBOLS = List.of("BTC/USD", "ETH/USD");
+    // Five updates per second
+    private static final long INTERVAL_NANOS = 200_000_000L;
+    private static final long SEND_TIMEOUT_NANOS = 1_000_000_000L;
+
+    private ShardedBookProcessor processor;
+    private LiveUpdateHub hub;
+    private WebSocketSession session;
+    private final List<TextMessage> sent = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("kraken.instrument", String.join(",", SYMBOLS));
+        SymbolRegistry symbols = new SymbolRegistry(SYMBOLS);
+        processor = new ShardedBookProcessor(symbols, new AppConfig(properties));
+        CandleHistory history = new CandleHistory(symbols, List.of(Timeframe.M1), 4);
+        hub = new LiveUpdateHub(new CandleQueryService(processor, history), new ObjectMapper(), 100);
+
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("client-1");
+        doAnswer(invocation -> sent.add(invocation.getArgument(0))).when(session).sendMessage(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+        processor.shutdown();
+    }
+
+    @Test
+    void sendsOnlyTheLatestStateOfSubscribedSymbolsAtTheClientsRate() {
+        ClientSubscription client = new ClientSubscription(session, SYMBOLS.size(), INTERVAL_NANOS);
+        client.setSubscribed(0, true);
+        tick(0, 100);
+        tick(1, 10);
+        hub.sample();
+        client.flush(0, hub, Runnable::run, SEND_TIMEOUT_NANOS);
+        assertEquals(List.of(hub.latest(0).getMessage()), sent);
+
+        // Three newer states arrive before the client is due again; only the last is sent
+        for (int price = 101; price <= 103; price++) {
+            tick(0, price);
+            hub.sample();
+            client.flush(INTERVAL_NANOS - 1, hub, Runnable::run, SEND_TIMEOUT_NANOS);
+        }
+        assertEquals(1, sent.size());
+        client.flush(INTERVAL_NANOS, hub, Runnable::run, SEND_TIMEOUT_NANOS);
+        assertEquals(2, sent.size());
+        assertSame(hub.latest(0).getMessage(), sent.get(1));
+        assertEquals(4, hub.latest(0).getVersion());
+        assertTrue(sent.get(1).getPayload().contains("\"close\":103.0"), sent.get(1).getPayload());
+
+        // Nothing changed since the last send
+        client.flush(2 * INTERVAL_NANOS, hub, Runnable::run, SEND_TIMEOUT_NANOS);
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    void resubscribingResendsTheCurrentState() {
+        ClientSubscription client = new ClientSubscription(session, SYMBOLS.size(), INTERVAL_NANOS);
+        client.setSubscribed(0, true);
+        tick(0, 100);
+        hub.sample();
+        client.flush(0, hub, Runnable::run, SEND_TIMEOUT_NANOS);
+
+        client.setSubscribed(0, false);
+        client.flush(INTERVAL_NANOS, hub, Runnable::run, SEND_TIMEOUT_NANOS);
+        assertEquals(1, sent.size());
+
+        client.setSubscribed(0, true);
+        client.flush(2 * INTERVAL_NANOS, hub, Runnable::run, SEND_TIMEOUT_NANOS);
+        assertEquals(2, sent.size());
+        assertSame(sent.get(0), sent.get(1));
+    }
+
+    @Test
+    void keepsOneSendInFlightAndDisconnectsAClientStuckPastTheTimeout() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sent.add(invocation.getArgument(0));
+            started.countDown();
+            release.await(30, TimeUnit.SECONDS);
+            return null;
+        }).when(session).sendMessage(any());
+        ExecutorService senders = Executors.newFixedThreadPool(2);
+        try {
+            ClientSubscription client = new ClientSubscription(session, SYMBOLS.size(), INTERVAL_NANOS);
+            client.setSubscribed(0, true);
+            tick(0, 100);
+            hub.sample();
+            client.flush(0, hub, senders, SEND_TIMEOUT_NANOS);
+            assertTrue(started.await(30, TimeUnit.SECONDS));
+
+            // Due again with a newer state, but the first send has not drained
+            tick(0, 101);
+            hub.sample();
+            client.flush(INTERVAL_NANOS, hub, senders, SEND_TIMEOUT_NANOS);
+            client.flush(SEND_TIMEOUT_NANOS, hub, senders, SEND_TIMEOUT_NANOS);
+            verify(session, never()).close(any());
+
+            client.flush(SEND_TIMEOUT_NANOS + 1, hub, senders, SEND_TIMEOUT_NANOS);
+            verify(session, timeout(30_000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+
+            release.countDown();
+            senders.shutdown();
+            assertTrue(senders.awaitTermination(30, TimeUnit.SECONDS));
+            client.flush(3 * SEND_TIMEOUT_NANOS, hub, Runnable::run, SEND_TIMEOUT_NANOS);
+            assertEquals(1, sent.size());
+        } finally {
+            release.countDown();
+            senders.shutdownNow();
+        }
+    }
+
+    @Test
+    void aFailedSendClosesTheSession() throws IOException {
+        doThrow(new IOException("broken pipe")).when(session).sendMessage(any());
+        ClientSubscription client = new ClientSubscription(session, SYMBOLS.size(), INTERVAL_NANOS);
+        client.setSubscribed(1, true);
+        tick(1, 10);
+        hub.sample();
+        client.flush(0, hub, Runnable::run, SEND_TIMEOUT_NANOS);
+        verify(session).close(CloseStatus.SERVER_ERROR);
+    }
+
+    private void tick(int symbolId, double price) {
+        processor.getInstrument(symbolId).getCandleGenerator().recordTick(price);
+    }
+}
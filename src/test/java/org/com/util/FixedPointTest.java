@@ -0,0 +1,64 @@
+package org.com.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FixedPointTest {
+
+    @Test
+    void parsesDecimalsExactly() {
+        assertEquals(56_660_000L, parse("0.5666"));
+        assertEquals(483_175_496_356L, parse("4831.75496356"));
+        assertEquals(4_200_000_000L, parse("42"));
+        assertEquals(-150_000_000L, parse("-1.5"));
+        assertEquals(150_000_000L, parse("+1.50"));
+        assertEquals(0, parse("0.0"));
+        assertEquals(1, parse("0.00000001"));
+    }
+
+    @Test
+    void parsesExponents() {
+        assertEquals(125_000_000_000L, parse("1.25e3"));
+        assertEquals(125_000L, parse("1.25E-3"));
+        assertEquals(200_000_000L, parse("2E+0"));
+        assertEquals(0, parse("0e400"));
+    }
+
+    @Test
+    void roundsDigitsBeyondThePrecisionHalfUp() {
+        assertEquals(1, parse("0.000000005"));
+        assertEquals(0, parse("0.000000004999"));
+        assertEquals(123_456_789L, parse("1.234567885"));
+        assertEquals(0, parse("1e-20"));
+    }
+
+    @Test
+    void keepsTheLargestValuesThatFit() {
+        assertEquals(9_200_000_000_000_000_000L, parse("92000000000"));
+        assertEquals(9_223_372_036_854_775_800L, parse("92233720368.547758"));
+        // 18 significant digits are kept, the rest only count towards the magnitude
+        assertEquals(1_234_567_890_123_456_780L, parse("12345678901.23456789"));
+    }
+
+    @Test
+    void rejectsValuesTooLargeInsteadOfWrapping() {
+        assertThrows(NumberFormatException.class, () -> parse("100000000000"));
+        assertThrows(NumberFormatException.class, () -> parse("92233720369"));
+        assertThrows(NumberFormatException.class, () -> parse("-1e11"));
+        assertThrows(NumberFormatException.class, () -> parse("1e400"));
+        assertThrows(NumberFormatException.class, () -> parse("1.5x"));
+    }
+
+    @Test
+    void parsesWithinALargerBuffer() {
+        char[] buffer = "[0.5666,12.5]".toCharArray();
+        assertEquals(56_660_000L, FixedPoint.parse(buffer, 1, 6));
+        assertEquals(1_250_000_000L, FixedPoint.parse(buffer, 8, 4));
+    }
+
+    private static long parse(String text) {
+        return FixedPoint.parse(text.toCharArray(), 0, text.length());
+    }
+}
@@ -0,0 +1,161 @@
+package org.com.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTest {
+    private static final long TICK_MILLIS = 5;
+
+    private HashedTimingWheel wheel;
+
+    @AfterEach
+    void stopWheel() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    void firesEveryTimeoutInTickOrderAndNeverEarly() throws InterruptedException {
+        // 16 buckets of 5 ms: deadlines up to 400 ms ahead go round the wheel several times
+        wheel = new HashedTimingWheel("test-wheel", TICK_MILLIS, 16);
+        wheel.start();
+        long now = System.currentTimeMillis();
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            deadlines.add(now + 20 + i * 10L);
+        }
+        Collections.shuffle(deadlines, new Random(3));
+
+        List<long[]> fired = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(deadlines.size());
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, due -> {
+                fired.add(new long[]{due, System.currentTimeMillis()});
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS), done.getCount() + " timeouts never fired");
+
+        long previousTick = Long.MIN_VALUE;
+        for (long[] timeout : fired) {
+            assertTrue(timeout[1] >= timeout[0], "fired " + (timeout[0] - timeout[1]) + " ms early");
+            long tick = Math.floorDiv(timeout[0] + TICK_MILLIS - 1, TICK_MILLIS);
+            assertTrue(tick >= previousTick, "deadline " + timeout[0] + " fired out of order");
+            previousTick = tick;
+        }
+    }
+
+    @Test
+    void timeoutsLapsAheadWaitInTheirBucket() throws InterruptedException {
+        // 8 buckets of 5 ms is a 40 ms lap; the far timeout shares the near one's bucket four laps later
+        wheel = new HashedTimingWheel("test-wheel", TICK_MILLIS, 8);
+        wheel.start();
+        long near = (System.currentTimeMillis() / TICK_MILLIS + 10) * TICK_MILLIS;
+        long far = near + 4 * 8 * TICK_MILLIS;
+
+        List<Long> order = Collections.synchronizedList(new ArrayList<>());
+        long[] farFiredAt = new long[1];
+        CountDownLatch done = new CountDownLatch(2);
+        wheel.schedule(far, due -> {
+            farFiredAt[0] = System.currentTimeMillis();
+            order.add(due);
+            done.countDown();
+        });
+        wheel.schedule(near, due -> {
+            order.add(due);
+            done.countDown();
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        assertEquals(List.of(near, far), order);
+        assertTrue(farFiredAt[0] >= far, "fired a lap early");
+    }
+
+    @Test
+    void cancelledTimeoutsDoNotRun() throws InterruptedException {
+        wheel = new HashedTimingWheel("test-wheel", TICK_MILLIS, 16);
+        wheel.start();
+        long now = System.currentTimeMillis();
+        boolean[] ran = new boolean[1];
+        HashedTimingWheel.Timeout cancelled = wheel.schedule(now + 20, due -> ran[0] = true);
+        cancelled.cancel();
+        CountDownLatch later = new CountDownLatch(1);
+        wheel.schedule(now + 60, due -> later.countDown());
+
+        assertTrue(later.await(10, TimeUnit.SECONDS));
+        assertTrue(cancelled.isCancelled());
+        assertFalse(ran[0]);
+    }
+
+    @Test
+    void overdueTimeoutsFireOnTheNextTickWithTheirDeadline() throws InterruptedException {
+        wheel = new HashedTimingWheel("test-wheel", TICK_MILLIS, 16);
+        wheel.start();
+        long deadline = System.currentTimeMillis() - 10 * 60_000;
+        long[] received = new long[1];
+        CountDownLatch done = new CountDownLatch(1);
+        wheel.schedule(deadline, due -> {
+            received[0] = due;
+            done.countDown();
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(deadline, received[0]);
+    }
+
+    @Test
+    void overdueChainsCatchUpInOrderAfterALongTask() throws InterruptedException {
+        // Like the candle close: each timeout schedules the next deadline from its own, on the wheel thread
+        wheel = new HashedTimingWheel("test-wheel", TICK_MILLIS, 16);
+        wheel.start();
+        long first = System.currentTimeMillis() + 20;
+        int links = 10;
+        List<Long> fired = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(links);
+        wheel.schedule(first, new LongConsumer() {
+            @Override
+            public void accept(long due) {
+                fired.add(due);
+                threads.add(Thread.currentThread().getName());
+                if (fired.size() == 1) {
+                    // Stalls the wheel past the next several deadlines
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                done.countDown();
+                if (fired.size() < links) {
+                    wheel.schedule(due + 10, this);
+                }
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        for (int i = 0; i < links; i++) {
+            assertEquals(first + i * 10L, fired.get(i));
+            assertEquals("test-wheel", threads.get(i));
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel("test-wheel", 0, 16));
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel("test-wheel", TICK_MILLIS, 0));
+    }
+}